@@ -1,4 +1,4 @@
-// Copyright 2005, 2006, 2007, 2008, 2009, 2010, 2011, 2013, 2014, 2016, 2017, 2020, 2021, 2023, 2024, 2025 Global Virtual Airlines Group. All Rights Reserved.
+// Copyright 2005, 2006, 2007, 2008, 2009, 2010, 2011, 2013, 2014, 2016, 2017, 2020, 2021, 2023, 2024, 2025, 2026 Global Virtual Airlines Group. All Rights Reserved.
 package org.deltava.acars;
 
 import java.sql.Connection;
@@ -8,9 +8,13 @@ import java.util.*;
 import org.apache.logging.log4j.*;
 
 import org.deltava.acars.beans.*;
+import org.deltava.acars.jmx.*;
+import org.deltava.acars.util.AirportIndex;
 
 import org.deltava.acars.workers.*;
 
+import org.deltava.beans.schedule.Airport;
+
 import org.deltava.dao.*;
 
 import org.deltava.security.Authenticator;
@@ -109,7 +113,9 @@ public abstract class ServerDaemon implements Thread.UncaughtExceptionHandler {
  		try (Connection c = pool.getConnection()) {
             log.info("Loading Airports");
             GetAirport dao = new GetAirport(c);
-            SystemData.add("airports", dao.getAll());
+            Map<String, Airport> airports = dao.getAll();
+            SystemData.add("airports", airports);
+            AirportIndex.init(airports.values());
  		} catch (Exception de) {
  			log.error("Error loading Airports - {}", de.getMessage());
  		}
@@ -123,10 +129,27 @@ public abstract class ServerDaemon implements Thread.UncaughtExceptionHandler {
 		_conPool = new ACARSConnectionPool(SystemData.getInt("acars.pool.size"));
 		_conPool.setTimeout(SystemData.getInt("acars.timeout"));
 		_conPool.setMaxSelects(SystemData.getInt("acars.pool.maxSelect", 15000));
+		_conPool.setReadShards(SystemData.getInt("acars.pool.threads.read", 1));
 		SharedData.addData(SharedData.ACARS_POOL, _conPool);
 		
 		// Add to JMX
 		JMXUtils.register("org.gvagroup:type=UserPool,name=ACARS", new ConnectedUsersBeanImpl(_conPool));
+		MetricsRegistry.init();
+		
+		// Initialize message tracing
+		MessageTracer.init(SystemData.getInt("acars.trace.sample", 0), SystemData.getBoolean("acars.trace.jfr"));
+		if (MessageTracer.isEnabled()) {
+			log.info("Tracing one in {} reads", Integer.valueOf(SystemData.getInt("acars.trace.sample")));
+			MetricsRegistry.register("PipelineTrace", "Messages", new TraceMBeanImpl());
+		}
+ 	}
+ 	
+ 	/**
+ 	 * Creates the message processing worker.
+ 	 * @return a LogicProcessor
+ 	 */
+ 	protected LogicProcessor createLogicProcessor() {
+ 		return new LogicProcessor();
  	}
  	
  	/**
@@ -139,11 +162,13 @@ public abstract class ServerDaemon implements Thread.UncaughtExceptionHandler {
  		// Create the task container and the thread group
  		List<Worker> tasks = new ArrayList<Worker>();
  		tasks.add(new ConnectionHandler());
- 		tasks.add(new NetworkReader());
+ 		for (int x = 0; x < _conPool.getReadShards(); x++)
+ 			tasks.add(new NetworkReader(x));
 		tasks.add(new InputTranslator());
-		tasks.add(new LogicProcessor());
+		tasks.add(createLogicProcessor());
 		tasks.add(new OnlineStatusLoader());
 		tasks.add(new GeoLocator());
+		tasks.add(new PositionWriter());
 		tasks.add(new OutputDispatcher());
 		tasks.add(new BandwidthLogger());
 		tasks.add(new NetworkWriter());
@@ -12,6 +12,7 @@ import org.apache.logging.log4j.*;
 import org.deltava.dao.*;
 import org.deltava.mail.MailerDaemon;
 import org.deltava.acars.ipc.IPCDaemon;
+import org.deltava.acars.util.AirportIndex;
 
 import org.deltava.beans.flight.ETOPSHelper;
 import org.deltava.beans.navdata.Airspace;
@@ -195,6 +196,8 @@ public class SystemBootstrap implements ServletContextListener, Thread.UncaughtE
 			SystemData.add("airports", airports);
 			ETOPSHelper.init(airports.values());
 			log.info("Initialized ETOPS helper");
+			AirportIndex.init(airports.values());
+			log.info("Indexed {} Airports", Integer.valueOf(AirportIndex.size()));
 			
 			// Load prohibited airspace
 			log.info("Loading restricted Airspace");
@@ -4,8 +4,7 @@ package org.deltava.acars.beans;
 import java.io.*;
 import java.net.*;
 
-import java.nio.ByteBuffer;
-import java.nio.channels.*;
+import java.nio.channels.SelectableChannel;
 
 import java.util.Queue;
 import java.util.concurrent.*;
@@ -15,7 +14,6 @@ import org.deltava.beans.RemoteAddressBean;
 import org.deltava.beans.acars.ConnectionStats;
 
 import org.deltava.util.NetworkUtils;
-import org.deltava.util.system.SystemData;
 
 /**
  * An abstract class to store common NIO channel information.
@@ -39,16 +37,6 @@ abstract class ACARSChannel<T> implements RemoteAddressBean, Serializable, Close
 	 */
 	protected transient InetSocketAddress _remoteAddr;
 	
-	/**
-	 * Write selector.
-	 */
-	protected transient Selector _wSelector;
-	
-	/**
-	 * Output data buffer.
-	 */
-	protected transient final ByteBuffer _oBuffer = ByteBuffer.allocateDirect(SystemData.getInt("acars.buffer.nio"));
-	
 	/**
 	 * Connection statistics.
 	 */
@@ -62,7 +50,7 @@ abstract class ACARSChannel<T> implements RemoteAddressBean, Serializable, Close
 	}
 
 	/**
-	 * Closes the channel, clears the write buffer and releases the write selector.
+	 * Closes the channel and clears the write buffer.
 	 */
 	@Override
 	public void close() {
@@ -71,8 +59,6 @@ abstract class ACARSChannel<T> implements RemoteAddressBean, Serializable, Close
 				_outBuffer.clear();
 				_wLock.unlock();
 			}
-		
-			_wSelector.close();
 		} catch (Exception e) {
 			// empty
 		}
@@ -3,7 +3,9 @@ package org.deltava.acars.beans;
 
 import java.io.*;
 
+import java.nio.ByteBuffer;
 import java.nio.channels.*;
+import java.util.concurrent.atomic.*;
 
 import org.apache.logging.log4j.*;
 
@@ -14,6 +16,7 @@ import org.deltava.beans.system.IPBlock;
 
 import org.deltava.acars.message.*;
 import org.deltava.acars.message.dispatch.ScopeInfoMessage;
+import org.deltava.acars.util.BroadcastPacket;
 
 import org.deltava.util.*;
 import org.deltava.util.system.SystemData;
@@ -67,6 +70,10 @@ public class ACARSConnection implements Comparable<ACARSConnection>, RemoteAddre
 	// Activity monitors
 	private final long _startTime = System.currentTimeMillis();
 	private long _timeOffset;
+	private final AtomicInteger _pendingMsgs = new AtomicInteger();
+	private final AtomicInteger _pendingOutput = new AtomicInteger();
+	private final AtomicReference<MessageEnvelope> _queuedPos = new AtomicReference<MessageEnvelope>();
+	private volatile boolean _isReadPaused;
 
 	/**
 	 * Creates a new ACARS connection.
@@ -112,14 +119,34 @@ public class ACARSConnection implements Comparable<ACARSConnection>, RemoteAddre
 	}
 	
 	/**
-	 * Registers this channel with a Selector.
+	 * Registers this channel with a Selector, attaching this connection to the SelectionKey.
 	 * @param s the Selector to register with
 	 * @throws ClosedChannelException if the registration failed
 	 */
 	void register(Selector s) throws ClosedChannelException {
 		SocketChannel sc = _tcp.getChannel();
 		if (sc.isOpen() && (sc.keyFor(s) == null))
-			sc.register(s, SelectionKey.OP_READ);
+			sc.register(s, _isReadPaused ? 0 : SelectionKey.OP_READ, this);
+	}
+	
+	/**
+	 * Returns whether reads from this connection have been paused.
+	 * @return TRUE if paused, otherwise FALSE
+	 */
+	public boolean isReadPaused() {
+		return _isReadPaused;
+	}
+	
+	/**
+	 * Pauses or resumes reads from this connection, by updating its interest in a read Selector.
+	 * @param s the Selector
+	 * @param isPaused TRUE to stop reading, FALSE to resume
+	 */
+	void setReadPaused(Selector s, boolean isPaused) {
+		_isReadPaused = isPaused;
+		SelectionKey k = _tcp.getChannel().keyFor(s);
+		if ((k != null) && k.isValid())
+			k.interestOps(isPaused ? 0 : SelectionKey.OP_READ);
 	}
 	
 	public int getFlightID() {
@@ -268,6 +295,10 @@ public class ACARSConnection implements Comparable<ACARSConnection>, RemoteAddre
 	public Compression getCompression() {
 		return _tcp.getCompression();
 	}
+	
+	public boolean isStreamingCompression() {
+		return _tcp.isStreamingCompression();
+	}
 
 	public void setFlightInfo(InfoMessage msg) {
 		_fInfo = msg;
@@ -288,6 +319,10 @@ public class ACARSConnection implements Comparable<ACARSConnection>, RemoteAddre
 	public void setCompression(Compression c) {
 		_tcp.setCompression(c);
 	}
+	
+	public void setStreamingCompression(boolean useDictionary) {
+		_tcp.setStreamingCompression(useDictionary);
+	}
 
 	public void setClientBuild(int bld, int beta) {
 		_clientBuild = Math.max(1, bld);
@@ -380,11 +415,20 @@ public class ACARSConnection implements Comparable<ACARSConnection>, RemoteAddre
 
 	/**
 	 * Reads a control message from the connection.
+	 * @param buf the read buffer to use
 	 * @return a message
 	 * @throws IOException if an I/O error occurs
 	 */
-	String read() throws IOException {
-		return _tcp.read();
+	String read(ByteBuffer buf) throws IOException {
+		return _tcp.read(buf);
+	}
+	
+	/**
+	 * Returns the next binary frame received by the last read.
+	 * @return the frame payload, or null if none
+	 */
+	byte[] readBinary() {
+		return _tcp.readBinary();
 	}
 	
 	/**
@@ -394,4 +438,123 @@ public class ACARSConnection implements Comparable<ACARSConnection>, RemoteAddre
 	public void write(String msg) {
 		_tcp.queue(msg);
 	}
-}
\ No newline at end of file
+	
+	/**
+	 * Queues encoded message data to be written.
+	 * @param data a binary frame including its header, or UTF-8 XML
+	 */
+	public void write(byte[] data) {
+		_tcp.queue(data);
+	}
+	
+	/**
+	 * Queues encoded message data shared with other connections to be written.
+	 * @param pkt the BroadcastPacket
+	 */
+	public void write(BroadcastPacket pkt) {
+		_tcp.queue(pkt);
+	}
+	
+	/**
+	 * Writes as much queued data as the socket will accept without blocking.
+	 * @return TRUE if all queued data has been written, otherwise FALSE
+	 */
+	public boolean flush() {
+		return _tcp.flush();
+	}
+	
+	/**
+	 * Returns whether this connection has queued data that has not been written.
+	 * @return TRUE if data is queued, otherwise FALSE
+	 */
+	public boolean hasPendingWrites() {
+		return _tcp.hasPendingWrites();
+	}
+	
+	/**
+	 * Returns the number of inbound messages from this connection queued for processing.
+	 * @return the number of messages
+	 * @see MessageEnvelope#isTracked()
+	 */
+	public int getPendingMessages() {
+		return _pendingMsgs.get();
+	}
+	
+	/**
+	 * Records that an inbound message from this connection has been queued for processing.
+	 */
+	public void addPendingMessage() {
+		_pendingMsgs.incrementAndGet();
+	}
+	
+	/**
+	 * Records that a queued inbound message from this connection has been processed.
+	 */
+	public void completePendingMessage() {
+		_pendingMsgs.decrementAndGet();
+	}
+	
+	/**
+	 * Returns the number of responses to this connection queued for the output dispatcher, which have not yet been formatted and pushed
+	 * to the raw output stack.
+	 * @return the number of responses
+	 */
+	public int getPendingOutput() {
+		return _pendingOutput.get();
+	}
+	
+	/**
+	 * Records that a response to this connection has been queued for the output dispatcher.
+	 */
+	public void addPendingOutput() {
+		_pendingOutput.incrementAndGet();
+	}
+	
+	/**
+	 * Records that queued responses to this connection have been pushed to the raw output stack.
+	 * @param count the number of responses
+	 */
+	public void completePendingOutput(int count) {
+		_pendingOutput.addAndGet(-count);
+	}
+	
+	/**
+	 * Records the most recent position report from this connection queued for processing.
+	 * @param env the MessageEnvelope
+	 * @return the MessageEnvelope for the previous position report if still queued, or null
+	 */
+	public MessageEnvelope setQueuedPosition(MessageEnvelope env) {
+		return _queuedPos.getAndSet(env);
+	}
+	
+	/**
+	 * Clears the queued position report, if it has not been replaced by a later one.
+	 * @param env the MessageEnvelope being processed
+	 */
+	public void clearQueuedPosition(MessageEnvelope env) {
+		_queuedPos.compareAndSet(env, null);
+	}
+	
+	/**
+	 * Returns how long the socket has not accepted any queued data.
+	 * @return the stall time in milliseconds, or zero if not stalled
+	 */
+	public long getWriteStallTime() {
+		return _tcp.getStallTime();
+	}
+	
+	/**
+	 * Registers or clears interest in this channel becoming writable with a Selector, attaching this connection to the SelectionKey.
+	 * @param s the Selector
+	 * @param isWrite TRUE to register interest in writes, otherwise FALSE
+	 * @throws ClosedChannelException if the channel is closed
+	 */
+	public void setWriteInterest(Selector s, boolean isWrite) throws ClosedChannelException {
+		SocketChannel sc = _tcp.getChannel();
+		SelectionKey k = sc.keyFor(s);
+		if ((k != null) && k.isValid())
+			k.interestOps(isWrite ? SelectionKey.OP_WRITE : 0);
+		else if (isWrite && sc.isOpen() && (k == null))
+			sc.register(s, SelectionKey.OP_WRITE, this);
+	}
+}
\ No newline at end of file
@@ -5,6 +5,7 @@ import java.io.*;
 import java.time.*;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.*;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -15,17 +16,21 @@ import org.apache.logging.log4j.*;
 import org.deltava.acars.ACARSException;
 
 import org.deltava.beans.Compression;
+import org.deltava.beans.GeoLocation;
 import org.deltava.beans.acars.*;
 
 import org.deltava.acars.message.*;
 
 import org.deltava.util.*;
 
+import org.deltava.acars.util.GeoIndex;
 import org.deltava.acars.util.RouteEntryHelper;
 import org.gvagroup.acars.ACARSAdminInfo;
 
 /**
- * A Connection Pool for ACARS Connections.
+ * A Connection Pool for ACARS Connections. Connections are stored in concurrent maps keyed by connection ID, user ID and source address,
+ * so lookups do not block. Changes to the pool are serialized, and keep the size, dispatcher and ATC counts up to date. Aircraft positions
+ * and dispatchers are also indexed, so range queries do not need to scan the pool.
  * @author Luke
  * @version 12.4
  * @since 1.0
@@ -44,23 +49,42 @@ public class ACARSConnectionPool implements ACARSAdminInfo<ACARSMapEntry>, Seria
 	private transient final Collection<ConnectionStats> _disConStats = new HashSet<ConnectionStats>();
 	
 	// Pools
-	private final Map<Long, ACARSConnection> _cons = new HashMap<Long, ACARSConnection>();
-	private final NavigableMap<String, ACARSConnection> _conLookup = new TreeMap<String, ACARSConnection>();
+	private final Map<Long, ACARSConnection> _cons = new ConcurrentHashMap<Long, ACARSConnection>();
+	private final Map<String, ACARSConnection> _userLookup = new ConcurrentHashMap<String, ACARSConnection>();
+	private final NavigableMap<String, ACARSConnection> _addrLookup = new ConcurrentSkipListMap<String, ACARSConnection>();
+	private transient final Map<Long, ACARSConnection> _dispatchers = new ConcurrentHashMap<Long, ACARSConnection>();
+	private transient final GeoIndex<Long, ACARSConnection> _positions = new GeoIndex<Long, ACARSConnection>(2);
 	
-	// Pool read/write locks
-	private transient final ReentrantReadWriteLock _lock = new ReentrantReadWriteLock(true);
-	private transient final Lock _r = _lock.readLock();
-	private transient final Lock _w = _lock.writeLock();
+	// Keys each connection was indexed with, and counters
+	private transient final Map<Long, PoolEntry> _entries = new HashMap<Long, PoolEntry>();
+	private transient final AtomicInteger _size = new AtomicInteger();
+	private transient final AtomicInteger _dspCount = new AtomicInteger();
+	private transient final AtomicInteger _atcCount = new AtomicInteger();
+	
+	// Pool update lock
+	private transient final Lock _w = new ReentrantLock();
 	
 	// Inactivity timeout/last run time
 	private long _inactivityTimeout = -1;
 	private long _inactivityLastRun = 0;
 
-	// The selector to use for non-blocking I/O reads and counters for select operations
-	private transient Selector _cSelector;
-	private int _selectCount;
+	// The selectors to use for non-blocking I/O reads and the maximum number of select operations
+	private transient ReadSelector[] _readers = { new ReadSelector(0) };
 	private int _maxSelects = Integer.MAX_VALUE;
 
+	private static final class PoolEntry {
+		private final String _addr;
+		private final String _userID;
+		private final ClientType _type;
+		
+		PoolEntry(ACARSConnection ac) {
+			super();
+			_addr = ac.getDataSourceAddr();
+			_userID = (ac.isAuthenticated() && !StringUtils.isEmpty(ac.getUserID())) ? ac.getUserID() : null;
+			_type = ac.getClientType();
+		}
+	}
+
 	/**
 	 * Creates a new ACARS Connection Pool.
 	 * @param maxSize the maximum size of the pool
@@ -71,16 +95,12 @@ public class ACARSConnectionPool implements ACARSAdminInfo<ACARSMapEntry>, Seria
 	}
 
 	/**
-	 * Returns all ACARS Connections.
+	 * Returns all ACARS Connections. This is a read-only view of the pool, not a copy, and reflects connections
+	 * added or removed while it is being iterated.
 	 * @return a Collection of ACARSConnection beans
 	 */
 	public Collection<ACARSConnection> getAll() {
-		try {
-			_r.lock();
-			return new LinkedHashSet<ACARSConnection>(_cons.values());
-		} finally {
-			_r.unlock();
-		}
+		return Collections.unmodifiableCollection(_cons.values());
 	}
 	
 	/**
@@ -89,12 +109,7 @@ public class ACARSConnectionPool implements ACARSAdminInfo<ACARSMapEntry>, Seria
 	 * @return a List of filtered ACARSConnection beans
 	 */
 	public Collection<ACARSConnection> getAll(Predicate<ACARSConnection> p) {
-		try {
-			_r.lock();
-			return _cons.values().stream().filter(p).collect(Collectors.toCollection(LinkedHashSet::new));
-		} finally {
-			_r.unlock();
-		}
+		return _cons.values().stream().filter(p).collect(Collectors.toCollection(LinkedHashSet::new));
 	}
 
 	/**
@@ -218,24 +233,34 @@ public class ACARSConnectionPool implements ACARSAdminInfo<ACARSMapEntry>, Seria
 		try {
 			_w.lock();
 			
-			// Remove existing entries
-			while (_conLookup.containsValue(c))
-				_conLookup.values().remove(c);
+			// Remove existing entries, since the connection may be added again once authenticated
+			unindex(c);
 			
 			// Check size
 			int size = (_maxSize == 0) ? -1 : size();
 			if (size >= _maxSize)
 				throw new ACARSException(String.format("Connection Pool full - %d connections", Integer.valueOf(size)));
 			
-			// Register the SocketChannel with the selector, wake it up if it's sleeping
-			_cSelector.wakeup();
-			c.register(_cSelector);
+			// Register the SocketChannel with the shard's selector, wake it up if it's sleeping
+			Selector s = _readers[getShard(c.getID())].getSelector();
+			s.wakeup();
+			c.register(s);
 			
 			// Add with different keys
+			PoolEntry pe = new PoolEntry(c);
+			_entries.put(Long.valueOf(c.getID()), pe);
 			_cons.put(Long.valueOf(c.getID()), c);
-			_conLookup.put(c.getDataSourceAddr(), c);
-			if (c.isAuthenticated() && !StringUtils.isEmpty(c.getUserID()))
-				_conLookup.put(c.getUserID(), c);
+			_addrLookup.put(pe._addr, c);
+			if (pe._userID != null)
+				_userLookup.put(pe._userID, c);
+			
+			// Update counters
+			_size.incrementAndGet();
+			if (pe._type == ClientType.DISPATCH) {
+				_dspCount.incrementAndGet();
+				_dispatchers.put(Long.valueOf(c.getID()), c);
+			} else if (pe._type == ClientType.ATC)
+				_atcCount.incrementAndGet();
 		} catch (ClosedChannelException cce) {
 			throw new ACARSException(cce);
 		} finally {
@@ -257,13 +282,16 @@ public class ACARSConnectionPool implements ACARSAdminInfo<ACARSMapEntry>, Seria
 		if (_inactivityTimeout == -1)
 			return disCons;
 		
-		// Check if we need to do another check
+		// Check if we need to do another check - only one reader thread needs to do this
 		long now = System.currentTimeMillis();
-		if ((now - _inactivityLastRun) <= 2500)
-			return disCons;
+		synchronized (_disConStats) {
+			if ((now - _inactivityLastRun) <= 2500)
+				return disCons;
+			
+			_inactivityLastRun = now;
+		}
 
 		// Loop through the channels
-		_inactivityLastRun = now;
 		for (ACARSConnection con : getAll()) {
 			// Calculate the inactivity timeout
 			boolean isAuth = con.isAuthenticated();
@@ -293,12 +321,7 @@ public class ACARSConnectionPool implements ACARSAdminInfo<ACARSMapEntry>, Seria
 	 * @return an ACARSConnection, or null if not found
 	 */
 	public ACARSConnection get(long id) {
-		try {
-			_r.lock();
-			return _cons.get(Long.valueOf(id));
-		} finally {
-			_r.unlock();
-		}
+		return _cons.get(Long.valueOf(id));
 	}
 	
 	/**
@@ -307,70 +330,131 @@ public class ACARSConnectionPool implements ACARSAdminInfo<ACARSMapEntry>, Seria
 	 * @return an ACARSConnection, or null if not found
 	 */
 	public ACARSConnection get(String id) {
-		try {
-			_r.lock();
-			ACARSConnection ac = _conLookup.get(id);
-			if (ac != null)
-				return ac;
-			
-			// Do a search for IP address without port
-			String key = _conLookup.ceilingKey(id);
-			if ((key != null) && key.startsWith(id))
-				return _conLookup.get(key);
+		ACARSConnection ac = _userLookup.get(id);
+		if (ac != null)
+			return ac;
+		
+		ac = _addrLookup.get(id);
+		if (ac != null)
+			return ac;
 			
-			return null;
-		} finally {
-			_r.unlock();
-		}
+		// Do a search for IP address without port
+		Map.Entry<String, ACARSConnection> me = _addrLookup.ceilingEntry(id);
+		return ((me != null) && me.getKey().startsWith(id)) ? me.getValue() : null;
 	}
 	
 	@Override
 	public int size() {
-		return getAll().size();
+		return _size.get();
 	}
 	
 	@Override
 	public boolean isDispatchOnline() {
-		return getAll().stream().anyMatch(ac -> ac.getIsDispatch());
+		return (_dspCount.get() > 0);
+	}
+	
+	/**
+	 * Returns the number of connected dispatchers.
+	 * @return the number of dispatch connections
+	 */
+	public int getDispatchCount() {
+		return _dspCount.get();
+	}
+	
+	/**
+	 * Returns all connected dispatchers. This is a read-only view of the pool, not a copy.
+	 * @return a Collection of ACARSConnection beans
+	 */
+	public Collection<ACARSConnection> getDispatchers() {
+		return Collections.unmodifiableCollection(_dispatchers.values());
+	}
+	
+	/**
+	 * Returns all aircraft within a given distance of a location.
+	 * @param loc the location
+	 * @param distance the distance in miles
+	 * @return a Collection of ACARSConnection beans, in no particular order
+	 */
+	public Collection<ACARSConnection> getWithin(GeoLocation loc, int distance) {
+		return _positions.within(loc, distance);
+	}
+	
+	/**
+	 * Returns the aircraft closest to a location.
+	 * @param loc the location
+	 * @param maxResults the maximum number of aircraft to return
+	 * @return a List of ACARSConnection beans, sorted by distance
+	 */
+	public List<ACARSConnection> getNearest(GeoLocation loc, int maxResults) {
+		return _positions.nearest(loc, maxResults);
+	}
+	
+	/**
+	 * Updates the position index with a connection's last position report. The connection is checked again after it has been
+	 * indexed, so that it cannot be left in the index if it was removed from the pool at the same time.
+	 * @param ac the ACARSConnection
+	 */
+	public void updatePosition(ACARSConnection ac) {
+		Long id = Long.valueOf(ac.getID());
+		PositionMessage pm = ac.getPosition();
+		if (pm != null)
+			_positions.put(id, ac, pm);
+		if ((pm == null) || !_cons.containsKey(id))
+			_positions.remove(id);
+	}
+	
+	/**
+	 * Returns the number of connected ATC clients.
+	 * @return the number of ATC connections
+	 */
+	public int getATCCount() {
+		return _atcCount.get();
 	}
 
 	/**
-	 * Reads data from the connection pool.
-	 * @return a Collection of TextEnvelope beans
+	 * Reads data from the connections in a shard of the connection pool.
+	 * @param shard the shard ID
+	 * @return a Collection of TextEnvelope and BinaryEnvelope beans
 	 */
-	public Collection<TextEnvelope> read() {
-		Collection<SelectionKey> keys = _cSelector.selectedKeys();
+	public Collection<Envelope<?>> read(int shard) {
+		ReadSelector rs = _readers[shard];
+		Collection<SelectionKey> keys = rs.getSelector().selectedKeys();
 		if ((keys == null) || keys.isEmpty())
 			return Collections.emptySet();
 
 		// Get the list of channels waiting for input
-		Collection<TextEnvelope> results = new ArrayList<TextEnvelope>(keys.size() + 1);
+		Collection<Envelope<?>> results = new ArrayList<Envelope<?>>(keys.size() + 1);
 		for (Iterator<SelectionKey> i = keys.iterator(); i.hasNext();) {
 			SelectionKey sKey = i.next();
 
 			// If the selection key is ready for reading, get the Connection and read
 			if (sKey.isValid() && sKey.isReadable()) {
-				ACARSConnection con = null;
-				try {
-					_r.lock();
-					SocketChannel ch = (SocketChannel) sKey.channel();
-					String srcAddr = NetworkUtils.getSourceAddress(ch.getRemoteAddress());
-					con = _conLookup.get(srcAddr);
-				} catch (IOException ie) {
-					log.error("Error fetching remote address - {}", sKey.channel());
-				} finally {
-					_r.unlock();
-				}
-
-				if (con != null) {
+				if (sKey.attachment() instanceof ACARSConnection con) {
 					try {
-						String msg = con.read();
+						MessageTrace mt = MessageTracer.start(con.getID(), System.nanoTime());
+						String msg = con.read(rs.getBuffer());
+						rs.getStatistics().read(rs.getBuffer().limit());
 						
 						// This may have multiple XML messages in it - the message parser will split them
 						if (msg != null) {
 							TextEnvelope env = new TextEnvelope(con.getUser(), msg, con.getID());
 							env.setVersion(con.getProtocolVersion());
+							if (mt != null)
+								env.addTrace(mt);
+							
+							results.add(env);
+						}
+						
+						// Add any binary frames
+						byte[] data = con.readBinary();
+						while (data != null) {
+							BinaryEnvelope env = new BinaryEnvelope(con.getUser(), data, con.getID());
+							env.setVersion(con.getProtocolVersion());
+							if (mt != null)
+								env.addTrace(mt);
+							
 							results.add(env);
+							data = con.readBinary();
 						}
 					} catch (IOException ie) {
 						con.close();
@@ -399,6 +483,17 @@ public class ACARSConnectionPool implements ACARSAdminInfo<ACARSMapEntry>, Seria
 		return results;
 	}
 
+	/**
+	 * Pauses or resumes reads from a connection. This should only be called by the reader thread for the connection's shard.
+	 * @param c the ACARSConnection
+	 * @param isPaused TRUE to stop reading from the connection, FALSE to resume
+	 */
+	public void setReadPaused(ACARSConnection c, boolean isPaused) {
+		Selector s = _readers[getShard(c.getID())].getSelector();
+		if (s != null)
+			c.setReadPaused(s, isPaused);
+	}
+
 	/**
 	 * Removes a connection from the pool.
 	 * @param c the ACARSConnection to remove
@@ -407,34 +502,54 @@ public class ACARSConnectionPool implements ACARSAdminInfo<ACARSMapEntry>, Seria
 		try {
 			_w.lock();
 			c.close();
-			while (_cons.containsValue(c))
-				_cons.values().remove(c);
-			while (_conLookup.containsValue(c))
-				_conLookup.values().remove(c);
+			unindex(c);
 		} finally {
 			_w.unlock();
 		}
 	}
+	
+	/*
+	 * Removes a connection from the indexes and updates the counters. The caller must hold the update lock.
+	 */
+	private void unindex(ACARSConnection c) {
+		Long id = Long.valueOf(c.getID());
+		PoolEntry pe = _entries.remove(id);
+		if (pe == null) return;
+		
+		_cons.remove(id, c);
+		_addrLookup.remove(pe._addr, c);
+		if (pe._userID != null)
+			_userLookup.remove(pe._userID, c);
+		
+		_positions.remove(id);
+		_size.decrementAndGet();
+		if (pe._type == ClientType.DISPATCH) {
+			_dspCount.decrementAndGet();
+			_dispatchers.remove(id, c);
+		} else if (pe._type == ClientType.ATC)
+			_atcCount.decrementAndGet();
+	}
 
 	/**
-	 * Recycles the read selector.
+	 * Recycles the read selector for a shard of the connection pool.
+	 * @param shard the shard ID
 	 * @throws IOException if an I/O error occurs
 	 */
-	public void updateSelector() throws IOException {
-		if (_cSelector != null)
-			log.info("Updating Read Selector after {} selects", Integer.valueOf(_selectCount));
+	public void updateSelector(int shard) throws IOException {
+		ReadSelector rs = _readers[shard];
+		if (rs.getSelector() != null)
+			log.info("Updating Read Selector #{} after {} selects", Integer.valueOf(shard), Integer.valueOf(rs.getSelectCount()));
 		
 		Selector s = null;
 		try {
 			_w.lock();
 			s = Selector.open();
-			for (ACARSConnection ac : _cons.values())
-				ac.register(s);
+			for (ACARSConnection ac : _cons.values()) {
+				if (getShard(ac.getID()) == shard)
+					ac.register(s);
+			}
 			
-			if (_cSelector != null)
-				_cSelector.close();
-			_cSelector = s;
-			_selectCount = 0;
+			rs.setSelector(s);
 		} catch (Exception e) {
 			if (s != null) s.close();
 		} finally {
@@ -443,26 +558,64 @@ public class ACARSConnectionPool implements ACARSAdminInfo<ACARSMapEntry>, Seria
 	}
 	
 	/**
-	 * Waits for data to be available for reading on any connection.
+	 * Waits for data to be available for reading on any connection in a shard of the connection pool.
+	 * @param shard the shard ID
 	 * @param timeout the timeout in milliseconds
 	 * @return the number of connections with data ready to be read 
 	 * @throws IOException if an I/O error occurs
 	 */
-	public int select(long timeout) throws IOException {
-		if (_selectCount > _maxSelects)
-			updateSelector();
+	public int select(int shard, long timeout) throws IOException {
+		ReadSelector rs = _readers[shard];
+		if (rs.getSelectCount() > _maxSelects)
+			updateSelector(shard);
 		
-		_selectCount++;
-		return _cSelector.select(timeout);
+		return rs.select(timeout);
 	}
 	
 	/**
-	 * Returns the number of select operations that have been performed on the current Selector.
+	 * Returns the number of select operations that have been performed on the current Selectors.
 	 * @return the number of selects
 	 */
 	@Override
 	public int getSelectCount() {
-		return _selectCount;
+		return Arrays.stream(_readers).mapToInt(ReadSelector::getSelectCount).sum();
+	}
+	
+	/**
+	 * Returns the number of select operations that have been performed on the current Selector for a shard of the connection pool.
+	 * @param shard the shard ID
+	 * @return the number of selects
+	 */
+	public int getSelectCount(int shard) {
+		return _readers[shard].getSelectCount();
+	}
+	
+	/**
+	 * Returns the cumulative read statistics for a shard of the connection pool.
+	 * @param shard the shard ID
+	 * @return a SelectorStats bean
+	 */
+	public SelectorStats getReadStatistics(int shard) {
+		return _readers[shard].getStatistics();
+	}
+	
+	/**
+	 * Returns the number of read shards. Each shard has its own Selector and is serviced by its own reader thread.
+	 * @return the number of shards
+	 */
+	public int getReadShards() {
+		return _readers.length;
+	}
+	
+	/**
+	 * Returns the read shard for a connection.
+	 * @param conID the connection ID
+	 * @return the shard ID
+	 */
+	public int getShard(long conID) {
+		if (_readers.length == 1) return 0;
+		long h = conID * 0x9E3779B97F4A7C15L; // mix the bits, since connection IDs may not be evenly distributed
+		return Math.floorMod(h ^ (h >>> 32), _readers.length);
 	}
 
 	/**
@@ -482,4 +635,18 @@ public class ACARSConnectionPool implements ACARSAdminInfo<ACARSMapEntry>, Seria
 	public void setMaxSelects(int maxSelects) {
 		_maxSelects = (maxSelects < 1) ? Integer.MAX_VALUE : maxSelects;
 	}
-}
\ No newline at end of file
+	
+	/**
+	 * Sets the number of read shards. This must be called before any connections are added to the pool.
+	 * @param shards the number of shards
+	 * @throws IllegalStateException if connections have already been added
+	 */
+	public void setReadShards(int shards) {
+		if (!_cons.isEmpty())
+			throw new IllegalStateException("Cannot shard a non-empty connection pool");
+		
+		_readers = new ReadSelector[Math.max(1, shards)];
+		for (int x = 0; x < _readers.length; x++)
+			_readers[x] = new ReadSelector(x);
+	}
+}
\ No newline at end of file
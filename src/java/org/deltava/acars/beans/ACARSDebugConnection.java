@@ -4,8 +4,11 @@ package org.deltava.acars.beans;
 import java.io.*;
 import java.net.*;
 
+import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
 
+import org.deltava.acars.util.BroadcastPacket;
+
 /**
  * An ACARS Connection that dumps messages to a text file.
  * @author Luke
@@ -47,8 +50,8 @@ public class ACARSDebugConnection extends ACARSConnection {
 	}
 
 	@Override
-	String read() throws IOException {
-		String msg = super.read();
+	String read(ByteBuffer buf) throws IOException {
+		String msg = super.read(buf);
 
 		// Dump the message
 		_debugWriter.println("-- in " + java.time.Instant.now());
@@ -66,4 +69,31 @@ public class ACARSDebugConnection extends ACARSConnection {
 		super.write(msg);
 		_debugWriter.flush();
 	}
-}
\ No newline at end of file
+	
+	@Override
+	public final void write(byte[] data) {
+		log(data);
+		super.write(data);
+		_debugWriter.flush();
+	}
+	
+	@Override
+	public final void write(BroadcastPacket pkt) {
+		log(pkt.getData());
+		super.write(pkt);
+		_debugWriter.flush();
+	}
+	
+	/*
+	 * Dumps outbound XML or binary data.
+	 */
+	private void log(byte[] data) {
+		_debugWriter.println("-- out " + java.time.Instant.now());
+		if ((data.length > 0) && (data[0] == '<'))
+			_debugWriter.println(new String(data, java.nio.charset.StandardCharsets.UTF_8));
+		else
+			_debugWriter.println("[" + data.length + " bytes binary]");
+		
+		_debugWriter.println();
+	}
+}
\ No newline at end of file
@@ -0,0 +1,50 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.beans;
+
+import org.deltava.beans.Pilot;
+
+/**
+ * An envelope for encoded message data, either binary protocol frames or UTF-8 XML.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+public class BinaryEnvelope extends Envelope<byte[]> implements OutputEnvelope {
+	
+	private int _version;
+
+	/**
+	 * Initializes the Envelope.
+	 * @param usrInfo the author's Pilot object
+	 * @param data the binary data
+	 * @param conID the Connection ID
+	 */
+	public BinaryEnvelope(Pilot usrInfo, byte[] data, long conID) {
+		super(data, usrInfo, System.nanoTime(), conID);
+	}
+	
+	/**
+	 * Returns the protocol version.
+	 * @return the protocol version
+	 */
+	public int getVersion() {
+		return _version;
+	}
+
+	/**
+	 * Updates the protocol version.
+	 * @param version the protocol version
+	 */
+	public void setVersion(int version) {
+		_version = Math.max(1, version);
+	}
+	
+	/**
+	 * Updates the envelope timestamp.
+	 * @param time the timestamp
+	 */
+	public void setTime(long time) {
+		_timeStamp = time;
+	}
+}
@@ -0,0 +1,37 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.beans;
+
+import java.util.Collection;
+
+import org.deltava.acars.message.Message;
+
+/**
+ * An Envelope for a Message sent to several connections. The Message is formatted once for each protocol version in use by the
+ * recipients, rather than once per recipient.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+public class BroadcastEnvelope extends MessageEnvelope {
+
+	private final long[] _conIDs;
+
+	/**
+	 * Initializes the Envelope.
+	 * @param msgData the Message
+	 * @param cons the recipient ACARSConnections
+	 */
+	public BroadcastEnvelope(Message msgData, Collection<ACARSConnection> cons) {
+		super(msgData, 0);
+		_conIDs = cons.stream().mapToLong(ACARSConnection::getID).toArray();
+	}
+
+	/**
+	 * Returns the recipient connection IDs.
+	 * @return an array of connection IDs
+	 */
+	public long[] getConnectionIDs() {
+		return _conIDs;
+	}
+}
@@ -0,0 +1,27 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.beans;
+
+import org.deltava.beans.Pilot;
+
+import org.deltava.acars.util.BroadcastPacket;
+
+/**
+ * An envelope for encoded message data shared with other connections.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+public class BroadcastPacketEnvelope extends Envelope<BroadcastPacket> implements OutputEnvelope {
+
+	/**
+	 * Initializes the Envelope.
+	 * @param usrInfo the recipient's Pilot object
+	 * @param pkt the shared BroadcastPacket
+	 * @param conID the Connection ID
+	 * @param time the message timestamp
+	 */
+	public BroadcastPacketEnvelope(Pilot usrInfo, BroadcastPacket pkt, long conID, long time) {
+		super(pkt, usrInfo, time, conID);
+	}
+}
@@ -1,6 +1,8 @@
-// Copyright 2004, 2005, 2006, 2007, 2008, 2009, 2010, 2016, 2017, 2018 Global Virtual Airlines Group. All Rights Reserved.
+// Copyright 2004, 2005, 2006, 2007, 2008, 2009, 2010, 2016, 2017, 2018, 2026 Global Virtual Airlines Group. All Rights Reserved.
 package org.deltava.acars.beans;
 
+import java.util.*;
+
 import org.deltava.beans.Pilot;
 import org.deltava.util.StringUtils;
 import org.deltava.acars.message.Message;
@@ -8,7 +10,7 @@ import org.deltava.acars.message.Message;
 /**
  * An Envelope is a bean used to link data with sender/addressee information.
  * @author Luke
- * @version 8.3
+ * @version 12.4
  * @since 1.0
  * @param <T>  the envelope type
  */
@@ -25,6 +27,7 @@ public abstract class Envelope<T> implements Comparable<Envelope<T>> {
 	private final Pilot _owner;
 	private final long _cid;
 	private boolean _critical;
+	private List<MessageTrace> _traces;
 
 	/**
 	 * Initializes the envelope.
@@ -93,6 +96,33 @@ public abstract class Envelope<T> implements Comparable<Envelope<T>> {
 		_critical = isCritical;
 	}
 	
+	/**
+	 * Returns the lifecycle trace for this Envelope's payload.
+	 * @return the first MessageTrace, or null if not traced
+	 */
+	public MessageTrace getTrace() {
+		return (_traces == null) ? null : _traces.get(0);
+	}
+	
+	/**
+	 * Returns the lifecycle traces for the messages in this Envelope's payload.
+	 * @return a Collection of MessageTraces
+	 */
+	public Collection<MessageTrace> getTraces() {
+		return (_traces == null) ? Collections.emptyList() : _traces;
+	}
+	
+	/**
+	 * Adds a lifecycle trace for a message in this Envelope's payload.
+	 * @param mt the MessageTrace
+	 */
+	public void addTrace(MessageTrace mt) {
+		if (_traces == null)
+			_traces = new ArrayList<MessageTrace>(2);
+		
+		_traces.add(mt);
+	}
+	
 	/**
 	 * Returns the Envelope payload.
 	 * @return the payload
@@ -0,0 +1,164 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.beans;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.*;
+
+/**
+ * A lock-free latency histogram with fixed memory use. Latencies are recorded in microseconds into logarithmic buckets with 16 linear
+ * sub-buckets per power of two, so percentiles are accurate to within about 6% up to 35 minutes. Each thread records into one of several
+ * stripes selected by its thread ID, so concurrent recorders rarely touch the same counters. The histogram covers a rolling window of
+ * between one and two intervals, kept as two generations that are swapped once the interval has passed.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+public class LatencyHistogram {
+
+	private static final int LINEAR = 32;
+	private static final int SUB_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+	private static final int MAX_EXP = 31;
+
+	/**
+	 * The number of buckets.
+	 */
+	static final int BUCKETS = LINEAR + ((MAX_EXP - SUB_BITS) << SUB_BITS);
+
+	private static final int MAX_IDX = BUCKETS;
+	private static final int TOTAL_IDX = BUCKETS + 1;
+	private static final int STRIDE = BUCKETS + 2;
+	private static final int STRIPES;
+	static {
+		int cpus = Runtime.getRuntime().availableProcessors();
+		STRIPES = (cpus <= 1) ? 1 : Math.min(8, Integer.highestOneBit(cpus - 1) << 1);
+	}
+
+	private final long _interval;
+	private final int _stripes;
+	private final AtomicLongArray[] _gens;
+	private final AtomicLong _nextRoll;
+	private volatile int _cur;
+
+	/**
+	 * Creates the histogram.
+	 * @param interval the rolling window interval in milliseconds, or zero to record all latencies until cleared
+	 */
+	public LatencyHistogram(long interval) {
+		this(interval, STRIPES);
+	}
+
+	/**
+	 * Creates the histogram with a fixed number of stripes. Histograms that are rarely updated concurrently can use a single stripe to save memory.
+	 * @param interval the rolling window interval in milliseconds, or zero to record all latencies until cleared
+	 * @param stripes the maximum number of stripes, rounded down to a power of two
+	 */
+	public LatencyHistogram(long interval, int stripes) {
+		super();
+		_interval = TimeUnit.MILLISECONDS.toNanos(Math.max(0, interval));
+		_stripes = Integer.highestOneBit(Math.max(1, Math.min(STRIPES, stripes)));
+		_gens = new AtomicLongArray[] { new AtomicLongArray(_stripes * STRIDE), new AtomicLongArray(_stripes * STRIDE) };
+		_nextRoll = new AtomicLong(System.nanoTime() + _interval);
+	}
+
+	/**
+	 * Returns the bucket for a latency.
+	 * @param us the latency in microseconds
+	 * @return the bucket index
+	 */
+	static int index(long us) {
+		if (us < LINEAR)
+			return (int) Math.max(0, us);
+
+		int exp = 63 - Long.numberOfLeadingZeros(us);
+		if (exp > MAX_EXP)
+			return BUCKETS - 1;
+
+		int shift = exp - SUB_BITS;
+		return LINEAR + ((shift - 1) << SUB_BITS) + (int) ((us >>> shift) - SUB_BUCKETS);
+	}
+
+	/**
+	 * Returns the highest latency recorded in a bucket.
+	 * @param idx the bucket index
+	 * @return the latency in microseconds
+	 */
+	static long value(int idx) {
+		if (idx < LINEAR)
+			return idx;
+
+		int shift = ((idx - LINEAR) >> SUB_BITS) + 1;
+		long m = ((idx - LINEAR) & (SUB_BUCKETS - 1)) + SUB_BUCKETS;
+		return ((m + 1) << shift) - 1;
+	}
+
+	/*
+	 * Swaps the generations if the interval has passed. The older generation is cleared and becomes the current one.
+	 */
+	private void roll(long now) {
+		if (_interval == 0) return;
+		long next = _nextRoll.get();
+		if (((now - next) < 0) || !_nextRoll.compareAndSet(next, now + _interval))
+			return;
+
+		int prev = _cur ^ 1;
+		clear(_gens[prev]);
+		if ((now - next) >= _interval)
+			clear(_gens[_cur]);
+
+		_cur = prev;
+	}
+
+	/*
+	 * Resets a generation's counters.
+	 */
+	private static void clear(AtomicLongArray gen) {
+		for (int x = 0; x < gen.length(); x++)
+			gen.set(x, 0);
+	}
+
+	/**
+	 * Records a latency.
+	 * @param latency the latency in nanoseconds
+	 */
+	public void add(long latency) {
+		long us = Math.max(0, latency / 1000);
+		roll(System.nanoTime());
+		AtomicLongArray gen = _gens[_cur];
+		int base = ((int) Thread.currentThread().threadId() & (_stripes - 1)) * STRIDE;
+		gen.incrementAndGet(base + index(us));
+		gen.addAndGet(base + TOTAL_IDX, us);
+		if (us > gen.get(base + MAX_IDX))
+			gen.accumulateAndGet(base + MAX_IDX, us, Math::max);
+	}
+
+	/**
+	 * Clears the histogram.
+	 */
+	public void clear() {
+		clear(_gens[0]);
+		clear(_gens[1]);
+	}
+
+	/**
+	 * Returns the latency percentiles for the current window.
+	 * @return a LatencySnapshot
+	 */
+	public LatencySnapshot getSnapshot() {
+		roll(System.nanoTime());
+		long[] counts = new long[BUCKETS]; long max = 0; long total = 0;
+		for (AtomicLongArray gen : _gens) {
+			for (int s = 0; s < _stripes; s++) {
+				int base = s * STRIDE;
+				for (int x = 0; x < BUCKETS; x++)
+					counts[x] += gen.get(base + x);
+
+				max = Math.max(max, gen.get(base + MAX_IDX));
+				total += gen.get(base + TOTAL_IDX);
+			}
+		}
+
+		return new LatencySnapshot(counts, max, total);
+	}
+}
@@ -0,0 +1,135 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.beans;
+
+import java.io.Serializable;
+
+import org.deltava.util.StringUtils;
+
+/**
+ * An immutable bean to store latency percentiles calculated from a {@link LatencyHistogram}.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+public class LatencySnapshot implements Serializable {
+
+	private final long _count;
+	private final long _mean;
+	private final long _p50;
+	private final long _p90;
+	private final long _p99;
+	private final long _p999;
+	private final long _max;
+
+	/**
+	 * Creates the snapshot.
+	 * @param counts the number of latencies in each histogram bucket
+	 * @param max the maximum latency in microseconds
+	 * @param total the sum of all latencies in microseconds
+	 */
+	LatencySnapshot(long[] counts, long max, long total) {
+		super();
+		long cnt = 0;
+		for (long c : counts)
+			cnt += c;
+
+		_count = cnt;
+		_max = max;
+		_mean = (cnt == 0) ? 0 : (total / cnt);
+		_p50 = percentile(counts, cnt, max, 0.5);
+		_p90 = percentile(counts, cnt, max, 0.9);
+		_p99 = percentile(counts, cnt, max, 0.99);
+		_p999 = percentile(counts, cnt, max, 0.999);
+	}
+
+	/*
+	 * Finds the bucket containing a percentile.
+	 */
+	private static long percentile(long[] counts, long cnt, long max, double pct) {
+		if (cnt == 0) return 0;
+		long rank = Math.max(1, (long) Math.ceil(cnt * pct)); long total = 0;
+		for (int x = 0; x < counts.length; x++) {
+			total += counts[x];
+			if (total >= rank)
+				return Math.min(LatencyHistogram.value(x), max);
+		}
+
+		return max;
+	}
+
+	/**
+	 * Returns the number of latencies recorded.
+	 * @return the number of latencies
+	 */
+	public long getCount() {
+		return _count;
+	}
+
+	/**
+	 * Returns the mean latency.
+	 * @return the latency in microseconds
+	 */
+	public long getMean() {
+		return _mean;
+	}
+
+	/**
+	 * Returns the median latency.
+	 * @return the latency in microseconds
+	 */
+	public long getP50() {
+		return _p50;
+	}
+
+	/**
+	 * Returns the 90th percentile latency.
+	 * @return the latency in microseconds
+	 */
+	public long getP90() {
+		return _p90;
+	}
+
+	/**
+	 * Returns the 99th percentile latency.
+	 * @return the latency in microseconds
+	 */
+	public long getP99() {
+		return _p99;
+	}
+
+	/**
+	 * Returns the 99.9th percentile latency.
+	 * @return the latency in microseconds
+	 */
+	public long getP999() {
+		return _p999;
+	}
+
+	/**
+	 * Returns the maximum latency.
+	 * @return the latency in microseconds
+	 */
+	public long getMax() {
+		return _max;
+	}
+
+	/*
+	 * Formats a latency in milliseconds.
+	 */
+	private static String format(long us) {
+		return StringUtils.format(us / 1000.0d, "0.00");
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder buf = new StringBuilder("p50 ");
+		buf.append(format(_p50));
+		buf.append(" / p90 ").append(format(_p90));
+		buf.append(" / p99 ").append(format(_p99));
+		buf.append(" / p99.9 ").append(format(_p999));
+		buf.append(" / max ").append(format(_max));
+		buf.append("ms (").append(_count).append(')');
+		return buf.toString();
+	}
+}
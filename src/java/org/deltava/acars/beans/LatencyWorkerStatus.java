@@ -1,37 +1,33 @@
-// Copyright 2007, 2008, 2011 Global Virtual Airlines Group. All Rights Reserved.
+// Copyright 2007, 2008, 2011, 2026 Global Virtual Airlines Group. All Rights Reserved.
 package org.deltava.acars.beans;
 
-import static java.util.concurrent.TimeUnit.*;
-
-import org.deltava.util.StringUtils;
-
 import org.gvagroup.ipc.WorkerStatus;
 
 /**
- * A Worker status bean with a latency monitor.
+ * A Worker status bean with a latency monitor. Latency percentiles over the last one to two minutes are appended to the status message.
  * @author Luke
- * @version 4.1
+ * @version 12.4
  * @since 2.0
  */
 
 public class LatencyWorkerStatus extends WorkerStatus {
 	
-	private final LatencyTracker _latency;
+	private static final long WINDOW = 60_000;
+	
+	private final LatencyHistogram _latency = new LatencyHistogram(WINDOW);
 
 	/**
 	 * Initializes the status bean.
 	 * @param name the worker name
 	 * @param sortOrder the sort ordering value
-	 * @param entries the number of entries to track latency history for
 	 */
-	public LatencyWorkerStatus(String name, int sortOrder, int entries) {
+	public LatencyWorkerStatus(String name, int sortOrder) {
 		super(name, sortOrder);
-		_latency = new LatencyTracker(entries);
 	}
 
 	/**
 	 * Adds an operation's latency.
-	 * @param latency the latency in milliseconds
+	 * @param latency the latency in nanoseconds
 	 */
 	public void add(long latency) {
 		_latency.add(latency);
@@ -45,15 +41,20 @@ public class LatencyWorkerStatus extends WorkerStatus {
 	}
 	
 	/**
-	 * Returns the message and average latency.
+	 * Returns the latency percentiles.
+	 * @return a LatencySnapshot
+	 */
+	public LatencySnapshot getLatency() {
+		return _latency.getSnapshot();
+	}
+	
+	/**
+	 * Returns the message and latency percentiles.
 	 */
 	@Override
-	public synchronized String getMessage() {
-		long us = MICROSECONDS.convert(_latency.getLatency(), NANOSECONDS);
-		StringBuilder buf = new StringBuilder(super.getMessage());
-		buf.append(" - average latency ");
-		buf.append(StringUtils.format(us / 1000.0d, "0.00"));
-		buf.append("ms");
-		return buf.toString();
+	public String getMessage() {
+		LatencySnapshot ls = _latency.getSnapshot();
+		String msg = super.getMessage();
+		return (ls.getCount() == 0) ? msg : msg + " - latency " + ls;
 	}
 }
\ No newline at end of file
@@ -1,4 +1,4 @@
-// Copyright 2006, 2008 Global Virtual Airlines Group. All Rights Reserved.
+// Copyright 2006, 2008, 2026 Global Virtual Airlines Group. All Rights Reserved.
 package org.deltava.acars.beans;
 
 import org.deltava.acars.message.Message;
@@ -6,11 +6,14 @@ import org.deltava.acars.message.Message;
 /**
  * An Envelope for Message beans.
  * @author Luke
- * @version 2.2
+ * @version 12.4
  * @since 1.0
  */
 
 public class MessageEnvelope extends Envelope<Message> {
+	
+	private boolean _isTracked;
+	private volatile boolean _isSuperseded;
 
 	/**
 	 * Initializes the Envelope.
@@ -20,4 +23,40 @@ public class MessageEnvelope extends Envelope<Message> {
 	public MessageEnvelope(Message msgData, long conID) {
 		super(msgData, msgData.getSender(), msgData.getTime(), conID);
 	}
-}
\ No newline at end of file
+	
+	/**
+	 * Returns whether this Envelope is counted in its connection's pending messages, and must be marked as complete once processed. An
+	 * outbound Envelope is instead counted in its connection's pending output until it has been formatted.
+	 * @return TRUE if tracked, otherwise FALSE
+	 * @see ACARSConnection#completePendingMessage()
+	 * @see ACARSConnection#completePendingOutput(int)
+	 */
+	public boolean isTracked() {
+		return _isTracked;
+	}
+	
+	/**
+	 * Marks this Envelope as counted in its connection's pending messages or output.
+	 * @param isTracked TRUE if tracked, otherwise FALSE
+	 */
+	public void setTracked(boolean isTracked) {
+		_isTracked = isTracked;
+	}
+	
+	/**
+	 * Returns whether a later message from the same connection has replaced this one, so it does not need to be processed.
+	 * @return TRUE if superseded, otherwise FALSE
+	 * @see ACARSConnection#setQueuedPosition(MessageEnvelope)
+	 */
+	public boolean isSuperseded() {
+		return _isSuperseded;
+	}
+	
+	/**
+	 * Marks this Envelope as replaced by a later message from the same connection.
+	 * @param isSuperseded TRUE if superseded, otherwise FALSE
+	 */
+	public void setSuperseded(boolean isSuperseded) {
+		_isSuperseded = isSuperseded;
+	}
+}
@@ -0,0 +1,147 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.beans;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.deltava.acars.message.MessageType;
+
+import org.deltava.util.StringUtils;
+
+/**
+ * A bean to record the time an inbound message reached each stage of the ACARS pipeline. A trace is created when a socket is read, and a copy
+ * is created for each message parsed from the data. The command processing the message holds a reference to the trace, as does each response
+ * envelope pushed back to the sender, and the trace is recorded by the {@link MessageTracer} once every reference has been released.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+public class MessageTrace {
+	
+	private static final TraceStage[] STAGES = TraceStage.values();
+
+	private final long _conID;
+	private final MessageType _type;
+	private final long[] _times = new long[STAGES.length];
+	private final AtomicInteger _refs = new AtomicInteger(1);
+
+	/**
+	 * Creates a trace for a socket read.
+	 * @param conID the connection ID
+	 * @param readTime the read time in nanoseconds
+	 */
+	MessageTrace(long conID, long readTime) {
+		super();
+		_conID = conID;
+		_type = null;
+		_times[TraceStage.READ.ordinal()] = readTime;
+	}
+
+	/**
+	 * Creates a trace for a message parsed from a socket read.
+	 * @param mt the socket read's MessageTrace
+	 * @param type the MessageType
+	 */
+	MessageTrace(MessageTrace mt, MessageType type) {
+		super();
+		_conID = mt._conID;
+		_type = type;
+		System.arraycopy(mt._times, 0, _times, 0, _times.length);
+	}
+
+	/**
+	 * Returns the ID of the connection the message was received from.
+	 * @return the connection ID
+	 */
+	public long getConnectionID() {
+		return _conID;
+	}
+
+	/**
+	 * Returns the type of the traced message.
+	 * @return the MessageType, or null if not yet parsed
+	 */
+	public MessageType getType() {
+		return _type;
+	}
+
+	/**
+	 * Returns the time the message reached a stage.
+	 * @param st the TraceStage
+	 * @return the time in nanoseconds, or zero if not reached
+	 */
+	public long getTime(TraceStage st) {
+		return _times[st.ordinal()];
+	}
+
+	/**
+	 * Returns the time spent reaching a stage from the previous stage.
+	 * @param st the TraceStage
+	 * @return the time in nanoseconds, or -1 if either stage was not reached
+	 */
+	public long getElapsed(TraceStage st) {
+		if (st.ordinal() == 0) return -1;
+		long start = _times[st.ordinal() - 1]; long end = _times[st.ordinal()];
+		return ((start == 0) || (end == 0)) ? -1 : Math.max(0, end - start);
+	}
+
+	/**
+	 * Returns the time from the socket read to the last stage reached.
+	 * @return the time in nanoseconds
+	 */
+	public long getTotal() {
+		for (int x = _times.length - 1; x > 0; x--) {
+			if (_times[x] != 0)
+				return Math.max(0, _times[x] - _times[0]);
+		}
+
+		return 0;
+	}
+
+	/**
+	 * Records the current time for a stage, if the stage has not already been reached.
+	 * @param st the TraceStage
+	 */
+	public void stamp(TraceStage st) {
+		stamp(st, System.nanoTime());
+	}
+
+	/**
+	 * Records the time for a stage, if the stage has not already been reached.
+	 * @param st the TraceStage
+	 * @param time the time in nanoseconds
+	 */
+	public void stamp(TraceStage st, long time) {
+		if (_times[st.ordinal()] == 0)
+			_times[st.ordinal()] = time;
+	}
+
+	/**
+	 * Adds a reference to this trace, unless it has already been recorded.
+	 * @return TRUE if a reference was added, otherwise FALSE
+	 */
+	public boolean retain() {
+		return (_refs.getAndUpdate(r -> (r > 0) ? (r + 1) : r) > 0);
+	}
+
+	/**
+	 * Releases a reference to this trace.
+	 * @return TRUE if this was the last reference, otherwise FALSE
+	 */
+	boolean release() {
+		return (_refs.decrementAndGet() == 0);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder buf = new StringBuilder(String.valueOf(_type));
+		for (int x = 1; x < STAGES.length; x++) {
+			long elapsed = getElapsed(STAGES[x]);
+			if (elapsed >= 0)
+				buf.append(' ').append(STAGES[x].getSegment()).append(' ').append(StringUtils.format(elapsed / 1_000_000d, "0.00"));
+		}
+
+		buf.append(" / total ").append(StringUtils.format(getTotal() / 1_000_000d, "0.00")).append("ms");
+		return buf.toString();
+	}
+}
@@ -0,0 +1,72 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.beans;
+
+import jdk.jfr.*;
+
+/**
+ * A JDK Flight Recorder event for a completed ACARS message trace.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+@Name("org.deltava.acars.MessageTrace")
+@Label("ACARS Message Trace")
+@Category("ACARS")
+@Description("Time spent by an inbound message in each stage of the ACARS pipeline")
+@StackTrace(false)
+class MessageTraceEvent extends Event {
+
+	@Label("Message Type")
+	String messageType;
+
+	@Label("Connection ID")
+	long connectionID;
+
+	@Label("Frame")
+	@Timespan(Timespan.NANOSECONDS)
+	long frame;
+
+	@Label("Parse")
+	@Timespan(Timespan.NANOSECONDS)
+	long parse;
+
+	@Label("Queue")
+	@Timespan(Timespan.NANOSECONDS)
+	long queue;
+
+	@Label("Command")
+	@Timespan(Timespan.NANOSECONDS)
+	long command;
+
+	@Label("Format")
+	@Timespan(Timespan.NANOSECONDS)
+	long format;
+
+	@Label("Write")
+	@Timespan(Timespan.NANOSECONDS)
+	long write;
+
+	@Label("Total")
+	@Timespan(Timespan.NANOSECONDS)
+	long total;
+
+	/**
+	 * Emits an event for a completed trace, if Flight Recorder is recording these events.
+	 * @param mt the MessageTrace
+	 */
+	static void emit(MessageTrace mt) {
+		MessageTraceEvent e = new MessageTraceEvent();
+		if (!e.isEnabled()) return;
+		e.messageType = String.valueOf(mt.getType());
+		e.connectionID = mt.getConnectionID();
+		e.frame = mt.getElapsed(TraceStage.FRAME);
+		e.parse = mt.getElapsed(TraceStage.PARSE);
+		e.queue = mt.getElapsed(TraceStage.COMMAND_START);
+		e.command = mt.getElapsed(TraceStage.COMMAND_END);
+		e.format = mt.getElapsed(TraceStage.FORMAT);
+		e.write = mt.getElapsed(TraceStage.WRITE);
+		e.total = mt.getTotal();
+		e.commit();
+	}
+}
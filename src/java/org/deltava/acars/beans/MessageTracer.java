@@ -0,0 +1,135 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.beans;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.*;
+
+import org.deltava.acars.message.MessageType;
+
+/**
+ * Samples inbound messages for lifecycle tracing, and aggregates completed {@link MessageTrace}s into per-message type latency histograms
+ * for each pipeline segment. Completed traces can also be emitted as JDK Flight Recorder events.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+public final class MessageTracer {
+	
+	private static final long WINDOW = 300_000;
+	private static final TraceStage[] STAGES = TraceStage.values();
+
+	private static volatile int _sample;
+	private static volatile boolean _isJFR;
+	private static final AtomicLong _reads = new AtomicLong();
+	private static final LongAdder _traced = new LongAdder();
+	private static final Map<MessageType, LatencyHistogram[]> _stats = new ConcurrentHashMap<MessageType, LatencyHistogram[]>();
+
+	// static class
+	private MessageTracer() {
+		super();
+	}
+
+	/**
+	 * Initializes message tracing.
+	 * @param sample trace one in every sample socket reads, or zero to disable tracing
+	 * @param isJFR TRUE to emit Flight Recorder events, otherwise FALSE
+	 */
+	public static void init(int sample, boolean isJFR) {
+		_sample = Math.max(0, sample);
+		_isJFR = isJFR;
+	}
+
+	/**
+	 * Returns whether message tracing is enabled.
+	 * @return TRUE if enabled, otherwise FALSE
+	 */
+	public static boolean isEnabled() {
+		return (_sample > 0);
+	}
+
+	/**
+	 * Starts a trace for a socket read, if it is sampled.
+	 * @param conID the connection ID
+	 * @param readTime the read time in nanoseconds
+	 * @return a MessageTrace, or null if not sampled
+	 */
+	public static MessageTrace start(long conID, long readTime) {
+		int sample = _sample;
+		if ((sample == 0) || ((_reads.getAndIncrement() % sample) != 0))
+			return null;
+
+		return new MessageTrace(conID, readTime);
+	}
+
+	/**
+	 * Starts a trace for a message parsed from a traced socket read.
+	 * @param env the Envelope that was parsed
+	 * @param menv the MessageEnvelope to trace
+	 * @param parseTime the time parsing completed in nanoseconds
+	 */
+	public static void trace(Envelope<?> env, MessageEnvelope menv, long parseTime) {
+		MessageTrace rt = env.getTrace();
+		if (rt == null) return;
+		MessageTrace mt = new MessageTrace(rt, menv.getMessage().getType());
+		mt.stamp(TraceStage.FRAME, env.getTime());
+		mt.stamp(TraceStage.PARSE, parseTime);
+		menv.addTrace(mt);
+	}
+
+	/**
+	 * Releases a reference to a trace, and records it once every reference has been released.
+	 * @param mt the MessageTrace, or null
+	 */
+	public static void release(MessageTrace mt) {
+		if ((mt == null) || !mt.release() || (mt.getType() == null)) return;
+		_traced.increment();
+		LatencyHistogram[] hs = _stats.computeIfAbsent(mt.getType(), _ -> {
+			LatencyHistogram[] results = new LatencyHistogram[STAGES.length];
+			for (int x = 0; x < results.length; x++)
+				results[x] = new LatencyHistogram(WINDOW, 1);
+
+			return results;
+		});
+
+		// Record the total in the first slot, since the first stage has no segment
+		hs[0].add(mt.getTotal());
+		for (int x = 1; x < STAGES.length; x++) {
+			long elapsed = mt.getElapsed(STAGES[x]);
+			if (elapsed >= 0)
+				hs[x].add(elapsed);
+		}
+
+		if (_isJFR)
+			MessageTraceEvent.emit(mt);
+	}
+
+	/**
+	 * Returns the number of traces recorded.
+	 * @return the number of traces
+	 */
+	public static long getTraced() {
+		return _traced.sum();
+	}
+
+	/**
+	 * Returns the message types with recorded traces.
+	 * @return a Collection of MessageTypes
+	 */
+	public static Collection<MessageType> getTypes() {
+		return new TreeSet<MessageType>(_stats.keySet());
+	}
+
+	/**
+	 * Returns the latency percentiles for the segment ending at a stage. The first stage returns the total time from the socket read
+	 * to the last stage reached.
+	 * @param mt the MessageType
+	 * @param st the TraceStage
+	 * @return a LatencySnapshot, or null if no traces of this type have been recorded
+	 */
+	public static LatencySnapshot getLatency(MessageType mt, TraceStage st) {
+		LatencyHistogram[] hs = _stats.get(mt);
+		return (hs == null) ? null : hs[st.ordinal()].getSnapshot();
+	}
+}
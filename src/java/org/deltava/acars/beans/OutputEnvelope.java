@@ -1,11 +1,13 @@
-// Copyright 2011 Global Virtual Airlines Group. All Rights Reserved.
+// Copyright 2011, 2026 Global Virtual Airlines Group. All Rights Reserved.
 package org.deltava.acars.beans;
 
+import java.util.Collection;
+
 /**
  * An interface to describe Envelopes that can be handled by
  * the Network Writer worker. 
  * @author Luke
- * @version 4.0
+ * @version 12.4
  * @since 4.0
  */
 
@@ -34,4 +36,10 @@ public interface OutputEnvelope {
 	 * @return the payload
 	 */
 	public Object getMessage();
+	
+	/**
+	 * Returns the lifecycle traces for the messages in this Envelope.
+	 * @return a Collection of MessageTraces
+	 */
+	public Collection<MessageTrace> getTraces();
 }
\ No newline at end of file
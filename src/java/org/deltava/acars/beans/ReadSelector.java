@@ -0,0 +1,107 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.beans;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Selector;
+
+import org.deltava.util.system.SystemData;
+
+/**
+ * A read Selector for a shard of ACARS connections. Each shard is serviced by a single reader thread, which owns the Selector
+ * and the read buffer shared by every connection in the shard.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+class ReadSelector implements Closeable {
+
+	private final int _id;
+	private Selector _s;
+	private int _selectCount;
+	private final SelectorStats _stats = new SelectorStats();
+
+	private final ByteBuffer _buf = ByteBuffer.allocateDirect(SystemData.getInt("acars.buffer.nio"));
+
+	/**
+	 * Creates the shard.
+	 * @param id the shard ID
+	 */
+	ReadSelector(int id) {
+		super();
+		_id = id;
+	}
+
+	/**
+	 * Returns the shard ID.
+	 * @return the ID
+	 */
+	public int getID() {
+		return _id;
+	}
+
+	/**
+	 * Returns the Selector.
+	 * @return the Selector, or null if not opened
+	 */
+	public Selector getSelector() {
+		return _s;
+	}
+
+	/**
+	 * Returns the read buffer.
+	 * @return the ByteBuffer
+	 */
+	public ByteBuffer getBuffer() {
+		return _buf;
+	}
+
+	/**
+	 * Returns the cumulative read statistics for this shard.
+	 * @return a SelectorStats bean
+	 */
+	public SelectorStats getStatistics() {
+		return _stats;
+	}
+
+	/**
+	 * Returns the number of select operations performed on the current Selector.
+	 * @return the number of selects
+	 */
+	public int getSelectCount() {
+		return _selectCount;
+	}
+
+	/**
+	 * Replaces the Selector, closing the existing one.
+	 * @param s the new Selector
+	 * @throws IOException if an I/O error occurs
+	 */
+	public void setSelector(Selector s) throws IOException {
+		Selector oldS = _s;
+		_s = s;
+		_selectCount = 0;
+		if (oldS != null)
+			oldS.close();
+	}
+
+	/**
+	 * Waits for data to be available for reading on any connection in this shard.
+	 * @param timeout the timeout in milliseconds
+	 * @return the number of connections with data ready to be read
+	 * @throws IOException if an I/O error occurs
+	 */
+	public int select(long timeout) throws IOException {
+		_selectCount++;
+		int ready = _s.select(timeout);
+		_stats.select(ready);
+		return ready;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (_s != null)
+			_s.close();
+	}
+}
@@ -0,0 +1,69 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.beans;
+
+/**
+ * A bean to store cumulative read statistics for a shard of the connection pool. The counters are only updated by the shard's reader thread,
+ * and are not reset when the shard's Selector is replaced.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+public class SelectorStats {
+
+	private volatile long _selects;
+	private volatile long _wakeups;
+	private volatile long _reads;
+	private volatile long _bytes;
+
+	/**
+	 * Records a select operation.
+	 * @param ready the number of connections with data ready to be read
+	 */
+	void select(int ready) {
+		_selects++;
+		if (ready > 0)
+			_wakeups++;
+	}
+
+	/**
+	 * Records a read from a connection.
+	 * @param bytes the number of bytes read
+	 */
+	void read(int bytes) {
+		_reads++;
+		_bytes += bytes;
+	}
+
+	/**
+	 * Returns the number of select operations.
+	 * @return the number of selects
+	 */
+	public long getSelects() {
+		return _selects;
+	}
+
+	/**
+	 * Returns the number of select operations that returned connections with data to read.
+	 * @return the number of selects
+	 */
+	public long getWakeups() {
+		return _wakeups;
+	}
+
+	/**
+	 * Returns the number of reads from connections.
+	 * @return the number of reads
+	 */
+	public long getReads() {
+		return _reads;
+	}
+
+	/**
+	 * Returns the number of bytes read.
+	 * @return the number of bytes
+	 */
+	public long getBytesRead() {
+		return _bytes;
+	}
+}
@@ -1,4 +1,4 @@
-// Copyright 2011, 2012, 2014, 2015, 2016, 2021, 2022, 2023 Global Virtual Airlines Group. All Rights Reserved.
+// Copyright 2011, 2012, 2014, 2015, 2016, 2021, 2022, 2023, 2026 Global Virtual Airlines Group. All Rights Reserved.
 package org.deltava.acars.beans;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
@@ -9,10 +9,12 @@ import java.io.IOException;
 import java.nio.*;
 import java.nio.channels.*;
 
+import java.util.*;
+import java.util.concurrent.locks.*;
+
 import org.apache.logging.log4j.*;
 
-import org.deltava.acars.util.DataCompressor;
-import org.deltava.acars.xml.ProtocolInfo;
+import org.deltava.acars.util.*;
 
 import org.deltava.beans.acars.ConnectionStats;
 
@@ -23,7 +25,7 @@ import org.deltava.util.system.SystemData;
 /**
  * An object to handle TCP control connections.
  * @author Luke
- * @version 11.1
+ * @version 12.4
  * @since 4.0
  */
 
@@ -33,13 +35,21 @@ public class TCPChannel extends ACARSChannel<String> {
 	
 	private transient static final String MAGIC_RESET_CODE = "</!ACARSReset>";
 	
-	// Input buffers
-	private transient final StringBuilder _msgBuffer = new StringBuilder();
-	private transient final ByteBuffer _iBuffer = ByteBuffer.allocateDirect(SystemData.getInt("acars.buffer.nio"));
+	/**
+	 * The time in milliseconds a client can stall before its queued output is discarded.
+	 */
+	public transient static final long WRITE_TIMEOUT = MAX_WRITE_ATTEMPTS * 225;
+	
+	// Output queue, written using gathering writes
+	private transient final Lock _qLock = new ReentrantLock();
+	private transient final Deque<ByteBuffer> _outQueue = new ArrayDeque<ByteBuffer>();
+	private transient final ByteBuffer[] _wBuffers = new ByteBuffer[16];
+	private transient volatile long _stallTime;
 	
 	private transient final SocketChannel _sc;
 	
 	private transient final DataCompressor _compress = new DataCompressor();
+	private transient final MessageFramer _framer = new MessageFramer(SystemData.getInt("acars.buffer.nio"));
 	
 	/**
 	 * Creates a new TCP Channel.
@@ -51,9 +61,7 @@ public class TCPChannel extends ACARSChannel<String> {
 		super((InetSocketAddress) sc.getRemoteAddress());
 		_stats = new InternalConnectionStats("TCP-" + Long.toHexString(id));
 		_sc = sc;
-		_wSelector = Selector.open();
 		_sc.configureBlocking(false);
-		_sc.register(_wSelector, SelectionKey.OP_WRITE);
 		updateLastActivity();
 	}
 	
@@ -82,6 +90,13 @@ public class TCPChannel extends ACARSChannel<String> {
 	@Override
 	public void close() {
 		super.close();
+		_qLock.lock();
+		try {
+			_outQueue.clear();
+		} finally {
+			_qLock.unlock();
+		}
+		
 		try {
 			_sc.close();
 		} catch (Exception e) {
@@ -94,101 +109,132 @@ public class TCPChannel extends ACARSChannel<String> {
 	 * @param c the Compression to use
 	 */
 	public void setCompression(Compression c) {
-		_compress.setCompression(c);
+		_qLock.lock();
+		try {
+			_compress.setCompression(c);
+		} finally {
+			_qLock.unlock();
+		}
+	}
+	
+	/**
+	 * Enables streaming compression, where each message is compressed as a continuation of the previous ones.
+	 * @param useDictionary TRUE to use the preset dictionary, otherwise FALSE
+	 */
+	public void setStreamingCompression(boolean useDictionary) {
+		_qLock.lock();
+		try {
+			_compress.setStreaming(useDictionary);
+		} finally {
+			_qLock.unlock();
+		}
+	}
+	
+	/**
+	 * Returns whether streaming compression is enabled.
+	 * @return TRUE if streaming compression is enabled, otherwise FALSE
+	 */
+	public boolean isStreamingCompression() {
+		return _compress.isStreaming();
 	}
 	
 	/**
 	 * Reads a message from the TCP channel.
+	 * @param iBuffer the read buffer, shared by all channels serviced by the calling reader thread
 	 * @return the message
 	 * @throws IOException if an I/O error occurs
 	 */
-	String read() throws IOException {
+	String read(ByteBuffer iBuffer) throws IOException {
 		
 		// Clear the buffer
-		_iBuffer.clear();
+		iBuffer.clear();
 
 		// Try and read from the channel until end of stream
 		try {
-			_sc.read(_iBuffer);
+			_sc.read(iBuffer);
 			_stats.addBufferRead();
 		} catch (IOException ie) {
 			throw new SocketException("Error reading channel - " + ie.getMessage());
 		}
 		
 		// if we got nothing, return null
-		if (_iBuffer.position() == 0)
+		if (iBuffer.position() == 0)
 			throw new ProtocolException("Connection Closed");
 
 		// Set the limit on the buffer and return to the start, update counters
-		_stats.addBytesIn(_iBuffer.flip().limit());
+		_stats.addBytesIn(iBuffer.flip().limit());
 		updateLastActivity();
 		
-		// Decompress the data
-		byte[] rawData = new byte[_iBuffer.remaining()];
-		_iBuffer.get(rawData);
-		
 		// If the data is compressed and the buffer is empty, add it to the buffer.
 		// If the data is compressed and the buffer is not empty, reset the buffer and add it.
 		// If the buffer has data, add this to it and check whether the packet is complete.
-		// If the buffer does not have data, treat as uncompressed
-		boolean isCompressed = DataCompressor.isCompressed(rawData); boolean hasBufferedData = _compress.hasBuffer();
-		if (isCompressed) {
-			if (hasBufferedData && !_compress.hasCompletePacket()) _compress.reset();
-			_compress.buffer(rawData);
-		} else if (hasBufferedData)
+		// If the buffer does not have data, treat as uncompressed and frame directly from the read buffer
+		boolean isCompressed = DataCompressor.isCompressed(iBuffer); boolean hasBufferedData = _compress.hasBuffer();
+		if (isCompressed || hasBufferedData) {
+			byte[] rawData = new byte[iBuffer.remaining()];
+			iBuffer.get(rawData);
+			if (isCompressed && hasBufferedData && !_compress.hasCompletePacket()) _compress.reset();
 			_compress.buffer(rawData);
+		} else
+			_framer.add(iBuffer);
 		
-		// If we have a complete packet in the buffer, decompress it
+		// If we have a complete packet in the buffer, decompress it. If we started getting compressed data assume we're switching
 		if (_compress.hasCompletePacket()) {
+			if (_compress.getCompression() == Compression.NONE) {
+				setCompression(Compression.GZIP);
+				log.info("{} auto-switching to GZIP compression", getRemoteAddr());
+			}
+			
 			byte[] pkt = _compress.getPacket();
 			while (pkt != null) {
-				byte[] data = DataCompressor.decompress(pkt, Compression.GZIP);
-				_stats.addBytesSaved(data.length - pkt.length);
-				_msgBuffer.append(new String(data, UTF_8));
+				byte[] data = _compress.decompress(pkt);
+				if (data != null) {
+					_stats.addBytesSaved(data.length - pkt.length);
+					_framer.add(data);
+				} else
+					log.warn("Cannot decompress {} byte packet from {}", Integer.valueOf(pkt.length), getRemoteAddr());
+				
 				pkt = _compress.getPacket();
 			}
-			
-			// If we started getting compressed data assume we're switching
-			if (_compress.getCompression() == Compression.NONE) {
-				_compress.setCompression(Compression.GZIP);
-				log.info("{} auto-switching to GZIP compression", getRemoteAddr());
-			}
-		} else if (!_compress.hasBuffer())
-			_msgBuffer.append(new String(rawData, UTF_8));
+		}
 		
-		// Now, search the start of an XML message in the buffer; if there's no open discard the whole thing
-		int sPos = _msgBuffer.indexOf(ProtocolInfo.REQ_ELEMENT_OPEN);
-		if (sPos == -1) {
-			if ((_msgBuffer.length() > 54) && (_msgBuffer.indexOf(ProtocolInfo.XML_HEADER) == -1)) {
-				log.warn("Malformed message from {} - ({} bytes) {}", getRemoteHost(), Integer.valueOf(_msgBuffer.length()), _msgBuffer);
-				_msgBuffer.setLength(0);
+		// Get the complete XML messages out of the buffer; if there's no open element and the buffer looks malformed discard the whole thing
+		String msgs = _framer.next();
+		if (msgs == null) {
+			if (_framer.isMalformed()) {
+				log.warn("Malformed message from {} - ({} bytes) {}", getRemoteHost(), Integer.valueOf(_framer.size()), _framer);
+				_framer.reset();
 			}
 
 			return null;
 		}
 		
-		// Get the end of the message - if there's an end element build a message and return it
-		int ePos = _msgBuffer.indexOf(ProtocolInfo.REQ_ELEMENT_CLOSE, sPos);
-		if (ePos == -1) return null;
+		for (int x = 0; x < _framer.getFrameCount(); x++)
+			_stats.addMessageIn();
 
-		// Get the XML messages out of the buffer
-		StringBuilder msgOut = new StringBuilder();
-		while ((ePos > sPos) && (sPos > -1)) {
-			msgOut.append(ProtocolInfo.XML_HEADER);
-			ePos += ProtocolInfo.REQ_ELEMENT_CLOSE.length();
+		return msgs;
+	}
+	
+	/**
+	 * Returns the next binary frame received by the last call to {@link TCPChannel#read(ByteBuffer)}.
+	 * @return the frame payload, or null if none
+	 */
+	byte[] readBinary() {
+		byte[] data = _framer.nextBinary();
+		if (data != null)
 			_stats.addMessageIn();
-			msgOut.append(_msgBuffer.substring(sPos, ePos));
-			_msgBuffer.delete(0, ePos);
-			sPos = _msgBuffer.indexOf(ProtocolInfo.REQ_ELEMENT_OPEN);
-			ePos = _msgBuffer.indexOf(ProtocolInfo.REQ_ELEMENT_CLOSE, sPos);
-		}
 		
-		if ((_msgBuffer.capacity() - _msgBuffer.length()) > 2048) {
-			_msgBuffer.trimToSize();
-			_msgBuffer.ensureCapacity(256);
-		}
+		return data;
+	}
 
-		return msgOut.toString();
+	/**
+	 * Enqueues a message to be written. The message is written immediately if the socket can accept it, otherwise it remains
+	 * queued until {@link TCPChannel#flush()} is called when the socket is writable.
+	 * @param msg the message text
+	 */
+	@Override
+	public void queue(String msg) {
+		write(msg);
 	}
 
 	/**
@@ -196,69 +242,140 @@ public class TCPChannel extends ACARSChannel<String> {
 	 * @param msg the message text
 	 */
 	@Override
-	public void write(String msg) {
-		if (msg == null)
-			return;
-
-		int writeCount = 1;
+	protected void write(String msg) {
+		if (msg != null)
+			queue(msg.getBytes(UTF_8));
+	}
+	
+	/**
+	 * Enqueues binary data to be written. The data is written immediately if the socket can accept it.
+	 * @param msgData the data
+	 */
+	public void queue(byte[] msgData) {
+		_qLock.lock();
 		try {
-			byte[] msgData = msg.getBytes(UTF_8);
 			byte[] msgBytes = _compress.compress(msgData);
 			_stats.addBytesSaved(msgData.length - msgBytes.length);
-
-			// Keep writing until the message is done
-			int ofs = 0;
-			while (ofs < msgBytes.length) {
-				_oBuffer.clear();
+			_outQueue.add(ByteBuffer.wrap(msgBytes));
+			flushQueue();
+		} finally {
+			_qLock.unlock();
+		}
+	}
+	
+	/**
+	 * Enqueues data shared with other connections to be written. The data is written immediately if the socket can accept it.
+	 * @param pkt the BroadcastPacket
+	 */
+	public void queue(BroadcastPacket pkt) {
+		_qLock.lock();
+		try {
+			byte[] msgBytes = _compress.compress(pkt);
+			_stats.addBytesSaved(pkt.getData().length - msgBytes.length);
+			_outQueue.add(ByteBuffer.wrap(msgBytes).asReadOnlyBuffer());
+			flushQueue();
+		} finally {
+			_qLock.unlock();
+		}
+	}
+	
+	/**
+	 * Writes as much queued data as the socket will accept without blocking. If the socket has not accepted any data for longer than
+	 * the write timeout, the queued data is discarded and the client is sent a reset code.
+	 * @return TRUE if all queued data has been written, otherwise FALSE
+	 */
+	public boolean flush() {
+		_qLock.lock();
+		try {
+			return flushQueue();
+		} finally {
+			_qLock.unlock();
+		}
+	}
+	
+	/**
+	 * Returns whether this channel has queued data that has not been written.
+	 * @return TRUE if data is queued, otherwise FALSE
+	 */
+	public boolean hasPendingWrites() {
+		_qLock.lock();
+		try {
+			return !_outQueue.isEmpty();
+		} finally {
+			_qLock.unlock();
+		}
+	}
+	
+	/**
+	 * Returns how long the socket has not accepted any queued data.
+	 * @return the stall time in milliseconds, or zero if not stalled
+	 */
+	public long getStallTime() {
+		long st = _stallTime;
+		return (st == 0) ? 0 : (System.currentTimeMillis() - st);
+	}
+	
+	/*
+	 * Writes queued data using gathering writes. The caller must hold the queue lock.
+	 */
+	private boolean flushQueue() {
+		boolean hasWritten = false;
+		try {
+			while (!_outQueue.isEmpty()) {
+				int cnt = 0;
+				for (Iterator<ByteBuffer> i = _outQueue.iterator(); i.hasNext() && (cnt < _wBuffers.length); cnt++)
+					_wBuffers[cnt] = i.next();
 				
-				// Keep writing to the buffer
-				while ((ofs < msgBytes.length) && (_oBuffer.remaining() > 0)) {
-					_oBuffer.put(msgBytes[ofs]);
-					ofs++;
-				}
-
-				// Flip the buffer and write if we can
-				_oBuffer.flip();
-				while (_oBuffer.hasRemaining()) {
-					if (_wSelector.select(225) > 0) {
-						_stats.addBytesOut(_sc.write(_oBuffer));
-						_wSelector.selectedKeys().clear();
-						_stats.addBufferWrite();
-						if (writeCount > 4)
-							writeCount--;
-					} else if (!_sc.isConnected()) {
-						close();
-						return;
-					} else {
-						_stats.addBufferWrite();
-						if (writeCount >= MAX_WRITE_ATTEMPTS) {
-							_stats.addWriteError();
-							_oBuffer.clear();
-							_oBuffer.put(_compress.compress(MAGIC_RESET_CODE.getBytes(UTF_8)));
-							_oBuffer.flip();
-							if (_wSelector.select(300) > 0) {
-								_stats.addBytesOut(_sc.write(_oBuffer));		
-								_wSelector.selectedKeys().clear();
-							}
-							
-							throw new IOException("Write timeout for " + getRemoteAddr());
-						}
-					}
+				long bytesOut = _sc.write(_wBuffers, 0, cnt);
+				Arrays.fill(_wBuffers, 0, cnt, null);
+				_stats.addBufferWrite();
+				
+				// Remove completely written messages
+				while (!_outQueue.isEmpty() && !_outQueue.peek().hasRemaining()) {
+					_outQueue.poll();
+					_stats.addMessageOut();
 				}
+				
+				if (bytesOut == 0) break;
+				_stats.addBytesOut((int) bytesOut);
+				_stallTime = 0;
+				hasWritten = true;
 			}
-
-			_stats.addMessageOut();
-		} catch (ClosedSelectorException cse) {
-			log.info("Cannot write to {} - selector closed", getRemoteAddr());
-		} catch (AsynchronousCloseException ace) {
-			log.warn("Connection for {} closed during write", getRemoteAddr());
+		} catch (ClosedChannelException cce) {
+			log.info("Cannot write to {} - channel closed", getRemoteAddr());
+			_outQueue.clear();
 		} catch (IOException ie) {
 			log.warn("Error writing to channel for {} - {}", getRemoteAddr(), ie.getMessage());
+			_outQueue.clear();
 		} catch (Exception e) {
 			log.atError().withThrowable(e).log("Error writing to socket {} - {}", getRemoteAddr(), e.getMessage());
+			_outQueue.clear();
 		}
-
-		// Update statistics
-		updateLastActivity();
+		
+		// Update statistics, only if the client accepted data
+		if (hasWritten)
+			updateLastActivity();
+		if (_outQueue.isEmpty()) {
+			_stallTime = 0;
+			return true;
+		}
+		
+		// Check for a stalled client
+		long now = System.currentTimeMillis();
+		if (_stallTime == 0)
+			_stallTime = now;
+		else if ((now - _stallTime) > WRITE_TIMEOUT) {
+			log.warn("Write timeout for {} - discarding {} messages", getRemoteAddr(), Integer.valueOf(_outQueue.size()));
+			_stats.addWriteError();
+			_outQueue.clear();
+			_stallTime = 0;
+			_compress.resetStream();
+			
+			// Queue the reset code so a partial write is completed on the next flush
+			_outQueue.add(ByteBuffer.wrap(_compress.compress(MAGIC_RESET_CODE.getBytes(UTF_8))));
+			return flushQueue();
+		}
+		
+		return false;
 	}
 }
\ No newline at end of file
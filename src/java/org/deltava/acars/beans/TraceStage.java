@@ -0,0 +1,45 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.beans;
+
+/**
+ * An enumeration of the stages of an inbound message's lifecycle recorded by a {@link MessageTrace}. Each stage after the first also names the
+ * segment of time spent between the previous stage and this one.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+public enum TraceStage {
+	READ("Socket Read", "total"), FRAME("Frame Complete", "frame"), PARSE("Parse Done", "parse"), COMMAND_START("Command Start", "queue"), COMMAND_END("Command End", "command"),
+	FORMAT("Format Done", "format"), WRITE("Socket Write", "write");
+	
+	private final String _desc;
+	private final String _segment;
+	
+	/**
+	 * Creates the stage.
+	 * @param desc the description
+	 * @param segment the name of the segment ending at this stage
+	 */
+	TraceStage(String desc, String segment) {
+		_desc = desc;
+		_segment = segment;
+	}
+	
+	/**
+	 * Returns the stage description.
+	 * @return the description
+	 */
+	public String getDescription() {
+		return _desc;
+	}
+	
+	/**
+	 * Returns the name of the segment of time ending at this stage. The first stage has no previous segment, so it names the total time
+	 * from the socket read to the last stage recorded.
+	 * @return the segment name
+	 */
+	public String getSegment() {
+		return _segment;
+	}
+}
@@ -1,18 +1,20 @@
-// Copyright 2011, 2013, 2014, 2016, 2021, 2023 Global Virtual Airlines Group. All Rights Reserved.
+// Copyright 2011, 2013, 2014, 2016, 2021, 2023, 2026 Global Virtual Airlines Group. All Rights Reserved.
 package org.deltava.acars.beans;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
 import java.nio.channels.*;
 
 import org.apache.logging.log4j.*;
 
 import org.deltava.util.NetworkUtils;
+import org.deltava.util.system.SystemData;
 
 /**
  * An object to handle UDP voice connections.
  * @author Luke
- * @version 11.1
+ * @version 12.4
  * @since 4.0
  */
 
@@ -20,6 +22,8 @@ public class UDPChannel extends ACARSChannel<byte[]> {
 
 	private static transient final Logger log = LogManager.getLogger(UDPChannel.class);
 	private transient DatagramChannel _dc;
+	private transient Selector _wSelector;
+	private transient final ByteBuffer _oBuffer = ByteBuffer.allocateDirect(SystemData.getInt("acars.buffer.nio"));
 
 	/**
 	 * Creates a new UDP channel.
@@ -55,6 +59,19 @@ public class UDPChannel extends ACARSChannel<byte[]> {
 	public SelectableChannel getChannel() {
 		return _dc;
 	}
+	
+	/**
+	 * Closes the channel and releases the write selector.
+	 */
+	@Override
+	public void close() {
+		super.close();
+		try {
+			_wSelector.close();
+		} catch (Exception e) {
+			// empty
+		}
+	}
 
 	/**
 	 * Read method to increment counters.
@@ -76,11 +93,10 @@ public class UDPChannel extends ACARSChannel<byte[]> {
 			while (ofs < data.length) {
 				_oBuffer.clear();
 
-				// Keep writing to the buffer
-				while ((ofs < data.length) && (_oBuffer.remaining() > 0)) {
-					_oBuffer.put(data[ofs]);
-					ofs++;
-				}
+				// Fill the buffer
+				int len = Math.min(data.length - ofs, _oBuffer.remaining());
+				_oBuffer.put(data, ofs, len);
+				ofs += len;
 
 				// Flip the buffer and write if we can
 				_oBuffer.flip();
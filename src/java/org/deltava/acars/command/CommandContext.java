@@ -1,10 +1,13 @@
 // Copyright 2005, 2006, 2007, 2009, 2010, 2011, 2019, 2021, 2026 Global Virtual Airlines Group. All Rights Reserved.
 package org.deltava.acars.command;
 
+import java.util.*;
+import java.util.stream.Collectors;
+
 import org.deltava.beans.Pilot;
 
 import org.deltava.acars.beans.*;
-import org.deltava.acars.message.Message;
+import org.deltava.acars.message.*;
 
 import static org.deltava.acars.workers.Worker.*;
 
@@ -26,6 +29,8 @@ public class CommandContext extends ConnectionContext {
 	
 	private final WorkerStatus _status;
 	private final long _msgTime;
+	private final MessageTrace _trace;
+	private final boolean _isSheddable;
 	private long _backEndTime;
 
 	/**
@@ -39,6 +44,8 @@ public class CommandContext extends ConnectionContext {
 		_pool = acp;
 		_ac = _pool.get(env.getConnectionID());
 		_msgTime = env.getTime();
+		_trace = env.getTrace();
+		_isSheddable = (env.getMessage() instanceof PositionMessage pm) && !pm.isLogged() && !pm.isReplay();
 		_status = status;
 		if ((_ac != null) && _ac.isAuthenticated())
 			setDB(_ac.getUserData().getDB());
@@ -103,13 +110,7 @@ public class CommandContext extends ConnectionContext {
 	 */
 	public void pushAll(Message msg, long skipThisConID) {
 		if (msg == null) return;
-		
-		// Set the original timestamp and message time
-		msg.setTime(_msgTime);
-		for (ACARSConnection c : _pool.getAll()) {
-			if (c.isAuthenticated() && (c.getID() != skipThisConID) && (c.getProtocolVersion() >= msg.getProtocolVersion()))
-				MSG_OUTPUT.add(new MessageEnvelope(msg, c.getID()));
-		}
+		push(msg, _pool.getAll(c -> c.isAuthenticated() && (c.getID() != skipThisConID) && (c.getProtocolVersion() >= msg.getProtocolVersion())));
 	}
 	
 	/**
@@ -118,14 +119,28 @@ public class CommandContext extends ConnectionContext {
 	 * @param skipThisConID the ID of a Connection to not send to (usually the sender)
 	 */
 	public void pushDispatch(Message msg, long skipThisConID) {
-		if (msg == null) return;
+		if ((msg == null) || !_pool.isDispatchOnline()) return;
+		push(msg, _pool.getDispatchers().stream().filter(c -> (c.getID() != skipThisConID) && (c.getProtocolVersion() >= msg.getProtocolVersion())).collect(Collectors.toList()));
+	}
+	
+	/**
+	 * Sends a message to several ACARS connections. The message is formatted once for each protocol version used by the connections,
+	 * and the formatted data is shared between them. This waits for space on the output stack rather than dropping the message.
+	 * @param msg the Message to send
+	 * @param cons the ACARSConnections to send to
+	 */
+	public void push(Message msg, Collection<ACARSConnection> cons) {
+		if ((msg == null) || cons.isEmpty()) return;
 		
 		// Set the original timestamp and message time
 		msg.setTime(_msgTime);
-		for (ACARSConnection c : _pool.getAll()) {
-			if (c.getIsDispatch() && (c.getID() != skipThisConID) && (c.getProtocolVersion() >= msg.getProtocolVersion()))
-				MSG_OUTPUT.add(new MessageEnvelope(msg, c.getID()));
-		}
+		if (cons.size() == 1) {
+			ACARSConnection ac = cons.iterator().next();
+			MessageEnvelope env = new MessageEnvelope(msg, ac.getID());
+			trace(env);
+			queueOutput(ac, env, false);
+		} else
+			queueOutput(null, new BroadcastEnvelope(msg, cons), false);
 	}
 	
 	/**
@@ -137,7 +152,8 @@ public class CommandContext extends ConnectionContext {
 	}
 	
 	/**
-	 * Sends a message.
+	 * Sends a message. If the output stack is full, a non-critical acknowledgement of an unlogged position report is dropped, since the
+	 * client will send a newer report shortly. All other messages wait for space on the output stack.
 	 * @param msg the Message bean to push
 	 * @param conID the ID of the Connection to send to
 	 * @param isCritical TRUE if the response is critical, otherwise FALSE
@@ -147,7 +163,32 @@ public class CommandContext extends ConnectionContext {
 		msg.setTime(_msgTime);
 		MessageEnvelope env = new MessageEnvelope(msg, conID);
 		env.setCritical(isCritical);
-		MSG_OUTPUT.add(env);
+		trace(env);
+		boolean isSelf = (_ac != null) && (conID == _ac.getID());
+		boolean isSheddable = _isSheddable && isSelf && !isCritical && (msg instanceof AcknowledgeMessage);
+		queueOutput(isSelf ? _ac : _pool.get(conID), env, isSheddable);
+	}
+	
+	/**
+	 * Queues a QUIT message to disconnect a connection. This waits for space on the input stack rather than dropping the message.
+	 * @param ac the ACARSConnection to disconnect
+	 */
+	public void quit(ACARSConnection ac) {
+		try {
+			MSG_INPUT.put(new MessageEnvelope(new QuitMessage(ac), ac.getID()));
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * Attaches the trace of the message being processed to a response sent back to its connection, so the trace is not recorded until
+	 * the response has been written.
+	 * @param env the response MessageEnvelope
+	 */
+	protected void trace(MessageEnvelope env) {
+		if ((_trace != null) && (_ac != null) && (env.getConnectionID() == _ac.getID()) && _trace.retain())
+			env.addTrace(_trace);
 	}
 	
 	/**
@@ -1,4 +1,4 @@
-// Copyright 2015, 2016, 2019, 2023 Global Virtual Airlines Group. All Rights Reserved.
+// Copyright 2015, 2016, 2019, 2023, 2026 Global Virtual Airlines Group. All Rights Reserved.
 package org.deltava.acars.command;
 
 import org.apache.logging.log4j.*;
@@ -9,7 +9,7 @@ import org.deltava.acars.message.*;
 /**
  * An ACARS Server Command to enable/disable data compression. 
  * @author Luke
- * @version 11.1
+ * @version 12.4
  * @since 6.4
  */
 
@@ -28,19 +28,25 @@ public class CompressionCommand extends ACARSCommand {
 		// Get the message and the connection
 		ACARSConnection ac = ctx.getACARSConnection();
 		final CompressionMessage msg = (CompressionMessage) env.getMessage(); 
-		String cType = msg.getCompression().name().toLowerCase(); 
-		if (ac.getCompression() == msg.getCompression()) {
+		String cType = msg.isStreaming() ? "stream" : msg.getCompression().name().toLowerCase(); 
+		if ((ac.getCompression() == msg.getCompression()) && !msg.isStreaming() && !ac.isStreamingCompression()) {
 			log.info("{} requesting {} compression, already set", ac.getUserID(), cType);
 			return;
 		}
 		
 		// Set compression for connection
 		log.info("Setting data compression for {} to {}", ac.getUserID(), cType);
-		ac.setCompression(msg.getCompression());
+		if (msg.isStreaming())
+			ac.setStreamingCompression(msg.getUseDictionary());
+		else
+			ac.setCompression(msg.getCompression());
 
 		// Send an ACK
 		AcknowledgeMessage ackMsg = new AcknowledgeMessage(env.getOwner(), msg.getID());
 		ackMsg.setEntry("type", cType);
+		if (msg.isStreaming())
+			ackMsg.setEntry("dict", String.valueOf(msg.getUseDictionary()));
+		
 		ctx.push(ackMsg);
 	}
 }
\ No newline at end of file
@@ -1,4 +1,4 @@
-// Copyright 2004, 2005, 2006, 2007, 2008, 2009, 2010, 2011, 2012, 2016, 2017, 2019, 2021, 2023 Global Virtual Airlines Group. All Rights Reserved.
+// Copyright 2004, 2005, 2006, 2007, 2008, 2009, 2010, 2011, 2012, 2016, 2017, 2019, 2021, 2023, 2026 Global Virtual Airlines Group. All Rights Reserved.
 package org.deltava.acars.command;
 
 import java.util.*;
@@ -13,8 +13,6 @@ import org.deltava.beans.system.AirlineInformation;
 import org.deltava.acars.beans.*;
 import org.deltava.acars.message.*;
 
-import static org.deltava.acars.workers.Worker.*;
-
 import org.deltava.dao.*;
 import org.deltava.mail.*;
 import org.deltava.util.MailUtils;
@@ -23,7 +21,7 @@ import org.deltava.util.StringUtils;
 /**
  * An ACARS server command to execute system administration tasks.
  * @author Luke
- * @version 11.1
+ * @version 12.4
  * @since 1.0
  */
 
@@ -71,7 +69,7 @@ public class DiagnosticCommand extends ACARSCommand {
 					ctx.push(msg, ac.getID(), true);
 					
 					// Save the QUIT message
-					MSG_INPUT.add(new MessageEnvelope(new QuitMessage(ac), ac.getID()));
+					ctx.quit(ac);
 
 					// Send the ACK
 					AcknowledgeMessage daMsg = new AcknowledgeMessage(env.getOwner(), msg.getID());
@@ -137,7 +135,7 @@ public class DiagnosticCommand extends ACARSCommand {
 						ctx.push(msg, ac.getID(), true);
 						
 						// Save the QUIT message
-						MSG_INPUT.add(new MessageEnvelope(new QuitMessage(ac), ac.getID()));
+						ctx.quit(ac);
 						
 						// Send the ACK
 						AcknowledgeMessage daMsg = new AcknowledgeMessage(env.getOwner(), msg.getID());
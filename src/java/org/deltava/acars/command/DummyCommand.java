@@ -1,4 +1,4 @@
-// Copyright 2005, 2006, 2016 Global Virtual Airlines Group. All Rights Reserved.
+// Copyright 2005, 2006, 2016, 2026 Global Virtual Airlines Group. All Rights Reserved.
 package org.deltava.acars.command;
 
 import org.deltava.acars.beans.MessageEnvelope;
@@ -6,7 +6,7 @@ import org.deltava.acars.beans.MessageEnvelope;
 /**
  * An ACARS command to swallow messages.
  * @author Luke
- * @version 7.0
+ * @version 12.4
  * @since 1.0
  */
 
@@ -21,4 +21,9 @@ public class DummyCommand extends ACARSCommand {
    public void execute(CommandContext ctx, MessageEnvelope env) {
       // NOOP
    }
+
+	@Override
+	public final int getMaxExecTime() {
+		return 100;
+	}
 }
\ No newline at end of file
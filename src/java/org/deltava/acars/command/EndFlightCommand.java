@@ -1,4 +1,4 @@
-// Copyright 2005, 2006, 2007, 2008, 2009, 2011, 2012, 2016, 2019, 2023 Global Virtual Airlines Group. All Rights Reserved.
+// Copyright 2005, 2006, 2007, 2008, 2009, 2011, 2012, 2016, 2019, 2023, 2026 Global Virtual Airlines Group. All Rights Reserved.
 package org.deltava.acars.command;
 
 import java.time.Instant;
@@ -14,7 +14,7 @@ import org.deltava.dao.DAOException;
 /**
  * An ACARS Command to log the completion of a flight.
  * @author Luke
- * @version 11.1
+ * @version 12.4
  * @since 1.0
  */
 
@@ -69,6 +69,7 @@ public class EndFlightCommand extends ACARSCommand {
 		// Clear flight info and log
 		log.info("Flight Completed by {}", con.getUserID());
 		con.setPosition(null);
+		ctx.getACARSConnectionPool().updatePosition(con);
 		ctx.push(ackMsg);
 	}
 }
\ No newline at end of file
@@ -1,8 +1,6 @@
-// Copyright 2019, 2021, 2023 Global Virtual Airlines Group. All Rights Reserved.
+// Copyright 2019, 2021, 2023, 2026 Global Virtual Airlines Group. All Rights Reserved.
 package org.deltava.acars.command;
 
-import static org.deltava.acars.workers.Worker.MSG_INPUT;
-
 import java.sql.Connection;
 
 import org.apache.logging.log4j.*;
@@ -20,7 +18,7 @@ import org.deltava.util.StringUtils;
 /**
  * An ACARS server command to disconnect a user from the ACARS server.
  * @author Luke
- * @version 11.1
+ * @version 12.4
  * @since 8.7
  */
 
@@ -53,7 +51,7 @@ public class KickCommand extends ACARSCommand {
 		ctx.push(msg, ac.getID(), true);
 		
 		// Save the QUIT message
-		MSG_INPUT.add(new MessageEnvelope(new QuitMessage(ac), ac.getID()));
+		ctx.quit(ac);
 		
 		// Send the ACK
 		AcknowledgeMessage daMsg = new AcknowledgeMessage(env.getOwner(), msg.getID());
@@ -1,4 +1,4 @@
-// Copyright 2005, 2006, 2007, 2016, 2019 Global Virtual Airlines Group. All Rights Reserved.
+// Copyright 2005, 2006, 2007, 2016, 2019, 2026 Global Virtual Airlines Group. All Rights Reserved.
 package org.deltava.acars.command;
 
 import org.deltava.acars.message.*;
@@ -8,7 +8,7 @@ import org.deltava.acars.beans.MessageEnvelope;
 /**
  * An ACARS Server Command to respond to messages.
  * @author Luke
- * @version 9.1
+ * @version 12.4
  * @since 1.0
  */
 
@@ -34,4 +34,9 @@ public class PingCommand extends ACARSCommand {
 		
 		ctx.push(ackMsg);
 	}
+	
+	@Override
+	public final int getMaxExecTime() {
+		return 100;
+	}
 }
\ No newline at end of file
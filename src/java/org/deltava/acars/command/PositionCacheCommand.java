@@ -1,12 +1,12 @@
-// Copyright 2017, 2020, 2024 Global Virtual Airlines Group. All Rights Reserved.
+// Copyright 2017, 2020, 2024, 2026 Global Virtual Airlines Group. All Rights Reserved.
 package org.deltava.acars.command;
 
 import java.util.*;
-import java.sql.Connection;
 import java.util.concurrent.locks.*;
 
 import org.deltava.acars.message.PositionMessage;
 import org.deltava.acars.util.PositionCache;
+import org.deltava.acars.workers.PositionWriter;
 
 import org.deltava.beans.acars.TrackUpdate;
 import org.deltava.beans.schedule.Country;
@@ -14,32 +14,40 @@ import org.deltava.beans.schedule.Country;
 import org.deltava.dao.*;
 import org.deltava.util.cache.*;
 
-import org.deltava.dao.acars.SetPosition;
 import org.deltava.dao.jedis.SetTrack;
 
-import org.deltava.jdbc.ConnectionContext;
-
 /**
- * An abstract class for ACARS commands to interact with the Position caches.
+ * An abstract class for ACARS commands to interact with the Position caches. Position reports are written to the database by the
+ * {@link PositionWriter} worker.
  * @author Luke
- * @version 11.3
+ * @version 12.4
  * @since 7.3
  */
 
 abstract class PositionCacheCommand extends ACARSCommand {
 	
+	private static final int FLUSH_TIMEOUT = 10000;
+	
 	private static final Lock w = new ReentrantLock();
-	private static final PositionCache<PositionMessage> _posCache = new PositionCache<PositionMessage>(50, 12500);
 	private static final PositionCache<TrackUpdate> _trkCache = new PositionCache<TrackUpdate>(10, 15000);
 	
 	private static final GeoCache<CacheableString> _geoCache = CacheManager.getGeo(CacheableString.class, "GeoCountry");
 
 	/**
-	 * Places a PositionMessage in the position cache.
+	 * Queues a PositionMessage to be written to the database.
 	 * @param msg a PositionMessage
 	 */
 	protected static void queue(PositionMessage msg) {
-		_posCache.queue(msg);
+		PositionWriter.queue(msg);
+	}
+	
+	/**
+	 * Queues a PositionMessage to be written to the database if there is space, without waiting.
+	 * @param msg a PositionMessage
+	 * @return TRUE if queued, otherwise FALSE
+	 */
+	protected static boolean offer(PositionMessage msg) {
+		return PositionWriter.offer(msg);
 	}
 	
 	/**
@@ -61,45 +69,32 @@ abstract class PositionCacheCommand extends ACARSCommand {
 	}
 	
 	/**
-	 * Flushes the cache to the database.
-	 * @param force TRUE if the cache should be flushed ieven if not full, otherwise FALSE
-	 * @return the number of entries written
+	 * Returns whether the track cache is full and should be flushed.
+	 * @return TRUE if the cache should be flushed, otherwise FALSE
 	 */
-	protected static int flush(boolean force, ConnectionContext ctx) throws DAOException {
-		if (!w.tryLock())
-			return 0;
-		
-		// Write track updates
-		if (force || _trkCache.isFull()) {
-			SetTrack tdao = new SetTrack();
-			Collection<TrackUpdate> upds = _trkCache.drain();
-			tdao.write(upds);
-		}
-
-		boolean doFree = !ctx.hasConnection();
-		try {
-			if (force || _posCache.isFull()) {
-				Connection con = ctx.getConnection();
-				Collection<PositionMessage> msgs = _posCache.drain(); int entries = msgs.size(); // This prevents a drain if the pool is full
-					
-				// Geolocation
-				GetCountry cdao = new GetCountry(con);
-				for (PositionMessage pmsg : msgs) {
-					if (pmsg.getCountry() == null)
-						pmsg.setCountry(cdao.find(pmsg, true));
+	protected static boolean isFlushRequired() {
+		return _trkCache.isFull();
+	}
+	
+	/**
+	 * Flushes the track cache, and optionally waits for all queued positions to be written to the database.
+	 * @param force TRUE if the caches should be flushed even if not full, otherwise FALSE
+	 * @return the number of position entries written
+	 * @throws DAOException if an error occurs writing track updates
+	 */
+	protected static int flush(boolean force) throws DAOException {
+		if (w.tryLock()) {
+			try {
+				if (force || _trkCache.isFull()) {
+					SetTrack tdao = new SetTrack();
+					Collection<TrackUpdate> upds = _trkCache.drain();
+					tdao.write(upds);
 				}
-				
-				// Write the entries
-				SetPosition dao = new SetPosition(con);
-				dao.flush(msgs);
-				return entries;
+			} finally {
+				w.unlock();
 			}
-		} finally {
-			w.unlock();
-			if (doFree)
-				ctx.release();
 		}
 		
-		return 0;
+		return force ? PositionWriter.flush(FLUSH_TIMEOUT) : 0;
 	}
 }
\ No newline at end of file
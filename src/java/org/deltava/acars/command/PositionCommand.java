@@ -1,4 +1,4 @@
-// Copyright 2004, 2005, 2006, 2007, 2008, 2009, 2010, 2011, 2014, 2016, 2017, 2018, 2019, 2020, 2021, 2023, 2024 Global Virtual Airlines Group. All Rights Reserved.
+// Copyright 2004, 2005, 2006, 2007, 2008, 2009, 2010, 2011, 2014, 2016, 2017, 2018, 2019, 2020, 2021, 2023, 2024, 2026 Global Virtual Airlines Group. All Rights Reserved.
 package org.deltava.acars.command;
 
 import java.util.concurrent.*;
@@ -21,9 +21,10 @@ import org.deltava.util.*;
 import org.deltava.util.system.SystemData;
 
 /**
- * An ACARS server command to process position updates.
+ * An ACARS server command to process position updates. Track cache writes to Redis may be run by a separate Executor, so that the
+ * command can be executed on latency-sensitive threads. If the position writer's queue is full, the Executor also waits for space.
  * @author Luke
- * @version 11.3
+ * @version 12.4
  * @since 1.0
  */
 
@@ -35,6 +36,33 @@ public class PositionCommand extends PositionCacheCommand {
 	private final int ATC_INTERVAL = SystemData.getInt("acars.position.atc", 2000);
 	private final int NOATC_INTERVAL = SystemData.getInt("acars.position.std", 2000);
 	
+	private final Executor _trkExec;
+	
+	/**
+	 * Initializes the Command, writing track data on the calling thread.
+	 */
+	public PositionCommand() {
+		this(Runnable::run);
+	}
+	
+	/**
+	 * Initializes the Command.
+	 * @param trkExec the Executor used to write track data
+	 */
+	public PositionCommand(Executor trkExec) {
+		super();
+		_trkExec = trkExec;
+	}
+	
+	/*
+	 * Queues a position to be written. If the writer's queue is full, the track Executor waits for space instead of the calling thread.
+	 * Invalid positions are never queued, so they are discarded here rather than handed to the Executor.
+	 */
+	private void queuePosition(PositionMessage msg) {
+		if (GeoUtils.isValid(msg) && !offer(msg))
+			_trkExec.execute(() -> queue(msg));
+	}
+	
 	/**
 	 * Executes the command.
 	 * @param ctx the Command context
@@ -115,26 +143,30 @@ public class PositionCommand extends PositionCacheCommand {
 		lookup(msg);
 		if (msg.getCountry() == null) {
 			msg.setCountry((oldPM == null) ? info.getAirportD().getCountry() : oldPM.getCountry());
-			GEO_INPUT.add(env);
+			GEO_INPUT.offer(env);
 		}
 		
 		// Clear temporary track if being saved
 		if (msg.isLogged()) {
-			SetTrack tkdao = new SetTrack();
-			tkdao.clear(true, String.valueOf(info.getFlightID()));
+			String flightID = String.valueOf(info.getFlightID());
+			_trkExec.execute(() -> {
+				SetTrack tkdao = new SetTrack();
+				tkdao.clear(true, flightID);
+			});
 		}
 
 		// Queue it up
 		if (msg.isReplay() && msg.isLogged())
-			queue(msg);
+			queuePosition(msg);
 		else if (!msg.isReplay() && !msg.isLogged() && (pmAge < MIN_INTERVAL)) {
 			log.warn("Position flood from {} ({}), interval={}ms", ac.getUser().getName(), ac.getUserID(), Long.valueOf(pmAge));
 			return;
 		} else {
 			boolean isPaused = msg.isFlagSet(ACARSFlags.PAUSED);
 			ac.setPosition(msg);
+			ctx.getACARSConnectionPool().updatePosition(ac);
 			if (msg.isLogged() && !isPaused)
-				queue(msg);
+				queuePosition(msg);
 			else if (!isPaused)
 				queue(new TrackUpdate(true, String.valueOf(info.getFlightID()), msg));
 		}
@@ -157,7 +189,7 @@ public class PositionCommand extends PositionCacheCommand {
 				log.info("{} in airspace {}", env.getOwnerID(), a.getID());
 				msg.setAirspaceType(a.getType());
 				if (!msg.isLogged())
-					queue(msg);
+					queuePosition(msg);
 
 				if ((oldPM == null) || !oldPM.getAirspaceType().isRestricted()) {
 					msg.setAirspaceType(a.getType());
@@ -175,10 +207,14 @@ public class PositionCommand extends PositionCacheCommand {
 		}
 
 		// Check if the caches need to be flushed
-		try {
-			flush(false, ctx);
-		} catch (Exception e) {
-			log.atError().withThrowable(e).log("Error flushing positions - {}", e.getMessage());
+		if (isFlushRequired()) {
+			_trkExec.execute(() -> {
+				try {
+					flush(false);
+				} catch (Exception e) {
+					log.atError().withThrowable(e).log("Error flushing positions - {}", e.getMessage());
+				}
+			});
 		}
 	}
 }
\ No newline at end of file
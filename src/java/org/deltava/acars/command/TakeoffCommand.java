@@ -8,16 +8,15 @@ import org.apache.logging.log4j.*;
 
 import org.deltava.acars.beans.*;
 import org.deltava.acars.message.*;
+import org.deltava.acars.util.AirportIndex;
 import org.deltava.beans.flight.LandingScorer;
 import org.deltava.beans.navdata.*;
 import org.deltava.beans.schedule.Airport;
 import org.deltava.beans.stats.RunwayLandingStats;
-import org.deltava.comparators.GeoComparator;
 
 import org.deltava.dao.*;
 import org.deltava.dao.acars.SetTakeoff;
 import org.deltava.util.GeoUtils;
-import org.deltava.util.system.SystemData;
 
 /**
  * An ACARS command to process takeoff/touchdown messages.
@@ -54,13 +53,11 @@ public class TakeoffCommand extends ACARSCommand {
 		msg.setFlightCode(info.getFlightCode());
 		
 		// Find the closest airport
-		List<Airport> airports = new ArrayList<Airport>(SystemData.getAirports().values());
-		Collections.sort(airports, new GeoComparator(msg));
-		Airport closestAirport = airports.get(0);
+		Airport closestAirport = AirportIndex.nearest(msg);
 		
 		// Check if we're the closest
 		Airport a = msg.isTakeoff() ? info.getAirportD() : info.getAirportA();
-		if (!a.equals(closestAirport)) {
+		if ((closestAirport != null) && !a.equals(closestAirport)) {
 			int distance = a.distanceTo(closestAirport); 
 			log.warn("Closest airport for Flight {} is {} implied airport is {} (distance = {} miles)", ac.getUserID(), closestAirport.getICAO(), a.getICAO(), Integer.valueOf(distance));
 			if (distance > 15) {
@@ -116,7 +113,7 @@ public class TakeoffCommand extends ACARSCommand {
 			// Send out a system message to the others if not a bounce
 			if (!isBounce) {
 				Collection<ACARSConnection> cons = ctx.getACARSConnectionPool().getAll(c -> (c.getProtocolVersion() > 1) && c.isAuthenticated() && (c.getID() != ac.getID()));
-				cons.forEach(c -> ctx.push(msg, c.getID(), false));
+				ctx.push(msg, cons);
 			}
 		} catch (DAOException de) {
 			log.atError().withThrowable(de).log("Cannnot log takeoff/landing - {}", de.getMessage());
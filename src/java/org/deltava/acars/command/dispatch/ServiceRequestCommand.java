@@ -1,4 +1,4 @@
-// Copyright 2007, 2008, 2009, 2010, 2011, 2012, 2014, 2016, 2019, 2020, 2021, 2022, 2023, 2024, 2025 Global Virtual Airlines Group. All Rights Reserved.
+// Copyright 2007, 2008, 2009, 2010, 2011, 2012, 2014, 2016, 2019, 2020, 2021, 2022, 2023, 2024, 2025, 2026 Global Virtual Airlines Group. All Rights Reserved.
 package org.deltava.acars.command.dispatch;
 
 import java.util.*;
@@ -25,7 +25,7 @@ import org.deltava.acars.message.dispatch.*;
 /**
  * An ACARS Command to handle Dispatch service request messages.
  * @author Luke
- * @version 12.2
+ * @version 12.4
  * @since 2.0
  */
 
@@ -147,9 +147,9 @@ public class ServiceRequestCommand extends DispatchCommand {
 		
 		// Send to dispatchers if not in auto dispatch mode
 		int reqsSent = 0; int outOfRange = 0;
-		Collection<ACARSConnection> cons = ctx.getACARSConnectionPool().getAll(ac -> ac.getIsDispatch() && !ac.getUserBusy() && !ac.getUserHidden());
 		if (!msg.isAutoDispatch() || plans.isEmpty()) {
-			for (ACARSConnection ac : cons) {
+			for (ACARSConnection ac : ctx.getACARSConnectionPool().getDispatchers()) {
+				if (ac.getUserBusy() || ac.getUserHidden()) continue;
 				int distance = ac.getLocation().distanceTo(msg);
 				if (ac.getUser().getID() == c.getUser().getID())
 					log.warn("{} attempting self dispatch", c.getUserID());
@@ -1,4 +1,4 @@
-// Copyright 2007, 2008, 2009, 2010, 2011, 2012, 2013, 2015, 2017, 2019, 2021, 2023, 2024, 2025 Global Virtual Airlines Group. All Rights Reserved.
+// Copyright 2007, 2008, 2009, 2010, 2011, 2012, 2013, 2015, 2017, 2019, 2021, 2023, 2024, 2025, 2026 Global Virtual Airlines Group. All Rights Reserved.
 package org.deltava.acars.ipc;
 
 import java.util.*;
@@ -8,7 +8,9 @@ import java.sql.Connection;
 import org.apache.logging.log4j.*;
 
 import org.deltava.beans.*;
+import org.deltava.beans.schedule.Airport;
 import org.deltava.acars.beans.*;
+import org.deltava.acars.util.AirportIndex;
 
 import org.deltava.dao.*;
 
@@ -21,7 +23,7 @@ import org.gvagroup.pool.*;
 /**
  * A daemon to listen for inter-process events.
  * @author Luke
- * @version 12.1
+ * @version 12.4
  * @since 1.0
  */
 
@@ -72,7 +74,9 @@ public class IPCDaemon implements Runnable {
 							case AIRPORT_RELOAD:
 								log.warn("ACARS Reloading Airports");
 								GetAirport apdao = new GetAirport(con);
-								SystemData.add("airports", apdao.getAll());
+								Map<String, Airport> airports = apdao.getAll();
+								SystemData.add("airports", airports);
+								AirportIndex.init(airports.values());
 								break;
 								
 							case AIRPORT_RENAME:
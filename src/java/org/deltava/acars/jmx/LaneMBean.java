@@ -0,0 +1,57 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.jmx;
+
+import javax.management.MXBean;
+
+/**
+ * A JMX MBean for ACARS command execution lane statistics.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+@MXBean
+public interface LaneMBean {
+
+	/**
+	 * Returns the number of commands waiting to execute.
+	 * @return the number of commands
+	 */
+	Integer getWaiting();
+
+	/**
+	 * Returns the largest number of commands that have been waiting to execute.
+	 * @return the number of commands
+	 */
+	Integer getPeakWaiting();
+
+	/**
+	 * Returns the number of threads running commands.
+	 * @return the number of threads
+	 */
+	Integer getActive();
+
+	/**
+	 * Returns the maximum number of concurrent commands.
+	 * @return the number of threads
+	 */
+	Integer getMaxThreads();
+
+	/**
+	 * Returns the number of connections queued in the thread pool waiting for a thread.
+	 * @return the number of tasks
+	 */
+	Integer getPoolQueued();
+
+	/**
+	 * Returns the median time commands waited to execute.
+	 * @return the time in microseconds
+	 */
+	Long getWaitP50();
+
+	/**
+	 * Returns the 99th percentile time commands waited to execute.
+	 * @return the time in microseconds
+	 */
+	Long getWaitP99();
+}
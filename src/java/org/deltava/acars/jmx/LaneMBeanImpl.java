@@ -0,0 +1,70 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.jmx;
+
+import org.deltava.acars.pool.Lane;
+
+/**
+ * A JMX MBean implementation for ACARS command execution lane statistics.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+public class LaneMBeanImpl implements LaneMBean, MetricSource {
+
+	private final Lane _lane;
+
+	/**
+	 * Creates the bean.
+	 * @param l the Lane
+	 */
+	public LaneMBeanImpl(Lane l) {
+		super();
+		_lane = l;
+	}
+
+	@Override
+	public Integer getWaiting() {
+		return Integer.valueOf(_lane.getWaiting());
+	}
+
+	@Override
+	public Integer getPeakWaiting() {
+		return Integer.valueOf(_lane.getPeakWaiting());
+	}
+
+	@Override
+	public Integer getActive() {
+		return Integer.valueOf(_lane.getActive());
+	}
+
+	@Override
+	public Integer getMaxThreads() {
+		return Integer.valueOf(_lane.getMaxThreads());
+	}
+
+	@Override
+	public Integer getPoolQueued() {
+		return Integer.valueOf(_lane.getPoolQueued());
+	}
+
+	@Override
+	public Long getWaitP50() {
+		return Long.valueOf(_lane.getWaitTime().getP50());
+	}
+
+	@Override
+	public Long getWaitP99() {
+		return Long.valueOf(_lane.getWaitTime().getP99());
+	}
+
+	@Override
+	public void export(PrometheusWriter out) {
+		String l = PrometheusWriter.label("lane", _lane.getName());
+		out.gauge("acars_lane_waiting", "Commands waiting to execute", l, _lane.getWaiting());
+		out.gauge("acars_lane_active", "Threads running commands", l, _lane.getActive());
+		out.gauge("acars_lane_max_threads", "Maximum concurrent commands", l, _lane.getMaxThreads());
+		out.gauge("acars_lane_pool_queued", "Connections queued for a pool thread", l, _lane.getPoolQueued());
+		out.summary("acars_lane_wait_seconds", "Time commands waited to execute", l, _lane.getWaitTime());
+	}
+}
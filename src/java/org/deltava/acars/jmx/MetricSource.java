@@ -0,0 +1,18 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.jmx;
+
+/**
+ * An interface for JMX beans that also export their values in the Prometheus text format.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+public interface MetricSource {
+
+	/**
+	 * Writes the bean's metrics.
+	 * @param out the PrometheusWriter
+	 */
+	void export(PrometheusWriter out);
+}
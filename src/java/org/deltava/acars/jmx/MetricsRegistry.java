@@ -0,0 +1,86 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.jmx;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.deltava.util.jmx.JMXUtils;
+
+/**
+ * A registry of ACARS message pipeline telemetry beans. Each bean is registered with JMX next to the other ACARS beans, and the registry
+ * itself is registered as a {@link PipelineMBean} that returns all of their metrics in the Prometheus text format, so the web application
+ * can read them from the platform MBean server without sharing any classes.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+public final class MetricsRegistry implements PipelineMBean {
+
+	private static final String JMX_NAME = "org.gvagroup:type=Pipeline,name=ACARS";
+	private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+
+	private final Map<String, MetricSource> _sources = new ConcurrentSkipListMap<String, MetricSource>();
+
+	// singleton
+	private MetricsRegistry() {
+		super();
+	}
+
+	/*
+	 * Helper method to build the JMX object name.
+	 */
+	private static String getName(String type, String name) {
+		return "org.gvagroup:type=" + type + ",name=" + name;
+	}
+
+	/**
+	 * Registers the pipeline bean with JMX.
+	 */
+	public static void init() {
+		JMXUtils.register(JMX_NAME, INSTANCE);
+	}
+
+	/**
+	 * Registers a telemetry bean.
+	 * @param type the JMX type
+	 * @param name the bean name
+	 * @param src the bean
+	 */
+	public static void register(String type, String name, MetricSource src) {
+		String jmxName = getName(type, name);
+		INSTANCE._sources.put(jmxName, src);
+		JMXUtils.register(jmxName, src);
+	}
+
+	/**
+	 * Removes a telemetry bean.
+	 * @param type the JMX type
+	 * @param name the bean name
+	 */
+	public static void remove(String type, String name) {
+		String jmxName = getName(type, name);
+		INSTANCE._sources.remove(jmxName);
+		JMXUtils.remove(jmxName);
+	}
+
+	/**
+	 * Returns the metrics for every registered source in the Prometheus text exposition format.
+	 * @return the metrics text
+	 */
+	public static String export() {
+		PrometheusWriter out = new PrometheusWriter();
+		INSTANCE._sources.values().forEach(src -> src.export(out));
+		return out.toString();
+	}
+
+	@Override
+	public Integer getSources() {
+		return Integer.valueOf(_sources.size());
+	}
+
+	@Override
+	public String getMetrics() {
+		return export();
+	}
+}
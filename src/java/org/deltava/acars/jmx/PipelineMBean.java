@@ -0,0 +1,27 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.jmx;
+
+import javax.management.MXBean;
+
+/**
+ * A JMX MBean for ACARS message pipeline telemetry.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+@MXBean
+public interface PipelineMBean {
+
+	/**
+	 * Returns the number of registered metric sources.
+	 * @return the number of sources
+	 */
+	Integer getSources();
+
+	/**
+	 * Returns the metrics for every registered source in the Prometheus text exposition format.
+	 * @return the metrics text
+	 */
+	String getMetrics();
+}
@@ -0,0 +1,108 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.jmx;
+
+import java.util.*;
+
+import org.deltava.acars.beans.LatencySnapshot;
+
+/**
+ * A utility class to write metrics in the Prometheus text exposition format. Samples are grouped by metric name, so that each metric's
+ * help and type are written once even when several sources report it.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+public class PrometheusWriter {
+
+	private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+
+	private final Map<String, Metric> _metrics = new LinkedHashMap<String, Metric>();
+
+	private static class Metric {
+		private final String _help;
+		private final String _type;
+		private final StringBuilder _samples = new StringBuilder();
+
+		Metric(String help, String type) {
+			super();
+			_help = help;
+			_type = type;
+		}
+	}
+
+	/*
+	 * Adds a sample to a metric.
+	 */
+	private void add(String name, String help, String type, String suffix, String labels, Number value) {
+		Metric m = _metrics.computeIfAbsent(name, _ -> new Metric(help, type));
+		m._samples.append(name).append(suffix);
+		if (!labels.isEmpty())
+			m._samples.append('{').append(labels).append('}');
+
+		m._samples.append(' ').append(value).append('\n');
+	}
+
+	/**
+	 * Formats a label.
+	 * @param name the label name
+	 * @param value the label value
+	 * @return the formatted label
+	 */
+	public static String label(String name, Object value) {
+		String v = String.valueOf(value).replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+		return name + "=\"" + v + "\"";
+	}
+
+	/**
+	 * Writes a gauge sample.
+	 * @param name the metric name
+	 * @param help the metric description
+	 * @param labels the formatted labels
+	 * @param value the value
+	 */
+	public void gauge(String name, String help, String labels, long value) {
+		add(name, help, "gauge", "", labels, Long.valueOf(value));
+	}
+
+	/**
+	 * Writes a counter sample.
+	 * @param name the metric name, without the _total suffix
+	 * @param help the metric description
+	 * @param labels the formatted labels
+	 * @param value the value
+	 */
+	public void counter(String name, String help, String labels, long value) {
+		add(name, help, "counter", "_total", labels, Long.valueOf(value));
+	}
+
+	/**
+	 * Writes latency percentiles as a summary, in seconds.
+	 * @param name the metric name
+	 * @param help the metric description
+	 * @param labels the formatted labels
+	 * @param ls the LatencySnapshot
+	 */
+	public void summary(String name, String help, String labels, LatencySnapshot ls) {
+		long[] values = { ls.getP50(), ls.getP90(), ls.getP99(), ls.getP999() };
+		String sep = labels.isEmpty() ? "" : labels + ",";
+		for (int x = 0; x < QUANTILES.length; x++)
+			add(name, help, "summary", "", sep + label("quantile", Double.valueOf(QUANTILES[x])), Double.valueOf(values[x] / 1_000_000d));
+
+		add(name, help, "summary", "_count", labels, Long.valueOf(ls.getCount()));
+		add(name, help, "summary", "_sum", labels, Double.valueOf(ls.getMean() * ls.getCount() / 1_000_000d));
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder buf = new StringBuilder(4096);
+		for (Map.Entry<String, Metric> me : _metrics.entrySet()) {
+			Metric m = me.getValue();
+			buf.append("# HELP ").append(me.getKey()).append(' ').append(m._help).append('\n');
+			buf.append("# TYPE ").append(me.getKey()).append(' ').append(m._type).append('\n');
+			buf.append(m._samples);
+		}
+
+		return buf.toString();
+	}
+}
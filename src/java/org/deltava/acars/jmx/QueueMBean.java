@@ -0,0 +1,63 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.jmx;
+
+import javax.management.MXBean;
+
+/**
+ * A JMX MBean for ACARS message pipeline queue statistics.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+@MXBean
+public interface QueueMBean {
+
+	/**
+	 * Returns the number of messages in the queue.
+	 * @return the number of messages
+	 */
+	Integer getDepth();
+
+	/**
+	 * Returns the capacity of the queue.
+	 * @return the number of messages
+	 */
+	Integer getCapacity();
+
+	/**
+	 * Returns the number of messages added to the queue.
+	 * @return the number of messages
+	 */
+	Long getEnqueued();
+
+	/**
+	 * Returns the number of messages removed from the queue.
+	 * @return the number of messages
+	 */
+	Long getDequeued();
+
+	/**
+	 * Returns the number of messages dropped because the queue was full.
+	 * @return the number of messages
+	 */
+	Long getDropped();
+
+	/**
+	 * Returns the median time messages waited in the queue.
+	 * @return the time in microseconds
+	 */
+	Long getDwellP50();
+
+	/**
+	 * Returns the 99th percentile time messages waited in the queue.
+	 * @return the time in microseconds
+	 */
+	Long getDwellP99();
+
+	/**
+	 * Returns the maximum time messages waited in the queue.
+	 * @return the time in microseconds
+	 */
+	Long getDwellMax();
+}
@@ -0,0 +1,85 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.jmx;
+
+import org.deltava.acars.beans.*;
+import org.deltava.acars.util.TwoLaneQueue;
+
+/**
+ * A JMX MBean implementation for ACARS message pipeline queue statistics. The bean listens for the time messages wait in the queue,
+ * and keeps its own histogram of them.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+public class QueueMBeanImpl implements QueueMBean, MetricSource {
+
+	private final String _name;
+	private final TwoLaneQueue<?> _q;
+	private final LatencyHistogram _dwell = new LatencyHistogram(60_000);
+
+	/**
+	 * Creates the bean, and starts recording how long messages wait in the queue.
+	 * @param name the queue name
+	 * @param q the queue
+	 */
+	public QueueMBeanImpl(String name, TwoLaneQueue<?> q) {
+		super();
+		_name = name;
+		_q = q;
+		q.setDwellListener(_dwell::add);
+	}
+
+	@Override
+	public Integer getDepth() {
+		return Integer.valueOf(_q.size());
+	}
+
+	@Override
+	public Integer getCapacity() {
+		return Integer.valueOf(_q.capacity());
+	}
+
+	@Override
+	public Long getEnqueued() {
+		return Long.valueOf(_q.getEnqueued());
+	}
+
+	@Override
+	public Long getDequeued() {
+		return Long.valueOf(_q.getDequeued());
+	}
+
+	@Override
+	public Long getDropped() {
+		return Long.valueOf(_q.getRejected());
+	}
+
+	@Override
+	public Long getDwellP50() {
+		return Long.valueOf(_dwell.getSnapshot().getP50());
+	}
+
+	@Override
+	public Long getDwellP99() {
+		return Long.valueOf(_dwell.getSnapshot().getP99());
+	}
+
+	@Override
+	public Long getDwellMax() {
+		return Long.valueOf(_dwell.getSnapshot().getMax());
+	}
+
+	@Override
+	public void export(PrometheusWriter out) {
+		String l = PrometheusWriter.label("queue", _name);
+		out.gauge("acars_queue_depth", "Messages in the queue", l, _q.size());
+		out.gauge("acars_queue_capacity", "Queue capacity", l, _q.capacity());
+		out.counter("acars_queue_enqueued", "Messages added to the queue", l, _q.getEnqueued());
+		out.counter("acars_queue_dequeued", "Messages removed from the queue", l, _q.getDequeued());
+		out.counter("acars_queue_dropped", "Messages dropped because the queue was full", l, _q.getRejected());
+		LatencySnapshot ls = _dwell.getSnapshot();
+		out.summary("acars_queue_dwell_seconds", "Time messages waited in the queue", l, ls);
+		out.gauge("acars_queue_dwell_max_micros", "Maximum time messages waited in the queue", l, ls.getMax());
+	}
+}
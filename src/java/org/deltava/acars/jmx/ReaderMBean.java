@@ -0,0 +1,75 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.jmx;
+
+import javax.management.MXBean;
+
+/**
+ * A JMX MBean for ACARS network reader statistics.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+@MXBean
+public interface ReaderMBean {
+
+	/**
+	 * Returns the number of select operations.
+	 * @return the number of selects
+	 */
+	Long getSelects();
+
+	/**
+	 * Returns the number of select operations that returned connections with data to read.
+	 * @return the number of wakeups
+	 */
+	Long getWakeups();
+
+	/**
+	 * Returns the number of reads from connections.
+	 * @return the number of reads
+	 */
+	Long getReads();
+
+	/**
+	 * Returns the number of bytes read.
+	 * @return the number of bytes
+	 */
+	Long getBytesRead();
+
+	/**
+	 * Returns the average number of bytes read for each select that returned data.
+	 * @return the number of bytes
+	 */
+	Long getBytesPerWakeup();
+
+	/**
+	 * Returns the number of times reads have been throttled because the input stacks were overloaded.
+	 * @return the number of throttled selects
+	 */
+	Long getThrottled();
+
+	/**
+	 * Returns the number of times reads from a connection have been paused.
+	 * @return the number of pauses
+	 */
+	Long getPauses();
+
+	/**
+	 * Returns the number of connections whose reads are currently paused.
+	 * @return the number of connections
+	 */
+	Integer getPaused();
+
+	/**
+	 * Returns the number of position reports rejected because the fast path track writer's queue was full.
+	 * @return the number of position reports
+	 */
+	Long getTrackRejected();
+
+	/**
+	 * Returns the number of fast path responses dropped because the raw output stack was full.
+	 * @return the number of responses
+	 */
+	Long getFastPathDropped();
+}
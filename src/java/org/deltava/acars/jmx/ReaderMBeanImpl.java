@@ -0,0 +1,97 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.jmx;
+
+import org.deltava.acars.beans.SelectorStats;
+import org.deltava.acars.workers.NetworkReader;
+
+/**
+ * A JMX MBean implementation for ACARS network reader statistics.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+public class ReaderMBeanImpl implements ReaderMBean, MetricSource {
+
+	private final String _shard;
+	private final SelectorStats _stats;
+	private final NetworkReader _nr;
+
+	/**
+	 * Creates the bean.
+	 * @param shard the read shard ID
+	 * @param stats the shard's SelectorStats
+	 * @param nr the NetworkReader servicing the shard
+	 */
+	public ReaderMBeanImpl(int shard, SelectorStats stats, NetworkReader nr) {
+		super();
+		_shard = String.valueOf(shard);
+		_stats = stats;
+		_nr = nr;
+	}
+
+	@Override
+	public Long getSelects() {
+		return Long.valueOf(_stats.getSelects());
+	}
+
+	@Override
+	public Long getWakeups() {
+		return Long.valueOf(_stats.getWakeups());
+	}
+
+	@Override
+	public Long getReads() {
+		return Long.valueOf(_stats.getReads());
+	}
+
+	@Override
+	public Long getBytesRead() {
+		return Long.valueOf(_stats.getBytesRead());
+	}
+
+	@Override
+	public Long getBytesPerWakeup() {
+		long wakeups = _stats.getWakeups();
+		return Long.valueOf((wakeups == 0) ? 0 : _stats.getBytesRead() / wakeups);
+	}
+
+	@Override
+	public Long getThrottled() {
+		return Long.valueOf(_nr.getThrottleCount());
+	}
+
+	@Override
+	public Long getPauses() {
+		return Long.valueOf(_nr.getPauseCount());
+	}
+
+	@Override
+	public Integer getPaused() {
+		return Integer.valueOf(_nr.getPausedConnections());
+	}
+
+	@Override
+	public Long getTrackRejected() {
+		return Long.valueOf(_nr.getTrackRejectCount());
+	}
+
+	@Override
+	public Long getFastPathDropped() {
+		return Long.valueOf(_nr.getFastPathDropCount());
+	}
+
+	@Override
+	public void export(PrometheusWriter out) {
+		String l = PrometheusWriter.label("shard", _shard);
+		out.counter("acars_reader_selects", "Select operations", l, _stats.getSelects());
+		out.counter("acars_reader_wakeups", "Select operations that returned connections with data to read", l, _stats.getWakeups());
+		out.counter("acars_reader_reads", "Reads from connections", l, _stats.getReads());
+		out.counter("acars_reader_bytes", "Bytes read from connections", l, _stats.getBytesRead());
+		out.counter("acars_reader_throttled", "Selects skipped because the input stacks were overloaded", l, _nr.getThrottleCount());
+		out.counter("acars_reader_pauses", "Connections whose reads were paused", l, _nr.getPauseCount());
+		out.gauge("acars_reader_paused", "Connections whose reads are currently paused", l, _nr.getPausedConnections());
+		out.counter("acars_reader_track_rejected", "Position reports rejected because the track writer queue was full", l, _nr.getTrackRejectCount());
+		out.counter("acars_reader_fastpath_dropped", "Fast path responses dropped because the raw output stack was full", l, _nr.getFastPathDropCount());
+	}
+}
@@ -0,0 +1,29 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.jmx;
+
+import java.util.List;
+
+import javax.management.MXBean;
+
+/**
+ * A JMX MBean for ACARS message lifecycle trace statistics.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+@MXBean
+public interface TraceMBean {
+
+	/**
+	 * Returns the number of message traces recorded.
+	 * @return the number of traces
+	 */
+	Long getTraced();
+
+	/**
+	 * Returns the latency percentiles for each pipeline segment of each message type.
+	 * @return a List of latency breakdowns
+	 */
+	List<String> getBreakdown();
+}
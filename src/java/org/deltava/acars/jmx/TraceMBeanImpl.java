@@ -0,0 +1,48 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.jmx;
+
+import java.util.*;
+
+import org.deltava.acars.beans.*;
+import org.deltava.acars.message.MessageType;
+
+/**
+ * A JMX MBean implementation for ACARS message lifecycle trace statistics.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+public class TraceMBeanImpl implements TraceMBean, MetricSource {
+
+	@Override
+	public Long getTraced() {
+		return Long.valueOf(MessageTracer.getTraced());
+	}
+
+	@Override
+	public List<String> getBreakdown() {
+		List<String> results = new ArrayList<String>();
+		for (MessageType mt : MessageTracer.getTypes()) {
+			for (TraceStage st : TraceStage.values()) {
+				LatencySnapshot ls = MessageTracer.getLatency(mt, st);
+				if ((ls != null) && (ls.getCount() > 0))
+					results.add(mt.getCode() + " " + st.getSegment() + " - " + ls);
+			}
+		}
+
+		return results;
+	}
+
+	@Override
+	public void export(PrometheusWriter out) {
+		out.counter("acars_trace_messages", "Message traces recorded", "", MessageTracer.getTraced());
+		for (MessageType mt : MessageTracer.getTypes()) {
+			for (TraceStage st : TraceStage.values()) {
+				LatencySnapshot ls = MessageTracer.getLatency(mt, st);
+				if (ls != null)
+					out.summary("acars_trace_segment_seconds", "Time traced messages spent in each pipeline segment", PrometheusWriter.label("type", mt.getCode()) + "," + PrometheusWriter.label("segment", st.getSegment()), ls);
+			}
+		}
+	}
+}
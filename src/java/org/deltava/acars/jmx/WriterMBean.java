@@ -0,0 +1,51 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.jmx;
+
+import javax.management.MXBean;
+
+/**
+ * A JMX MBean for ACARS network writer statistics.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+@MXBean
+public interface WriterMBean {
+
+	/**
+	 * Returns the number of batches of envelopes written.
+	 * @return the number of batches
+	 */
+	Long getBatches();
+
+	/**
+	 * Returns the number of envelopes written.
+	 * @return the number of envelopes
+	 */
+	Long getWritten();
+
+	/**
+	 * Returns the average number of envelopes written in each batch.
+	 * @return the number of envelopes
+	 */
+	Double getAverageBatch();
+
+	/**
+	 * Returns the largest number of envelopes written in a single batch.
+	 * @return the number of envelopes
+	 */
+	Integer getMaxBatch();
+
+	/**
+	 * Returns the number of times a connection with queued data has been flushed.
+	 * @return the number of flushes
+	 */
+	Long getFlushes();
+
+	/**
+	 * Returns the number of connections with queued data waiting to be flushed.
+	 * @return the number of connections
+	 */
+	Integer getPending();
+}
@@ -0,0 +1,65 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.jmx;
+
+import org.deltava.acars.workers.NetworkWriter;
+
+/**
+ * A JMX MBean implementation for ACARS network writer statistics.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+public class WriterMBeanImpl implements WriterMBean, MetricSource {
+
+	private final NetworkWriter _nw;
+
+	/**
+	 * Creates the bean.
+	 * @param nw the NetworkWriter
+	 */
+	public WriterMBeanImpl(NetworkWriter nw) {
+		super();
+		_nw = nw;
+	}
+
+	@Override
+	public Long getBatches() {
+		return Long.valueOf(_nw.getBatches());
+	}
+
+	@Override
+	public Long getWritten() {
+		return Long.valueOf(_nw.getWritten());
+	}
+
+	@Override
+	public Double getAverageBatch() {
+		long batches = _nw.getBatches();
+		return Double.valueOf((batches == 0) ? 0 : (double) _nw.getWritten() / batches);
+	}
+
+	@Override
+	public Integer getMaxBatch() {
+		return Integer.valueOf(_nw.getMaxBatch());
+	}
+
+	@Override
+	public Long getFlushes() {
+		return Long.valueOf(_nw.getFlushes());
+	}
+
+	@Override
+	public Integer getPending() {
+		return Integer.valueOf(_nw.getPendingConnections());
+	}
+
+	@Override
+	public void export(PrometheusWriter out) {
+		out.counter("acars_writer_batches", "Batches of envelopes drained from the output stack", "", _nw.getBatches());
+		out.counter("acars_writer_envelopes", "Envelopes written", "", _nw.getWritten());
+		out.gauge("acars_writer_batch_max", "Largest number of envelopes written in a single batch", "", _nw.getMaxBatch());
+		out.counter("acars_writer_flushes", "Connections flushed once their sockets became writable", "", _nw.getFlushes());
+		out.gauge("acars_writer_pending", "Connections with queued data waiting to be flushed", "", _nw.getPendingConnections());
+	}
+}
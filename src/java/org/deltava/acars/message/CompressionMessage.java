@@ -13,6 +13,8 @@ import org.deltava.beans.*;
 public class CompressionMessage extends AbstractMessage {
 	
 	private final Compression _type;
+	private boolean _isStreaming;
+	private boolean _useDictionary;
 
 	/**
 	 * Creates the message.
@@ -33,6 +35,31 @@ public class CompressionMessage extends AbstractMessage {
 		return _type;
 	}
 	
+	/**
+	 * Returns whether streaming compression has been requested.
+	 * @return TRUE if streaming compression, otherwise FALSE
+	 */
+	public boolean isStreaming() {
+		return _isStreaming;
+	}
+	
+	/**
+	 * Returns whether the preset streaming compression dictionary has been requested.
+	 * @return TRUE if the dictionary should be used, otherwise FALSE
+	 */
+	public boolean getUseDictionary() {
+		return _useDictionary;
+	}
+	
+	/**
+	 * Requests streaming compression.
+	 * @param useDictionary TRUE to use the preset dictionary, otherwise FALSE
+	 */
+	public void setStreaming(boolean useDictionary) {
+		_isStreaming = true;
+		_useDictionary = useDictionary;
+	}
+	
 	@Override
 	public final boolean isAnonymous() {
 		return true;
@@ -0,0 +1,185 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.pool;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.deltava.acars.beans.*;
+
+import org.gvagroup.ipc.*;
+
+/**
+ * A command execution lane. Each lane has its own threads and concurrency limit, so that slow commands queued in one lane cannot
+ * delay commands in another. Lanes run either on a {@link QueueingThreadPool} or on virtual threads.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+public class Lane implements Executor {
+
+	private final String _name;
+	private final int _maxThreads;
+	private final QueueingThreadPool _pool;
+	private final ExecutorService _vExec;
+	private final Semaphore _permits;
+	private final LatencyWorkerStatus _vStatus;
+
+	private final LatencyWorkerStatus _status;
+	private final AtomicInteger _waiting = new AtomicInteger();
+	private final AtomicInteger _maxWaiting = new AtomicInteger();
+
+	/**
+	 * Creates the lane.
+	 * @param name the lane name
+	 * @param sortBase the base sort order for WorkerStatus beans
+	 * @param minThreads the minimum number of threads
+	 * @param maxThreads the maximum number of concurrent commands
+	 * @param isVirtual TRUE to run commands on virtual threads, otherwise FALSE
+	 * @param logClass the logging class
+	 */
+	public Lane(String name, int sortBase, int minThreads, int maxThreads, boolean isVirtual, Class<?> logClass) {
+		super();
+		_name = name;
+		_maxThreads = Math.max(1, maxThreads);
+		_status = new LatencyWorkerStatus(name + " Lane", sortBase);
+		_status.setStatus(WorkerState.RUNNING);
+		if (isVirtual) {
+			_pool = null;
+			_vExec = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(logClass.getSimpleName() + "-" + name + "-", 1).factory());
+			_permits = new Semaphore(_maxThreads, true);
+			_vStatus = new LatencyWorkerStatus(name + " Virtual Workers", sortBase + 1);
+			_vStatus.setStatus(WorkerState.RUNNING);
+		} else {
+			_pool = new QueueingThreadPool(Math.min(minThreads, _maxThreads), _maxThreads, 1250, logClass, logClass.getSimpleName() + "-" + name);
+			_pool.allowCoreThreadTimeOut(false);
+			_pool.prestartCoreThread();
+			_pool.setSortBase(sortBase);
+			_vExec = null;
+			_permits = null;
+			_vStatus = null;
+		}
+	}
+
+	/**
+	 * Returns the lane name.
+	 * @return the name
+	 */
+	public String getName() {
+		return _name;
+	}
+
+	/**
+	 * Returns the number of commands waiting to execute in this lane.
+	 * @return the number of commands
+	 */
+	public int getWaiting() {
+		return _waiting.get();
+	}
+
+	/**
+	 * Returns the largest number of commands that have been waiting to execute in this lane.
+	 * @return the number of commands
+	 */
+	public int getPeakWaiting() {
+		return _maxWaiting.get();
+	}
+
+	/**
+	 * Returns the maximum number of commands that can run concurrently in this lane.
+	 * @return the number of threads
+	 */
+	public int getMaxThreads() {
+		return _maxThreads;
+	}
+
+	/**
+	 * Returns the number of connections queued in the thread pool waiting for a thread.
+	 * @return the number of tasks
+	 */
+	public int getPoolQueued() {
+		return (_pool == null) ? 0 : _pool.getTasksWaiting();
+	}
+
+	/**
+	 * Returns how long commands have waited to execute in this lane.
+	 * @return a LatencySnapshot
+	 */
+	public LatencySnapshot getWaitTime() {
+		return _status.getLatency();
+	}
+
+	/**
+	 * Returns the number of threads running commands in this lane.
+	 * @return the number of threads
+	 */
+	public int getActive() {
+		return (_pool == null) ? (_maxThreads - _permits.availablePermits()) : _pool.getActiveCount();
+	}
+
+	/**
+	 * Returns the status beans for this lane. The first bean tracks the time commands wait before executing.
+	 * @return a Collection of WorkerStatus beans
+	 */
+	public Collection<WorkerStatus> getWorkerStatus() {
+		_status.setMessage(String.format("%d waiting, %d peak, %d/%d active", Integer.valueOf(_waiting.get()), Integer.valueOf(_maxWaiting.get()),
+			Integer.valueOf(getActive()), Integer.valueOf(_maxThreads)));
+
+		List<WorkerStatus> results = new ArrayList<WorkerStatus>();
+		results.add(_status);
+		if (_pool != null)
+			results.addAll(_pool.getWorkerStatus());
+		else
+			results.add(_vStatus);
+
+		return results;
+	}
+
+	/**
+	 * Records that a command has been queued for this lane.
+	 */
+	void queued() {
+		_maxWaiting.accumulateAndGet(_waiting.incrementAndGet(), Math::max);
+	}
+
+	/**
+	 * Records that a queued command has started executing.
+	 * @param waitTime the time the command was queued for, in nanoseconds
+	 */
+	void started(long waitTime) {
+		_waiting.decrementAndGet();
+		_status.add(waitTime);
+	}
+
+	@Override
+	public void execute(Runnable r) {
+		if (_pool != null) {
+			_pool.execute(r);
+			return;
+		}
+
+		_vExec.execute(() -> {
+			_permits.acquireUninterruptibly();
+			try {
+				if (r instanceof PoolWorker pw)
+					pw.setStatus(_vStatus);
+
+				r.run();
+			} finally {
+				_permits.release();
+			}
+		});
+	}
+
+	/**
+	 * Shuts down the lane.
+	 * @param timeout the time to wait for running commands to complete, in milliseconds
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public void shutdown(long timeout) throws InterruptedException {
+		ExecutorService exec = (_pool == null) ? _vExec : _pool;
+		exec.shutdown();
+		exec.awaitTermination(timeout, TimeUnit.MILLISECONDS);
+	}
+}
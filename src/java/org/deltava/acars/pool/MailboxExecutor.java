@@ -0,0 +1,149 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.pool;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.apache.logging.log4j.*;
+
+/**
+ * An executor that keeps a serial mailbox of tasks for each connection. Tasks for the same connection are executed one at a time in
+ * the order they were submitted, while tasks for different connections run in parallel. Each task runs in its own {@link Lane}, so a
+ * connection waiting on a slow task only delays its own later tasks. A mailbox only exists while it has tasks waiting or running.
+ * Tasks that cannot start yet wait in their mailbox, and each mailbox has at most one worker queued in a lane, so submitting a task
+ * never blocks or runs the task on the submitting thread.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+public class MailboxExecutor {
+
+	private static final int MAX_BATCH = 16;
+
+	private final Logger log;
+	private final Map<Long, Mailbox> _boxes = new ConcurrentHashMap<Long, Mailbox>();
+
+	private static final class Task {
+		private final PoolWorker _w;
+		private final Lane _lane;
+		private final long _queuedOn = System.nanoTime();
+
+		Task(PoolWorker w, Lane lane) {
+			super();
+			_w = w;
+			_lane = lane;
+		}
+	}
+
+	private final class Mailbox {
+		private final Long _id;
+		private final Deque<Task> _tasks = new ArrayDeque<Task>(4);
+		private boolean _isScheduled;
+		private boolean _isClosed;
+
+		Mailbox(Long id) {
+			super();
+			_id = id;
+		}
+
+		Long getID() {
+			return _id;
+		}
+
+		synchronized boolean add(Task t) {
+			if (_isClosed) return false;
+			_tasks.add(t);
+			t._lane.queued();
+			if (!_isScheduled) {
+				_isScheduled = true;
+				t._lane.execute(new MailboxWorker(this, t._lane));
+			}
+
+			return true;
+		}
+
+		synchronized Task next(Lane lane) {
+			Task t = _tasks.peek();
+			if (t == null) {
+				_isClosed = true;
+				_boxes.remove(_id, this);
+			} else if (t._lane == lane)
+				_tasks.poll();
+
+			return t;
+		}
+	}
+
+	private final class MailboxWorker extends PoolWorker {
+		private final Mailbox _box;
+		private final Lane _lane;
+
+		MailboxWorker(Mailbox box, Lane lane) {
+			super();
+			_box = box;
+			_lane = lane;
+		}
+
+		@Override
+		public String getName() {
+			return "Mailbox-" + Long.toHexString(_box.getID().longValue());
+		}
+
+		@Override
+		public void run() {
+			Lane nextLane = _lane;
+			try {
+				for (int x = 0; x < MAX_BATCH; x++) {
+					Task t = _box.next(_lane);
+					if ((t == null) || (t._lane != _lane)) {
+						nextLane = (t == null) ? null : t._lane;
+						return;
+					}
+
+					_lane.started(System.nanoTime() - t._queuedOn);
+					t._w.setStatus(_status);
+					try {
+						t._w.run();
+					} catch (RuntimeException re) {
+						log.atError().withThrowable(re).log("{} - {}", t._w.getName(), re.getMessage());
+					}
+				}
+			} finally {
+				// Give other connections a turn, or move to the lane of the next task
+				if (nextLane != null)
+					nextLane.execute(new MailboxWorker(_box, nextLane));
+			}
+		}
+	}
+
+	/**
+	 * Creates the executor.
+	 * @param logClass the logging class
+	 */
+	public MailboxExecutor(Class<?> logClass) {
+		super();
+		log = LogManager.getLogger(logClass);
+	}
+
+	/**
+	 * Returns the number of connections with tasks waiting or running.
+	 * @return the number of mailboxes
+	 */
+	public int size() {
+		return _boxes.size();
+	}
+
+	/**
+	 * Queues a task for a connection. The task will not start until all earlier tasks for the connection have completed.
+	 * @param conID the connection ID
+	 * @param w the PoolWorker to execute
+	 * @param lane the Lane to execute the task in
+	 */
+	public void execute(long conID, PoolWorker w, Lane lane) {
+		Long id = Long.valueOf(conID);
+		Task t = new Task(w, lane);
+		while (!_boxes.computeIfAbsent(id, Mailbox::new).add(t))
+			Thread.onSpinWait();
+	}
+}
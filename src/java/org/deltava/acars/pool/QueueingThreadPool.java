@@ -1,4 +1,4 @@
-// Copyright 2007, 2008, 2009, 2010, 2011, 2016, 2017, 2023 Global Virtual Airlines Group. All Rights Reserved.
+// Copyright 2007, 2008, 2009, 2010, 2011, 2016, 2017, 2023, 2026 Global Virtual Airlines Group. All Rights Reserved.
 package org.deltava.acars.pool;
 
 import java.util.*;
@@ -14,7 +14,7 @@ import org.gvagroup.ipc.WorkerStatus;
 /**
  * A Thread Pool executor that implements built-in queueing. This allows the thread pool to continue to take work units even if the dynamic thread pool reaches its maximum size. 
  * @author Luke
- * @version 11.1
+ * @version 12.4
  * @since 2.0
  */
 
@@ -99,9 +99,21 @@ public class QueueingThreadPool extends ThreadPoolExecutor implements PoolWorker
 	 * @param logClass the Logging class name
 	 */
 	public QueueingThreadPool(int coreSize, int maxSize, long keepAliveTime, Class<?> logClass) {
+		this(coreSize, maxSize, keepAliveTime, logClass, logClass.getSimpleName());
+	}
+	
+	/**
+	 * Initializes the Thread Pool with a thread name prefix.
+	 * @param coreSize the number of core threads
+	 * @param maxSize the maximum number of threads
+	 * @param keepAliveTime each thread's idle keepalive time in milliseconds
+	 * @param logClass the Logging class name
+	 * @param name the thread name prefix
+	 */
+	public QueueingThreadPool(int coreSize, int maxSize, long keepAliveTime, Class<?> logClass, String name) {
 		super(coreSize, Math.max(coreSize, maxSize), keepAliveTime, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(4, true));
 		log = LogManager.getLogger(logClass);
-		_tFactory = new PoolWorkerFactory(logClass.getSimpleName());
+		_tFactory = new PoolWorkerFactory(name);
 		setThreadFactory(_tFactory);
 		setRejectedExecutionHandler(new QueueHandler());
 	}
@@ -144,7 +156,7 @@ public class QueueingThreadPool extends ThreadPoolExecutor implements PoolWorker
 		// Get the worker status
 		LatencyWorkerStatus ws = _status.get(Integer.valueOf(pt.getID()));
 		if (ws == null) {
-			ws = new LatencyWorkerStatus(pt.getName(), _sortOrderBase + pt.getID(), 1024);
+			ws = new LatencyWorkerStatus(pt.getName(), _sortOrderBase + pt.getID());
 			_status.put(Integer.valueOf(pt.getID()), ws);
 		}
 		
@@ -0,0 +1,72 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.util;
+
+import java.util.*;
+
+import org.deltava.beans.GeoLocation;
+import org.deltava.beans.schedule.Airport;
+
+/**
+ * A spatial index of Airports, used to find the closest airport to a position without sorting every airport. The index is rebuilt
+ * whenever airports are loaded, and replaced atomically so queries are never made against a partially built index.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+public final class AirportIndex {
+
+	private static volatile GeoIndex<String, Airport> _idx = new GeoIndex<String, Airport>(1);
+
+	// static class
+	private AirportIndex() {
+		super();
+	}
+
+	/**
+	 * Rebuilds the index.
+	 * @param airports a Collection of Airports
+	 */
+	public static void init(Collection<Airport> airports) {
+		GeoIndex<String, Airport> idx = new GeoIndex<String, Airport>(1);
+		airports.forEach(a -> idx.put(a.getICAO(), a, a));
+		_idx = idx;
+	}
+
+	/**
+	 * Returns the number of indexed Airports.
+	 * @return the number of Airports
+	 */
+	public static int size() {
+		return _idx.size();
+	}
+
+	/**
+	 * Returns the closest Airport to a location.
+	 * @param loc the location
+	 * @return the closest Airport, or null if no airports are loaded
+	 */
+	public static Airport nearest(GeoLocation loc) {
+		return _idx.nearest(loc);
+	}
+
+	/**
+	 * Returns the closest Airports to a location.
+	 * @param loc the location
+	 * @param maxResults the maximum number of Airports to return
+	 * @return a List of Airports, sorted by distance
+	 */
+	public static List<Airport> nearest(GeoLocation loc, int maxResults) {
+		return _idx.nearest(loc, maxResults);
+	}
+
+	/**
+	 * Returns all Airports within a given distance of a location.
+	 * @param loc the location
+	 * @param distance the distance in miles
+	 * @return a Collection of Airports, in no particular order
+	 */
+	public static Collection<Airport> withinRadius(GeoLocation loc, int distance) {
+		return _idx.within(loc, distance);
+	}
+}
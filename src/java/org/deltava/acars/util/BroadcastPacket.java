@@ -0,0 +1,46 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.util;
+
+import java.util.*;
+
+import org.deltava.beans.Compression;
+
+/**
+ * Encoded message data sent to several connections. The data is compressed once for each Compression type and the compressed packet
+ * is shared by all connections using it, so neither array may be modified once created.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+public class BroadcastPacket {
+
+	private final byte[] _data;
+	private final Map<Compression, byte[]> _packets = Collections.synchronizedMap(new EnumMap<Compression, byte[]>(Compression.class));
+
+	/**
+	 * Creates the packet.
+	 * @param data the encoded message data
+	 */
+	public BroadcastPacket(byte[] data) {
+		super();
+		_data = data;
+	}
+
+	/**
+	 * Returns the uncompressed data.
+	 * @return the data
+	 */
+	public byte[] getData() {
+		return _data;
+	}
+
+	/**
+	 * Returns the data compressed using a particular algorithm. The data is compressed on the first call for each Compression type.
+	 * @param c the Compression
+	 * @return the compressed packet
+	 */
+	public byte[] getPacket(Compression c) {
+		return (c == Compression.NONE) ? _data : _packets.computeIfAbsent(c, k -> DataCompressor.compress(_data, k));
+	}
+}
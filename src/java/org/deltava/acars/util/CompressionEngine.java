@@ -0,0 +1,146 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.util;
+
+import java.io.*;
+import java.nio.*;
+import java.util.Arrays;
+import java.util.zip.*;
+
+/**
+ * A reusable GZIP compression engine. This produces the same output as a GZIPOutputStream, but reuses its Deflater, Inflater and
+ * direct output buffer between packets, and writes the packet header in place. Engines are not thread-safe.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+class CompressionEngine {
+
+	/**
+	 * The GZIP header written by this JVM's GZIPOutputStream.
+	 */
+	private static final byte[] GZIP_HEADER = getHeader();
+	private static final int GZIP_TRAILER = 8;
+	
+	private static final int INIT_BUFFER = 4096;
+	private static final int MAX_BUFFER = 65536;
+
+	// Compression
+	private final Deflater _def = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+	private final CRC32 _dCRC = new CRC32();
+	private ByteBuffer _out = ByteBuffer.allocateDirect(INIT_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+
+	// Decompression
+	private final Inflater _inf = new Inflater(true);
+	private final CRC32 _iCRC = new CRC32();
+
+	/*
+	 * Captures the GZIP header, which varies between JVM versions.
+	 */
+	private static byte[] getHeader() {
+		try (ByteArrayOutputStream out = new ByteArrayOutputStream(32)) {
+			try (OutputStream os = new GZIPOutputStream(out)) {
+				os.flush();
+			}
+
+			return Arrays.copyOf(out.toByteArray(), 10);
+		} catch (IOException ie) {
+			throw new IllegalStateException(ie);
+		}
+	}
+
+	/**
+	 * Compresses data into a packet with the magic number and compressed length header.
+	 * @param magic the magic number
+	 * @param data the data to compress
+	 * @return the packet
+	 */
+	public byte[] compress(int magic, byte[] data) {
+		_def.reset(); _dCRC.reset();
+		_dCRC.update(data, 0, data.length);
+
+		// Reserve space for the packet header and write the GZIP header
+		ensureCapacity(data.length + (data.length >> 12) + (data.length >> 14) + 64);
+		_out.clear();
+		_out.position(8);
+		_out.put(GZIP_HEADER);
+
+		// Compress the data
+		_def.setInput(data, 0, data.length);
+		_def.finish();
+		while (!_def.finished()) {
+			if (!_out.hasRemaining())
+				ensureCapacity(_out.capacity() << 1);
+
+			_def.deflate(_out);
+		}
+
+		// Write the GZIP trailer
+		if (_out.remaining() < GZIP_TRAILER)
+			ensureCapacity(_out.capacity() + GZIP_TRAILER);
+
+		_out.putInt((int) _dCRC.getValue());
+		_out.putInt(data.length);
+
+		// Write the packet header in place
+		int pktSize = _out.position();
+		_out.putInt(0, magic);
+		_out.putInt(4, pktSize - 8);
+
+		byte[] pkt = new byte[pktSize];
+		_out.flip().get(pkt);
+		
+		// Release space allocated for large packets
+		if (_out.capacity() > MAX_BUFFER)
+			_out = ByteBuffer.allocateDirect(INIT_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+		
+		return pkt;
+	}
+
+	/**
+	 * Decompresses a packet.
+	 * @param pkt the packet, including the magic number and compressed length header
+	 * @return the decompressed data, or null if the packet is not a single GZIP member this engine can decode
+	 * @throws DataFormatException if the compressed data is corrupt
+	 */
+	public byte[] decompress(byte[] pkt) throws DataFormatException {
+		int ofs = 8 + GZIP_HEADER.length;
+		if (pkt.length < (ofs + GZIP_TRAILER)) return null;
+
+		// Only handle headers without optional fields
+		if (((pkt[8] & 0xFF) != 0x1F) || ((pkt[9] & 0xFF) != 0x8B) || (pkt[10] != Deflater.DEFLATED) || (pkt[11] != 0))
+			return null;
+
+		// Get the uncompressed size from the trailer
+		ByteBuffer bb = ByteBuffer.wrap(pkt).order(ByteOrder.LITTLE_ENDIAN);
+		int crc = bb.getInt(pkt.length - GZIP_TRAILER);
+		int size = bb.getInt(pkt.length - 4);
+		if ((size < 0) || (size > (pkt.length << 10))) return null;
+
+		// Inflate into an array of the correct size
+		byte[] data = new byte[size];
+		_inf.reset(); _iCRC.reset();
+		_inf.setInput(pkt, ofs, pkt.length - ofs);
+		int len = 0;
+		while ((len < size) && !_inf.finished() && !_inf.needsInput())
+			len += _inf.inflate(data, len, size - len);
+
+		// Check that we consumed the whole stream, and nothing but the trailer remains
+		if ((len == size) && !_inf.finished() && (_inf.inflate(new byte[1]) > 0)) return null;
+		if (!_inf.finished() || (_inf.getRemaining() != GZIP_TRAILER)) return null;
+
+		_iCRC.update(data, 0, len);
+		return (crc == (int) _iCRC.getValue()) ? data : null;
+	}
+
+	/*
+	 * Grows the output buffer, preserving its contents.
+	 */
+	private void ensureCapacity(int size) {
+		if (_out.capacity() >= size) return;
+		ByteBuffer out = ByteBuffer.allocateDirect(Math.max(size, _out.capacity() << 1)).order(ByteOrder.LITTLE_ENDIAN);
+		_out.flip();
+		out.put(_out);
+		_out = out;
+	}
+}
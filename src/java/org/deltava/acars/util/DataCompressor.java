@@ -1,15 +1,19 @@
-// Copyright 2015, 2016, 2022 Global Virtual Airlines Group. All Rights Reserved.
+// Copyright 2015, 2016, 2022, 2026 Global Virtual Airlines Group. All Rights Reserved.
 package org.deltava.acars.util;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.util.zip.*;
 
 import org.deltava.beans.Compression;
 
 /**
- * A class to compress and decompress stream data.
+ * A class to compress and decompress stream data. GZIP packets are compressed and decompressed using a {@link CompressionEngine}
+ * bound to the calling thread, so the Deflater, Inflater and output buffer are shared by all connections serviced by that thread.
+ * Connections may instead negotiate streaming compression, where a {@link StreamingCompressor} owned by the connection compresses
+ * each packet as a continuation of the previous ones.
  * @author Luke
- * @version 10.3
+ * @version 12.4
  * @since 6.4
  */
 
@@ -17,8 +21,11 @@ public class DataCompressor {
 	
 	private static final int MAGIC = 0x8B1FAC00;
 	
+	private static final ThreadLocal<CompressionEngine> ENGINE = ThreadLocal.withInitial(CompressionEngine::new);
+	
 	private final DataBuffer _buffer = new DataBuffer(256);
 	private Compression _c = Compression.NONE;
+	private volatile StreamingCompressor _stream;
 
 	/**
 	 * Utility method to check whether data is GZIP encoded.
@@ -26,9 +33,33 @@ public class DataCompressor {
 	 * @return TRUE if the GZIP magic header is present, otherwise FALSE
 	 */
 	public static boolean isCompressed(byte[] data) {
-		if (data.length < 8) return false;
-		int magic = (data[0] & 0xFF) + ((data[1] & 0xFF) << 8) + ((data[2] & 0xFF) << 16) + ((data[3] & 0xFF) << 24);
-		return (MAGIC == magic);
+		return (data.length >= 8) && isMagic(getInt32(data, 0));
+	}
+	
+	/**
+	 * Utility method to check whether buffered data is GZIP encoded. The buffer position is not changed.
+	 * @param bb the ByteBuffer to check
+	 * @return TRUE if the GZIP magic header is present, otherwise FALSE
+	 */
+	public static boolean isCompressed(ByteBuffer bb) {
+		if (bb.remaining() < 8) return false;
+		int ofs = bb.position();
+		int magic = (bb.get(ofs) & 0xFF) + ((bb.get(ofs+1) & 0xFF) << 8) + ((bb.get(ofs+2) & 0xFF) << 16) + ((bb.get(ofs+3) & 0xFF) << 24);
+		return isMagic(magic);
+	}
+	
+	/*
+	 * Checks whether a packet magic number is valid.
+	 */
+	private static boolean isMagic(int magic) {
+		return (magic == MAGIC) || (magic == StreamingCompressor.MAGIC_STREAM) || (magic == StreamingCompressor.MAGIC_STREAM_NEW);
+	}
+	
+	/*
+	 * Reads a little-endian 32-bit integer.
+	 */
+	private static int getInt32(byte[] data, int ofs) {
+		return (data[ofs] & 0xFF) + ((data[ofs+1] & 0xFF) << 8) + ((data[ofs+2] & 0xFF) << 16) + ((data[ofs+3] & 0xFF) << 24);
 	}
 	
 	/**
@@ -39,6 +70,23 @@ public class DataCompressor {
 		return _c;
 	}
 	
+	/**
+	 * Returns whether streaming compression is in use.
+	 * @return TRUE if streaming compression is enabled, otherwise FALSE
+	 */
+	public boolean isStreaming() {
+		return (_stream != null);
+	}
+	
+	/**
+	 * Returns whether streaming compression uses the preset dictionary.
+	 * @return TRUE if the preset dictionary is used, otherwise FALSE
+	 */
+	public boolean hasDictionary() {
+		StreamingCompressor sc = _stream;
+		return (sc != null) && sc.hasDictionary();
+	}
+	
 	/**
 	 * Returns whether the buffer has a complete packet to decompress.
 	 * @return TRUE if the buffer has at least one complete packet, otherwise FALSE
@@ -82,6 +130,26 @@ public class DataCompressor {
 	 */
 	public void setCompression(Compression c) {
 		_c = c;
+		_stream = null;
+	}
+	
+	/**
+	 * Enables streaming compression. The next packet compressed will start a new stream.
+	 * @param useDictionary TRUE to use the preset dictionary, otherwise FALSE
+	 */
+	public void setStreaming(boolean useDictionary) {
+		_c = Compression.GZIP;
+		_stream = new StreamingCompressor(useDictionary);
+	}
+	
+	/**
+	 * Starts a new outbound compression stream with the next packet. This must be called when compressed packets have been
+	 * discarded without being written, since the receiver can no longer decompress packets that refer to them.
+	 */
+	public void resetStream() {
+		StreamingCompressor sc = _stream;
+		if (sc != null)
+			sc.reset();
 	}
 	
 	/**
@@ -92,12 +160,18 @@ public class DataCompressor {
 	}
 	
 	/**
-	 * Decompresses data using the current algorithm.
+	 * Decompresses data using the current algorithm. Streaming packets are decompressed only if streaming compression is enabled.
 	 * @param data the data to decompress
-	 * @return the decompressed data, or a zero length array in case of error 
+	 * @return the decompressed data, or null in case of error 
 	 */
 	public byte[] decompress(byte[] data) {
-		return decompress(data, _c);
+		StreamingCompressor sc = _stream;
+		if ((_c == Compression.NONE) || (data.length < 8) || (getInt32(data, 0) == MAGIC))
+			return decompress(data, _c);
+		else if ((sc == null) || (data.length != (getInt32(data, 4) + 8)))
+			return null;
+		
+		return sc.decompress(data);
 	}
 	
 	/**
@@ -106,7 +180,19 @@ public class DataCompressor {
 	 * @return the compressed data 
 	 */
 	public byte[] compress(byte[] data) {
-		return compress(data, _c);
+		StreamingCompressor sc = _stream;
+		return (sc == null) ? compress(data, _c) : sc.compress(data);
+	}
+
+	/**
+	 * Compresses shared data using the current algorithm. Unless streaming compression is in use, the compressed packet is shared
+	 * with other connections using the same algorithm.
+	 * @param pkt the BroadcastPacket
+	 * @return the compressed data
+	 */
+	public byte[] compress(BroadcastPacket pkt) {
+		StreamingCompressor sc = _stream;
+		return (sc == null) ? pkt.getPacket(_c) : sc.compress(pkt.getData());
 	}
 
 	/**
@@ -117,19 +203,27 @@ public class DataCompressor {
 	 */
 	public static byte[] decompress(byte[] data, Compression c) {
 		if (c == Compression.NONE) return data;
-		try (ByteArrayOutputStream out = new ByteArrayOutputStream(512); PacketInputStream is = new PacketInputStream(new ByteArrayInputStream(data))) {
-			int magic = is.readInt32(); // check header
-			if (magic != MAGIC) return null;
-			int compressedSize = is.readInt32(); // check size
-			if (data.length != (compressedSize + 8)) return null;
-			try (InputStream in = new GZIPInputStream(is, 1024)) {
-				byte[] buffer = new byte[1024]; 
-				int bytesRead = in.read(buffer);
-				while (bytesRead > 0) {
-					out.write(buffer, 0, bytesRead);
-					bytesRead = in.read(buffer);
-				}
-			}	
+		if ((data.length < 8) || (getInt32(data, 0) != MAGIC)) return null;
+		if (data.length != (getInt32(data, 4) + 8)) return null;
+		try {
+			byte[] out = ENGINE.get().decompress(data);
+			return (out == null) ? decompressStream(data) : out;
+		} catch (DataFormatException dfe) {
+			return null;
+		}
+	}
+	
+	/*
+	 * Decompresses GZIP data with optional header fields or multiple members that the engine does not handle.
+	 */
+	private static byte[] decompressStream(byte[] data) {
+		try (ByteArrayOutputStream out = new ByteArrayOutputStream(512); InputStream in = new GZIPInputStream(new ByteArrayInputStream(data, 8, data.length - 8), 1024)) {
+			byte[] buffer = new byte[1024]; 
+			int bytesRead = in.read(buffer);
+			while (bytesRead > 0) {
+				out.write(buffer, 0, bytesRead);
+				bytesRead = in.read(buffer);
+			}
 			
 			return out.toByteArray();
 		} catch (IOException ie) {
@@ -144,34 +238,6 @@ public class DataCompressor {
 	 * @return the compressed data
 	 */
 	public static byte[] compress(byte[] data, Compression c) {
-		if (c == Compression.NONE) return data;
-		try (ByteArrayOutputStream out = new ByteArrayOutputStream(data.length)) {
-			try (PacketOutputStream dos = new PacketOutputStream(out)) {
-				dos.writeInt32(MAGIC);
-				
-				// Because we store the compressed length we need to compress the entire packet
-				// and get its size
-				try (ByteArrayOutputStream bufs = new ByteArrayOutputStream(data.length)) {
-					try (InputStream is = new ByteArrayInputStream(data)) {
-						try (OutputStream os = new GZIPOutputStream(bufs, 1024, true)) {
-							byte[] buffer = new byte[1024]; int bytesRead = is.read(buffer);	
-							while (bytesRead > 0) {
-								os.write(buffer, 0, bytesRead);
-								bytesRead = is.read(buffer);
-							}
-						}
-					}
-
-					// Write the compressed data
-					byte[] pkt = bufs.toByteArray();
-					dos.writeInt32(pkt.length);
-					dos.write(pkt);
-				}
-			}
-			
-			return out.toByteArray();
-		} catch (IOException ie) {
-			return null;
-		}
+		return (c == Compression.NONE) ? data : ENGINE.get().compress(MAGIC, data);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,215 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.util;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.deltava.beans.GeoLocation;
+
+/**
+ * A spatial index of objects, bucketed into a latitude/longitude grid. Range queries only examine the grid cells that overlap the
+ * search radius, so their cost depends on the number of objects nearby rather than the size of the index. Entries may be updated
+ * and queried concurrently; a query running while an entry moves between cells may miss it.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ * @param <K> the entry key type
+ * @param <T> the entry value type
+ */
+
+public class GeoIndex<K, T> {
+
+	private static final double MILES_PER_DEGREE = 69.05;
+	private static final int MAX_DISTANCE = 12500;
+
+	private final double _cellSize;
+	private final int _rows;
+	private final int _cols;
+
+	private final Map<K, Entry<K, T>> _entries = new ConcurrentHashMap<K, Entry<K, T>>();
+	private final Map<Integer, Map<K, Entry<K, T>>> _cells = new ConcurrentHashMap<Integer, Map<K, Entry<K, T>>>();
+
+	private static final class Entry<K, T> {
+		private final K _key;
+		private final T _value;
+		private final GeoLocation _loc;
+		private final int _cell;
+
+		Entry(K key, T value, GeoLocation loc, int cell) {
+			super();
+			_key = key;
+			_value = value;
+			_loc = loc;
+			_cell = cell;
+		}
+	}
+
+	private static final class Result<T> implements Comparable<Result<T>> {
+		private final T _value;
+		private final int _distance;
+
+		Result(T value, int distance) {
+			super();
+			_value = value;
+			_distance = distance;
+		}
+
+		@Override
+		public int compareTo(Result<T> r2) {
+			return Integer.compare(_distance, r2._distance);
+		}
+	}
+
+	/**
+	 * Creates the index.
+	 * @param cellSize the grid cell size in degrees
+	 */
+	public GeoIndex(double cellSize) {
+		super();
+		_cellSize = Math.max(0.1, Math.min(30, cellSize));
+		_rows = (int) Math.ceil(180 / _cellSize);
+		_cols = (int) Math.ceil(360 / _cellSize);
+	}
+
+	/**
+	 * Returns the number of entries in the index.
+	 * @return the number of entries
+	 */
+	public int size() {
+		return _entries.size();
+	}
+
+	/**
+	 * Adds or moves an entry.
+	 * @param key the entry key
+	 * @param value the entry value
+	 * @param loc the entry location
+	 */
+	public void put(K key, T value, GeoLocation loc) {
+		Entry<K, T> e = new Entry<K, T>(key, value, loc, getCell(loc.getLatitude(), loc.getLongitude()));
+		Entry<K, T> oldE = _entries.put(key, e);
+		if ((oldE != null) && (oldE._cell != e._cell))
+			removeFromCell(oldE);
+
+		_cells.computeIfAbsent(Integer.valueOf(e._cell), _ -> new ConcurrentHashMap<K, Entry<K, T>>()).put(key, e);
+	}
+
+	/**
+	 * Removes an entry.
+	 * @param key the entry key
+	 */
+	public void remove(K key) {
+		Entry<K, T> e = _entries.remove(key);
+		if (e != null)
+			removeFromCell(e);
+	}
+
+	/**
+	 * Removes all entries.
+	 */
+	public void clear() {
+		_entries.clear();
+		_cells.clear();
+	}
+
+	/**
+	 * Returns all entries within a given distance of a location.
+	 * @param loc the location
+	 * @param distance the distance in miles
+	 * @return a Collection of values, in no particular order
+	 */
+	public Collection<T> within(GeoLocation loc, int distance) {
+		return search(loc, distance).stream().map(r -> r._value).toList();
+	}
+
+	/**
+	 * Returns the closest entry to a location.
+	 * @param loc the location
+	 * @return the closest value, or null if the index is empty
+	 */
+	public T nearest(GeoLocation loc) {
+		List<T> results = nearest(loc, 1);
+		return results.isEmpty() ? null : results.get(0);
+	}
+
+	/**
+	 * Returns the closest entries to a location. The search radius is doubled until enough entries are found.
+	 * @param loc the location
+	 * @param k the maximum number of entries to return
+	 * @return a List of values, sorted by distance
+	 */
+	public List<T> nearest(GeoLocation loc, int k) {
+		if ((k < 1) || _entries.isEmpty()) return Collections.emptyList();
+		int distance = (int) Math.max(25, _cellSize * MILES_PER_DEGREE);
+		List<Result<T>> results = search(loc, distance);
+		while ((results.size() < k) && (distance < MAX_DISTANCE)) {
+			distance <<= 1;
+			results = search(loc, distance);
+		}
+
+		Collections.sort(results);
+		return results.stream().limit(k).map(r -> r._value).toList();
+	}
+
+	/*
+	 * Searches the cells overlapping a search radius.
+	 */
+	private List<Result<T>> search(GeoLocation loc, int distance) {
+		List<Result<T>> results = new ArrayList<Result<T>>();
+		double dLat = distance / MILES_PER_DEGREE;
+		double minLat = Math.max(-90, loc.getLatitude() - dLat); double maxLat = Math.min(90, loc.getLatitude() + dLat);
+
+		// Determine the longitude span, which widens towards the poles
+		double maxCos = Math.cos(Math.toRadians(Math.max(Math.abs(minLat), Math.abs(maxLat))));
+		double dLng = (maxCos < 0.01) ? 180 : (dLat / maxCos);
+		int minRow = getRow(minLat); int maxRow = getRow(maxLat);
+		int colSpan = (dLng >= 180) ? _cols : Math.min(_cols, (int) Math.ceil(dLng * 2 / _cellSize) + 2);
+
+		// If we would examine more cells than there are entries, check every entry
+		if (((maxRow - minRow + 1) * colSpan) > _entries.size()) {
+			_entries.values().forEach(e -> addResult(results, e, loc, distance));
+			return results;
+		}
+
+		int minCol = (colSpan == _cols) ? 0 : getCol(loc.getLongitude() - dLng);
+		for (int row = minRow; row <= maxRow; row++) {
+			for (int c = 0; c < colSpan; c++) {
+				Map<K, Entry<K, T>> cell = _cells.get(Integer.valueOf(row * _cols + ((minCol + c) % _cols)));
+				if (cell != null)
+					cell.values().forEach(e -> addResult(results, e, loc, distance));
+			}
+		}
+
+		return results;
+	}
+
+	/*
+	 * Adds an entry to the search results if it is within range.
+	 */
+	private static <K, T> void addResult(Collection<Result<T>> results, Entry<K, T> e, GeoLocation loc, int distance) {
+		int d = loc.distanceTo(e._loc);
+		if (d <= distance)
+			results.add(new Result<T>(e._value, d));
+	}
+
+	/*
+	 * Removes an entry from its cell, if it has not been replaced.
+	 */
+	private void removeFromCell(Entry<K, T> e) {
+		Map<K, Entry<K, T>> cell = _cells.get(Integer.valueOf(e._cell));
+		if (cell != null)
+			cell.remove(e._key, e);
+	}
+
+	private int getRow(double lat) {
+		return Math.max(0, Math.min(_rows - 1, (int) ((lat + 90) / _cellSize)));
+	}
+
+	private int getCol(double lng) {
+		return Math.floorMod((int) Math.floor((lng + 180) / _cellSize), _cols);
+	}
+
+	private int getCell(double lat, double lng) {
+		return getRow(lat) * _cols + getCol(lng);
+	}
+}
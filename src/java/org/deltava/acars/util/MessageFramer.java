@@ -0,0 +1,261 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.util;
+
+import static java.nio.charset.StandardCharsets.*;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+import org.deltava.acars.xml.ProtocolInfo;
+
+/**
+ * An incremental, byte-level framer to split inbound ACARS request elements out of a TCP stream. Data is scanned in place for the
+ * request element open and close markers, and all complete requests are decoded into a single String with one XML header per request.
+ * Scanning resumes where the previous call stopped, so a request split across many reads is not scanned more than once. Binary frames,
+ * which start with a magic number and length header, are recognized where a request element could start and returned separately.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+public class MessageFramer {
+
+	private static final byte[] REQ_OPEN = ProtocolInfo.REQ_ELEMENT_OPEN.getBytes(US_ASCII);
+	private static final byte[] REQ_CLOSE = ProtocolInfo.REQ_ELEMENT_CLOSE.getBytes(US_ASCII);
+	private static final byte[] XML_HDR = ProtocolInfo.XML_HEADER.getBytes(US_ASCII);
+
+	/**
+	 * The size of buffered data without a request element after which the buffer is considered malformed.
+	 */
+	public static final int MAX_UNFRAMED = 54;
+
+	private final int _initSize;
+	private byte[] _buf;
+	private int _start;
+	private int _count;
+
+	// Offsets to resume searching for a request element open, the start of the current element, and the offset to resume searching for its close
+	private int _openPos;
+	private int _reqStart = -1;
+	private int _scanPos;
+
+	// Output buffer
+	private byte[] _out;
+	private int _frames;
+
+	// Binary frames
+	private final Deque<byte[]> _binFrames = new ArrayDeque<byte[]>();
+	private boolean _binPending;
+
+	/**
+	 * Creates the framer.
+	 * @param size the initial buffer size in bytes
+	 */
+	public MessageFramer(int size) {
+		super();
+		_initSize = Math.max(256, size);
+		_buf = new byte[_initSize];
+		_out = new byte[_initSize];
+	}
+
+	/**
+	 * Returns the amount of buffered data that has not been returned as a complete request.
+	 * @return the number of bytes
+	 */
+	public int size() {
+		return _count - _start;
+	}
+
+	/**
+	 * Returns the number of complete requests returned by the last call to {@link MessageFramer#next()}.
+	 * @return the number of requests
+	 */
+	public int getFrameCount() {
+		return _frames;
+	}
+
+	/**
+	 * Returns whether the buffered data does not contain the start of a request element and is too large to be a partial one.
+	 * @return TRUE if the buffer should be discarded, otherwise FALSE
+	 */
+	public boolean isMalformed() {
+		return (_reqStart == -1) && !_binPending && (size() > MAX_UNFRAMED) && (indexOf(XML_HDR, _start) == -1);
+	}
+
+	/**
+	 * Returns the buffered data as a String, for logging.
+	 */
+	@Override
+	public String toString() {
+		return new String(_buf, _start, size(), UTF_8);
+	}
+
+	/**
+	 * Adds the remaining data in a ByteBuffer to the framer. The buffer's position is advanced to its limit.
+	 * @param bb the ByteBuffer
+	 */
+	public void add(ByteBuffer bb) {
+		int len = bb.remaining();
+		ensureCapacity(len);
+		bb.get(_buf, _count, len);
+		_count += len;
+	}
+
+	/**
+	 * Adds data to the framer.
+	 * @param data the data
+	 */
+	public void add(byte[] data) {
+		ensureCapacity(data.length);
+		System.arraycopy(data, 0, _buf, _count, data.length);
+		_count += data.length;
+	}
+
+	/**
+	 * Clears the buffer.
+	 */
+	public void reset() {
+		_start = 0; _count = 0; _openPos = 0; _reqStart = -1; _scanPos = 0; _binPending = false;
+	}
+
+	/**
+	 * Returns the next complete binary frame extracted by {@link MessageFramer#next()}.
+	 * @return the frame payload, without the header, or null if none
+	 */
+	public byte[] nextBinary() {
+		return _binFrames.poll();
+	}
+
+	/**
+	 * Extracts all complete request elements from the buffer.
+	 * @return the requests, each prefixed with an XML header, or null if no request is complete
+	 */
+	public String next() {
+		int outLen = 0; _frames = 0;
+		while (true) {
+			if (_reqStart == -1) {
+				int binResult = frameBinary();
+				if (binResult > 0) continue;
+				if (binResult == 0) break;
+
+				_reqStart = indexOf(REQ_OPEN, _openPos);
+				if (_reqStart == -1) {
+					_openPos = Math.max(_start, _count - REQ_OPEN.length + 1);
+					break;
+				}
+
+				_scanPos = _reqStart + REQ_OPEN.length;
+			}
+
+			// Search for the end of the element
+			int ePos = indexOf(REQ_CLOSE, _scanPos);
+			if (ePos == -1) {
+				_scanPos = Math.max(_scanPos, _count - REQ_CLOSE.length + 1);
+				break;
+			}
+
+			// Copy the request to the output buffer
+			ePos += REQ_CLOSE.length;
+			int reqLen = ePos - _reqStart;
+			if (_out.length < (outLen + XML_HDR.length + reqLen))
+				_out = Arrays.copyOf(_out, Math.max(_out.length * 2, outLen + XML_HDR.length + reqLen));
+
+			System.arraycopy(XML_HDR, 0, _out, outLen, XML_HDR.length);
+			outLen += XML_HDR.length;
+			System.arraycopy(_buf, _reqStart, _out, outLen, reqLen);
+			outLen += reqLen;
+			_frames++;
+			_start = ePos; _openPos = ePos; _reqStart = -1;
+		}
+
+		// If the buffer is empty, release any space allocated for large requests
+		String msgs = (outLen == 0) ? null : new String(_out, 0, outLen, UTF_8);
+		if (_start == _count) {
+			reset();
+			if (_buf.length > (_initSize << 2))
+				_buf = new byte[_initSize];
+			if (_out.length > (_initSize << 2))
+				_out = new byte[_initSize];
+		}
+
+		return msgs;
+	}
+
+	/*
+	 * Extracts a binary frame at the start of the buffer, ignoring leading whitespace. Returns 1 if a frame was extracted, 0 if a
+	 * frame is incomplete, or -1 if the buffer does not start with a binary frame.
+	 */
+	private int frameBinary() {
+		int ofs = _start;
+		while ((ofs < _count) && Character.isWhitespace(_buf[ofs]))
+			ofs++;
+
+		_binPending = false;
+		int avail = _count - ofs;
+		if (avail == 0) return -1;
+		for (int x = 0; (x < 4) && (x < avail); x++) {
+			if (_buf[ofs + x] != (byte) (ProtocolInfo.BINARY_MAGIC >> (x << 3)))
+				return -1;
+		}
+
+		_binPending = true;
+		if (avail < ProtocolInfo.BINARY_HEADER_SIZE)
+			return 0;
+
+		int len = (_buf[ofs + 4] & 0xFF) + ((_buf[ofs + 5] & 0xFF) << 8) + ((_buf[ofs + 6] & 0xFF) << 16) + ((_buf[ofs + 7] & 0xFF) << 24);
+		if ((len < 0) || (len > ProtocolInfo.BINARY_MAX_SIZE)) {
+			_binPending = false;
+			return -1;
+		}
+
+		// Wait for the complete frame
+		if (avail < (len + ProtocolInfo.BINARY_HEADER_SIZE))
+			return 0;
+
+		int pStart = ofs + ProtocolInfo.BINARY_HEADER_SIZE;
+		_binFrames.add(Arrays.copyOfRange(_buf, pStart, pStart + len));
+		_start = pStart + len; _openPos = _start; _binPending = false;
+		return 1;
+	}
+
+	/*
+	 * Makes room at the end of the buffer, discarding consumed data before growing it.
+	 */
+	private void ensureCapacity(int len) {
+		if ((_count + len) <= _buf.length) return;
+
+		// Shift unread data to the start of the buffer
+		if (_start > 0) {
+			int size = size();
+			System.arraycopy(_buf, _start, _buf, 0, size);
+			_openPos = Math.max(0, _openPos - _start);
+			if (_reqStart != -1) {
+				_reqStart -= _start;
+				_scanPos -= _start;
+			}
+
+			_count = size; _start = 0;
+		}
+
+		if ((_count + len) > _buf.length)
+			_buf = Arrays.copyOf(_buf, Math.max(_buf.length * 2, _count + len));
+	}
+
+	/*
+	 * Searches for a byte pattern in the buffer.
+	 */
+	private int indexOf(byte[] pattern, int ofs) {
+		int max = _count - pattern.length; byte b0 = pattern[0];
+		for (int x = Math.max(ofs, _start); x <= max; x++) {
+			if (_buf[x] != b0) continue;
+			int y = 1;
+			while ((y < pattern.length) && (_buf[x + y] == pattern[y]))
+				y++;
+
+			if (y == pattern.length)
+				return x;
+		}
+
+		return -1;
+	}
+}
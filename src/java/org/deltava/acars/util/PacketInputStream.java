@@ -1,4 +1,4 @@
-// Copyright 2010, 2011, 2012, 2014, 2016 Global Virtual Airlines Group. All Rights Reserved.
+// Copyright 2010, 2011, 2012, 2014, 2016, 2026 Global Virtual Airlines Group. All Rights Reserved.
 package org.deltava.acars.util;
 
 import java.io.*;
@@ -6,7 +6,7 @@ import java.io.*;
 /**
  * A class to handle decoding for data packets.
  * @author Luke
- * @version 6.4
+ * @version 12.4
  * @since 4.0
  */
 
@@ -24,6 +24,7 @@ public class PacketInputStream extends DataInputStream {
 	 * Reads a null-terminated UTF-8 string from the stream.
 	 * @return the String
 	 * @throws IOException if an I/O error occurs
+	 * @throws EOFException if the stream ends before the terminator
 	 */
 	public String readUTF8() throws IOException {
 		try (ByteArrayOutputStream os = new ByteArrayOutputStream(64)) {
@@ -33,6 +34,8 @@ public class PacketInputStream extends DataInputStream {
 				b = in.read();
 			}
 
+			if (b < 0) throw new EOFException();
+
 			return new String(os.toByteArray(), "UTF-8");
 		}
 	}
@@ -0,0 +1,137 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.util;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * A bounded lock-free ring buffer for multiple producers and a single consumer. Producers claim a slot by advancing the tail, and
+ * publish it by updating the slot's sequence number, so the consumer never takes a lock. Only one thread may call {@link #poll()}.
+ * The time each element was added is stored with it, so the consumer can measure how long it waited.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ * @param <E> the element type
+ */
+
+class RingBuffer<E> {
+
+	private final Object[] _buffer;
+	private final long[] _times;
+	private final AtomicLongArray _seqs;
+	private final int _mask;
+
+	private final AtomicLong _tail = new AtomicLong();
+	private volatile long _head;
+	private long _lastTime;
+
+	/**
+	 * Creates the buffer.
+	 * @param capacity the minimum capacity, which is rounded up to a power of two
+	 */
+	RingBuffer(int capacity) {
+		super();
+		int size = (capacity <= 2) ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+		_buffer = new Object[size];
+		_times = new long[size];
+		_seqs = new AtomicLongArray(size);
+		_mask = size - 1;
+		for (int x = 0; x < size; x++)
+			_seqs.set(x, x);
+	}
+
+	/**
+	 * Returns the capacity of the buffer.
+	 * @return the capacity
+	 */
+	int capacity() {
+		return _buffer.length;
+	}
+
+	/**
+	 * Returns the number of elements in the buffer. This is only an estimate while producers are adding elements.
+	 * @return the number of elements
+	 */
+	int size() {
+		long size = _tail.get() - _head;
+		return (int) Math.max(0, Math.min(size, _buffer.length));
+	}
+
+	/**
+	 * Returns the time the last element returned by {@link #poll()} was added. This may only be called by the consumer thread.
+	 * @return the time in nanoseconds
+	 */
+	long getLastTime() {
+		return _lastTime;
+	}
+
+	/**
+	 * Adds an element to the buffer.
+	 * @param e the element
+	 * @param time the time the element was added, in nanoseconds
+	 * @return TRUE if added, or FALSE if the buffer is full
+	 */
+	boolean offer(E e, long time) {
+		long pos = _tail.get();
+		while (true) {
+			int idx = (int) (pos & _mask);
+			long dif = _seqs.get(idx) - pos;
+			if (dif == 0) {
+				if (_tail.compareAndSet(pos, pos + 1)) {
+					_buffer[idx] = e;
+					_times[idx] = time;
+					_seqs.set(idx, pos + 1);
+					return true;
+				}
+			} else if (dif < 0)
+				return false;
+
+			pos = _tail.get();
+		}
+	}
+
+	/**
+	 * Removes the element at the head of the buffer. This may only be called by the consumer thread.
+	 * @return the element, or null if the buffer is empty or the next element has not yet been published
+	 */
+	@SuppressWarnings("unchecked")
+	E poll() {
+		long pos = _head;
+		int idx = (int) (pos & _mask);
+		if (_seqs.get(idx) != (pos + 1))
+			return null;
+
+		E e = (E) _buffer[idx];
+		_lastTime = _times[idx];
+		_buffer[idx] = null;
+		_seqs.set(idx, pos + _buffer.length);
+		_head = pos + 1;
+		return e;
+	}
+
+	/**
+	 * Returns the element at the head of the buffer without removing it. This may only be called by the consumer thread.
+	 * @return the element, or null if none
+	 */
+	@SuppressWarnings("unchecked")
+	E peek() {
+		long pos = _head;
+		int idx = (int) (pos & _mask);
+		return (_seqs.get(idx) == (pos + 1)) ? (E) _buffer[idx] : null;
+	}
+
+	/**
+	 * Copies the published elements in the buffer. Elements may be added or removed while copying.
+	 * @param results the Collection to add the elements to
+	 */
+	@SuppressWarnings("unchecked")
+	void copyTo(Collection<? super E> results) {
+		long tail = _tail.get();
+		for (long pos = _head; pos < tail; pos++) {
+			int idx = (int) (pos & _mask);
+			Object e = _buffer[idx];
+			if ((e != null) && (_seqs.get(idx) == (pos + 1)))
+				results.add((E) e);
+		}
+	}
+}
@@ -0,0 +1,170 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.nio.*;
+import java.util.Arrays;
+import java.util.zip.*;
+
+/**
+ * A per-connection streaming compressor. Each packet is deflated as a continuation of the previous one and terminated with a
+ * sync flush, so small repetitive messages are encoded as references to earlier data. The first packet of each stream is sent
+ * with a different magic number, so the receiver knows to reset its Inflater.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+class StreamingCompressor {
+
+	/**
+	 * The magic number for a packet that continues the current stream.
+	 */
+	static final int MAGIC_STREAM = 0x8B1FAC01;
+
+	/**
+	 * The magic number for a packet that starts a new stream.
+	 */
+	static final int MAGIC_STREAM_NEW = 0x8B1FAC02;
+
+	/**
+	 * The preset dictionary. Clients depend on this exact content, so it cannot be changed without a protocol version change.
+	 * It matches the compact XML output, and the most common strings are at the end, where they are cheapest to reference.
+	 */
+	static final byte[] DICTIONARY = ("<datarsp type=\"\"><error><![CDATA[]]></error><pirepID></pirepID><timeOffset></timeOffset><user></user>" +
+		"<flight_info><position><ping><mp><smsg><text><diag></datarsp><CMD type=\"datarsp\" id=\"\" maxAge=\"2500\"><rsptype></rsptype>" +
+		"<?xml version=\"1.0\" encoding=\"utf-8\"?><ACARSResponse version=\"2\"><CMD type=\"ack\" id=\"\" maxAge=\"2500\" /></ACARSResponse>").getBytes(UTF_8);
+
+	private static final int INIT_BUFFER = 4096;
+	private static final int MAX_BUFFER = 65536;
+
+	private final boolean _useDictionary;
+
+	// Compression
+	private final Deflater _def = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+	private ByteBuffer _out = ByteBuffer.allocateDirect(INIT_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+	private boolean _isNew = true;
+
+	// Decompression
+	private final Inflater _inf = new Inflater(true);
+	private byte[] _in = new byte[INIT_BUFFER];
+	private boolean _isInflating;
+
+	/**
+	 * Creates the compressor.
+	 * @param useDictionary TRUE to use the preset dictionary, otherwise FALSE
+	 */
+	StreamingCompressor(boolean useDictionary) {
+		super();
+		_useDictionary = useDictionary;
+	}
+
+	/**
+	 * Returns whether the preset dictionary is in use.
+	 * @return TRUE if the dictionary is used, otherwise FALSE
+	 */
+	public boolean hasDictionary() {
+		return _useDictionary;
+	}
+
+	/**
+	 * Starts a new outbound stream with the next packet. This must be called if any compressed packet is not delivered.
+	 */
+	public void reset() {
+		_isNew = true;
+	}
+
+	/**
+	 * Compresses data into a packet with the magic number and compressed length header.
+	 * @param data the data to compress
+	 * @return the packet
+	 */
+	public byte[] compress(byte[] data) {
+		int magic = MAGIC_STREAM;
+		if (_isNew) {
+			_def.reset();
+			if (_useDictionary)
+				_def.setDictionary(DICTIONARY);
+
+			magic = MAGIC_STREAM_NEW;
+			_isNew = false;
+		}
+
+		// Reserve space for the packet header
+		ensureCapacity(data.length + (data.length >> 10) + 64);
+		_out.clear();
+		_out.position(8);
+
+		// Compress the data, stopping at a byte boundary so the receiver can inflate all of it
+		_def.setInput(data, 0, data.length);
+		do {
+			if (!_out.hasRemaining())
+				ensureCapacity(_out.capacity() << 1);
+
+			_def.deflate(_out, Deflater.SYNC_FLUSH);
+		} while (!_out.hasRemaining());
+
+		// Write the packet header in place
+		int pktSize = _out.position();
+		_out.putInt(0, magic);
+		_out.putInt(4, pktSize - 8);
+
+		byte[] pkt = new byte[pktSize];
+		_out.flip().get(pkt);
+		if (_out.capacity() > MAX_BUFFER)
+			_out = ByteBuffer.allocateDirect(INIT_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+
+		return pkt;
+	}
+
+	/**
+	 * Decompresses a packet.
+	 * @param pkt the packet, including the magic number and compressed length header
+	 * @return the decompressed data, or null if the packet does not continue a valid stream
+	 */
+	public byte[] decompress(byte[] pkt) {
+		int magic = ByteBuffer.wrap(pkt).order(ByteOrder.LITTLE_ENDIAN).getInt(0);
+		if (magic == MAGIC_STREAM_NEW) {
+			_inf.reset();
+			if (_useDictionary)
+				_inf.setDictionary(DICTIONARY);
+
+			_isInflating = true;
+		} else if ((magic != MAGIC_STREAM) || !_isInflating)
+			return null;
+
+		// Inflate until all input is consumed and no output is pending
+		_inf.setInput(pkt, 8, pkt.length - 8);
+		int len = 0; int n = 0;
+		try {
+			do {
+				if (len == _in.length)
+					_in = Arrays.copyOf(_in, _in.length << 1);
+
+				n = _inf.inflate(_in, len, _in.length - len);
+				len += n;
+			} while ((len == _in.length) || ((n > 0) && !_inf.needsInput() && !_inf.finished()));
+		} catch (DataFormatException dfe) {
+			_isInflating = false;
+			return null;
+		}
+
+		byte[] data = Arrays.copyOf(_in, len);
+		if (_in.length > MAX_BUFFER)
+			_in = new byte[INIT_BUFFER];
+
+		return data;
+	}
+
+	/*
+	 * Grows the output buffer, preserving its contents.
+	 */
+	private void ensureCapacity(int size) {
+		if (_out.capacity() >= size) return;
+		ByteBuffer out = ByteBuffer.allocateDirect(Math.max(size, _out.capacity() << 1)).order(ByteOrder.LITTLE_ENDIAN);
+		_out.flip();
+		out.put(_out);
+		_out = out;
+	}
+}
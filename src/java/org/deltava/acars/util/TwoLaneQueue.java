@@ -0,0 +1,249 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.util;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.*;
+
+/**
+ * A blocking queue with separate critical and normal lanes, for many producer threads and a single consumer thread. Each lane is a
+ * lock-free {@link RingBuffer}, and elements in the critical lane are always returned first. Elements in the same lane are returned in
+ * the order they were added, so messages to a single connection stay in order without the cost of a shared priority heap. Only one
+ * thread may remove elements from the queue. The queue counts elements added, removed and rejected because a lane was full, and can
+ * report how long each element waited before it was removed to a listener.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ * @param <E> the element type
+ */
+
+public class TwoLaneQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+	private static final long FULL_WAIT = TimeUnit.MICROSECONDS.toNanos(50);
+
+	private final Predicate<? super E> _isCritical;
+	private final RingBuffer<E> _critical;
+	private final RingBuffer<E> _normal;
+	private final LongAdder _rejected = new LongAdder();
+	private final LongAdder _enqueued = new LongAdder();
+	private volatile long _dequeued;
+	private volatile LongConsumer _dwell;
+
+	private volatile Thread _consumer;
+
+	/**
+	 * Creates the queue.
+	 * @param isCritical a Predicate to determine whether an element belongs in the critical lane
+	 * @param capacity the capacity of each lane
+	 */
+	public TwoLaneQueue(Predicate<? super E> isCritical, int capacity) {
+		super();
+		_isCritical = isCritical;
+		_critical = new RingBuffer<E>(Math.max(16, capacity >> 4));
+		_normal = new RingBuffer<E>(capacity);
+	}
+
+	/*
+	 * Wakes up the consumer thread if it is waiting.
+	 */
+	private void signal() {
+		Thread t = _consumer;
+		if (t != null)
+			LockSupport.unpark(t);
+	}
+
+	/*
+	 * Adds an element to its lane without counting a rejection.
+	 */
+	private boolean tryOffer(E e) {
+		Objects.requireNonNull(e);
+		boolean isAdded = (_isCritical.test(e) ? _critical : _normal).offer(e, System.nanoTime());
+		if (isAdded) {
+			_enqueued.increment();
+			signal();
+		}
+
+		return isAdded;
+	}
+
+	/**
+	 * Returns the number of elements added to the queue.
+	 * @return the number of elements
+	 */
+	public long getEnqueued() {
+		return _enqueued.sum();
+	}
+
+	/**
+	 * Returns the number of elements removed from the queue.
+	 * @return the number of elements
+	 */
+	public long getDequeued() {
+		return _dequeued;
+	}
+
+	/**
+	 * Sets the listener to notify with the time each element waited in the queue, in nanoseconds. The listener is called on the
+	 * consumer thread when an element is removed.
+	 * @param l a LongConsumer, or null for none
+	 */
+	public void setDwellListener(LongConsumer l) {
+		_dwell = l;
+	}
+
+	/**
+	 * Returns the number of elements that could not be added because the queue was full.
+	 * @return the number of elements
+	 */
+	public long getRejected() {
+		return _rejected.sum();
+	}
+
+	/**
+	 * Returns the capacity of the normal lane.
+	 * @return the number of elements
+	 */
+	public int capacity() {
+		return _normal.capacity();
+	}
+
+	@Override
+	public boolean offer(E e) {
+		boolean isAdded = tryOffer(e);
+		if (!isAdded)
+			_rejected.increment();
+
+		return isAdded;
+	}
+
+	@Override
+	public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		while (!tryOffer(e)) {
+			if (Thread.interrupted())
+				throw new InterruptedException();
+
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0) {
+				_rejected.increment();
+				return false;
+			}
+
+			LockSupport.parkNanos(this, Math.min(remaining, FULL_WAIT));
+		}
+
+		return true;
+	}
+
+	@Override
+	public void put(E e) throws InterruptedException {
+		offer(e, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public E poll() {
+		RingBuffer<E> lane = _critical;
+		E e = lane.poll();
+		if (e == null) {
+			lane = _normal;
+			e = lane.poll();
+			if (e == null)
+				return null;
+		}
+
+		_dequeued++;
+		LongConsumer l = _dwell;
+		if (l != null)
+			l.accept(System.nanoTime() - lane.getLastTime());
+
+		return e;
+	}
+
+	@Override
+	public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+		E e = poll();
+		if (e != null)
+			return e;
+
+		// Register as waiting before checking again, so a producer adding an element will see us
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		_consumer = Thread.currentThread();
+		try {
+			while (true) {
+				e = poll();
+				if (e != null)
+					return e;
+				if (Thread.interrupted())
+					throw new InterruptedException();
+
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0)
+					return null;
+
+				LockSupport.parkNanos(this, remaining);
+			}
+		} finally {
+			_consumer = null;
+		}
+	}
+
+	@Override
+	public E take() throws InterruptedException {
+		return poll(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public E peek() {
+		E e = _critical.peek();
+		return (e == null) ? _normal.peek() : e;
+	}
+
+	@Override
+	public int size() {
+		return _critical.size() + _normal.size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return (size() == 0);
+	}
+
+	@Override
+	public int remainingCapacity() {
+		return Math.max(0, _normal.capacity() - _normal.size());
+	}
+
+	@Override
+	public int drainTo(Collection<? super E> c) {
+		return drainTo(c, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public int drainTo(Collection<? super E> c, int maxElements) {
+		if (c == this)
+			throw new IllegalArgumentException();
+
+		int cnt = 0;
+		E e = (maxElements > 0) ? poll() : null;
+		while (e != null) {
+			c.add(e);
+			cnt++;
+			e = (cnt < maxElements) ? poll() : null;
+		}
+
+		return cnt;
+	}
+
+	/**
+	 * Returns a snapshot of the elements in the queue. The iterator does not support removal.
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		List<E> results = new ArrayList<E>(size());
+		_critical.copyTo(results);
+		_normal.copyTo(results);
+		return Collections.unmodifiableList(results).iterator();
+	}
+}
@@ -0,0 +1,59 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.workers;
+
+import java.io.*;
+
+import org.deltava.acars.xml.ProtocolInfo;
+
+/**
+ * A buffer to collect binary-encoded messages into a single frame.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+final class BinaryFrame extends ByteArrayOutputStream {
+
+	private long _time = Long.MAX_VALUE;
+
+	/**
+	 * Creates an empty frame.
+	 */
+	BinaryFrame() {
+		super(512);
+		count = ProtocolInfo.BINARY_HEADER_SIZE;
+	}
+
+	/**
+	 * Returns the timestamp of the oldest message in the frame.
+	 * @return the timestamp
+	 */
+	long getTime() {
+		return _time;
+	}
+
+	/**
+	 * Adds an encoded message to the frame.
+	 * @param data the encoded message
+	 * @param time the message timestamp
+	 * @throws IOException if an I/O error occurs
+	 */
+	void add(ByteArrayOutputStream data, long time) throws IOException {
+		data.writeTo(this);
+		_time = Math.max(0, Math.min(_time, time));
+	}
+
+	/**
+	 * Writes the frame header and returns the frame data.
+	 * @return the frame data
+	 */
+	byte[] toFrame() {
+		int len = count - ProtocolInfo.BINARY_HEADER_SIZE;
+		for (int x = 0; x < 4; x++) {
+			buf[x] = (byte) (ProtocolInfo.BINARY_MAGIC >> (x << 3));
+			buf[x + 4] = (byte) (len >> (x << 3));
+		}
+
+		return toByteArray();
+	}
+}
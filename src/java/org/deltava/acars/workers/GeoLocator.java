@@ -1,4 +1,4 @@
-// Copyright 2017, 2023, 2024 Global Virtual Airlines Group. All Rights Reserved.
+// Copyright 2017, 2023, 2024, 2026 Global Virtual Airlines Group. All Rights Reserved.
 package org.deltava.acars.workers;
 
 import java.util.*;
@@ -20,7 +20,7 @@ import org.gvagroup.pool.ConnectionPool;
 /**
  * An ACARS worker thread to asynchronously geolocate position updates.
  * @author Luke
- * @version 11.4
+ * @version 12.4
  * @since 7.4
  */
 
@@ -48,6 +48,13 @@ public class GeoLocator extends Worker {
 		super.open();
 		_jdbcPool = SystemData.getJDBCPool();
 		_cache = CacheManager.getGeo(CacheableString.class, "GeoCountry");
+		registerQueue("GeoInput", GEO_INPUT);
+	}
+	
+	@Override
+	public void close() {
+		removeQueue("GeoInput");
+		super.close();
 	}
 
 	/**
@@ -60,7 +67,7 @@ public class GeoLocator extends Worker {
 
 		Collection<PositionMessage> upds = new ArrayList<PositionMessage>(); long startTime = 0, execTime = 0;
 		while (!Thread.currentThread().isInterrupted()) {
-			_status.setMessage("Idle - " + _hits + " hits / " + _reqs + " reqs");
+			_status.setMessage("Idle - " + _hits + " hits / " + _reqs + " reqs, " + getQueueStatus(GEO_INPUT));
 			
 			try {
 				Thread.sleep(10000 - execTime); 			// Sleep for 10s
@@ -1,4 +1,4 @@
-// Copyright 2004, 2005, 2006, 2007, 2008, 2009, 2010, 2016, 2017, 2018, 2023 Global Virtual Airlines Group. All Rights Reserved.
+// Copyright 2004, 2005, 2006, 2007, 2008, 2009, 2010, 2016, 2017, 2018, 2023, 2026 Global Virtual Airlines Group. All Rights Reserved.
 package org.deltava.acars.workers;
 
 import java.util.*;
@@ -13,9 +13,9 @@ import org.deltava.util.system.SystemData;
 import org.gvagroup.ipc.WorkerState;
 
 /**
- * An ACARS Worker to translate XML messages into Java objects.
+ * An ACARS Worker to translate XML and binary messages into Java objects.
  * @author Luke
- * @version 11.1
+ * @version 12.4
  * @since 1.0
  */
 
@@ -54,6 +54,14 @@ public final class InputTranslator extends Worker {
 				log.atError().withThrowable(e).log("Error loading {} Message Parser", version);
 			}
 		}
+		
+		registerQueue("RawInput", RAW_INPUT);
+	}
+	
+	@Override
+	public void close() {
+		removeQueue("RawInput");
+		super.close();
 	}
 
 	/**
@@ -64,22 +72,33 @@ public final class InputTranslator extends Worker {
 		log.info("Started");
 		_status.setStatus(WorkerState.RUNNING);
 		while (!Thread.currentThread().isInterrupted()) {
-			_status.setMessage("Idle");
+			_status.setMessage("Idle - " + getQueueStatus(RAW_INPUT));
 			try {
-				TextEnvelope env = RAW_INPUT.poll(30, TimeUnit.SECONDS);
+				Envelope<?> env = RAW_INPUT.poll(30, TimeUnit.SECONDS);
 				_status.execute();
 				while (env != null) {
 					_status.setMessage("Translating Message from " + env.getOwnerID());
 					log.debug("Message received from {}", env.getOwnerID());
 				
 					// Get the proper message parser
-					MessageParser parser = _parsers.get(Integer.valueOf(env.getVersion()));
 					try {
-						Collection<Message> msgs = parser.parse(env);
+						Collection<Message> msgs = Collections.emptyList();
+						if (env instanceof TextEnvelope te)
+							msgs = _parsers.get(Integer.valueOf(te.getVersion())).parse(te);
+						else if (env instanceof BinaryEnvelope be)
+							msgs = _parsers.get(Integer.valueOf(be.getVersion())).parse(be);
+						else
+							log.warn("Unknown envelope type - {}", env.getClass().getSimpleName());
+
+						long parseTime = System.nanoTime();
+						ACARSConnection ac = _pool.get(env.getConnectionID());
 						for (Iterator<Message> i = msgs.iterator(); i.hasNext();) {
 							Message msg = i.next();
-							if (msg.getType() != MessageType.QUIT)
-								MSG_INPUT.add(new MessageEnvelope(msg, env.getConnectionID()));
+							if (msg.getType() == MessageType.QUIT) continue;
+							MessageEnvelope menv = new MessageEnvelope(msg, env.getConnectionID());
+							MessageTracer.trace(env, menv, parseTime);
+							if (!queueInput(ac, menv))
+								log.warn("Input stack full, dropped {} from {}", msg.getType(), env.getOwnerID());
 						}
 					} catch (Exception e) {
 						log.atWarn().withThrowable(e).log("Translation Error - {}", e.getMessage());
@@ -3,6 +3,7 @@ package org.deltava.acars.workers;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
 
 import com.newrelic.api.agent.*;
 
@@ -10,6 +11,7 @@ import org.deltava.acars.beans.*;
 import org.deltava.acars.command.*;
 import org.deltava.acars.command.data.*;
 import org.deltava.acars.command.dispatch.*;
+import org.deltava.acars.jmx.*;
 import org.deltava.acars.message.*;
 import org.deltava.acars.pool.*;
 
@@ -22,19 +24,43 @@ import org.deltava.util.log.*;
 import org.deltava.util.system.SystemData;
 
 /**
- * An ACARS Worker thread to process messages.
+ * An ACARS Worker thread to process messages. Messages from each connection are processed one at a time in the order received, while
+ * messages from different connections are processed in parallel. Commands run in either a fast or a slow {@link Lane}, each with its own
+ * threads, so that slow database-bound commands cannot delay real-time traffic such as position reports. While the server is overloaded,
+ * low-priority data requests are rejected with an error acknowledgement, and position reports replaced by a later one from the same
+ * connection are acknowledged without being processed. These acknowledgements are flagged as superseded, so the client knows the
+ * report was dropped.
  * @author Luke
  * @version 12.4
  * @since 1.0
  */
 
 public class LogicProcessor extends Worker {
+	
+	/**
+	 * The shared data key for command execution time percentiles.
+	 */
+	public static final String CMD_LATENCY = "$acarsDaemon$cmdLatency";
+	
+	private static final long CMD_WINDOW = 900_000;
+	private static final long PUBLISH_INTERVAL = 30_000;
 
-	private QueueingThreadPool _cmdPool;
+	private Lane _fastLane;
+	private Lane _slowLane;
+	private MailboxExecutor _mailboxes;
 	
 	private final HashMap<String, CommandStats> _cmdStats = new HashMap<String, CommandStats>();
+	private final Map<String, LatencyHistogram> _cmdLatency = new HashMap<String, LatencyHistogram>();
+	private long _lastPublish;
 	private final Map<MessageType, ACARSCommand> _commands = new HashMap<MessageType, ACARSCommand>();
 	private final Map<SubRequest, ACARSCommand> _subCommands = new HashMap<SubRequest, ACARSCommand>();
+	private final Map<MessageType, Lane> _lanes = new HashMap<MessageType, Lane>();
+	private final Map<SubRequest, Lane> _subLanes = new HashMap<SubRequest, Lane>();
+	
+	private final Collection<SubRequest> _shedRequests = new HashSet<SubRequest>();
+	private int _maxSlowWaiting;
+	private long _shedCount;
+	private final LongAdder _coalesced = new LongAdder();
 
 	/**
 	 * Initializes the Worker.
@@ -46,12 +72,16 @@ public class LogicProcessor extends Worker {
 	@Override
 	public void open() {
 		super.open();
+		boolean isVirtual = SystemData.getBoolean("acars.pool.threads.logic.virtual");
 		int minThreads = Math.max(1, SystemData.getInt("acars.pool.threads.logic.min", 1));
 		int maxThreads = Math.max(minThreads, SystemData.getInt("acars.pool.threads.logic.max", minThreads));
-		_cmdPool = new QueueingThreadPool(minThreads, maxThreads, 1250, LogicProcessor.class);
-		_cmdPool.allowCoreThreadTimeOut(false);
-		_cmdPool.prestartCoreThread();
-		_cmdPool.setSortBase(_status.getSortOrder());
+		int minFast = Math.max(1, SystemData.getInt("acars.pool.threads.logic.fast.min", 1));
+		int maxFast = Math.max(minFast, SystemData.getInt("acars.pool.threads.logic.fast.max", 2));
+		_fastLane = new Lane("Fast", _status.getSortOrder() + 1, minFast, maxFast, isVirtual, LogicProcessor.class);
+		_slowLane = new Lane("Slow", _status.getSortOrder() + 20, minThreads, maxThreads, isVirtual, LogicProcessor.class);
+		_mailboxes = new MailboxExecutor(LogicProcessor.class);
+		if (isVirtual)
+			log.info("Using virtual threads");
 
 		// Initialize commands
 		_commands.put(MessageType.ACK, new DummyCommand());
@@ -72,7 +102,6 @@ public class LogicProcessor extends Worker {
 		_commands.put(MessageType.PERFORMANCE, new PerformanceCommand());
 		_commands.put(MessageType.DISCONNECT, new KickCommand());
 		_commands.put(MessageType.TAXI, new FlightTaxiCommand());
-		_commands.forEach((_, cmd) -> _cmdStats.put(cmd.getClass().getName(), new CommandStats(cmd.getClass().getSimpleName())));
 
 		// Initialize data commands
 		_subCommands.put(DataRequest.BUSY, new BusyCommand());
@@ -116,12 +145,85 @@ public class LogicProcessor extends Worker {
 		_subCommands.put(DispatchRequest.RANGE, new ServiceRangeCommand());
 		_subCommands.put(DispatchRequest.SCOPEINFO, new ScopeInfoCommand());
 		_subCommands.put(DispatchRequest.ROUTEPLOT, new RoutePlotCommand());
+		
+		// Allow subclasses to replace commands
+		initCommands(_commands);
+		_commands.forEach((_, cmd) -> _cmdStats.put(cmd.getClass().getName(), new CommandStats(cmd.getClass().getSimpleName())));
+		_commands.forEach((_, cmd) -> _cmdLatency.put(cmd.getClass().getName(), new LatencyHistogram(CMD_WINDOW)));
 		_subCommands.forEach((_, cmd) -> _cmdStats.put(cmd.getClass().getName(), new CommandStats(cmd.getClass().getSimpleName())));
+		_subCommands.forEach((_, cmd) -> _cmdLatency.put(cmd.getClass().getName(), new LatencyHistogram(CMD_WINDOW)));
 
 		int size = _commands.size() + _subCommands.size();
 		log.info("Loaded {} commands", Integer.valueOf(size));
+
+		// Assign commands to lanes
+		Map<?, ?> laneCfg = (Map<?, ?>) SystemData.getObject("acars.pool.threads.logic.lanes");
+		int maxFastTime = SystemData.getInt("acars.pool.threads.logic.fast.maxTime", 250);
+		_commands.forEach((mt, cmd) -> _lanes.put(mt, getLane(mt.getCode(), cmd, laneCfg, maxFastTime)));
+		_subCommands.forEach((rt, cmd) -> _subLanes.put(rt, getLane(rt.getCode(), cmd, laneCfg, maxFastTime)));
+		long fastCmds = _lanes.values().stream().filter(l -> (l == _fastLane)).count() + _subLanes.values().stream().filter(l -> (l == _fastLane)).count();
+		log.info("{} commands in fast lane", Long.valueOf(fastCmds));
+		
+		// Load requests to shed when overloaded
+		_maxSlowWaiting = SystemData.getInt("acars.overload.maxWaiting", 256);
+		Collection<?> shedCodes = (Collection<?>) SystemData.getObject("acars.overload.shed");
+		if (shedCodes != null) {
+			for (Object code : shedCodes)
+				_subCommands.keySet().stream().filter(rt -> rt.getCode().equalsIgnoreCase(String.valueOf(code))).forEach(_shedRequests::add);
+			
+			log.info("Shedding {} requests when overloaded", Integer.valueOf(_shedRequests.size()));
+		}
+		
+		registerQueue("MsgInput", MSG_INPUT);
+		MetricsRegistry.register("PipelineLane", _fastLane.getName(), new LaneMBeanImpl(_fastLane));
+		MetricsRegistry.register("PipelineLane", _slowLane.getName(), new LaneMBeanImpl(_slowLane));
 	}
 
+	/**
+	 * Allows subclasses to replace message commands once the default commands have been created, before their statistics and lanes
+	 * are initialized. The default implementation does nothing.
+	 * @param cmds a Map of ACARSCommands, keyed by MessageType
+	 */
+	protected void initCommands(Map<MessageType, ACARSCommand> cmds) {
+		// empty
+	}
+
+	/*
+	 * Helper method to pick the lane for a command. Explicit configuration takes precedence over the command's expected execution time.
+	 */
+	private Lane getLane(String code, ACARSCommand cmd, Map<?, ?> laneCfg, int maxFastTime) {
+		Object lane = (laneCfg == null) ? null : laneCfg.get(code);
+		if (lane != null)
+			return "fast".equalsIgnoreCase(String.valueOf(lane)) ? _fastLane : _slowLane;
+
+		return (cmd.getMaxExecTime() <= maxFastTime) ? _fastLane : _slowLane;
+	}
+
+	private class ShedWorker extends PoolWorker {
+		private final MessageEnvelope _env;
+
+		ShedWorker(MessageEnvelope env) {
+			super();
+			_env = env;
+		}
+
+		@Override
+		public String getName() {
+			return "ShedProcessor";
+		}
+
+		@Override
+		public void run() {
+			try {
+				AcknowledgeMessage ackMsg = new AcknowledgeMessage(_env.getOwner(), _env.getMessage().getID(), "Server busy, try again later");
+				ackMsg.setTime(_env.getTime());
+				pushCritical(ackMsg, _env.getConnectionID());
+			} finally {
+				complete(_env);
+			}
+		}
+	}
+
 	private class CommandWorker extends PoolWorker {
 		private final MessageEnvelope _env;
 		private final ACARSCommand _cmd;
@@ -142,7 +244,23 @@ public class LogicProcessor extends Worker {
 		@Override
 		@Trace(dispatcher=true)
 		public void run() {
+			try {
+				process();
+			} finally {
+				complete(_env);
+			}
+		}
+		
+		private void process() {
 			if ((_env == null) || (_cmd == null)) return;
+			if (_env.isSuperseded()) {
+				_coalesced.increment();
+				AcknowledgeMessage ackMsg = new AcknowledgeMessage(_env.getOwner(), _env.getMessage().getID());
+				ackMsg.setEntry("superseded", "true");
+				ackMsg.setTime(_env.getTime());
+				queueOutput(_pool.get(_env.getConnectionID()), new MessageEnvelope(ackMsg, _env.getConnectionID()), true);
+				return;
+			}
 
 			// Get the message and start time
 			Message msg = _env.getMessage();
@@ -150,7 +268,7 @@ public class LogicProcessor extends Worker {
 
 			// Check if we can be anonymous
 			boolean isAuthenticated = (_env.getOwner() != null);
-			if (isAuthenticated || msg.isAnonymous()) {
+			if (!isAuthenticated && !msg.isAnonymous()) {
 				String errorMsg = _reqType + " Security Exception from " + _env.getOwnerID();
 				ACARSConnection ac = _pool.get(_env.getConnectionID());
 				if (ac != null)
@@ -163,9 +281,7 @@ public class LogicProcessor extends Worker {
 					AcknowledgeMessage ackMsg = new AcknowledgeMessage(null, msg.getID());
 					ackMsg.setEntry("auth", "true");
 					ackMsg.setTime(msg.getTime());
-					MessageEnvelope env = new MessageEnvelope(ackMsg, _env.getConnectionID());
-					env.setCritical(true);
-					MSG_OUTPUT.add(env);
+					pushCritical(ackMsg, _env.getConnectionID());
 				}
 
 				return;
@@ -177,22 +293,30 @@ public class LogicProcessor extends Worker {
 
 			// If the message has high latency, warn
 			long startTime = System.nanoTime();
+			MessageTrace mt = _env.getTrace();
+			if (mt != null)
+				mt.stamp(TraceStage.COMMAND_START, startTime);
+			
 			long msgLatency = startTime - _env.getTime();
 			_status.add(msgLatency);
 			msgLatency = TimeUnit.MILLISECONDS.convert(msgLatency, TimeUnit.NANOSECONDS);
 			if (msgLatency > 500)
-				log.warn("{} from {} has {}ms latency", _reqType, _env.getOwnerID(), Long.valueOf(msgLatency));
+				log.warn("{} from {} has {}ms latency{}", _reqType, _env.getOwnerID(), Long.valueOf(msgLatency), (mt == null) ? "" : " - " + mt);
 
 			// Initialize the command context and execute the command
 			CommandContext ctx = new CommandContext(_pool, _env, _status);
 			_cmd.execute(ctx, _env);
+			if (mt != null)
+				mt.stamp(TraceStage.COMMAND_END);
 			
 			// TODO: Eventually log these to the correct airline
 			APILogger.drain();
 
 			// Calculate and log execution time
-			long execTime = TimeUnit.MILLISECONDS.convert(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+			long execNanos = System.nanoTime() - startTime;
+			long execTime = TimeUnit.MILLISECONDS.convert(execNanos, TimeUnit.NANOSECONDS);
 			stats.success(execTime, ctx.getBackEndTime());
+			_cmdLatency.get(_cmd.getClass().getName()).add(execNanos);
 			NewRelic.recordResponseTimeMetric(_cmd.getClass().getSimpleName(), execTime);
 			if (execTime > _cmd.getMaxExecTime())
 				log.warn("{} completed in {}ms", _cmd.getClass().getName(), Long.valueOf(execTime));
@@ -205,18 +329,74 @@ public class LogicProcessor extends Worker {
 		}
 	}
 
+	/*
+	 * Helper method to mark a tracked envelope as processed, and release its trace.
+	 */
+	private void complete(MessageEnvelope env) {
+		if (env == null) return;
+		MessageTracer.release(env.getTrace());
+		if (!env.isTracked()) return;
+		ACARSConnection ac = _pool.get(env.getConnectionID());
+		if (ac != null) {
+			ac.clearQueuedPosition(env);
+			ac.completePendingMessage();
+		}
+	}
+	
+	/*
+	 * Publishes command execution time percentiles alongside the command statistics.
+	 */
+	private void publishLatency() {
+		long now = System.currentTimeMillis();
+		if ((now - _lastPublish) < PUBLISH_INTERVAL) return;
+		_lastPublish = now;
+		HashMap<String, LatencySnapshot> results = new HashMap<String, LatencySnapshot>();
+		_cmdLatency.forEach((cmdName, h) -> results.put(cmdName, h.getSnapshot()));
+		SharedData.addData(CMD_LATENCY, results);
+	}
+	
+	/*
+	 * Returns whether low-priority requests should be rejected.
+	 */
+	private boolean isShedding() {
+		return isOverloaded(MSG_INPUT) || (_slowLane.getWaiting() > _maxSlowWaiting);
+	}
+	
+	/*
+	 * Rejects a request with an error acknowledgement. The acknowledgement is sent from the connection's mailbox, so it does not overtake
+	 * responses to earlier requests and waiting for space on the output stack does not block this thread.
+	 */
+	private void shed(MessageEnvelope env) {
+		_shedCount++;
+		_mailboxes.execute(env.getConnectionID(), new ShedWorker(env), _fastLane);
+	}
+	
+	/*
+	 * Queues a critical response, waiting for space on the output stack rather than dropping it. This is only called from mailbox tasks,
+	 * never from the processor thread.
+	 */
+	private void pushCritical(Message msg, long conID) {
+		MessageEnvelope env = new MessageEnvelope(msg, conID);
+		env.setCritical(true);
+		queueOutput(_pool.get(conID), env, false);
+	}
+
 	@Override
 	public final List<WorkerStatus> getStatus() {
 		List<WorkerStatus> results = new ArrayList<WorkerStatus>(super.getStatus());
-		results.addAll(_cmdPool.getWorkerStatus());
+		results.addAll(_fastLane.getWorkerStatus());
+		results.addAll(_slowLane.getWorkerStatus());
 		return results;
 	}
 
 	@Override
 	public final void close() {
+		removeQueue("MsgInput");
+		MetricsRegistry.remove("PipelineLane", _fastLane.getName());
+		MetricsRegistry.remove("PipelineLane", _slowLane.getName());
 		try {
-			_cmdPool.shutdown();
-			_cmdPool.awaitTermination(5, TimeUnit.SECONDS);
+			_slowLane.shutdown(5000);
+			_fastLane.shutdown(1000);
 		} catch (InterruptedException ie) {
 			log.warn("Interrupted waiting for shutdown");
 		} catch (Exception e) {
@@ -233,9 +413,11 @@ public class LogicProcessor extends Worker {
 
 		// Keep running until we're interrupted
 		while (!Thread.currentThread().isInterrupted()) {
-			_status.setMessage("Idle - " + _cmdPool.getPoolSize() + " threads");
+			_status.setMessage("Idle - " + _fastLane.getWaiting() + " fast, " + _slowLane.getWaiting() + " slow waiting, " + _mailboxes.size() + " mailboxes, " + getQueueStatus(MSG_INPUT)
+				+ ", " + _shedCount + " shed, " + _coalesced.sum() + " coalesced");
 			try {
 				SharedData.addData(SharedData.ACARS_CMDSTATS, _cmdStats);
+				publishLatency();
 				MessageEnvelope env = MSG_INPUT.poll(30, TimeUnit.SECONDS);
 				_status.execute();
 
@@ -249,17 +431,24 @@ public class LogicProcessor extends Worker {
 					if (msg instanceof SubRequestMessage srmsg) {
 						cmd = _subCommands.get(srmsg.getRequestType());
 						reqType = srmsg.getRequestType().getCode();
-						if (cmd != null) {
+						if ((cmd != null) && _shedRequests.contains(srmsg.getRequestType()) && isShedding()) {
+							log.info("Shedding Data Request ({}) from {}", reqType, env.getOwnerID());
+							shed(env);
+						} else if (cmd != null) {
 							log.info("Data Request ({}) from {}", reqType, env.getOwnerID());
-							_cmdPool.execute(new CommandWorker(env, cmd, reqType));
-						} else
+							_mailboxes.execute(env.getConnectionID(), new CommandWorker(env, cmd, reqType), _subLanes.get(srmsg.getRequestType()));
+						} else {
 							log.warn("No {} Command for {} request", srmsg.getRequestType().getType(), reqType);
+							complete(env);
+						}
 					} else {
 						cmd = _commands.get(msg.getType());
 						if (cmd != null)
-							_cmdPool.execute(new CommandWorker(env, cmd, reqType));
-						else
+							_mailboxes.execute(env.getConnectionID(), new CommandWorker(env, cmd, reqType), _lanes.get(msg.getType()));
+						else {
 							log.warn("No command for {} message", reqType);
+							complete(env);
+						}
 					}
 
 					env = MSG_INPUT.poll();
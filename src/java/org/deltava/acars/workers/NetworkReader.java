@@ -1,10 +1,12 @@
-// Copyright 2004, 2005, 2006, 2007, 2008, 2009, 2010, 2011, 2014, 2015, 2017, 2019, 2023, 2024 Global Virtual Airlines Group. All Rights Reserved.
+// Copyright 2004, 2005, 2006, 2007, 2008, 2009, 2010, 2011, 2014, 2015, 2017, 2019, 2023, 2024, 2026 Global Virtual Airlines Group. All Rights Reserved.
 package org.deltava.acars.workers;
 
 import java.sql.Connection;
 import java.util.*;
+import java.util.concurrent.*;
 
 import org.deltava.acars.beans.*;
+import org.deltava.acars.jmx.*;
 import org.deltava.acars.message.QuitMessage;
 
 import org.deltava.dao.acars.SetConnection;
@@ -12,27 +14,52 @@ import org.deltava.dao.acars.SetConnection;
 import org.deltava.util.*;
 import org.deltava.util.system.SystemData;
 
-import org.gvagroup.ipc.WorkerState;
+import org.gvagroup.ipc.*;
 import org.gvagroup.pool.ConnectionPool;
 
 /**
- * An ACARS Server task to handle reading from network connections.
+ * An ACARS Server task to handle reading from network connections. The connection pool may be split into several read shards,
+ * each of which is serviced by its own NetworkReader. If the position fast path is enabled, inbound messages are translated on
+ * this thread and position reports are processed immediately; otherwise they are queued for the {@link InputTranslator}. When the
+ * input stacks are overloaded the reader stops reading until they drain, and connections with too many messages waiting to be
+ * processed have their read interest cleared until the backlog is halved.
  * @author Luke
- * @version 11.4
+ * @version 12.4
  * @since 1.0
  */
 
 public class NetworkReader extends Worker {
 	
-	private static final int MIN_EXEC_INTERVAL = 25; // 25ms between intervals
+	private static final int MIN_EXEC_INTERVAL = 25; // 25ms between empty selects
 	
+	private final int _shard;
 	private ConnectionPool<Connection> _cPool;
+	
+	private final int _maxPending = SystemData.getInt("acars.overload.maxPending", 64);
+	private final Collection<ACARSConnection> _paused = new ArrayList<ACARSConnection>();
+	private boolean _isThrottled;
+	private volatile long _throttleCount;
+	private volatile long _pauseCount;
+	private volatile long _trkRejects;
+	
+	private PositionFastPath _fastPath;
+	private LatencyWorkerStatus _fpStatus;
+	private ExecutorService _trkExec;
 
 	/**
 	 * Initializes the Worker.
 	 */
 	public NetworkReader() {
-		super("Network I/O Reader", 20, NetworkReader.class);
+		this(0);
+	}
+	
+	/**
+	 * Initializes the Worker for a shard of the connection pool.
+	 * @param shard the read shard ID
+	 */
+	public NetworkReader(int shard) {
+		super((shard == 0) ? "Network I/O Reader" : "Network I/O Reader-" + shard, 20 + shard, NetworkReader.class);
+		_shard = Math.max(0, shard);
 	}
 
 	/**
@@ -43,10 +70,87 @@ public class NetworkReader extends Worker {
 		super.open();
 		_cPool = SystemData.getJDBCPool();
 		try {
-			_pool.updateSelector();
+			_pool.updateSelector(_shard);
 		} catch (Exception e) {
 			throw new IllegalStateException(e);
 		}
+		
+		// Initialize the position fast path, with a single track writer thread to keep track updates in order
+		if (SystemData.getBoolean("acars.position.fastPath")) {
+			_fpStatus = new LatencyWorkerStatus(getName() + " Fast Path", _status.getSortOrder());
+			_fpStatus.setStatus(WorkerState.RUNNING);
+			
+			// Bound the track writer's queue, and count positions rejected when it is full
+			int trkQueueSize = Math.max(16, SystemData.getInt("acars.position.trackQueue", 1024));
+			_trkExec = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(trkQueueSize), r -> {
+				Thread t = new Thread(r, getName() + " Track Writer");
+				t.setDaemon(true);
+				return t;
+			}, (r, e) -> _trkRejects++);
+			
+			_fastPath = new PositionFastPath(_pool, _fpStatus, _trkExec);
+			log.info("Position fast path enabled");
+		}
+		
+		MetricsRegistry.register("PipelineIO", "Reader-" + _shard, new ReaderMBeanImpl(_shard, _pool.getReadStatistics(_shard), this));
+	}
+	
+	/**
+	 * Returns the read shard serviced by this reader.
+	 * @return the shard ID
+	 */
+	public int getShard() {
+		return _shard;
+	}
+	
+	/**
+	 * Returns the number of times reads have been throttled because the input stacks were overloaded.
+	 * @return the number of throttled selects
+	 */
+	public long getThrottleCount() {
+		return _throttleCount;
+	}
+	
+	/**
+	 * Returns the number of times reads from a connection have been paused.
+	 * @return the number of pauses
+	 */
+	public long getPauseCount() {
+		return _pauseCount;
+	}
+	
+	/**
+	 * Returns the number of position reports rejected because the track writer's queue was full.
+	 * @return the number of position reports
+	 */
+	public long getTrackRejectCount() {
+		return _trkRejects;
+	}
+	
+	/**
+	 * Returns the number of fast path responses dropped because the raw output stack was full.
+	 * @return the number of responses
+	 */
+	public long getFastPathDropCount() {
+		return (_fastPath == null) ? 0 : _fastPath.getDropped();
+	}
+	
+	/**
+	 * Returns the number of connections whose reads are currently paused.
+	 * @return the number of connections
+	 */
+	public int getPausedConnections() {
+		return _paused.size();
+	}
+	
+	@Override
+	public final List<WorkerStatus> getStatus() {
+		if (_fpStatus == null)
+			return super.getStatus();
+		
+		List<WorkerStatus> results = new ArrayList<WorkerStatus>(super.getStatus());
+		results.add(_fpStatus);
+		return results;
 	}
 
 	/**
@@ -55,9 +159,11 @@ public class NetworkReader extends Worker {
 	@Override
 	public final void close() {
 
-		// Close all of the connections
+		MetricsRegistry.remove("PipelineIO", "Reader-" + _shard);
+		
+		// Close all of the connections in this shard
 		_status.setMessage("Closing connections");
-		for (ACARSConnection con : _pool.getAll()) {
+		for (ACARSConnection con : _pool.getAll(ac -> (_pool.getShard(ac.getID()) == _shard))) {
 			if (con.isAuthenticated())
 				log.warn("Disconnecting {} ({})", con.getUserID(), con.getRemoteAddr());
 			else
@@ -66,6 +172,15 @@ public class NetworkReader extends Worker {
 			_pool.remove(con);
 		}
 		
+		if (_trkExec != null) {
+			_trkExec.shutdown();
+			try {
+				_trkExec.awaitTermination(2, TimeUnit.SECONDS);
+			} catch (InterruptedException ie) {
+				log.warn("Interrupted waiting for track writer");
+			}
+		}
+		
 		super.close();
 	}
 
@@ -78,16 +193,31 @@ public class NetworkReader extends Worker {
 		_status.setStatus(WorkerState.RUNNING);
 		long lastExecTime = 0; int sleepTime = SystemData.getInt("acars.sleep", 30000);
 
+		int consWaiting = 0;
 		while (!Thread.currentThread().isInterrupted()) {
-			_status.setMessage("Waiting for Data - " + String.valueOf(_pool.getSelectCount()) + " selects");
+			if (throttle()) {
+				try {
+					Thread.sleep(MIN_EXEC_INTERVAL);
+				} catch (InterruptedException ie) {
+					log.warn("Interrupted");
+					Thread.currentThread().interrupt();
+				}
+				
+				continue;
+			}
+			
+			resumeReads();
+			_status.setMessage(String.format("Waiting for Data - %d selects, %d paused (%d total), %d throttled", Integer.valueOf(_pool.getSelectCount(_shard)),
+				Integer.valueOf(_paused.size()), Long.valueOf(_pauseCount), Long.valueOf(_throttleCount)));
 			_status.execute();
-			int consWaiting = 0;
 			try {
+				// Only throttle if the last select woke up without any data, so ready sockets are not held back
 				long runInterval = System.currentTimeMillis() - lastExecTime;
-				if (runInterval < MIN_EXEC_INTERVAL)
+				if ((consWaiting == 0) && (runInterval < MIN_EXEC_INTERVAL))
 					Thread.sleep(MIN_EXEC_INTERVAL - runInterval);
 				
-				consWaiting = _pool.select(sleepTime);
+				consWaiting = 0;
+				consWaiting = _pool.select(_shard, sleepTime);
 			} catch (InterruptedException ie) {
 				log.warn("Interrupted");
 				Thread.currentThread().interrupt();
@@ -102,16 +232,27 @@ public class NetworkReader extends Worker {
 			// Check if there are any messages waiting, and push them onto the raw input stack.
 			if (consWaiting > 0) {
 				_status.setMessage("Reading Inbound Messages");
-				Collection<TextEnvelope> msgs = _pool.read();
+				Collection<Envelope<?>> msgs = _pool.read(_shard);
 				
 				// Do select time
 				long selectTime = System.currentTimeMillis();
 				if ((selectTime  - lastExecTime) > 1500)
-					log.warn("Excessive select time - {}ms ({} connections)", Long.valueOf(selectTime - lastExecTime), Integer.valueOf(_pool.size()));
+					log.warn("Excessive select time - {}ms ({} connections, shard {})", Long.valueOf(selectTime - lastExecTime), Integer.valueOf(_pool.size()), Integer.valueOf(_shard));
 				
-				// Write messages
-				if (!msgs.isEmpty())
-					RAW_INPUT.addAll(msgs);
+				// Write messages, or translate them here if using the fast path
+				if (_fastPath != null) {
+					_status.setMessage("Translating Inbound Messages");
+					msgs.forEach(_fastPath::process);
+				} else {
+					try {
+						for (Envelope<?> env : msgs)
+							RAW_INPUT.put(env);
+					} catch (InterruptedException ie) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				
+				pauseReads(msgs);
 
 				// Check for inactive connections - generate a QUIT message for every one
 				Collection<ACARSConnection> disCon = _pool.checkConnections();
@@ -124,7 +265,11 @@ public class NetworkReader extends Worker {
 						if (con.isAuthenticated()) {
 							log.debug("QUIT Message from {}", con.getUser().getName());
 							conIDs.add(Long.valueOf(con.getID()));
-							MSG_INPUT.add(new MessageEnvelope(new QuitMessage(con), con.getID()));
+							try {
+								MSG_INPUT.put(new MessageEnvelope(new QuitMessage(con), con.getID()));
+							} catch (InterruptedException ie) {
+								Thread.currentThread().interrupt();
+							}
 						}
 					}
 					
@@ -142,6 +287,55 @@ public class NetworkReader extends Worker {
 		}
 	}
 	
+	/*
+	 * Checks whether the input stacks are overloaded, and stops reading until they drain.
+	 */
+	private boolean throttle() {
+		boolean isThrottled = isOverloaded(RAW_INPUT) || isOverloaded(MSG_INPUT);
+		if (isThrottled && !_isThrottled)
+			log.warn("Input stacks overloaded, throttling reads - {} raw, {} messages", Integer.valueOf(RAW_INPUT.size()), Integer.valueOf(MSG_INPUT.size()));
+		else if (!isThrottled && _isThrottled)
+			log.info("Input stacks drained, resuming reads");
+		
+		_isThrottled = isThrottled;
+		if (isThrottled) {
+			_throttleCount++;
+			_status.setMessage("Throttled - " + getQueueStatus(MSG_INPUT));
+		}
+		
+		return isThrottled;
+	}
+	
+	/*
+	 * Stops reading from connections with too many messages waiting to be processed.
+	 */
+	void pauseReads(Collection<Envelope<?>> msgs) {
+		for (Envelope<?> env : msgs) {
+			ACARSConnection ac = _pool.get(env.getConnectionID());
+			if ((ac != null) && !ac.isReadPaused() && (ac.getPendingMessages() > _maxPending)) {
+				log.info("Pausing reads from {} - {} messages pending", ac.getUserID(), Integer.valueOf(ac.getPendingMessages()));
+				_pool.setReadPaused(ac, true);
+				_paused.add(ac);
+				_pauseCount++;
+			}
+		}
+	}
+	
+	/*
+	 * Resumes reading from paused connections once their backlog has been halved.
+	 */
+	void resumeReads() {
+		for (Iterator<ACARSConnection> i = _paused.iterator(); i.hasNext(); ) {
+			ACARSConnection ac = i.next();
+			if (_pool.get(ac.getID()) == null)
+				i.remove();
+			else if (ac.getPendingMessages() <= (_maxPending / 2)) {
+				_pool.setReadPaused(ac, false);
+				i.remove();
+			}
+		}
+	}
+	
 	/*
 	 * Helper method to log closing of connections.
 	 */
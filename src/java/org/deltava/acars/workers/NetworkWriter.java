@@ -1,18 +1,19 @@
 // Copyright 2004, 2005, 2006, 2007, 2008, 2009, 2010, 2011, 2016, 2017, 2023, 2026 Global Virtual Airline Group. All Rights Reserved.
 package org.deltava.acars.workers;
 
+import java.io.IOException;
+import java.nio.channels.*;
 import java.util.*;
-import java.util.concurrent.*;
+import java.util.concurrent.TimeUnit;
 
 import org.deltava.acars.beans.*;
-import org.deltava.acars.pool.*;
-
-import org.deltava.util.system.SystemData;
+import org.deltava.acars.jmx.*;
 
 import org.gvagroup.ipc.*;
 
 /**
- * An ACARS Server task to handle writing to network connections.
+ * An ACARS Server task to handle writing to network connections. Messages are written to each connection without blocking; connections
+ * whose sockets cannot accept all of their queued data are registered with a shared write Selector and flushed once they become writable.
  * @author Luke
  * @version 12.4
  * @since 1.0
@@ -20,89 +21,166 @@ import org.gvagroup.ipc.*;
 
 public class NetworkWriter extends Worker {
 
-	private QueueingThreadPool _ioPool;
+	private static final int WRITE_INTERVAL = 10; // 10ms between flushes when connections have queued data
 
-	private final class ConnectionWriter extends PoolWorker {
-		private final ACARSConnection _con;
-		private final OutputEnvelope _env;
+	private final LatencyWorkerStatus _wStatus;
 
-		ConnectionWriter(ACARSConnection ac, OutputEnvelope env) {
-			super();
-			_con = ac;
-			_env = env;
-		}
-		
-		@Override
-		public String getName() {
-			return "ConnectionWriter";
-		}
-		
-		@Override
-		public void run() {
-			_status.setMessage("Writing to " + _con.getUserID());
-			if (_env instanceof TextEnvelope te)
-				_con.write(te.getMessage());
-			else
-				log.warn("Unknown envelope type - {}", _env.getClass().getSimpleName());
-			
-			_status.add(System.nanoTime() - _env.getTime());
-		}
-	}
+	private Selector _wSelector;
+	private final Collection<ACARSConnection> _pending = new LinkedHashSet<ACARSConnection>();
+	
+	private volatile long _batches;
+	private volatile long _written;
+	private volatile long _flushes;
+	private volatile int _maxBatch;
 
 	/**
 	 * Initializes the worker task.
 	 */
 	public NetworkWriter() {
-		super("Network I/O Writer", 70, NetworkWriter.class);
+		this(new LatencyWorkerStatus("Network I/O Writer", 70));
+	}
+
+	private NetworkWriter(LatencyWorkerStatus ws) {
+		super("Network I/O Writer", ws, NetworkWriter.class);
+		_wStatus = ws;
 	}
 
 	/**
-	 * Opens the worker task and initializes the ConnectionWriter thread pool.
+	 * Opens the worker task and initializes the write Selector.
 	 * @see Worker#open()
 	 */
 	@Override
 	public final void open() {
 		super.open();
-
-		// Create initial writer threads
-		int minThreads = Math.max(1, SystemData.getInt("acars.pool.threads.write.min", 1));
-		int maxThreads = Math.max(minThreads, SystemData.getInt("acars.pool.threads.write.max", minThreads));
-		_ioPool = new QueueingThreadPool(minThreads, maxThreads, 1500, NetworkWriter.class);
-		_ioPool.allowCoreThreadTimeOut(false);
-		_ioPool.prestartCoreThread();
-		_ioPool.setSortBase(70);
+		try {
+			_wSelector = Selector.open();
+		} catch (IOException ie) {
+			throw new IllegalStateException(ie);
+		}
+		
+		registerQueue("RawOutput", RAW_OUTPUT);
+		MetricsRegistry.register("PipelineIO", "Writer", new WriterMBeanImpl(this));
+	}
+	
+	/**
+	 * Returns the number of batches of envelopes written. A batch is all of the envelopes drained from the output stack at once.
+	 * @return the number of batches
+	 */
+	public long getBatches() {
+		return _batches;
+	}
+	
+	/**
+	 * Returns the number of envelopes written.
+	 * @return the number of envelopes
+	 */
+	public long getWritten() {
+		return _written;
+	}
+	
+	/**
+	 * Returns the largest number of envelopes written in a single batch.
+	 * @return the number of envelopes
+	 */
+	public int getMaxBatch() {
+		return _maxBatch;
+	}
+	
+	/**
+	 * Returns the number of times a connection with queued data has been flushed once its socket became writable.
+	 * @return the number of flushes
+	 */
+	public long getFlushes() {
+		return _flushes;
+	}
+	
+	/**
+	 * Returns the number of connections with queued data waiting to be flushed.
+	 * @return the number of connections
+	 */
+	public int getPendingConnections() {
+		return _pending.size();
 	}
 
 	/**
-	 * Closes the worker task. All ConnectionWriter thrads will be shut down.
+	 * Closes the worker task and releases the write Selector.
 	 * @see Worker#close()
 	 */
 	@Override
 	public final void close() {
 		_status.setStatus(WorkerState.SHUTDOWN);
-		
-		// Wait for the pool to shut down
+		removeQueue("RawOutput");
+		MetricsRegistry.remove("PipelineIO", "Writer");
 		try {
-			_ioPool.shutdown();
-			_ioPool.awaitTermination(2500, TimeUnit.MILLISECONDS);
-		} catch (InterruptedException ie) {
-			log.warn("Interrupted Pool Termination");
+			_wSelector.close();
 		} catch (Exception e) {
 			log.atError().withThrowable(e).log(e.getMessage());
 		} finally {
+			_pending.clear();
 			super.close();
 		}
 	}
 
-	/**
-	 * Returns the status of this Worker and the Connection writers.
-	 * @return a List of WorkerStatus beans, with this Worker's status first
+	/*
+	 * Writes an envelope to a connection, and registers for write notification if it could not be completely written.
 	 */
-	@Override
-	public final List<WorkerStatus> getStatus() {
-		List<WorkerStatus> results = new ArrayList<WorkerStatus>(super.getStatus());
-		results.addAll(_ioPool.getWorkerStatus());
-		return results;
+	private void write(ACARSConnection ac, OutputEnvelope env) {
+		if (env instanceof TextEnvelope te)
+			ac.write(te.getMessage());
+		else if (env instanceof BinaryEnvelope be)
+			ac.write(be.getMessage());
+		else if (env instanceof BroadcastPacketEnvelope bpe)
+			ac.write(bpe.getMessage());
+		else
+			log.warn("Unknown envelope type - {}", env.getClass().getSimpleName());
+
+		long now = System.nanoTime();
+		_wStatus.add(now - env.getTime());
+		for (MessageTrace mt : env.getTraces()) {
+			mt.stamp(TraceStage.WRITE, now);
+			MessageTracer.release(mt);
+		}
+		
+		if (ac.hasPendingWrites() && _pending.add(ac)) {
+			try {
+				ac.setWriteInterest(_wSelector, true);
+			} catch (ClosedChannelException | CancelledKeyException ce) {
+				_pending.remove(ac);
+			}
+		}
+	}
+
+	/*
+	 * Flushes connections whose sockets have become writable, and drops connections that have been written or have timed out.
+	 */
+	private void flushPending() throws IOException {
+		if (_wSelector.selectNow() > 0) {
+			for (Iterator<SelectionKey> i = _wSelector.selectedKeys().iterator(); i.hasNext(); ) {
+				SelectionKey k = i.next();
+				if (k.isValid() && k.isWritable() && (k.attachment() instanceof ACARSConnection ac)) {
+					ac.flush();
+					_flushes++;
+				}
+
+				i.remove();
+			}
+		}
+
+		for (Iterator<ACARSConnection> i = _pending.iterator(); i.hasNext(); ) {
+			ACARSConnection ac = i.next();
+			boolean isDone = !ac.hasPendingWrites();
+			if (!isDone && (ac.getWriteStallTime() > TCPChannel.WRITE_TIMEOUT))
+				isDone = ac.flush();
+
+			if (isDone) {
+				i.remove();
+				try {
+					ac.setWriteInterest(_wSelector, false);
+				} catch (ClosedChannelException | CancelledKeyException ce) {
+					// empty
+				}
+			}
+		}
 	}
 
 	/**
@@ -114,17 +192,32 @@ public class NetworkWriter extends Worker {
 		_status.setStatus(WorkerState.RUNNING);
 		while (!Thread.currentThread().isInterrupted()) {
 			try {
-				_status.setMessage("Idle - " + _ioPool.getPoolSize() + " threads");
-				OutputEnvelope env = RAW_OUTPUT.poll(30, TimeUnit.SECONDS);
+				_status.setMessage("Idle - " + _pending.size() + " pending connections, " + getQueueStatus(RAW_OUTPUT));
+				OutputEnvelope env = _pending.isEmpty() ? RAW_OUTPUT.poll(30, TimeUnit.SECONDS) : RAW_OUTPUT.poll(WRITE_INTERVAL, TimeUnit.MILLISECONDS);
 				_status.execute();
-				_status.setMessage("Dispatching - " + _ioPool.getPoolSize() + " threads");
+				_status.setMessage("Writing - " + _pending.size() + " pending connections");
+				int batchSize = 0;
 				while (env != null) {
 					ACARSConnection ac = _pool.get(env.getConnectionID());
 					if (ac != null)
-						_ioPool.execute(new ConnectionWriter(ac, env));
-	
+						write(ac, env);
+
+					batchSize++;
 					env = RAW_OUTPUT.poll();
 				}
+				
+				// Update batch statistics
+				if (batchSize > 0) {
+					_batches++;
+					_written += batchSize;
+					_maxBatch = Math.max(_maxBatch, batchSize);
+				}
+
+				// Flush connections with queued data
+				if (!_pending.isEmpty()) {
+					_status.setMessage("Flushing " + _pending.size() + " pending connections");
+					flushPending();
+				}
 
 				_status.complete();
 			} catch (InterruptedException ie) {
@@ -134,4 +227,4 @@ public class NetworkWriter extends Worker {
 			}
 		}
 	}
-}
\ No newline at end of file
+}
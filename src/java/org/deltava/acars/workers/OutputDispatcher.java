@@ -1,7 +1,10 @@
-// Copyright 2004, 2005, 2006, 2007, 2008, 2009, 2010, 2011, 2012, 2013, 2016, 2017, 2023 Global Virtual Airlines Group. All Rights Reserved.
+// Copyright 2004, 2005, 2006, 2007, 2008, 2009, 2010, 2011, 2012, 2013, 2016, 2017, 2023, 2026 Global Virtual Airlines Group. All Rights Reserved.
 package org.deltava.acars.workers;
 
+import java.io.*;
 import java.util.*;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
 import java.util.concurrent.TimeUnit;
 
 import org.jdom2.*;
@@ -9,6 +12,7 @@ import org.jdom2.output.*;
 
 import org.deltava.acars.beans.*;
 import org.deltava.acars.message.Message;
+import org.deltava.acars.util.*;
 import org.deltava.acars.xml.*;
 import org.deltava.beans.Pilot;
 
@@ -16,9 +20,14 @@ import org.deltava.util.system.SystemData;
 import org.gvagroup.ipc.WorkerState;
 
 /**
- * An ACARS Server worker to generate XML messages and dispatch them to the proper connection.
+ * An ACARS Server worker to generate XML messages and dispatch them to the proper connection. Messages that the connection's protocol
+ * version can encode in binary are collected into a single binary frame instead. XML messages are written in compact form directly into
+ * reusable byte buffers, unless pretty-printed JDOM output is enabled for debugging. Messages sent to several connections are formatted
+ * once for each protocol version, and the encoded data is shared by all recipients. Any output already collected for a recipient is
+ * pushed before a message sent to several connections, so that it does not overtake earlier responses. Likewise, when a connection's
+ * messages switch between binary and XML encoding, the output collected so far is pushed first so that it is sent in formatting order.
  * @author Luke
- * @version 11.1
+ * @version 12.4
  * @since 1.0
  */
 
@@ -29,6 +38,22 @@ public final class OutputDispatcher extends Worker {
 	
 	private final XMLOutputter _xmlOut = new XMLOutputter(Format.getPrettyFormat().setEncoding("UTF-8"));
 	private final XMLOutputter _tinyOut = new XMLOutputter(Format.getCompactFormat().setEncoding("UTF-8"));
+	private boolean _isPretty;
+	
+	private static final int MAX_POOL_SIZE = 64;
+	private static final int MAX_BUFFER_SIZE = 65536;
+	private final Deque<DatedResponse> _rspPool = new ArrayDeque<DatedResponse>();
+	
+	private final ByteArrayOutputStream _binBuffer = new ByteArrayOutputStream(512);
+	private final PacketOutputStream _binOut = new PacketOutputStream(_binBuffer);
+	
+	// Output collected for each connection during a dispatch cycle
+	private final Map<Long, Pilot> _users = new HashMap<Long, Pilot>();
+	private final Map<Long, DatedDocument> _docs = new HashMap<Long, DatedDocument>();
+	private final Map<Long, DatedResponse> _rsps = new HashMap<Long, DatedResponse>();
+	private final Map<Long, BinaryFrame> _frames = new HashMap<Long, BinaryFrame>();
+	private final Map<Object, Collection<MessageTrace>> _traces = new IdentityHashMap<Object, Collection<MessageTrace>>();
+	private final Map<Long, Integer> _outputs = new HashMap<Long, Integer>();
 
 	private static final class DatedDocument extends Document {
 
@@ -60,7 +85,36 @@ public final class OutputDispatcher extends Worker {
 			_time = Math.max(0, Math.min(_time, time));
 		}
 	}
-
+	
+	private static final class DatedResponse extends CompactXMLWriter {
+		
+		private long _time = Long.MAX_VALUE;
+		
+		DatedResponse() {
+			super(1024);
+		}
+		
+		long getTime() {
+			return _time;
+		}
+		
+		void start(int version) {
+			startDocument();
+			startElement(ProtocolInfo.RSP_ELEMENT_NAME);
+			attribute("version", version);
+		}
+		
+		void setTime(long time) {
+			_time = Math.max(0, Math.min(_time, time));
+		}
+		
+		@Override
+		public synchronized void reset() {
+			super.reset();
+			_time = Long.MAX_VALUE;
+		}
+	}
+	
 	/**
 	 * Initializes the Worker.
 	 */
@@ -94,6 +148,262 @@ public final class OutputDispatcher extends Worker {
 		}
 		
 		_defaultFmt = _formatters.get(_formatters.firstKey());
+		_isPretty = SystemData.getBoolean("acars.prettyXML");
+		if (_isPretty)
+			log.info("Pretty-printing XML output");
+		
+		registerQueue("MsgOutput", MSG_OUTPUT);
+	}
+	
+	@Override
+	public void close() {
+		removeQueue("MsgOutput");
+		super.close();
+	}
+
+	/*
+	 * Converts a pretty-printed XML document to text and pushes it to the output stack.
+	 */
+	private void push(Pilot user, DatedDocument doc, long conID, Collection<MessageTrace> traces) {
+		if (doc.isEmpty()) return;
+		XMLOutputter out = doc.isCompact() ? _tinyOut : _xmlOut;
+		TextEnvelope outenv = new TextEnvelope(user, out.outputString(doc), conID);
+		outenv.setTime(doc.getTime());
+		attach(outenv, traces);
+		output(outenv);
+	}
+	
+	/*
+	 * Pushes a binary frame to the output stack.
+	 */
+	private static void push(Pilot user, BinaryFrame bf, long conID, Collection<MessageTrace> traces) {
+		BinaryEnvelope outenv = new BinaryEnvelope(user, bf.toFrame(), conID);
+		outenv.setTime(bf.getTime());
+		attach(outenv, traces);
+		output(outenv);
+	}
+	
+	/*
+	 * Closes a compact XML response, pushes it to the output stack and returns the buffer to the pool.
+	 */
+	private void push(Pilot user, DatedResponse rsp, long conID, Collection<MessageTrace> traces) {
+		if (rsp.getTime() != Long.MAX_VALUE) {
+			rsp.endElement();
+			BinaryEnvelope outenv = new BinaryEnvelope(user, rsp.toByteArray(), conID);
+			outenv.setTime(rsp.getTime());
+			attach(outenv, traces);
+			output(outenv);
+		}
+		
+		recycle(rsp);
+	}
+	
+	/*
+	 * Pushes an envelope to the output stack, waiting for space rather than dropping it.
+	 */
+	private static void output(OutputEnvelope env) {
+		try {
+			RAW_OUTPUT.put(env);
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/*
+	 * Pushes the output collected for a connection to the output stack.
+	 */
+	private void flush(Long cid) {
+		Pilot user = _users.remove(cid);
+		pushXML(user, cid);
+		pushFrame(user, cid);
+	}
+	
+	/*
+	 * Pushes the XML output collected for a connection, before a binary message is formatted for it.
+	 */
+	private void pushXML(Pilot user, Long cid) {
+		DatedDocument doc = _docs.remove(cid);
+		if (doc != null)
+			push(user, doc, cid.longValue(), _traces.remove(doc));
+		
+		DatedResponse rsp = _rsps.remove(cid);
+		if (rsp != null)
+			push(user, rsp, cid.longValue(), _traces.remove(rsp));
+	}
+	
+	/*
+	 * Pushes the binary frame collected for a connection, before an XML message is formatted for it.
+	 */
+	private void pushFrame(Pilot user, Long cid) {
+		BinaryFrame bf = _frames.remove(cid);
+		if (bf != null)
+			push(user, bf, cid.longValue(), _traces.remove(bf));
+	}
+	
+	/*
+	 * Records that the responses to a connection dispatched during this cycle have been pushed to the output stack.
+	 */
+	private void complete(Long cid, Integer count) {
+		ACARSConnection ac = _pool.get(cid.longValue());
+		if (ac != null)
+			ac.completePendingOutput(count.intValue());
+	}
+	
+	/*
+	 * Records the traces of a message formatted into an output buffer.
+	 */
+	private void addTraces(Object buf, MessageEnvelope env) {
+		if ((buf != null) && !env.getTraces().isEmpty())
+			_traces.computeIfAbsent(buf, _ -> new ArrayList<MessageTrace>(2)).addAll(env.getTraces());
+	}
+	
+	/*
+	 * Marks the traces of the messages in an output envelope as formatted, and attaches them to the envelope.
+	 */
+	private static void attach(Envelope<?> env, Collection<MessageTrace> traces) {
+		if (traces == null) return;
+		for (MessageTrace mt : traces) {
+			mt.stamp(TraceStage.FORMAT);
+			env.addTrace(mt);
+		}
+	}
+	
+	/*
+	 * Returns a compact XML response buffer from the pool.
+	 */
+	private DatedResponse getResponse(int version) {
+		DatedResponse rsp = _rspPool.isEmpty() ? new DatedResponse() : _rspPool.pop();
+		rsp.start(version);
+		return rsp;
+	}
+	
+	/*
+	 * Returns a compact XML response buffer to the pool.
+	 */
+	private void recycle(DatedResponse rsp) {
+		rsp.reset();
+		if ((_rspPool.size() < MAX_POOL_SIZE) && (rsp.capacity() <= MAX_BUFFER_SIZE))
+			_rspPool.push(rsp);
+	}
+	
+	/*
+	 * Encodes a message as a standalone binary frame or XML document.
+	 */
+	private BroadcastPacket encode(MessageFormatter fmt, Message msg, int version) throws IOException, XMLException {
+		_binBuffer.reset();
+		if (fmt.format(msg, _binOut)) {
+			BinaryFrame bf = new BinaryFrame();
+			bf.add(_binBuffer, msg.getTime());
+			return new BroadcastPacket(bf.toFrame());
+		} else if (_isPretty) {
+			Element msgE = fmt.format(msg);
+			if (msgE == null) return null;
+			Element e = new Element(ProtocolInfo.RSP_ELEMENT_NAME);
+			e.setAttribute("version", String.valueOf(version));
+			e.addContent(msgE);
+			return new BroadcastPacket(_xmlOut.outputString(new Document(e)).getBytes(UTF_8));
+		}
+		
+		DatedResponse rsp = getResponse(version);
+		try {
+			if (!fmt.format(msg, rsp)) return null;
+			rsp.endElement();
+			return new BroadcastPacket(rsp.toByteArray());
+		} finally {
+			recycle(rsp);
+		}
+	}
+	
+	/*
+	 * Formats a message once for each protocol version used by its recipients, and pushes the shared data to the output stack.
+	 */
+	private void broadcast(BroadcastEnvelope env) {
+		Message msg = env.getMessage();
+		Map<Integer, BroadcastPacket> pkts = new HashMap<Integer, BroadcastPacket>();
+		for (long cid : env.getConnectionIDs()) {
+			ACARSConnection ac = _pool.get(cid);
+			if (ac == null) continue;
+			
+			// Format the message if this is a new protocol version
+			Integer ver = Integer.valueOf(ac.getProtocolVersion());
+			if (!pkts.containsKey(ver)) {
+				try {
+					pkts.put(ver, encode(getFormatter(ac), msg, ac.getProtocolVersion()));
+				} catch (Exception e) {
+					log.atError().withThrowable(e).log("Cannot broadcast to v{} - {}", ver, e.getMessage());
+					pkts.put(ver, null);
+				}
+			}
+			
+			// Push any earlier responses to this connection first
+			BroadcastPacket pkt = pkts.get(ver);
+			if (pkt != null) {
+				flush(Long.valueOf(cid));
+				output(new BroadcastPacketEnvelope(ac.getUser(), pkt, cid, msg.getTime()));
+			}
+		}
+	}
+	
+	/*
+	 * Returns the formatter for a connection's protocol version.
+	 */
+	private MessageFormatter getFormatter(ACARSConnection ac) {
+		MessageFormatter fmt = _formatters.get(Integer.valueOf(ac.getProtocolVersion()));
+		if (fmt == null) {
+			fmt = _defaultFmt;
+			log.warn("No formatter found for protocol v{} - using v{}", Integer.valueOf(ac.getProtocolVersion()), Integer.valueOf(fmt.getProtocolVersion()));
+		}
+		
+		return fmt;
+	}
+	
+	/*
+	 * Formats a message into the pretty-printed XML document for a connection.
+	 */
+	private DatedDocument formatPretty(MessageFormatter fmt, Message msg, Long cid, int version) throws XMLException {
+		
+		// Get the XML document, if none exists create it
+		DatedDocument doc = _docs.get(cid);
+		if (doc == null) {
+			Element e = new Element(ProtocolInfo.RSP_ELEMENT_NAME);
+			e.setAttribute("version", String.valueOf(version));
+			doc = new DatedDocument(e);
+			_docs.put(cid, doc);
+			doc.setCompact(false);
+		}
+		
+		// Add the element to the XML document's root element
+		Element msgE = fmt.format(msg);
+		if (msgE != null) {
+			Element root = doc.getRootElement();
+			root.addContent(msgE);
+			doc.setTime(msg.getTime());
+		}
+		
+		return doc;
+	}
+	
+	/*
+	 * Formats a message into the compact XML response for a connection.
+	 */
+	private DatedResponse formatCompact(MessageFormatter fmt, Message msg, Long cid, int version) throws XMLException {
+		DatedResponse rsp = _rsps.get(cid);
+		if (rsp == null) {
+			rsp = getResponse(version);
+			_rsps.put(cid, rsp);
+		}
+		
+		// Discard anything partially written if the formatter fails
+		rsp.mark();
+		try {
+			if (fmt.format(msg, rsp))
+				rsp.setTime(msg.getTime());
+		} catch (XMLException | RuntimeException e) {
+			rsp.rewind();
+			throw e;
+		}
+		
+		return rsp;
 	}
 
 	/**
@@ -104,10 +414,8 @@ public final class OutputDispatcher extends Worker {
 		log.info("Started");
 		_status.setStatus(WorkerState.RUNNING);
 
-		final Map<Long, Pilot> users = new HashMap<Long, Pilot>();
-		final Map<Long, DatedDocument> docs = new HashMap<Long, DatedDocument>();
 		while (!Thread.currentThread().isInterrupted()) {
-			_status.setMessage("Idle");
+			_status.setMessage("Idle - " + getQueueStatus(MSG_OUTPUT));
 
 			try {
 				MessageEnvelope env = MSG_OUTPUT.poll(30, TimeUnit.SECONDS);
@@ -115,41 +423,53 @@ public final class OutputDispatcher extends Worker {
 
 				// Translate and dispatch the messages on the bean output stack
 				while (env != null) {
+					if (env instanceof BroadcastEnvelope benv) {
+						_status.setMessage("Broadcasting message from " + env.getOwnerID());
+						broadcast(benv);
+						env = MSG_OUTPUT.poll();
+						continue;
+					}
+					
 					Message msg = env.getMessage();
+					if (env.isTracked())
+						_outputs.merge(Long.valueOf(env.getConnectionID()), Integer.valueOf(1), Integer::sum);
+					
 					_status.setMessage("Dispatching message to " + env.getOwnerID());
 					log.debug("Dispatching message to {}", env.getOwnerID());
 
 					// Determine the protocol version for each message
 					ACARSConnection ac = _pool.get(env.getConnectionID());
 
-					// Get the XML document, if none exists create it
 					if (ac != null) {
 						Long cid = Long.valueOf(env.getConnectionID());
-						DatedDocument doc = docs.get(cid);
-						if (doc == null) {
-							Element e = new Element(ProtocolInfo.RSP_ELEMENT_NAME);
-							e.setAttribute("version", String.valueOf(ac.getProtocolVersion()));
-							doc = new DatedDocument(e);
-							docs.put(cid, doc);
-							users.put(cid, ac.getUser());
-							doc.setCompact(false);
-						}
+						_users.putIfAbsent(cid, ac.getUser());
 
 						// Get the formatter
-						MessageFormatter fmt = _formatters.get(Integer.valueOf(ac.getProtocolVersion()));
-						if (fmt == null) {
-							fmt = _defaultFmt;
-							log.warn("No formatter found for protocol v{} - using v{}", Integer.valueOf(ac.getProtocolVersion()), Integer.valueOf(fmt.getProtocolVersion()));
-						}
+						MessageFormatter fmt = getFormatter(ac);
 
 						try {
-							Element msgE = fmt.format(msg);
-							
-							// Add the element to the XML document's root element
-							if (msgE != null) {
-								Element root = doc.getRootElement();
-								root.addContent(msgE);
-								doc.setTime(msg.getTime());
+							_binBuffer.reset();
+							if (fmt.format(msg, _binOut)) {
+								pushXML(ac.getUser(), cid);
+								BinaryFrame bf = _frames.get(cid);
+								if ((bf != null) && ((bf.size() + _binBuffer.size()) > (ProtocolInfo.BINARY_MAX_SIZE + ProtocolInfo.BINARY_HEADER_SIZE))) {
+									push(ac.getUser(), bf, cid.longValue(), _traces.remove(bf));
+									bf = null;
+								}
+								
+								if (bf == null) {
+									bf = new BinaryFrame();
+									_frames.put(cid, bf);
+								}
+								
+								bf.add(_binBuffer, msg.getTime());
+								addTraces(bf, env);
+							} else {
+								pushFrame(ac.getUser(), cid);
+								if (_isPretty)
+									addTraces(formatPretty(fmt, msg, cid, ac.getProtocolVersion()), env);
+								else
+									addTraces(formatCompact(fmt, msg, cid, ac.getProtocolVersion()), env);
 							}
 						} catch (Exception e) {
 							log.atError().withThrowable(e).log("Cannot dispatch - {}", e.getMessage());
@@ -160,33 +480,22 @@ public final class OutputDispatcher extends Worker {
 				}
 
 				// Dump the messages to the output stack
-				if (!docs.isEmpty()) {
-					_status.setMessage("Pushing messages to XML Output Stack");
-					for (Iterator<Map.Entry<Long, DatedDocument>> i = docs.entrySet().iterator(); i.hasNext();) {
-						Map.Entry<Long, DatedDocument> me = i.next();
-						Long conID = me.getKey();
-						DatedDocument doc = me.getValue();
-						Pilot user = users.get(conID);
-
-						// Convert the document to text
-						if (!doc.isEmpty()) {
-							XMLOutputter out = doc.isCompact() ? _tinyOut : _xmlOut;
-							String xml = out.outputString(doc);
-
-							// Push to the output stack
-							TextEnvelope outenv = new TextEnvelope(user, xml, conID.longValue());
-							outenv.setTime(doc.getTime());
-							RAW_OUTPUT.add(outenv);
-						}
-					}
+				if (!_users.isEmpty()) {
+					_status.setMessage("Pushing messages to Output Stack");
+					new ArrayList<Long>(_users.keySet()).forEach(this::flush);
 				}
 			} catch (InterruptedException ie) {
 				Thread.currentThread().interrupt();
 			} catch (Exception e) {
 				log.atError().withThrowable(e).log(e.getMessage());
 			} finally {
-				users.clear();
-				docs.clear();
+				_users.clear();
+				_docs.clear();
+				_rsps.clear();
+				_frames.clear();
+				_traces.clear();
+				_outputs.forEach(this::complete);
+				_outputs.clear();
 			}
 
 			_status.complete();
@@ -0,0 +1,247 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.workers;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.Executor;
+
+import org.apache.logging.log4j.*;
+
+import org.deltava.acars.beans.*;
+import org.deltava.acars.command.*;
+import org.deltava.acars.message.*;
+import org.deltava.acars.util.PacketOutputStream;
+import org.deltava.acars.xml.*;
+
+import org.deltava.util.system.SystemData;
+
+/**
+ * Translates inbound messages on a network reader thread. Position reports from connections with no other messages waiting to be processed,
+ * and no responses waiting to be formatted by the {@link OutputDispatcher}, are executed immediately, and their responses are formatted and
+ * pushed straight to the raw output stack, bypassing the translator, logic processor and output dispatcher queues. Checking for waiting
+ * responses keeps these responses from overtaking earlier ones; messages broadcast to several connections are not counted, and may still be
+ * sent after a later position acknowledgement. Position reports are also queued for the {@link LogicProcessor} when the {@link PositionWriter}
+ * queue is full, so that a database stall never blocks reads. All other messages are queued for the LogicProcessor, and counted against their
+ * connection so that later position reports are not processed ahead of them. Message parsers and formatters are not thread-safe, so each
+ * {@link NetworkReader} has its own instance.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+final class PositionFastPath {
+
+	private static final Logger log = LogManager.getLogger(PositionFastPath.class);
+
+	private final ACARSConnectionPool _pool;
+	private final LatencyWorkerStatus _status;
+	private final PositionCommand _cmd;
+
+	private final Map<Integer, MessageParser> _parsers = new HashMap<Integer, MessageParser>();
+	private final SortedMap<Integer, MessageFormatter> _formatters = new TreeMap<Integer, MessageFormatter>();
+
+	private final CompactXMLWriter _xmlOut = new CompactXMLWriter(1024);
+	private final ByteArrayOutputStream _binBuffer = new ByteArrayOutputStream(512);
+	private final PacketOutputStream _binOut = new PacketOutputStream(_binBuffer);
+	private volatile long _dropped;
+
+	private class FastPathContext extends CommandContext {
+		private final List<Message> _msgs = new ArrayList<Message>(2);
+		private final long _msgTime;
+
+		FastPathContext(MessageEnvelope env) {
+			super(_pool, env, _status);
+			_msgTime = env.getTime();
+		}
+
+		List<Message> getResponses() {
+			return _msgs;
+		}
+
+		@Override
+		public void push(Message msg, long conID, boolean isCritical) {
+			ACARSConnection ac = getACARSConnection();
+			if ((msg != null) && (conID == ac.getID())) {
+				msg.setTime(_msgTime);
+				_msgs.add(msg);
+			} else
+				super.push(msg, conID, isCritical);
+		}
+	}
+
+	/**
+	 * Initializes the fast path.
+	 * @param pool the ACARSConnectionPool
+	 * @param status the WorkerStatus used to track response latency
+	 * @param trkExec the Executor used to write track data
+	 */
+	PositionFastPath(ACARSConnectionPool pool, LatencyWorkerStatus status, Executor trkExec) {
+		super();
+		_pool = pool;
+		_status = status;
+		_cmd = new PositionCommand(trkExec);
+
+		// Initialize the parsers and formatters
+		Map<?, ?> versions = (Map<?, ?>) SystemData.getObject("acars.protocols");
+		if (versions == null)
+			throw new IllegalStateException("No trasnalation packages specified");
+
+		for (Map.Entry<?, ?> me : versions.entrySet()) {
+			String version = (String) me.getKey(); String pkg = (String) me.getValue();
+			Integer ver = Integer.valueOf(version.substring(1));
+			try {
+				_parsers.put(ver, (MessageParser) Class.forName(pkg + ".parse.Parser").getDeclaredConstructor().newInstance());
+				_formatters.put(ver, (MessageFormatter) Class.forName(pkg + ".format.Formatter").getDeclaredConstructor().newInstance());
+			} catch (Exception e) {
+				log.atError().withThrowable(e).log("Error loading {} Message Parser/Formatter", version);
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of responses dropped because the raw output stack was full.
+	 * @return the number of responses
+	 */
+	long getDropped() {
+		return _dropped;
+	}
+
+	/**
+	 * Translates an inbound message envelope, and either executes or queues the messages it contains.
+	 * @param env the Envelope
+	 */
+	void process(Envelope<?> env) {
+		Collection<Message> msgs = Collections.emptyList();
+		try {
+			if (env instanceof TextEnvelope te)
+				msgs = _parsers.get(Integer.valueOf(te.getVersion())).parse(te);
+			else if (env instanceof BinaryEnvelope be)
+				msgs = _parsers.get(Integer.valueOf(be.getVersion())).parse(be);
+			else
+				log.warn("Unknown envelope type - {}", env.getClass().getSimpleName());
+		} catch (Exception e) {
+			log.atWarn().withThrowable(e).log("Translation Error - {}", e.getMessage());
+			return;
+		}
+
+		long parseTime = System.nanoTime();
+		ACARSConnection ac = _pool.get(env.getConnectionID());
+		for (Message msg : msgs) {
+			if (msg.getType() == MessageType.QUIT) continue;
+			MessageEnvelope menv = new MessageEnvelope(msg, env.getConnectionID());
+			MessageTracer.trace(env, menv, parseTime);
+			if ((ac != null) && (msg.getType() == MessageType.POSITION) && ac.isAuthenticated() && (ac.getPendingMessages() == 0) && (ac.getPendingOutput() == 0)
+				&& !PositionWriter.isFull())
+				execute(ac, menv, env.getTime());
+			else if (!Worker.queueInput(ac, menv))
+				log.warn("Input stack full, dropped {} from {}", msg.getType(), env.getOwnerID());
+		}
+	}
+
+	/*
+	 * Executes a position report and pushes the responses to the raw output stack.
+	 */
+	private void execute(ACARSConnection ac, MessageEnvelope env, long readTime) {
+		MessageTrace mt = env.getTrace();
+		try {
+			execute(ac, env, mt, readTime);
+		} finally {
+			MessageTracer.release(mt);
+		}
+	}
+	
+	/*
+	 * Executes a position report, recording each stage in its trace.
+	 */
+	private void execute(ACARSConnection ac, MessageEnvelope env, MessageTrace mt, long readTime) {
+		FastPathContext ctx = new FastPathContext(env);
+		try {
+			if (mt != null)
+				mt.stamp(TraceStage.COMMAND_START);
+			
+			_cmd.execute(ctx, env);
+			if (mt != null)
+				mt.stamp(TraceStage.COMMAND_END);
+		} catch (Exception e) {
+			log.atError().withThrowable(e).log("Error processing position from {} - {}", env.getOwnerID(), e.getMessage());
+			return;
+		}
+
+		List<Message> rsps = ctx.getResponses();
+		if (rsps.isEmpty()) return;
+
+		// Format the responses
+		MessageFormatter fmt = _formatters.get(Integer.valueOf(ac.getProtocolVersion()));
+		if (fmt == null)
+			fmt = _formatters.get(_formatters.firstKey());
+
+		BinaryFrame bf = null; boolean hasXML = false;
+		_xmlOut.reset();
+		for (Message msg : rsps) {
+			try {
+				_binBuffer.reset();
+				if (fmt.format(msg, _binOut)) {
+					if (bf == null)
+						bf = new BinaryFrame();
+
+					bf.add(_binBuffer, readTime);
+					continue;
+				}
+
+				if (_xmlOut.size() == 0) {
+					_xmlOut.startDocument();
+					_xmlOut.startElement(ProtocolInfo.RSP_ELEMENT_NAME);
+					_xmlOut.attribute("version", ac.getProtocolVersion());
+				}
+
+				_xmlOut.mark();
+				try {
+					hasXML |= fmt.format(msg, _xmlOut);
+				} catch (XMLException | RuntimeException e) {
+					_xmlOut.rewind();
+					throw e;
+				}
+			} catch (Exception e) {
+				log.atError().withThrowable(e).log("Cannot dispatch - {}", e.getMessage());
+			}
+		}
+
+		// Push to the output stack
+		boolean isSheddable = (env.getMessage() instanceof PositionMessage pm) && !pm.isLogged() && !pm.isReplay();
+		if (mt != null)
+			mt.stamp(TraceStage.FORMAT);
+		if (bf != null)
+			push(ac, bf.toFrame(), readTime, mt, isSheddable);
+		if (hasXML) {
+			_xmlOut.endElement();
+			push(ac, _xmlOut.toByteArray(), readTime, mt, isSheddable);
+		}
+
+		_status.add(System.nanoTime() - readTime);
+	}
+
+	/*
+	 * Pushes encoded data to the raw output stack. If the stack is full, responses to unlogged position reports are dropped and counted,
+	 * since the client sends a newer report shortly. Other responses wait for space.
+	 */
+	private void push(ACARSConnection ac, byte[] data, long time, MessageTrace mt, boolean isSheddable) {
+		BinaryEnvelope outenv = new BinaryEnvelope(ac.getUser(), data, ac.getID());
+		outenv.setTime(time);
+		if ((mt != null) && mt.retain())
+			outenv.addTrace(mt);
+		
+		if (Worker.RAW_OUTPUT.offer(outenv)) return;
+		if (isSheddable) {
+			_dropped++;
+			log.warn("Output stack full, dropped position response to {}", ac.getUserID());
+			MessageTracer.release(outenv.getTrace());
+			return;
+		}
+		
+		try {
+			Worker.RAW_OUTPUT.put(outenv);
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
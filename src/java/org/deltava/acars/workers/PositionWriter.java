@@ -0,0 +1,379 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.workers;
+
+import java.util.*;
+import java.sql.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.*;
+
+import org.deltava.acars.message.PositionMessage;
+
+import org.deltava.beans.schedule.Country;
+
+import org.deltava.dao.*;
+import org.deltava.dao.acars.SetPosition;
+
+import org.deltava.util.GeoUtils;
+import org.deltava.util.cache.*;
+import org.deltava.util.system.SystemData;
+
+import org.gvagroup.ipc.WorkerState;
+import org.gvagroup.pool.*;
+
+/**
+ * An ACARS worker thread to write position reports to the database in the background. Positions are queued by commands and written
+ * in batches once enough have been queued or the oldest queued position is old enough. Batches that fail with a transient error, such
+ * as a lost database connection, are retried a limited number of times; while a batch is being retried the queue fills up, and commands
+ * queueing positions wait a short time for space before the position is shed. Batches that fail for any other reason are split to
+ * isolate the positions that cannot be written. Positions that cannot be written are logged to a dead letter log rather than retried
+ * forever.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+public class PositionWriter extends Worker {
+
+	private static final int MAX_RETRY_DELAY = 30000;
+	private static final Logger DEAD_LETTER = LogManager.getLogger("ACARSDeadLetter");
+
+	private static final BlockingQueue<PositionMessage> _queue = new LinkedBlockingQueue<PositionMessage>(Math.max(64, SystemData.getInt("acars.position.queue.size", 5000)));
+	private static final Object _flushLock = new Object();
+
+	// Metrics
+	private static final AtomicLong _queued = new AtomicLong();
+	private static final AtomicLong _written = new AtomicLong();
+	private static final AtomicLong _stalls = new AtomicLong();
+	private static final AtomicLong _shed = new AtomicLong();
+	private static final AtomicLong _retries = new AtomicLong();
+	private static final AtomicLong _deadLetters = new AtomicLong();
+	private static final int _queueWait = Math.max(0, SystemData.getInt("acars.position.queue.wait", 100));
+	private static volatile long _flushTarget;
+
+	private final int _maxSize = Math.max(1, SystemData.getInt("acars.position.queue.batch", 50));
+	private final int _maxAge = Math.max(250, SystemData.getInt("acars.position.queue.maxAge", 12500));
+	private final int _bulkRows = SystemData.getInt("acars.position.queue.bulk", 0);
+	private final int _maxAttempts = Math.max(1, SystemData.getInt("acars.position.retry.max", 10));
+	private final int _retryDelay = Math.max(10, SystemData.getInt("acars.position.retry.delay", 500));
+
+	private ConnectionPool<Connection> _jdbcPool;
+	private GeoCache<CacheableString> _cache;
+
+	/**
+	 * Initializes the Worker.
+	 */
+	public PositionWriter() {
+		super("Position Writer", 57, PositionWriter.class);
+	}
+
+	/**
+	 * Queues a position report to be written. If the queue is full, this waits a limited time for space to become available and sheds
+	 * the position if none does, so a stalled database never parks the calling thread indefinitely.
+	 * @param msg the PositionMessage
+	 * @return TRUE if queued, FALSE if the position is invalid or was shed
+	 */
+	public static boolean queue(PositionMessage msg) {
+		if (!GeoUtils.isValid(msg)) return false;
+		if (!_queue.offer(msg)) {
+			_stalls.incrementAndGet();
+			try {
+				if (!_queue.offer(msg, _queueWait, TimeUnit.MILLISECONDS)) {
+					_shed.incrementAndGet();
+					return false;
+				}
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+				_shed.incrementAndGet();
+				return false;
+			}
+		}
+
+		_queued.incrementAndGet();
+		return true;
+	}
+
+	/**
+	 * Queues a position report to be written if there is space, without waiting.
+	 * @param msg the PositionMessage
+	 * @return TRUE if queued, FALSE if the position is invalid or the queue is full
+	 */
+	public static boolean offer(PositionMessage msg) {
+		if (!GeoUtils.isValid(msg) || !_queue.offer(msg)) return false;
+		_queued.incrementAndGet();
+		return true;
+	}
+
+	/**
+	 * Returns whether the queue is full, and queueing a position report would wait.
+	 * @return TRUE if the queue is full, otherwise FALSE
+	 */
+	public static boolean isFull() {
+		return (_queue.remainingCapacity() == 0);
+	}
+
+	/**
+	 * Writes all positions queued before this call, and waits for them to be written.
+	 * @param timeout the maximum time to wait in milliseconds
+	 * @return the number of positions written while waiting
+	 */
+	public static int flush(long timeout) {
+		long target = _queued.get(); long written = _written.get();
+		long endTime = System.currentTimeMillis() + timeout;
+		synchronized (_flushLock) {
+			_flushTarget = Math.max(_flushTarget, target);
+			try {
+				long waitTime = timeout;
+				while ((getCompleted() < target) && (waitTime > 0)) {
+					_flushLock.wait(waitTime);
+					waitTime = endTime - System.currentTimeMillis();
+				}
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		return (int) (_written.get() - written);
+	}
+
+	/*
+	 * Returns the number of queued positions either written or logged as dead letters.
+	 */
+	private static long getCompleted() {
+		return _written.get() + _deadLetters.get();
+	}
+
+	/**
+	 * Returns the number of positions waiting to be written.
+	 * @return the number of queued positions
+	 */
+	public static int getBacklog() {
+		return _queue.size();
+	}
+
+	/**
+	 * Returns the number of positions written to the database.
+	 * @return the number of positions
+	 */
+	public static long getWritten() {
+		return _written.get();
+	}
+
+	/**
+	 * Returns the number of times a command had to wait for space in the queue.
+	 * @return the number of stalls
+	 */
+	public static long getStalls() {
+		return _stalls.get();
+	}
+
+	/**
+	 * Returns the number of positions shed because no space became available in the queue.
+	 * @return the number of positions
+	 */
+	public static long getShed() {
+		return _shed.get();
+	}
+
+	/**
+	 * Returns the number of failed batch writes that were retried.
+	 * @return the number of retries
+	 */
+	public static long getRetries() {
+		return _retries.get();
+	}
+
+	/**
+	 * Returns the number of positions that could not be written, and were logged as dead letters.
+	 * @return the number of positions
+	 */
+	public static long getDeadLetters() {
+		return _deadLetters.get();
+	}
+
+	/**
+	 * Initializes the Worker.
+	 * @see Worker#open()
+	 */
+	@Override
+	public void open() {
+		super.open();
+		_jdbcPool = SystemData.getJDBCPool();
+		_cache = CacheManager.getGeo(CacheableString.class, "GeoCountry");
+	}
+
+	/**
+	 * Executes the thread.
+	 */
+	@Override
+	public void run() {
+		log.info("Started");
+		_status.setStatus(WorkerState.RUNNING);
+
+		List<PositionMessage> batch = new ArrayList<PositionMessage>(_maxSize); long oldestAge = 0;
+		while (!Thread.currentThread().isInterrupted()) {
+			_status.setMessage(String.format("Idle - %d queued / %d written / %d stalls / %d shed / %d retries / %d dead", Integer.valueOf(_queue.size()), Long.valueOf(_written.get()),
+				Long.valueOf(_stalls.get()), Long.valueOf(_shed.get()), Long.valueOf(_retries.get()), Long.valueOf(_deadLetters.get())));
+			try {
+				// Wait for data, waking up periodically to check for a forced flush
+				PositionMessage msg = _queue.poll(250, TimeUnit.MILLISECONDS);
+				if ((msg != null) && batch.isEmpty())
+					oldestAge = System.currentTimeMillis();
+				if (msg != null) {
+					batch.add(msg);
+					_queue.drainTo(batch, Math.max(0, _maxSize - batch.size()));
+				}
+
+				// Check if we should write
+				boolean isForced = (_flushTarget > getCompleted());
+				boolean isFull = (batch.size() >= _maxSize) || ((System.currentTimeMillis() - oldestAge) >= _maxAge);
+				if (batch.isEmpty() || (!isForced && !isFull)) continue;
+				if (isForced)
+					_queue.drainTo(batch);
+
+				_status.execute();
+				write(batch);
+				batch.clear();
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+			} catch (Exception e) {
+				log.atError().withThrowable(e).log(e.getMessage());
+			} finally {
+				_status.complete();
+			}
+		}
+
+		// Write anything left over
+		_queue.drainTo(batch);
+
+		if (!batch.isEmpty()) {
+			try {
+				writeBatch(batch);
+				written(batch.size());
+				log.info("Wrote {} queued positions", Integer.valueOf(batch.size()));
+			} catch (DAOException de) {
+				log.atError().withThrowable(de).log("Cannot write {} positions - {}", Integer.valueOf(batch.size()), de.getMessage());
+				deadLetter(batch, de);
+			}
+		}
+	}
+
+	/**
+	 * Returns whether a write error is transient, and the write may succeed if retried. Transient errors include lost or refused
+	 * database connections and transient SQL errors such as deadlocks or timeouts.
+	 * @param t the error
+	 * @return TRUE if the error is transient, otherwise FALSE
+	 */
+	static boolean isTransient(Throwable t) {
+		for (Throwable c = t; c != null; c = c.getCause()) {
+			if ((c instanceof SQLTransientException) || (c instanceof SQLRecoverableException) || (c instanceof SQLNonTransientConnectionException) || (c instanceof ConnectionPoolException))
+				return true;
+			else if ((c instanceof SQLException se) && (se.getSQLState() != null) && se.getSQLState().startsWith("08"))
+				return true;
+		}
+
+		return false;
+	}
+
+	/*
+	 * Writes a batch of positions. Transient errors are retried up to the maximum number of attempts, and if any other error occurs
+	 * the batch is split in half until the positions that cannot be written are found.
+	 */
+	private void write(List<PositionMessage> batch) throws InterruptedException {
+		int retryDelay = _retryDelay;
+		for (int attempt = 1; ; attempt++) {
+			_status.setMessage("Writing " + batch.size() + " positions");
+			try {
+				writeBatch(batch);
+				written(batch.size());
+				return;
+			} catch (DAOException de) {
+				if (!isTransient(de)) {
+					log.atError().withThrowable(de).log("Error writing {} positions - {}", Integer.valueOf(batch.size()), de.getMessage());
+					split(batch, de);
+					return;
+				} else if (attempt >= _maxAttempts) {
+					log.atError().withThrowable(de).log("Cannot write {} positions after {} attempts - {}", Integer.valueOf(batch.size()), Integer.valueOf(attempt), de.getMessage());
+					deadLetter(batch, de);
+					return;
+				}
+
+				_retries.incrementAndGet();
+				log.warn("Error writing {} positions, retrying in {}ms - {}", Integer.valueOf(batch.size()), Integer.valueOf(retryDelay), de.getMessage());
+				_status.setMessage("Waiting to retry " + batch.size() + " positions");
+				Thread.sleep(retryDelay);
+				retryDelay = Math.min(MAX_RETRY_DELAY, retryDelay << 1);
+			}
+		}
+	}
+
+	/*
+	 * Splits a batch that failed with a non-transient error, and writes each half separately.
+	 */
+	private void split(List<PositionMessage> batch, DAOException de) throws InterruptedException {
+		if (batch.size() == 1) {
+			deadLetter(batch, de);
+			return;
+		}
+
+		int mid = batch.size() >> 1;
+		write(batch.subList(0, mid));
+		write(batch.subList(mid, batch.size()));
+	}
+
+	/*
+	 * Logs positions that cannot be written to the dead letter log.
+	 */
+	private static void deadLetter(Collection<PositionMessage> batch, DAOException de) {
+		for (PositionMessage msg : batch)
+			DEAD_LETTER.error("Flight {} at {} ({}, {}) {} ft - {}", Integer.valueOf(msg.getFlightID()), msg.getDate(), Double.valueOf(msg.getLatitude()), Double.valueOf(msg.getLongitude()),
+				Integer.valueOf(msg.getAltitude()), de.getMessage());
+
+		_deadLetters.addAndGet(batch.size());
+		synchronized (_flushLock) {
+			_flushLock.notifyAll();
+		}
+	}
+
+	/*
+	 * Records positions as written, and wakes up any threads waiting for a flush.
+	 */
+	private static void written(int count) {
+		_written.addAndGet(count);
+		synchronized (_flushLock) {
+			_flushLock.notifyAll();
+		}
+	}
+
+	/**
+	 * Geolocates and writes a batch of positions. Positions whose country cannot be found are written without one.
+	 * @param batch a Collection of PositionMessages
+	 * @throws DAOException if a JDBC error occurs
+	 */
+	protected void writeBatch(Collection<PositionMessage> batch) throws DAOException {
+		try (Connection con = _jdbcPool.getConnection()) {
+			GetCountry cdao = new GetCountry(con);
+			for (PositionMessage msg : batch) {
+				if (msg.getCountry() != null) continue;
+				CacheableString id = _cache.get(msg);
+				if (id == null) {
+					Country c = cdao.find(msg, true);
+					msg.setCountry(c);
+					if (c != null)
+						_cache.add(msg, new CacheableString("", c.getCode()));
+				} else
+					msg.setCountry(Country.get(id.getValue()));
+			}
+
+			// Write a copy, since the DAO removes entries without ATC data
+			SetPosition dao = new SetPosition(con);
+			dao.setBulkRows(_bulkRows);
+			dao.flush(new ArrayList<PositionMessage>(batch));
+		} catch (DAOException de) {
+			throw de;
+		} catch (Exception e) {
+			throw new DAOException(e);
+		}
+	}
+}
@@ -1,30 +1,40 @@
-// Copyright 2004, 2005, 2006, 2007, 2008, 2009, 2010, 2011, 2016, 2017, 2023 Global Virtual Airlines Group. All Rights Reserved.
+// Copyright 2004, 2005, 2006, 2007, 2008, 2009, 2010, 2011, 2016, 2017, 2023, 2026 Global Virtual Airlines Group. All Rights Reserved.
 package org.deltava.acars.workers;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.stream.Collectors;
 
 import org.apache.logging.log4j.*;
 
 import org.deltava.acars.beans.*;
+import org.deltava.acars.jmx.*;
+import org.deltava.acars.message.*;
+import org.deltava.acars.util.TwoLaneQueue;
+
+import org.deltava.util.system.SystemData;
 
 import org.gvagroup.ipc.*;
 
 /**
  * An ACARS Server worker is the runnable task for an ACARS server thread.
  * @author Luke
- * @version 11.0
+ * @version 12.4
  * @since 1.0
  */
 
 public abstract class Worker implements Runnable {
 	
-	protected static final BlockingQueue<TextEnvelope> RAW_INPUT = new LinkedBlockingQueue<TextEnvelope>();
-	public static final BlockingQueue<MessageEnvelope> MSG_INPUT = new LinkedBlockingQueue<MessageEnvelope>();
-	public static final BlockingQueue<MessageEnvelope> MSG_OUTPUT = new PriorityBlockingQueue<MessageEnvelope>();
-	public static final BlockingQueue<OutputEnvelope> RAW_OUTPUT = new PriorityBlockingQueue<OutputEnvelope>();
+	private static final int HIGH_WATER = Math.min(100, Math.max(1, SystemData.getInt("acars.overload.highWater", 75)));
+	private static final long INPUT_WAIT = SystemData.getInt("acars.overload.inputWait", 50);
+	private static final Collection<String> SHED_CODES = getShedCodes();
+	
+	protected static final BlockingQueue<Envelope<?>> RAW_INPUT = new TwoLaneQueue<Envelope<?>>(Envelope::isCritical, SystemData.getInt("acars.queue.rawInput", 8192));
+	public static final BlockingQueue<MessageEnvelope> MSG_INPUT = new TwoLaneQueue<MessageEnvelope>(MessageEnvelope::isCritical, SystemData.getInt("acars.queue.msgInput", 16384));
+	public static final BlockingQueue<MessageEnvelope> MSG_OUTPUT = new TwoLaneQueue<MessageEnvelope>(MessageEnvelope::isCritical, SystemData.getInt("acars.queue.msgOutput", 65536));
+	public static final BlockingQueue<OutputEnvelope> RAW_OUTPUT = new TwoLaneQueue<OutputEnvelope>(OutputEnvelope::isCritical, SystemData.getInt("acars.queue.rawOutput", 65536));
 	public static final BlockingQueue<MessageEnvelope> MP_UPDATE = new LinkedBlockingQueue<MessageEnvelope>();
-	public static final BlockingQueue<MessageEnvelope> GEO_INPUT = new LinkedBlockingQueue<MessageEnvelope>();
+	public static final BlockingQueue<MessageEnvelope> GEO_INPUT = new TwoLaneQueue<MessageEnvelope>(MessageEnvelope::isCritical, SystemData.getInt("acars.queue.geoInput", 4096));
 	
 	protected final Logger log;
 	private final String _name;
@@ -40,12 +50,157 @@ public abstract class Worker implements Runnable {
 	 * @throws NullPointerException if name is null
 	 */
 	protected Worker(String name, int sortOrder, Class<?> loggerClass) {
+		this(name, new WorkerStatus(name, sortOrder), loggerClass);
+	}
+	
+	/**
+	 * Initializes the Worker with a specific status bean.
+	 * @param name the thread name
+	 * @param ws the WorkerStatus bean
+	 * @param loggerClass the logging class
+	 * @throws NullPointerException if name is null
+	 */
+	protected Worker(String name, WorkerStatus ws, Class<?> loggerClass) {
 		super();
 		_name = name.trim();
 		log = LogManager.getLogger(loggerClass);
-		_status = new WorkerStatus(name, sortOrder);
+		_status = ws;
 	}
 
+	/**
+	 * Returns whether a pipeline queue has filled past the overload high water mark.
+	 * @param q the queue
+	 * @return TRUE if the queue is overloaded, otherwise FALSE
+	 */
+	protected static boolean isOverloaded(BlockingQueue<?> q) {
+		long size = q.size(); long capacity = size + q.remainingCapacity();
+		return ((size * 100) >= (capacity * HIGH_WATER));
+	}
+	
+	/**
+	 * Returns the size of a pipeline queue and the number of messages dropped because it was full.
+	 * @param q the queue
+	 * @return the queue status
+	 */
+	protected static String getQueueStatus(BlockingQueue<?> q) {
+		long dropped = (q instanceof TwoLaneQueue<?> tlq) ? tlq.getRejected() : 0;
+		return String.format("%d queued, %d dropped", Integer.valueOf(q.size()), Long.valueOf(dropped));
+	}
+	
+	/**
+	 * Registers a pipeline queue's telemetry bean.
+	 * @param name the queue name
+	 * @param q the queue
+	 */
+	protected static void registerQueue(String name, BlockingQueue<?> q) {
+		if (q instanceof TwoLaneQueue<?> tlq)
+			MetricsRegistry.register("PipelineQueue", name, new QueueMBeanImpl(name, tlq));
+	}
+	
+	/**
+	 * Removes a pipeline queue's telemetry bean.
+	 * @param name the queue name
+	 */
+	protected static void removeQueue(String name) {
+		MetricsRegistry.remove("PipelineQueue", name);
+	}
+	
+	/*
+	 * Loads the data request codes that may be shed when overloaded.
+	 */
+	private static Collection<String> getShedCodes() {
+		Collection<?> codes = (Collection<?>) SystemData.getObject("acars.overload.shed");
+		return (codes == null) ? Collections.emptySet() : codes.stream().map(c -> String.valueOf(c).toLowerCase()).collect(Collectors.toSet());
+	}
+	
+	/*
+	 * Returns whether an inbound message may be dropped when the input stack is full. Only unlogged position reports, which a later
+	 * report replaces, and low-priority data requests may be dropped.
+	 */
+	private static boolean isSheddable(Message msg) {
+		if (msg instanceof PositionMessage pm)
+			return !pm.isLogged() && !pm.isReplay();
+		
+		return (msg instanceof SubRequestMessage srmsg) && SHED_CODES.contains(srmsg.getRequestType().getCode().toLowerCase());
+	}
+	
+	/**
+	 * Queues an inbound message for the Logic Processor. The message is counted against its connection's pending messages, and if the
+	 * input stack is overloaded an unlogged position report supersedes any earlier one from the same connection still waiting to be
+	 * processed. If the input stack is full, unlogged position reports and low-priority data requests wait briefly for space before
+	 * being dropped, while all other messages wait until there is space.
+	 * @param ac the ACARSConnection, or null if disconnected
+	 * @param env the MessageEnvelope
+	 * @return TRUE if queued, otherwise FALSE
+	 */
+	static boolean queueInput(ACARSConnection ac, MessageEnvelope env) {
+		if (ac != null) {
+			ac.addPendingMessage();
+			env.setTracked(true);
+		}
+		
+		boolean isQueued = false;
+		try {
+			if (isSheddable(env.getMessage()))
+				isQueued = MSG_INPUT.offer(env, INPUT_WAIT, TimeUnit.MILLISECONDS);
+			else {
+				MSG_INPUT.put(env);
+				isQueued = true;
+			}
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+		}
+		
+		if (ac == null)
+			return isQueued;
+		else if (!isQueued) {
+			ac.completePendingMessage();
+			return false;
+		}
+		
+		// Coalesce unlogged position reports
+		if ((env.getMessage() instanceof PositionMessage pm) && !pm.isLogged() && !pm.isReplay() && isOverloaded(MSG_INPUT)) {
+			MessageEnvelope oldEnv = ac.setQueuedPosition(env);
+			if (oldEnv != null)
+				oldEnv.setSuperseded(true);
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Queues an outbound message for the Output Dispatcher. The message is counted against its connection's pending output, so that the
+	 * position fast path does not send later responses ahead of it. If the output stack is full, a sheddable message is dropped, while all
+	 * other messages wait until there is space.
+	 * @param ac the ACARSConnection the message is sent to, or null if disconnected or a broadcast
+	 * @param env the MessageEnvelope
+	 * @param isSheddable TRUE if the message may be dropped when the output stack is full, otherwise FALSE
+	 * @return TRUE if queued, otherwise FALSE
+	 */
+	public static boolean queueOutput(ACARSConnection ac, MessageEnvelope env, boolean isSheddable) {
+		if (ac != null) {
+			ac.addPendingOutput();
+			env.setTracked(true);
+		}
+		
+		boolean isQueued = false;
+		try {
+			if (isSheddable)
+				isQueued = MSG_OUTPUT.offer(env);
+			else {
+				MSG_OUTPUT.put(env);
+				isQueued = true;
+			}
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+		}
+		
+		if ((ac != null) && !isQueued)
+			ac.completePendingOutput(1);
+		
+		return isQueued;
+	}
+	
 	/**
 	 * Returns the status of the Worker and any child threads. 
 	 * @return a List of WorkerStatus beans, with the worker status always first
@@ -0,0 +1,451 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.xml;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import org.jdom2.*;
+
+/**
+ * A reusable buffer that writes compact UTF-8 XML. Elements can either be written directly, or copied from JDOM elements. There is no
+ * indentation between elements, and text is trimmed like the JDOM pretty format so clients see the same content. Characters that are
+ * not legal in XML are dropped, and CDATA sections containing their end delimiter are split, so the output is always well-formed.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+public class CompactXMLWriter extends ByteArrayOutputStream {
+
+	private static final byte[] CDATA_OPEN = "<![CDATA[".getBytes(java.nio.charset.StandardCharsets.US_ASCII);
+	private static final byte[] CDATA_CLOSE = "]]>".getBytes(java.nio.charset.StandardCharsets.US_ASCII);
+
+	private String[] _names = new String[16];
+	private int _depth;
+	private boolean _isTagOpen;
+
+	private int _markCount;
+	private int _markDepth;
+
+	/**
+	 * Creates a new writer.
+	 * @param size the initial buffer size
+	 */
+	public CompactXMLWriter(int size) {
+		super(size);
+	}
+
+	/**
+	 * Returns the number of open elements.
+	 * @return the element depth
+	 */
+	public int getDepth() {
+		return _depth;
+	}
+
+	/**
+	 * Writes the XML declaration.
+	 */
+	public void startDocument() {
+		writeASCII(ProtocolInfo.XML_HEADER);
+	}
+
+	/**
+	 * Opens an element.
+	 * @param name the element name
+	 */
+	public void startElement(String name) {
+		closeTag();
+		if (_depth == _names.length) {
+			String[] names = new String[_depth * 2];
+			System.arraycopy(_names, 0, names, 0, _depth);
+			_names = names;
+		}
+
+		_names[_depth++] = name;
+		write('<');
+		writeASCII(name);
+		_isTagOpen = true;
+	}
+
+	/**
+	 * Writes an attribute of the current element. This must be called before any content is added to the element.
+	 * @param name the attribute name
+	 * @param value the attribute value, or null to omit
+	 */
+	public void attribute(String name, String value) {
+		if (!_isTagOpen)
+			throw new IllegalStateException("No start tag for attribute " + name);
+		if (value == null)
+			return;
+
+		write(' ');
+		writeASCII(name);
+		write('=');
+		write('"');
+		writeEscaped(value, 0, value.length(), true);
+		write('"');
+	}
+
+	/**
+	 * Writes a numeric attribute of the current element.
+	 * @param name the attribute name
+	 * @param value the attribute value
+	 */
+	public void attribute(String name, long value) {
+		if (!_isTagOpen)
+			throw new IllegalStateException("No start tag for attribute " + name);
+
+		write(' ');
+		writeASCII(name);
+		write('=');
+		write('"');
+		writeDecimal(value);
+		write('"');
+	}
+
+	/**
+	 * Writes a hexadecimal attribute of the current element, like {@link Long#toHexString(long)}.
+	 * @param name the attribute name
+	 * @param value the attribute value
+	 */
+	public void hexAttribute(String name, long value) {
+		if (!_isTagOpen)
+			throw new IllegalStateException("No start tag for attribute " + name);
+
+		write(' ');
+		writeASCII(name);
+		write('=');
+		write('"');
+		int digits = Math.max(1, (67 - Long.numberOfLeadingZeros(value)) >> 2);
+		for (int x = digits - 1; x >= 0; x--)
+			write(Character.forDigit((int) ((value >>> (x << 2)) & 0xF), 16));
+
+		write('"');
+	}
+
+	/**
+	 * Writes escaped text, trimming leading and trailing whitespace.
+	 * @param txt the text
+	 */
+	public void text(String txt) {
+		if (txt == null) return;
+		int st = start(txt); int end = end(txt, st);
+		if (st == end) return;
+		closeTag();
+		writeEscaped(txt, st, end, false);
+	}
+
+	/**
+	 * Writes a CDATA section, trimming leading and trailing whitespace. If the text contains the CDATA end delimiter, it is split
+	 * across two sections.
+	 * @param txt the text
+	 */
+	public void cdata(String txt) {
+		if (txt == null) return;
+		int st = start(txt); int end = end(txt, st);
+		if (st == end) return;
+		closeTag();
+		writeCDATA(txt, st, end);
+	}
+
+	/**
+	 * Closes the current element.
+	 */
+	public void endElement() {
+		if (_depth == 0)
+			throw new IllegalStateException("No open element");
+
+		String name = _names[--_depth];
+		_names[_depth] = null;
+		if (_isTagOpen) {
+			write(' ');
+			write('/');
+			write('>');
+			_isTagOpen = false;
+			return;
+		}
+
+		write('<');
+		write('/');
+		writeASCII(name);
+		write('>');
+	}
+
+	/**
+	 * Writes a JDOM element and its children.
+	 * @param e the Element
+	 */
+	public void write(Element e) {
+		startElement(e.getName());
+		if (e.hasAttributes()) {
+			for (Attribute a : e.getAttributes())
+				attribute(a.getName(), a.getValue());
+		}
+
+		List<Content> content = e.getContent();
+		boolean hasChildren = content.stream().anyMatch(Element.class::isInstance);
+		if (!hasChildren) {
+			writeText(content);
+			endElement();
+			return;
+		}
+
+		// Mixed content, drop whitespace between elements
+		for (Content c : content) {
+			if (c instanceof Element ce)
+				write(ce);
+			else if (c instanceof CDATA cd)
+				cdata(cd.getText());
+			else if (c instanceof Text t)
+				text(t.getText());
+		}
+
+		endElement();
+	}
+
+	/*
+	 * Writes text-only content, trimming the whole run of text rather than each node.
+	 */
+	private void writeText(List<Content> content) {
+		if (content.size() == 1) {
+			Content c = content.get(0);
+			if (c instanceof CDATA cd)
+				cdata(cd.getText());
+			else if (c instanceof Text t)
+				text(t.getText());
+
+			return;
+		}
+
+		// Find the first and last text nodes with non-whitespace content
+		int first = -1; int last = -1;
+		for (int x = 0; x < content.size(); x++) {
+			if ((content.get(x) instanceof Text t) && !t.getTextTrim().isEmpty()) {
+				if (first < 0) first = x;
+				last = x;
+			}
+		}
+
+		for (int x = first; (first >= 0) && (x <= last); x++) {
+			if (!(content.get(x) instanceof Text t)) continue;
+			String txt = t.getText();
+			int st = (x == first) ? start(txt) : 0; int end = (x == last) ? end(txt, st) : txt.length();
+			closeTag();
+			if (t instanceof CDATA)
+				writeCDATA(txt, st, end);
+			else
+				writeEscaped(txt, st, end, false);
+		}
+	}
+
+	/**
+	 * Marks the current position, so that a partially written element can be discarded.
+	 */
+	public void mark() {
+		closeTag();
+		_markCount = count;
+		_markDepth = _depth;
+	}
+
+	/**
+	 * Discards everything written since the last call to {@link #mark()}.
+	 */
+	public void rewind() {
+		count = _markCount;
+		while (_depth > _markDepth)
+			_names[--_depth] = null;
+
+		_isTagOpen = false;
+	}
+
+	@Override
+	public synchronized void reset() {
+		super.reset();
+		while (_depth > 0)
+			_names[--_depth] = null;
+
+		_isTagOpen = false;
+		_markCount = 0;
+		_markDepth = 0;
+	}
+
+	/**
+	 * Returns the size of the underlying buffer.
+	 * @return the buffer size in bytes
+	 */
+	public int capacity() {
+		return buf.length;
+	}
+
+	/*
+	 * Completes a start tag if one is open.
+	 */
+	private void closeTag() {
+		if (_isTagOpen) {
+			write('>');
+			_isTagOpen = false;
+		}
+	}
+
+	/*
+	 * Returns whether a character is XML whitespace. JDOM only trims these, not all Unicode whitespace.
+	 */
+	private static boolean isWhitespace(char c) {
+		return (c == ' ') || (c == '\t') || (c == '\n') || (c == '\r');
+	}
+
+	/*
+	 * Returns whether a character may appear in an XML document. Surrogates are checked when they are written.
+	 */
+	private static boolean isLegal(char c) {
+		return (c >= 0x20) ? (c < 0xFFFE) : ((c == '\t') || (c == '\n') || (c == '\r'));
+	}
+
+	/*
+	 * Returns the index of the first non-whitespace character.
+	 */
+	private static int start(String txt) {
+		int st = 0;
+		while ((st < txt.length()) && isWhitespace(txt.charAt(st)))
+			st++;
+
+		return st;
+	}
+
+	/*
+	 * Returns the index after the last non-whitespace character.
+	 */
+	private static int end(String txt, int st) {
+		int end = txt.length();
+		while ((end > st) && isWhitespace(txt.charAt(end - 1)))
+			end--;
+
+		return end;
+	}
+
+	/*
+	 * Writes a decimal number.
+	 */
+	private void writeDecimal(long value) {
+		if (value == Long.MIN_VALUE) {
+			writeASCII(String.valueOf(value));
+			return;
+		} else if (value < 0) {
+			write('-');
+			value = -value;
+		}
+
+		long div = 1;
+		while ((value / div) >= 10)
+			div *= 10;
+
+		for (; div > 0; div /= 10)
+			write((int) ('0' + ((value / div) % 10)));
+	}
+
+	/*
+	 * Writes a name or other ASCII string.
+	 */
+	private void writeASCII(String s) {
+		for (int x = 0; x < s.length(); x++)
+			write(s.charAt(x));
+	}
+
+	/*
+	 * Writes escaped text as UTF-8.
+	 */
+	private void writeEscaped(String s, int st, int end, boolean isAttr) {
+		for (int x = st; x < end; x++) {
+			char c = s.charAt(x);
+			if (!isLegal(c)) continue;
+			switch (c) {
+				case '&':
+					writeASCII("&amp;");
+					break;
+
+				case '<':
+					writeASCII("&lt;");
+					break;
+
+				case '>':
+					writeASCII("&gt;");
+					break;
+
+				case '"':
+					if (isAttr) writeASCII("&quot;"); else write(c);
+					break;
+
+				case '\t':
+					if (isAttr) writeASCII("&#x9;"); else write(c);
+					break;
+
+				case '\n':
+					if (isAttr) writeASCII("&#xA;"); else write(c);
+					break;
+
+				case '\r':
+					writeASCII("&#xD;");
+					break;
+
+				default:
+					if (c < 0x80)
+						write(c);
+					else
+						x = writeChar(s, x, end);
+			}
+		}
+	}
+
+	/*
+	 * Writes unescaped text as UTF-8 in a CDATA section. If the text would end the section, the section is closed after the "]]" and
+	 * a new one opened for the ">".
+	 */
+	private void writeCDATA(String s, int st, int end) {
+		write(CDATA_OPEN, 0, CDATA_OPEN.length);
+		for (int x = st; x < end; x++) {
+			char c = s.charAt(x);
+			if (!isLegal(c)) continue;
+			if (c >= 0x80) {
+				x = writeChar(s, x, end);
+				continue;
+			}
+
+			if ((c == '>') && (buf[count - 1] == ']') && (buf[count - 2] == ']')) {
+				write(CDATA_CLOSE, 0, CDATA_CLOSE.length);
+				write(CDATA_OPEN, 0, CDATA_OPEN.length);
+			}
+
+			write(c);
+		}
+
+		write(CDATA_CLOSE, 0, CDATA_CLOSE.length);
+	}
+
+	/*
+	 * Writes a non-ASCII character as UTF-8, and returns the index of the last character consumed.
+	 */
+	private int writeChar(String s, int x, int end) {
+		char c = s.charAt(x);
+		if (c < 0x800) {
+			write(0xC0 | (c >> 6));
+			write(0x80 | (c & 0x3F));
+			return x;
+		} else if (Character.isHighSurrogate(c) && ((x + 1) < end) && Character.isLowSurrogate(s.charAt(x + 1))) {
+			int cp = Character.toCodePoint(c, s.charAt(x + 1));
+			write(0xF0 | (cp >> 18));
+			write(0x80 | ((cp >> 12) & 0x3F));
+			write(0x80 | ((cp >> 6) & 0x3F));
+			write(0x80 | (cp & 0x3F));
+			return x + 1;
+		} else if (Character.isSurrogate(c)) {
+			write('?');
+			return x;
+		}
+
+		write(0xE0 | (c >> 12));
+		write(0x80 | ((c >> 6) & 0x3F));
+		write(0x80 | (c & 0x3F));
+		return x;
+	}
+}
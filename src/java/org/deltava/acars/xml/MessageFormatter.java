@@ -1,15 +1,20 @@
-// Copyright 2004, 2005, 2006, 2012, 2023 Global Virtual Airlines Group. All Rights Reserved.
+// Copyright 2004, 2005, 2006, 2012, 2023, 2026 Global Virtual Airlines Group. All Rights Reserved.
 package org.deltava.acars.xml;
 
+import java.io.IOException;
+
 import org.apache.logging.log4j.*;
 
+import org.jdom2.Element;
+
 import org.deltava.acars.message.Message;
+import org.deltava.acars.util.PacketOutputStream;
 
 /**
  * An ACARS Message Formatter. Message Formatters are a way of translating Message objects into
  * XML messages in a protocol version-specific way.
  * @author Luke
- * @version 11.0
+ * @version 12.4
  * @since 1.0
  * @see MessageParser
  */
@@ -43,5 +48,32 @@ public abstract class MessageFormatter {
 	 * @return the XML element
 	 * @throws XMLException if an error occurs
 	 */
-	public abstract org.jdom2.Element format(Message msgBean) throws XMLException;
+	public abstract Element format(Message msgBean) throws XMLException;
+	
+	/**
+	 * Formats a Message directly into a compact XML buffer. The default implementation formats the Message into an XML element
+	 * and copies it into the buffer.
+	 * @param msgBean the Message to format
+	 * @param out the CompactXMLWriter to write to
+	 * @return TRUE if the Message was written, otherwise FALSE
+	 * @throws XMLException if an error occurs
+	 */
+	public boolean format(Message msgBean, CompactXMLWriter out) throws XMLException {
+		Element e = format(msgBean);
+		if (e != null)
+			out.write(e);
+		
+		return (e != null);
+	}
+	
+	/**
+	 * Formats a Message into a binary record, if this protocol version has a binary encoding for it.
+	 * @param msgBean the Message to format
+	 * @param out the PacketOutputStream to write to
+	 * @return TRUE if the Message was written, or FALSE if it must be formatted as XML
+	 * @throws IOException if an I/O error occurs
+	 */
+	public boolean format(Message msgBean, PacketOutputStream out) throws IOException {
+		return false;
+	}
 }
\ No newline at end of file
@@ -1,17 +1,17 @@
-// Copyright 2004, 2005, 2006, 2020, 2023 Global Virtual Airlines Group. All Rights Reserved.
+// Copyright 2004, 2005, 2006, 2020, 2023, 2026 Global Virtual Airlines Group. All Rights Reserved.
 package org.deltava.acars.xml;
 
 import java.util.Collection;
 
 import org.apache.logging.log4j.*;
 
-import org.deltava.acars.beans.TextEnvelope;
+import org.deltava.acars.beans.*;
 import org.deltava.acars.message.Message;
 
 /**
  * An interface for ACARS XML message parsers.
  * @author Luke
- * @version 11.0
+ * @version 12.4
  * @since 1.0
  * @see MessageFormatter
  */
@@ -51,4 +51,14 @@ public abstract class MessageParser {
 	 * @throws XMLException if an error occurs
 	 */
 	public abstract Collection<Message> parse(TextEnvelope e) throws XMLException;
+	
+	/**
+	 * Parses a binary message Envelope. Protocol versions without a binary encoding reject all binary data.
+	 * @param e the Envelope
+	 * @return a Collection of Message beans
+	 * @throws XMLException if an error occurs
+	 */
+	public Collection<Message> parse(BinaryEnvelope e) throws XMLException {
+		throw new XMLException("Binary data not supported in protocol v" + _version);
+	}
 }
\ No newline at end of file
@@ -1,10 +1,10 @@
-// Copyright 2004, 2016 Global Virtual Airlines Group. All Rights Reserved.
+// Copyright 2004, 2016, 2026 Global Virtual Airlines Group. All Rights Reserved.
 package org.deltava.acars.xml;
 
 /**
  * An interface to store ACARS protocol constants.
  * @author luke
- * @version 6.4
+ * @version 12.4
  * @since 1.0
  */
 
@@ -39,4 +39,20 @@ public interface ProtocolInfo {
 	 * Request element XML close substring.
 	 */
 	public final static String REQ_ELEMENT_CLOSE = "</" + REQ_ELEMENT_NAME + ">";
+	
+	/**
+	 * Binary frame magic number. Binary frames start with this little-endian 32-bit value, followed by the little-endian 32-bit
+	 * length of the frame payload.
+	 */
+	public final static int BINARY_MAGIC = 0x3341CAAC;
+	
+	/**
+	 * Binary frame header size.
+	 */
+	public final static int BINARY_HEADER_SIZE = 8;
+	
+	/**
+	 * Maximum binary frame payload size.
+	 */
+	public final static int BINARY_MAX_SIZE = 65536;
 }
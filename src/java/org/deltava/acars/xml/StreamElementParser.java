@@ -0,0 +1,87 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.xml;
+
+import javax.xml.stream.*;
+
+import org.deltava.beans.Pilot;
+
+import org.deltava.acars.message.Message;
+
+/**
+ * A parser for XML command elements that reads directly from a StAX pull parser, without building a JDOM element.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ * @param <T> the returned message type
+ * @see XMLElementParser
+ */
+
+public abstract class StreamElementParser<T extends Message> {
+
+	/**
+	 * Converts the current command element into a Message. The reader is positioned on the command start element, and any part of
+	 * the command element not read by the parser will be skipped.
+	 * @param r the XMLStreamReader
+	 * @param user the message author
+	 * @return a Message or null if no message should be generated
+	 * @throws XMLException if a parse error occurs
+	 * @throws XMLStreamException if the XML is malformed
+	 */
+	public abstract T parse(XMLStreamReader r, Pilot user) throws XMLException, XMLStreamException;
+
+	/**
+	 * Helper method to advance to the next child element. Each child element must be read or skipped before this is called again.
+	 * @param r the XMLStreamReader
+	 * @return TRUE if positioned on a child start element, FALSE if the end of the parent element was reached
+	 * @throws XMLStreamException if the XML is malformed
+	 */
+	protected static boolean nextChild(XMLStreamReader r) throws XMLStreamException {
+		while (r.hasNext()) {
+			int evt = r.next();
+			if (evt == XMLStreamConstants.START_ELEMENT)
+				return true;
+			else if (evt == XMLStreamConstants.END_ELEMENT)
+				return false;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Helper method to read the trimmed text of the current element.
+	 * @param r the XMLStreamReader
+	 * @return the element text
+	 * @throws XMLStreamException if the element contains child elements
+	 */
+	protected static String getText(XMLStreamReader r) throws XMLStreamException {
+		return r.getElementText().trim();
+	}
+
+	/**
+	 * Helper method to skip the current element and its children.
+	 * @param r the XMLStreamReader
+	 * @throws XMLStreamException if the XML is malformed
+	 */
+	protected static void skip(XMLStreamReader r) throws XMLStreamException {
+		int depth = 1;
+		while ((depth > 0) && r.hasNext()) {
+			int evt = r.next();
+			if (evt == XMLStreamConstants.START_ELEMENT)
+				depth++;
+			else if (evt == XMLStreamConstants.END_ELEMENT)
+				depth--;
+		}
+	}
+
+	/**
+	 * Helper method to read an attribute with a default value.
+	 * @param r the XMLStreamReader
+	 * @param name the attribute name
+	 * @param defaultValue the default value
+	 * @return the attribute value, or the default value if not present
+	 */
+	protected static String getAttribute(XMLStreamReader r, String name, String defaultValue) {
+		String tmp = r.getAttributeValue(null, name);
+		return (tmp == null) ? defaultValue : tmp;
+	}
+}
@@ -0,0 +1,277 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.xml;
+
+import java.time.*;
+import java.time.format.*;
+import java.time.temporal.ChronoField;
+
+import javax.xml.stream.*;
+
+import org.deltava.util.StringUtils;
+
+/**
+ * A reusable buffer for element text read from a StAX parser. Numbers, booleans and dates are parsed directly from the buffer without
+ * creating Strings, and produce the same results as the standard parsing methods on the trimmed element text. Values outside the
+ * common formats are passed to the standard methods. This class is not thread-safe.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+public class TextBuffer {
+
+	private static final DateTimeFormatter MDTF = new DateTimeFormatterBuilder().appendPattern("MM/dd/yyyy HH:mm:ss").appendFraction(ChronoField.MILLI_OF_SECOND, 0, 3, true).toFormatter();
+
+	private static final double[] POW10 = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+	private static final long MAX_MANTISSA = 1L << 53;
+	private static final int MAX_INT_DIGITS = 9;
+	private static final int CACHE_SIZE = 128;
+
+	private char[] _buf = new char[64];
+	private int _start;
+	private int _end;
+
+	private final String[] _cache = new String[CACHE_SIZE];
+
+	/**
+	 * Reads the text of the current element into the buffer and trims it. This behaves like {@link XMLStreamReader#getElementText()}, and
+	 * leaves the reader on the end element.
+	 * @param r the XMLStreamReader, positioned on a start element
+	 * @return this buffer
+	 * @throws XMLStreamException if the element contains child elements
+	 */
+	public TextBuffer load(XMLStreamReader r) throws XMLStreamException {
+		int len = 0;
+		int evt = r.next();
+		while (evt != XMLStreamConstants.END_ELEMENT) {
+			if ((evt == XMLStreamConstants.CHARACTERS) || (evt == XMLStreamConstants.CDATA) || (evt == XMLStreamConstants.SPACE)) {
+				int txtLen = r.getTextLength();
+				if ((len + txtLen) > _buf.length) {
+					char[] buf = new char[Math.max(_buf.length * 2, len + txtLen)];
+					System.arraycopy(_buf, 0, buf, 0, len);
+					_buf = buf;
+				}
+
+				System.arraycopy(r.getTextCharacters(), r.getTextStart(), _buf, len, txtLen);
+				len += txtLen;
+			} else if ((evt == XMLStreamConstants.START_ELEMENT) || (evt == XMLStreamConstants.END_DOCUMENT))
+				throw new XMLStreamException("Element text expected", r.getLocation());
+
+			evt = r.next();
+		}
+
+		// Trim like String.trim()
+		_start = 0; _end = len;
+		while ((_start < _end) && (_buf[_start] <= ' '))
+			_start++;
+		while ((_end > _start) && (_buf[_end - 1] <= ' '))
+			_end--;
+
+		return this;
+	}
+
+	/**
+	 * Returns the length of the trimmed text.
+	 * @return the length in characters
+	 */
+	public int length() {
+		return _end - _start;
+	}
+
+	/**
+	 * Returns whether the trimmed text is empty.
+	 * @return TRUE if empty, otherwise FALSE
+	 */
+	public boolean isEmpty() {
+		return (_end == _start);
+	}
+
+	/**
+	 * Parses the text as an integer, like {@link Integer#parseInt(String)}.
+	 * @return the value
+	 * @throws NumberFormatException if the text is not an integer
+	 */
+	public int parseInt() {
+		int v = parsePlainInt();
+		return (v == Integer.MIN_VALUE) ? Integer.parseInt(toString()) : v;
+	}
+
+	/**
+	 * Parses the text as an integer, like {@link StringUtils#parse(String, int)}.
+	 * @param defaultValue the value to return if the text is not an integer
+	 * @return the value
+	 */
+	public int parse(int defaultValue) {
+		int v = parsePlainInt();
+		return (v == Integer.MIN_VALUE) ? StringUtils.parse(toString(), defaultValue) : v;
+	}
+
+	/*
+	 * Parses an optionally signed integer of up to 9 ASCII digits, and returns Integer.MIN_VALUE for anything else.
+	 */
+	private int parsePlainInt() {
+		int ofs = _start; boolean isNegative = false;
+		if ((ofs < _end) && ((_buf[ofs] == '-') || (_buf[ofs] == '+'))) {
+			isNegative = (_buf[ofs] == '-');
+			ofs++;
+		}
+
+		int digits = _end - ofs;
+		if ((digits == 0) || (digits > MAX_INT_DIGITS))
+			return Integer.MIN_VALUE;
+
+		int v = 0;
+		for (; ofs < _end; ofs++) {
+			int d = _buf[ofs] - '0';
+			if ((d < 0) || (d > 9))
+				return Integer.MIN_VALUE;
+
+			v = (v * 10) + d;
+		}
+
+		return isNegative ? -v : v;
+	}
+
+	/**
+	 * Parses the text as a double, like {@link Double#parseDouble(String)}. Plain decimals whose digits fit in a 53-bit mantissa are
+	 * divided by an exact power of ten, which rounds the same way as the JDK.
+	 * @return the value
+	 * @throws NumberFormatException if the text is not a number
+	 */
+	public double parseDouble() {
+		int ofs = _start; boolean isNegative = false;
+		if ((ofs < _end) && ((_buf[ofs] == '-') || (_buf[ofs] == '+'))) {
+			isNegative = (_buf[ofs] == '-');
+			ofs++;
+		}
+
+		long m = 0; int digits = 0; int scale = -1;
+		for (; ofs < _end; ofs++) {
+			char c = _buf[ofs];
+			if ((c >= '0') && (c <= '9')) {
+				if (m > ((MAX_MANTISSA - 9) / 10))
+					return Double.parseDouble(toString());
+
+				m = (m * 10) + (c - '0');
+				digits++;
+				if (scale >= 0) scale++;
+			} else if ((c == '.') && (scale < 0))
+				scale = 0;
+			else
+				return Double.parseDouble(toString());
+		}
+
+		if ((digits == 0) || (scale >= POW10.length))
+			return Double.parseDouble(toString());
+
+		double v = (scale > 0) ? (m / POW10[scale]) : m;
+		return isNegative ? -v : v;
+	}
+
+	/**
+	 * Parses the text as a boolean, like {@link Boolean#parseBoolean(String)}.
+	 * @return TRUE if the text is &quot;true&quot; ignoring case, otherwise FALSE
+	 */
+	public boolean parseBoolean() {
+		if (length() != 4)
+			return false;
+
+		return (Character.toLowerCase(_buf[_start]) == 't') && (Character.toLowerCase(_buf[_start + 1]) == 'r') && (Character.toLowerCase(_buf[_start + 2]) == 'u')
+			&& (Character.toLowerCase(_buf[_start + 3]) == 'e');
+	}
+
+	/**
+	 * Parses the text as an ACARS client date/time in the format <i>MM/dd/yyyy HH:mm:ss.SSS</i>, with optional milliseconds and either
+	 * slashes or dashes as date separators.
+	 * @return the date/time
+	 * @throws DateTimeException if the text is not a valid date/time
+	 */
+	public Instant parseDateTime() {
+		int len = length();
+		if ((len != 19) && ((len < 21) || (len > 23)))
+			return parseDateTime(toString());
+
+		// Check separators
+		int ofs = _start;
+		char ds = _buf[ofs + 2];
+		if (((ds != '/') && (ds != '-')) || (_buf[ofs + 5] != ds) || (_buf[ofs + 10] != ' ') || (_buf[ofs + 13] != ':') || (_buf[ofs + 16] != ':') || ((len > 19) && (_buf[ofs + 19] != '.')))
+			return parseDateTime(toString());
+
+		int m = digits(ofs, 2); int d = digits(ofs + 3, 2); int y = digits(ofs + 6, 4);
+		int h = digits(ofs + 11, 2); int mn = digits(ofs + 14, 2); int s = digits(ofs + 17, 2);
+		int ms = 0;
+		if (len > 19) {
+			ms = digits(ofs + 20, len - 20);
+			for (int x = len; (ms >= 0) && (x < 23); x++)
+				ms *= 10;
+		}
+
+		// Validate, and let the formatter resolve anything unusual
+		boolean isLeap = ((y % 4) == 0) && (((y % 100) != 0) || ((y % 400) == 0));
+		int maxDay = (m == 2) ? (isLeap ? 29 : 28) : (((m == 4) || (m == 6) || (m == 9) || (m == 11)) ? 30 : 31);
+		if ((y < 1) || (m < 1) || (m > 12) || (d < 1) || (d > maxDay) || (h < 0) || (h > 23) || (mn < 0) || (mn > 59) || (s < 0) || (s > 59) || (ms < 0))
+			return parseDateTime(toString());
+
+		// Convert to days since the epoch
+		int yy = (m <= 2) ? (y - 1) : y;
+		int era = yy / 400; int yoe = yy - (era * 400);
+		int doy = (((153 * (m + ((m > 2) ? -3 : 9))) + 2) / 5) + d - 1;
+		int doe = (yoe * 365) + (yoe / 4) - (yoe / 100) + doy;
+		long days = (era * 146097L) + doe - 719468;
+		return Instant.ofEpochMilli((((((days * 24) + h) * 60) + mn) * 60 + s) * 1000 + ms);
+	}
+
+	/*
+	 * Parses a fixed number of ASCII digits, returning -1 if any are invalid.
+	 */
+	private int digits(int ofs, int len) {
+		int v = 0;
+		for (int x = ofs; x < (ofs + len); x++) {
+			int d = _buf[x] - '0';
+			if ((d < 0) || (d > 9))
+				return -1;
+
+			v = (v * 10) + d;
+		}
+
+		return v;
+	}
+
+	/*
+	 * Parses a date/time using the client date format.
+	 */
+	private static Instant parseDateTime(String dt) {
+		return LocalDateTime.parse(dt.replace('-', '/'), MDTF).toInstant(ZoneOffset.UTC);
+	}
+
+	/**
+	 * Returns the text as a String, reusing a previously returned String with the same text if possible. This avoids creating Strings for
+	 * values that rarely change, such as radio frequencies.
+	 * @return the text
+	 */
+	public String getString() {
+		int len = length(); int h = 0;
+		for (int x = _start; x < _end; x++)
+			h = (31 * h) + _buf[x];
+
+		int idx = (h ^ (h >>> 16)) & (CACHE_SIZE - 1);
+		String s = _cache[idx];
+		if ((s != null) && (s.length() == len)) {
+			boolean isMatch = true;
+			for (int x = 0; isMatch && (x < len); x++)
+				isMatch = (s.charAt(x) == _buf[_start + x]);
+
+			if (isMatch)
+				return s;
+		}
+
+		s = toString();
+		_cache[idx] = s;
+		return s;
+	}
+
+	@Override
+	public String toString() {
+		return new String(_buf, _start, length());
+	}
+}
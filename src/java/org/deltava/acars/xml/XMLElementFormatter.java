@@ -1,4 +1,4 @@
-// Copyright 2006, 2007, 2009, 2011, 2012, 2018, 2020 Global Virtual Airlines Group. All Rights Reserved.
+// Copyright 2006, 2007, 2009, 2011, 2012, 2018, 2020, 2026 Global Virtual Airlines Group. All Rights Reserved.
 package org.deltava.acars.xml;
 
 import org.jdom2.Element;
@@ -10,7 +10,7 @@ import org.deltava.util.*;
 /**
  * A formatter to create XML command elements.
  * @author Luke
- * @version 9.0
+ * @version 12.4
  * @since 1.0
  */
 
@@ -23,6 +23,21 @@ public abstract class XMLElementFormatter {
 	 */
 	public abstract Element format(Message msg);
 	
+	/**
+	 * Formats a Message bean directly into a compact XML buffer. The default implementation formats the Message into an XML element
+	 * and copies it into the buffer, so formatters for frequently sent messages should override this.
+	 * @param msg the Message
+	 * @param out the CompactXMLWriter
+	 * @return TRUE if the Message was written, otherwise FALSE
+	 */
+	public boolean format(Message msg, CompactXMLWriter out) {
+		Element e = format(msg);
+		if (e != null)
+			out.write(e);
+		
+		return (e != null);
+	}
+	
 	/**
 	 * Helper method to initialize the response element.
 	 * @param msgType the MessageType
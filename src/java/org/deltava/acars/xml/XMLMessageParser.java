@@ -1,8 +1,12 @@
-// Copyright 2004, 2009, 2012, 2016, 2017, 2018, 2023, 2025 Global Virtual Airlines Group. All Rights Reserved.
+// Copyright 2004, 2009, 2012, 2016, 2017, 2018, 2023, 2025, 2026 Global Virtual Airlines Group. All Rights Reserved.
 package org.deltava.acars.xml;
 
+import java.io.StringReader;
 import java.util.*;
 
+import javax.xml.stream.*;
+import javax.xml.stream.util.StreamReaderDelegate;
+
 import org.jdom2.*;
 import org.jdom2.input.SAXBuilder;
 import org.jdom2.input.sax.XMLReaders;
@@ -10,12 +14,17 @@ import org.jdom2.input.sax.XMLReaders;
 import org.deltava.acars.beans.TextEnvelope;
 import org.deltava.acars.message.*;
 
+import org.deltava.beans.Pilot;
+
 import org.deltava.util.StringUtils;
+import org.deltava.util.system.SystemData;
 
 /**
- * An abstract class to parse ACARS XML messages.
+ * An abstract class to parse ACARS XML messages. Messages are either built into JDOM documents, or read using a StAX pull parser if
+ * the protocol version is listed in <i>acars.stax</i>. When using the StAX parser, commands with a registered streaming parser are
+ * read directly from the parser, and all other commands are built into a JDOM element and passed to the element parser.
  * @author Luke
- * @version 12.3
+ * @version 12.4
  * @since 2.8
  */
 
@@ -23,8 +32,12 @@ public abstract class XMLMessageParser extends MessageParser {
 	
 	protected final Map<MessageType, XMLElementParser<? extends Message>> _eParsers =  new HashMap<MessageType, XMLElementParser<? extends Message>>();
 	protected final Map<DispatchRequest, XMLElementParser<? extends DispatchMessage>> _dspParsers = new HashMap<DispatchRequest, XMLElementParser<? extends DispatchMessage>>();
+	protected final Map<MessageType, StreamElementParser<? extends Message>> _streamParsers = new HashMap<MessageType, StreamElementParser<? extends Message>>();
 	
 	protected final SAXBuilder builder;
+	
+	private final boolean _useStAX;
+	private XMLInputFactory _xif;
 
 	/**
 	 * Initializes the parser.
@@ -35,6 +48,16 @@ public abstract class XMLMessageParser extends MessageParser {
 		builder = new SAXBuilder(XMLReaders.NONVALIDATING);
 		builder.setReuseParser(true);
 		builder.setProperty(javax.xml.XMLConstants.ACCESS_EXTERNAL_DTD, "");
+		Collection<?> staxVersions = (Collection<?>) SystemData.getObject("acars.stax");
+		_useStAX = (staxVersions != null) && staxVersions.contains("v" + version);
+		if (_useStAX) {
+			_xif = XMLInputFactory.newFactory();
+			_xif.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.FALSE);
+			_xif.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+			_xif.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+			_xif.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+		}
+		
 		init();
 	}
 	
@@ -64,12 +87,15 @@ public abstract class XMLMessageParser extends MessageParser {
 			}
 		} else
 			msgs.add(rawMsg);
+		
+		if (_useStAX)
+			return parseStream(env, msgs);
 
 		// Split up the XML
 		final Collection<Document> xdocs = new ArrayList<Document>();
 		try {
 			for (String req : msgs) {
-				xdocs.add(builder.build(new java.io.StringReader(req)));
+				xdocs.add(builder.build(new StringReader(req)));
 				if (log.isDebugEnabled())
 					log.debug(req);
 			}
@@ -91,49 +117,12 @@ public abstract class XMLMessageParser extends MessageParser {
 				throw new XMLException("Invalid root Element - " + root.getName());
 
 			// Get the message ID
-			long id = 0;
-			try {
-				id = Long.parseLong(root.getAttributeValue("id"), 16);
-			} catch (Exception e) {
-				throw new XMLException("Invalid Message ID - " + e.getMessage());
-			}
+			long id = parseID(root.getAttributeValue("id"));
 			
 			// Get the commands
 			for (Element cmdE: root.getChildren(ProtocolInfo.CMD_ELEMENT_NAME)) {
-				Message msg = null;
-				MessageType msgType = MessageType.fromType(cmdE.getAttributeValue("type"));
 				try {
-					// Depending on the message type, either generate a message or lookup the parser in a map
-					switch (msgType) {
-						case ENDFLIGHT:
-							msg = new EndFlightMessage(env.getOwner()); 
-							break;
-
-						case DISPATCH:
-							String reqType = cmdE.getChildTextTrim("reqtype"); 
-							DispatchRequest dspType = DispatchRequest.fromType(reqType);
-							XMLElementParser<? extends DispatchMessage> dp = _dspParsers.get(dspType);
-							if (dp != null)
-								msg = dp.parse(cmdE, env.getOwner());
-							else
-								throw new XMLException("Invalid dispatch message type - " + reqType);
-							
-							break;
-							
-						default:
-							XMLElementParser<? extends Message> ep = _eParsers.get(msgType);
-							if (ep != null) {
-								msg = ep.parse(cmdE, env.getOwner());
-								
-								// Get the protocol version
-								if (msgType == MessageType.AUTH) {
-									int version = StringUtils.parse(root.getAttributeValue("version"), getProtocolVersion());
-									AuthenticateMessage amsg = (AuthenticateMessage) msg;
-									amsg.setRequestedProtocolVersion(version);
-								}
-							} else
-								throw new XMLException("Invalid message type - " + msgType);
-					}
+					Message msg = parse(cmdE, root.getAttributeValue("version"), env.getOwner());
 
 					// If we have a message, stamp the ID and add it to the list
 					if (msg != null) {
@@ -150,4 +139,185 @@ public abstract class XMLMessageParser extends MessageParser {
 		
 		return results;
 	}
-}
\ No newline at end of file
+	
+	/*
+	 * Parses XML requests using the StAX pull parser. Malformed XML rejects the entire envelope like the JDOM parser, so messages are
+	 * only returned once every request has been read.
+	 */
+	private Collection<Message> parseStream(TextEnvelope env, Collection<String> msgs) throws XMLException {
+		final Collection<Message> results = new ArrayList<Message>();
+		for (String req : msgs) {
+			if (log.isDebugEnabled())
+				log.debug(req);
+			
+			try {
+				DepthReader r = new DepthReader(_xif.createXMLStreamReader(new StringReader(req)));
+				try {
+					r.nextTag();
+					if (!ProtocolInfo.REQ_ELEMENT_NAME.equals(r.getLocalName()))
+						throw new XMLException("Invalid root Element - " + r.getLocalName());
+					
+					// Get the message ID and version
+					long id = parseID(r.getAttributeValue(null, "id"));
+					String ver = r.getAttributeValue(null, "version");
+					
+					// Get the commands
+					while (StreamElementParser.nextChild(r)) {
+						if (!ProtocolInfo.CMD_ELEMENT_NAME.equals(r.getLocalName())) {
+							r.skipTo(1);
+							continue;
+						}
+						
+						try {
+							MessageType msgType = MessageType.fromType(r.getAttributeValue(null, "type"));
+							StreamElementParser<? extends Message> sp = _streamParsers.get(msgType);
+							Message msg = null;
+							if (sp != null) {
+								msg = sp.parse(r, env.getOwner());
+								if (msg instanceof AuthenticateMessage amsg)
+									amsg.setRequestedProtocolVersion(StringUtils.parse(ver, getProtocolVersion()));
+							} else
+								msg = parse(buildElement(r), ver, env.getOwner());
+							
+							// If we have a message, stamp the ID and add it to the list
+							if (msg != null) {
+								msg.setTime(env.getTime());
+								msg.setID(id);
+								results.add(msg);
+							}
+						} catch (XMLStreamException xse) {
+							throw xse;
+						} catch (Exception e) {
+							log.atError().withThrowable(e).log("Message parse exception - {}", e.getMessage());
+							results.add(new ErrorMessage(env.getOwner(), e.getMessage(), id));
+						}
+						
+						// Skip whatever the command parser did not read
+						r.skipTo(1);
+					}
+				} finally {
+					r.close();
+				}
+			} catch (XMLStreamException e) {
+				throw new XMLException(e.getMessage(), e, env.getMessage());
+			}
+		}
+		
+		return results;
+	}
+	
+	/*
+	 * Converts a command element into a message.
+	 */
+	private Message parse(Element cmdE, String version, Pilot usr) throws XMLException {
+		MessageType msgType = MessageType.fromType(cmdE.getAttributeValue("type"));
+		
+		// Depending on the message type, either generate a message or lookup the parser in a map
+		switch (msgType) {
+			case ENDFLIGHT:
+				return new EndFlightMessage(usr);
+
+			case DISPATCH:
+				String reqType = cmdE.getChildTextTrim("reqtype"); 
+				DispatchRequest dspType = DispatchRequest.fromType(reqType);
+				XMLElementParser<? extends DispatchMessage> dp = _dspParsers.get(dspType);
+				if (dp == null)
+					throw new XMLException("Invalid dispatch message type - " + reqType);
+					
+				return dp.parse(cmdE, usr);
+				
+			default:
+				XMLElementParser<? extends Message> ep = _eParsers.get(msgType);
+				if (ep == null)
+					throw new XMLException("Invalid message type - " + msgType);
+				
+				Message msg = ep.parse(cmdE, usr);
+				
+				// Get the protocol version
+				if (msgType == MessageType.AUTH) {
+					AuthenticateMessage amsg = (AuthenticateMessage) msg;
+					amsg.setRequestedProtocolVersion(StringUtils.parse(version, getProtocolVersion()));
+				}
+				
+				return msg;
+		}
+	}
+	
+	/*
+	 * Builds a JDOM element from the current start element, for commands without a streaming parser.
+	 */
+	private static Element buildElement(XMLStreamReader r) throws XMLStreamException {
+		Element e = new Element(r.getLocalName());
+		for (int x = 0; x < r.getAttributeCount(); x++)
+			e.setAttribute(r.getAttributeLocalName(x), r.getAttributeValue(x));
+		
+		while (r.hasNext()) {
+			int evt = r.next();
+			if (evt == XMLStreamConstants.START_ELEMENT)
+				e.addContent(buildElement(r));
+			else if ((evt == XMLStreamConstants.CHARACTERS) || (evt == XMLStreamConstants.CDATA) || (evt == XMLStreamConstants.SPACE))
+				e.addContent(new Text(r.getText()));
+			else if (evt == XMLStreamConstants.END_ELEMENT)
+				break;
+		}
+		
+		return e;
+	}
+	
+	/*
+	 * Parses a hexadecimal message ID.
+	 */
+	private static long parseID(String id) throws XMLException {
+		try {
+			return Long.parseLong(id, 16);
+		} catch (Exception e) {
+			throw new XMLException("Invalid Message ID - " + e.getMessage());
+		}
+	}
+	
+	/*
+	 * A StAX reader that tracks element depth, so that the remainder of a command element can be skipped.
+	 */
+	private static class DepthReader extends StreamReaderDelegate {
+		private int _depth;
+		
+		DepthReader(XMLStreamReader r) {
+			super(r);
+		}
+		
+		@Override
+		public int next() throws XMLStreamException {
+			int evt = super.next();
+			if (evt == START_ELEMENT)
+				_depth++;
+			else if (evt == END_ELEMENT)
+				_depth--;
+			
+			return evt;
+		}
+		
+		@Override
+		public int nextTag() throws XMLStreamException {
+			int evt = next();
+			while (((evt == CHARACTERS) && isWhiteSpace()) || (evt == SPACE) || (evt == COMMENT) || (evt == PROCESSING_INSTRUCTION))
+				evt = next();
+			
+			if ((evt != START_ELEMENT) && (evt != END_ELEMENT))
+				throw new XMLStreamException("Expected element", getLocation());
+			
+			return evt;
+		}
+		
+		@Override
+		public String getElementText() throws XMLStreamException {
+			String txt = super.getElementText();
+			_depth--;
+			return txt;
+		}
+		
+		void skipTo(int depth) throws XMLStreamException {
+			while ((_depth > depth) && hasNext())
+				next();
+		}
+	}
+}
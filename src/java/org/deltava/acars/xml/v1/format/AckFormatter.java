@@ -1,16 +1,17 @@
-// Copyright 2006, 2009, 2012, 2021 Global Virtual Airlines Group. All Rights Reserved.
+// Copyright 2006, 2009, 2012, 2021, 2026 Global Virtual Airlines Group. All Rights Reserved.
 package org.deltava.acars.xml.v1.format;
 
 import org.jdom2.Element;
 
 import org.deltava.acars.message.*;
+import org.deltava.acars.xml.*;
 
 import org.deltava.util.XMLUtils;
 
 /**
  * An XML Formatter for Acknowledge messages.
  * @author Luke
- * @version 10.0
+ * @version 12.4
  * @since 1.0
  */
 
@@ -34,4 +35,27 @@ class AckFormatter extends ElementFormatter {
 		ackmsg.getEntries().forEach(me -> e.addContent(XMLUtils.createElement(me.getKey(), me.getValue(), true)));
 		return e;
 	}
+	
+	/**
+	 * Writes an AcknowledgeMessage bean directly into a compact XML buffer.
+	 * @param msg the Message
+	 * @param out the CompactXMLWriter
+	 * @return TRUE
+	 */
+	@Override
+	public boolean format(Message msg, CompactXMLWriter out) {
+		AcknowledgeMessage ackmsg = (AcknowledgeMessage) msg;
+		out.startElement(ProtocolInfo.CMD_ELEMENT_NAME);
+		out.attribute("type", msg.getType().getCode());
+		out.hexAttribute("id", ackmsg.getParentID());
+		out.attribute("maxAge", ackmsg.getMaxAge());
+		ackmsg.getEntries().forEach(me -> {
+			out.startElement(me.getKey());
+			out.cdata(me.getValue());
+			out.endElement();
+		});
+		
+		out.endElement();
+		return true;
+	}
 }
\ No newline at end of file
@@ -1,4 +1,4 @@
-// Copyright 2004, 2005, 2006, 2007, 2008, 2009, 2012, 2016, 2019, 2021, 2023 Global Virtual Airlines Group. All Rights Reserved.
+// Copyright 2004, 2005, 2006, 2007, 2008, 2009, 2012, 2016, 2019, 2021, 2023, 2026 Global Virtual Airlines Group. All Rights Reserved.
 package org.deltava.acars.xml.v1.format;
 
 import org.jdom2.Element;
@@ -11,7 +11,7 @@ import org.deltava.acars.xml.*;
 /**
  * V1 Protocol Message Formatter.
  * @author Luke
- * @version 11.1
+ * @version 12.4
  * @since 1.0
  */
 
@@ -89,4 +89,22 @@ public class Formatter extends XMLMessageFormatter {
 
 		return e;
 	}
+	
+	/**
+	 * Formats a Message bean directly into a compact XML buffer.
+	 * @param msg the Message bean
+	 * @param out the CompactXMLWriter
+	 * @return TRUE if the Message was written, otherwise FALSE
+	 * @throws XMLException if a formatting error occurs
+	 */
+	@Override
+	public boolean format(Message msg, CompactXMLWriter out) throws XMLException {
+		
+		// Data responses have their attributes added to the element
+		XMLElementFormatter efmt = _eFormatters.get(msg.getClass());
+		if ((efmt == null) || (msg instanceof DataResponseMessage<?>))
+			return super.format(msg, out);
+		
+		return efmt.format(msg, out);
+	}
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.xml.v1.parse;
+
+import javax.xml.stream.XMLStreamReader;
+
+import org.deltava.beans.Pilot;
+
+import org.deltava.acars.message.AcknowledgeMessage;
+
+import org.deltava.acars.xml.*;
+
+/**
+ * A streaming parser for Acknowledge elements.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+class AckStreamParser extends StreamElementParser<AcknowledgeMessage> {
+
+	/**
+	 * Convert an XML ack element into an AcknowledgeMessage.
+	 * @param r the XMLStreamReader
+	 * @return an AcknowledgeMessage
+	 * @throws XMLException if a parse error occurs 
+	 */
+	@Override
+	public AcknowledgeMessage parse(XMLStreamReader r, Pilot user) throws XMLException {
+		
+		// Get the id of the message we are acking
+		String txtID = r.getAttributeValue(null, "id");
+		if (txtID == null)
+			return null;
+
+		// Create the bean and return it
+		try {
+			return new AcknowledgeMessage(user, Long.parseLong(txtID, 16));
+		} catch (NumberFormatException nfe) {
+			throw new XMLException("Cannot format ID " + txtID + " - " + nfe.getMessage());
+		}
+	}
+}
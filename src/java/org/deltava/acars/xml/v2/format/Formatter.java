@@ -1,4 +1,4 @@
-// Copyright 2004, 2009, 2010, 2011, 2012, 2013, 2015, 2017, 2018, 2022, 2023, 2024 Global Virtual Airlines Group. All Rights Reserved.
+// Copyright 2004, 2009, 2010, 2011, 2012, 2013, 2015, 2017, 2018, 2022, 2023, 2024, 2026 Global Virtual Airlines Group. All Rights Reserved.
 package org.deltava.acars.xml.v2.format;
 
 import org.deltava.acars.message.*;
@@ -8,7 +8,7 @@ import org.deltava.acars.message.dispatch.RoutePlotMessage;
 /**
  * V2 Protocol Message Formatter.
  * @author Luke
- * @version 11.3
+ * @version 12.4
  * @since 2.8
  */
 
@@ -18,7 +18,15 @@ public class Formatter extends org.deltava.acars.xml.v1.format.Formatter {
 	 * Constructor.
 	 */
 	public Formatter() {
-		super(2);
+		this(2);
+	}
+	
+	/**
+	 * Initializes the Message Formatter, for use by subclasses.
+	 * @param version the protocol version
+	 */
+	protected Formatter(int version) {
+		super(version);
 	}
 
 	/**
@@ -1,4 +1,4 @@
-// Copyright 2015, 2022 Global Virtual Airlines Group. All Rights Reserved.
+// Copyright 2015, 2022, 2026 Global Virtual Airlines Group. All Rights Reserved.
 package org.deltava.acars.xml.v2.parse;
 
 import org.deltava.beans.*;
@@ -10,12 +10,14 @@ import org.deltava.acars.xml.*;
 /**
  * A parser for ACARS compression type messages.
  * @author Luke
- * @version 10.3
+ * @version 12.4
  * @since 6.4
  */
 
 public class CompressionParser extends XMLElementParser<CompressionMessage> {
 	
+	private static final String STREAM = "stream";
+	
 	/**
 	 * Convert an XML ack element into an AcknowledgeMessage.
 	 * @param e the XML element
@@ -24,7 +26,14 @@ public class CompressionParser extends XMLElementParser<CompressionMessage> {
 	 */
 	@Override
 	public CompressionMessage parse(org.jdom2.Element e, Pilot user) throws XMLException {
-		Compression c = EnumUtils.parse(Compression.class, getChildText(e, "type", "none"), Compression.NONE);
+		String cType = getChildText(e, "type", "none");
+		if (STREAM.equalsIgnoreCase(cType)) {
+			CompressionMessage msg = new CompressionMessage(user, Compression.GZIP);
+			msg.setStreaming(Boolean.parseBoolean(getChildText(e, "dict", "false")));
+			return msg;
+		}
+		
+		Compression c = EnumUtils.parse(Compression.class, cType, Compression.NONE);
 		return new CompressionMessage(user, c);
 	}
 }
\ No newline at end of file
@@ -1,4 +1,4 @@
-// Copyright 2009, 2010, 2011, 2015, 2016, 2018, 2019, 2020, 2023, 2024 Global Virtual Airlines Group. All Rights Reserved.
+// Copyright 2009, 2010, 2011, 2015, 2016, 2018, 2019, 2020, 2023, 2024, 2026 Global Virtual Airlines Group. All Rights Reserved.
 package org.deltava.acars.xml.v2.parse;
 
 import org.deltava.acars.message.*;
@@ -6,7 +6,7 @@ import org.deltava.acars.message.*;
 /**
  * A parser for ACARS Protocol v2 messages.
  * @author Luke
- * @version 11.2
+ * @version 12.4
  * @since 2.7
  */
 
@@ -16,7 +16,15 @@ public class Parser extends org.deltava.acars.xml.v1.parse.Parser {
 	 * Initializes the Parser.
 	 */
 	public Parser() {
-		super(2);
+		this(2);
+	}
+	
+	/**
+	 * Initializes the Parser. This is used by Parsers for other protocol versions that subclass this class.
+	 * @param version the protocol version
+	 */
+	protected Parser(int version) {
+		super(version);
 	}
 
 	@Override
@@ -41,5 +49,9 @@ public class Parser extends org.deltava.acars.xml.v1.parse.Parser {
 		// Dispatch parsers
 		_dspParsers.put(DispatchRequest.SCOPEINFO, new ScopeInfoParser());
 		_dspParsers.put(DispatchRequest.ROUTEPLOT, new RoutePlotParser());
+		
+		// Streaming parsers
+		_streamParsers.put(MessageType.POSITION, new PositionStreamParser());
+		_streamParsers.put(MessageType.PING, new PingStreamParser());
 	}
 }
\ No newline at end of file
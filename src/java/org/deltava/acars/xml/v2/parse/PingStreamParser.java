@@ -0,0 +1,53 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.xml.v2.parse;
+
+import java.time.*;
+import java.time.format.*;
+import java.time.temporal.ChronoField;
+
+import javax.xml.stream.*;
+
+import org.deltava.acars.message.PingMessage;
+import org.deltava.acars.xml.*;
+
+import org.deltava.beans.Pilot;
+
+/**
+ * A streaming parser for ACARS ping messages.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+class PingStreamParser extends StreamElementParser<PingMessage> {
+	
+	private final DateTimeFormatter _mdtf = new DateTimeFormatterBuilder().appendPattern("MM/dd/yyyy HH:mm:ss").appendFraction(ChronoField.MILLI_OF_SECOND, 0, 3, true).toFormatter();
+	
+	/**
+	 * Convert an XML ping element into a PingMessage.
+	 * @param r the XMLStreamReader
+	 * @return a PingMessage
+	 * @throws XMLException if a parse error occurs 
+	 */
+	@Override
+	public PingMessage parse(XMLStreamReader r, Pilot user) throws XMLException, XMLStreamException {
+		PingMessage msg = new PingMessage(user);
+		while (nextChild(r)) {
+			if (!"localUTC".equals(r.getLocalName())) {
+				skip(r);
+				continue;
+			}
+			
+			String utc = getText(r);
+			try {
+				msg.setClientUTC(LocalDateTime.parse(utc.replace('-', '/'), _mdtf).toInstant(ZoneOffset.UTC));
+			} catch (IllegalArgumentException iae) {
+				throw new XMLException("Unparseable date/time - " + utc);
+			}
+			
+			break;
+		}
+		
+		return msg;
+	}
+}
@@ -0,0 +1,358 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.xml.v2.parse;
+
+import java.time.*;
+
+import javax.xml.stream.*;
+
+import org.apache.logging.log4j.*;
+
+import org.deltava.beans.Pilot;
+import org.deltava.beans.acars.FlightPhase;
+import org.deltava.beans.navdata.AirspaceType;
+import org.deltava.beans.servinfo.Controller;
+
+import org.deltava.util.StringUtils;
+
+import org.deltava.acars.message.*;
+import org.deltava.acars.xml.*;
+
+/**
+ * A streaming Parser for v2 Pilot Client position elements. This produces the same PositionMessage as {@link PositionParser}, but parses
+ * element text directly from a reusable buffer instead of creating a String for each element. Engine speeds and ATC data are read from
+ * attributes, which are still returned as Strings by the StAX parser.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+class PositionStreamParser extends StreamElementParser<PositionMessage> {
+
+	private static final Logger log = LogManager.getLogger(PositionStreamParser.class);
+	private static final int MAX_ENGINES = 6;
+	private static final String[] ENGINE_ATTRS = { "e1", "e2", "e3", "e4", "e5", "e6" };
+	private static final String[] NO_ENGINES = { "0", "0", "0", "0", "0", "0" };
+
+	private final TextBuffer _txt = new TextBuffer();
+
+	/**
+	 * Convert an XML position element into a PositionMessage.
+	 * @param r the XMLStreamReader
+	 * @return a PositionMessage
+	 * @throws XMLException if a parse error occurs
+	 */
+	@Override
+	public PositionMessage parse(XMLStreamReader r, Pilot user) throws XMLException, XMLStreamException {
+
+		// Set defaults for missing elements
+		PositionMessage msg = new PositionMessage(user);
+		msg.setG(1);
+		msg.setVisibility(9999);
+		msg.setCeiling(9999);
+		msg.setTemperature(-100);
+		msg.setPhase(FlightPhase.fromString("?"));
+		msg.setSimRate(256);
+		msg.setLogged(true);
+		msg.setTXActive(true);
+		msg.setTXCode(2200);
+		msg.setNAV1("109.90");
+		msg.setNAV2("109.90");
+		msg.setACARSConnected(true);
+		msg.setCOM1("122.8");
+		msg.setCOM2("122.8");
+
+		Instant dt = null; Instant simDT = null; DateTimeException dtErr = null; DateTimeException simErr = null;
+		double alt = 0; int engCount = -1;
+		String[] n1 = null; String[] n2 = null;
+		try {
+			while (nextChild(r)) {
+				switch (r.getLocalName()) {
+					case "date":
+						try {
+							dt = _txt.load(r).parseDateTime();
+						} catch (DateTimeException dte) {
+							dtErr = dte;
+						}
+
+						break;
+
+					case "simDate":
+						try {
+							simDT = _txt.load(r).parseDateTime();
+						} catch (DateTimeException dte) {
+							simErr = dte;
+						}
+
+						break;
+
+					case "hdg":
+						msg.setHeading(_txt.load(r).parseInt());
+						break;
+
+					case "pitch":
+						msg.setPitch(_txt.load(r).parseDouble());
+						break;
+
+					case "bank":
+						msg.setBank(_txt.load(r).parseDouble());
+						break;
+
+					case "lat":
+						msg.setLatitude(_txt.load(r).parseDouble());
+						break;
+
+					case "lon":
+						msg.setLongitude(_txt.load(r).parseDouble());
+						break;
+
+					case "agl":
+						msg.setRadarAltitude(_txt.load(r).parseInt());
+						break;
+
+					case "msl":
+						alt = _txt.load(r).parseDouble();
+						break;
+
+					case "aSpeed":
+						msg.setAspeed(_txt.load(r).parseInt());
+						break;
+
+					case "gSpeed":
+						msg.setGspeed(_txt.load(r).parseInt());
+						break;
+
+					case "vSpeed":
+						msg.setVspeed(_txt.load(r).parseInt());
+						break;
+
+					case "mach":
+						msg.setMach(_txt.load(r).parseDouble());
+						break;
+
+					case "fuel":
+						msg.setFuelRemaining(_txt.load(r).parseInt());
+						break;
+
+					case "weight":
+						msg.setWeight(_txt.load(r).parseInt());
+						break;
+
+					case "flaps":
+						msg.setFlaps(_txt.load(r).parseInt());
+						break;
+
+					case "flags":
+						msg.setFlags(_txt.load(r).parseInt());
+						break;
+
+					case "lights":
+						msg.setLights(_txt.load(r).parseInt());
+						break;
+
+					case "aoa":
+						msg.setAngleOfAttack(_txt.load(r).parseDouble());
+						break;
+
+					case "cg":
+						msg.setCG(_txt.load(r).parseDouble());
+						break;
+
+					case "g":
+						msg.setG(_txt.load(r).parseDouble());
+						break;
+
+					case "ec":
+						engCount = _txt.load(r).parseInt();
+						break;
+
+					case "n1":
+						n1 = getEngines(r);
+						msg.setAvgN1(_txt.load(r).parseDouble());
+						break;
+
+					case "n2":
+						n2 = getEngines(r);
+						msg.setAvgN2(_txt.load(r).parseDouble());
+						break;
+
+					case "wHdg":
+						msg.setWindHeading(_txt.load(r).parseInt());
+						break;
+
+					case "wSpeed":
+						msg.setWindSpeed(_txt.load(r).parseInt());
+						break;
+
+					case "viz":
+						msg.setVisibility(_txt.load(r).parseDouble());
+						break;
+
+					case "ceiling":
+						msg.setCeiling(_txt.load(r).parseInt());
+						break;
+
+					case "temp":
+						msg.setTemperature(_txt.load(r).parseInt());
+						break;
+
+					case "pressure":
+						msg.setPressure(_txt.load(r).parseInt());
+						break;
+
+					case "fuelFlow":
+						msg.setFuelFlow(_txt.load(r).parse(0));
+						break;
+
+					case "phase":
+						msg.setPhase(FlightPhase.fromString(_txt.load(r).getString()));
+						break;
+
+					case "simrate":
+						msg.setSimRate(_txt.load(r).parseInt());
+						break;
+
+					case "isLogged":
+						msg.setLogged(_txt.load(r).parseBoolean());
+						break;
+
+					case "isReplay":
+						msg.setReplay(_txt.load(r).parseBoolean());
+						break;
+
+					case "restoreCount":
+						msg.setRestoreCount(_txt.load(r).parseInt());
+						break;
+
+					case "frameRate":
+						msg.setFrameRate(_txt.load(r).parseInt());
+						break;
+
+					case "txActive":
+						msg.setTXActive(_txt.load(r).parseBoolean());
+						break;
+
+					case "txCode":
+						msg.setTXCode(_txt.load(r).parseInt());
+						break;
+
+					case "nav1":
+						msg.setNAV1(_txt.load(r).getString());
+						break;
+
+					case "nav2":
+						msg.setNAV2(_txt.load(r).getString());
+						break;
+
+					case "adf1":
+						msg.setADF1(_txt.load(r).getString());
+						break;
+
+					case "vasFree":
+						msg.setVASFree(_txt.load(r).parseInt());
+						break;
+
+					case "groundOps":
+						msg.setGroundOperations(_txt.load(r).parseInt());
+						break;
+
+					case "networkConnected":
+						msg.setNetworkConnected(_txt.load(r).parseBoolean());
+						break;
+
+					case "acarsConnected":
+						msg.setACARSConnected(_txt.load(r).parseBoolean());
+						break;
+
+					case "altimeter":
+						msg.setAltimeter(_txt.load(r).parseInt());
+						break;
+
+					case "com1":
+						msg.setCOM1(_txt.load(r).getString());
+						break;
+
+					case "com2":
+						msg.setCOM2(_txt.load(r).getString());
+						break;
+
+					case "atc":
+						msg.setATC1(getController(r));
+						break;
+
+					case "atc2":
+						msg.setATC2(getController(r));
+						break;
+
+					default:
+						skip(r);
+				}
+			}
+
+			// Set engine speeds
+			if (engCount > 0) {
+				if ((n1 == null) || (n2 == null) || (engCount > MAX_ENGINES))
+					throw new IllegalArgumentException("Invalid engine count - " + engCount);
+
+				for (int x = 1; x <= engCount; x++) {
+					msg.setN1(x, Double.parseDouble(n1[x - 1]));
+					msg.setN2(x, Double.parseDouble(n2[x - 1]));
+				}
+			}
+		} catch (NumberFormatException nfe) {
+			log.atError().withThrowable(nfe).log(nfe.getMessage());
+			throw new XMLException(String.format("Error parsing v2 Position data - %s", nfe.getMessage()), nfe);
+		} catch (IllegalArgumentException | IllegalStateException ex) {
+			throw new XMLException(String.format("Error parsing v2 Position data - %s", ex.getMessage()), ex);
+		}
+
+		// Set the dates
+		DateTimeException dte = (dtErr != null) ? dtErr : simErr;
+		if (dte != null)
+			log.warn("Unparseable date from {} - {}", user, dte.getMessage());
+		if (dtErr == null) {
+			if (dt != null)
+				msg.setDate(dt);
+			if (simErr == null)
+				msg.setSimTime((simDT != null) ? simDT : msg.getDate());
+		}
+
+		// Calculate altitude and airspace
+		msg.setAltitude((int)Math.floor(alt));
+		double a2 =(Math.floor(alt) - alt);
+		msg.setFractionalAltitude(Math.abs((int)(a2 * 1000)));
+		msg.setAirspaceType(AirspaceType.fromAltitude(msg.getRadarAltitude(), msg.getAltitude()));
+		return msg;
+	}
+
+	/*
+	 * Reads per-engine attributes from an N1/N2 element.
+	 */
+	private static String[] getEngines(XMLStreamReader r) {
+		if (r.getAttributeCount() == 0)
+			return NO_ENGINES;
+
+		String[] results = new String[MAX_ENGINES];
+		for (int x = 0; x < MAX_ENGINES; x++)
+			results[x] = getAttribute(r, ENGINE_ATTRS[x], "0");
+
+		return results;
+	}
+
+	/*
+	 * Reads an ATC controller element.
+	 */
+	private Controller getController(XMLStreamReader r) throws XMLException, XMLStreamException {
+		String id = r.getAttributeValue(null, "id"); String lat = r.getAttributeValue(null, "lat"); String lon = r.getAttributeValue(null, "lon");
+		if (_txt.load(r).isEmpty())
+			return null;
+
+		try {
+			Controller ctr = new Controller(Integer.parseInt(id), null);
+			ctr.setCallsign(_txt.getString());
+			ctr.setPosition(StringUtils.parse(lat, 0.0d), StringUtils.parse(lon, 0.0d));
+			return ctr;
+		} catch (Exception ex) {
+			throw new XMLException(String.format("Error parsing ATC data - %s", ex.getMessage()), ex);
+		}
+	}
+}
@@ -0,0 +1,75 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.xml.v3;
+
+/**
+ * Constants for the v3 binary protocol. A binary frame consists of the {@link org.deltava.acars.xml.ProtocolInfo#BINARY_MAGIC} header
+ * followed by one or more records. Each record starts with a record type byte and a 64-bit message ID, followed by a fixed layout for
+ * that type. All numbers are little-endian, and strings are null-terminated UTF-8.
+ * <ul>
+ * <li>POSITION: date and sim date as 64-bit UTC milliseconds, latitude, longitude, MSL altitude, pitch, bank, mach, angle of attack, CG, G,
+ * visibility, average N1 and average N2 as doubles, then AGL altitude, heading, airspeed, ground speed, vertical speed, fuel, weight, flaps,
+ * flags, lights, wind heading, wind speed, ceiling, temperature, pressure, fuel flow, sim rate, restore count, frame rate, transponder code,
+ * VAS free, ground operations, altimeter, COM1, COM2, NAV1, NAV2 and ADF1 as 32-bit integers, with frequencies in kHz. This is followed by
+ * the flight phase ordinal, a flags byte and the engine count, then N1 and N2 doubles for each engine, then the ID, latitude, longitude
+ * and callsign of each tuned controller present in the flags.</li>
+ * <li>ACK: for inbound records, the 64-bit ID of the message being acknowledged. For outbound records the record ID is the ID of the
+ * message being acknowledged, followed by the 32-bit maximum age and the 32-bit number of key/value string pairs.</li>
+ * <li>PING: the client's 64-bit UTC milliseconds, or zero if not provided.</li>
+ * </ul>
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+public interface BinaryProtocol {
+
+	/**
+	 * Position report record type.
+	 */
+	public final static int POSITION = 1;
+	
+	/**
+	 * Acknowledgement record type.
+	 */
+	public final static int ACK = 2;
+	
+	/**
+	 * Ping record type.
+	 */
+	public final static int PING = 3;
+	
+	/**
+	 * Position flag for logged positions.
+	 */
+	public final static int FLAG_LOGGED = 0x01;
+	
+	/**
+	 * Position flag for replayed positions.
+	 */
+	public final static int FLAG_REPLAY = 0x02;
+	
+	/**
+	 * Position flag for an active transponder.
+	 */
+	public final static int FLAG_TX_ACTIVE = 0x04;
+	
+	/**
+	 * Position flag for an online network connection.
+	 */
+	public final static int FLAG_NETWORK = 0x08;
+	
+	/**
+	 * Position flag for an ACARS connection.
+	 */
+	public final static int FLAG_ACARS = 0x10;
+	
+	/**
+	 * Position flag for a controller tuned on COM1.
+	 */
+	public final static int FLAG_ATC1 = 0x20;
+	
+	/**
+	 * Position flag for a controller tuned on COM2.
+	 */
+	public final static int FLAG_ATC2 = 0x40;
+}
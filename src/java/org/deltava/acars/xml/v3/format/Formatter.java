@@ -0,0 +1,44 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.xml.v3.format;
+
+import java.io.IOException;
+import java.util.*;
+
+import org.deltava.acars.message.*;
+import org.deltava.acars.util.PacketOutputStream;
+import org.deltava.acars.xml.v3.BinaryProtocol;
+
+/**
+ * V3 Protocol Message Formatter. Acknowledgements are written as binary records, and all other messages are formatted as v2 XML.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+public class Formatter extends org.deltava.acars.xml.v2.format.Formatter {
+
+	/**
+	 * Constructor.
+	 */
+	public Formatter() {
+		super(3);
+	}
+
+	@Override
+	public boolean format(Message msg, PacketOutputStream out) throws IOException {
+		if (!(msg instanceof AcknowledgeMessage ackmsg))
+			return false;
+
+		Collection<Map.Entry<String, String>> entries = ackmsg.getEntries();
+		out.write(BinaryProtocol.ACK);
+		out.writeInt64(ackmsg.getParentID());
+		out.writeInt32(ackmsg.getMaxAge());
+		out.writeInt32(entries.size());
+		for (Map.Entry<String, String> me : entries) {
+			out.write(me.getKey());
+			out.write((me.getValue() == null) ? "" : me.getValue());
+		}
+
+		return true;
+	}
+}
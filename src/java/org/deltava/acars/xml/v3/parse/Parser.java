@@ -0,0 +1,78 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.xml.v3.parse;
+
+import java.io.*;
+import java.time.Instant;
+import java.util.*;
+
+import org.deltava.acars.beans.BinaryEnvelope;
+import org.deltava.acars.message.*;
+import org.deltava.acars.util.PacketInputStream;
+import org.deltava.acars.xml.XMLException;
+import org.deltava.acars.xml.v3.BinaryProtocol;
+
+import org.deltava.beans.Pilot;
+
+/**
+ * A parser for ACARS Protocol v3 messages. Position reports, acknowledgements and pings may be sent as binary records, and all other
+ * messages are parsed as v2 XML.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+public class Parser extends org.deltava.acars.xml.v2.parse.Parser {
+
+	private final PositionParser _posParser = new PositionParser();
+
+	/**
+	 * Initializes the Parser.
+	 */
+	public Parser() {
+		super(3);
+	}
+
+	@Override
+	public Collection<Message> parse(BinaryEnvelope env) throws XMLException {
+		byte[] data = (env == null) ? null : env.getMessage();
+		if (data == null)
+			return Collections.emptySet();
+
+		Collection<Message> results = new ArrayList<Message>();
+		long id = 0;
+		try (PacketInputStream in = new PacketInputStream(new ByteArrayInputStream(data))) {
+			while (in.available() > 0) {
+				int type = in.readUnsignedByte();
+				id = in.readInt64();
+				Message msg = switch (type) {
+					case BinaryProtocol.POSITION -> _posParser.parse(in, env.getOwner());
+					case BinaryProtocol.ACK -> new AcknowledgeMessage(env.getOwner(), in.readInt64());
+					case BinaryProtocol.PING -> parsePing(in, env.getOwner());
+					default -> throw new XMLException("Invalid binary record type - " + type);
+				};
+
+				msg.setTime(env.getTime());
+				msg.setID(id);
+				results.add(msg);
+			}
+		} catch (XMLException | IOException e) {
+			// Records are not length-prefixed, so the rest of the frame cannot be parsed
+			log.warn("Binary parse error from {} - {}", env.getOwnerID(), e.getMessage());
+			results.add(new ErrorMessage(env.getOwner(), e.getMessage(), id));
+		}
+
+		return results;
+	}
+
+	/*
+	 * Reads a ping record.
+	 */
+	private static PingMessage parsePing(PacketInputStream in, Pilot user) throws IOException {
+		PingMessage msg = new PingMessage(user);
+		long utc = in.readInt64();
+		if (utc > 0)
+			msg.setClientUTC(Instant.ofEpochMilli(utc));
+
+		return msg;
+	}
+}
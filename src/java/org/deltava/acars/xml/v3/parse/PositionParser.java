@@ -0,0 +1,137 @@
+// Copyright 2026 Global Virtual Airlines Group. All Rights Reserved.
+package org.deltava.acars.xml.v3.parse;
+
+import static org.deltava.acars.xml.v3.BinaryProtocol.*;
+
+import java.io.IOException;
+import java.time.Instant;
+
+import org.deltava.beans.Pilot;
+import org.deltava.beans.acars.FlightPhase;
+import org.deltava.beans.navdata.AirspaceType;
+import org.deltava.beans.servinfo.Controller;
+
+import org.deltava.acars.message.PositionMessage;
+import org.deltava.acars.util.PacketInputStream;
+
+/**
+ * A Parser for v3 binary position records.
+ * @author Luke
+ * @version 12.4
+ * @since 12.4
+ */
+
+class PositionParser {
+
+	private static final FlightPhase[] PHASES = FlightPhase.values();
+	private static final int MAX_ENGINES = 6;
+
+	/**
+	 * Reads a position record.
+	 * @param in the PacketInputStream, positioned after the record ID
+	 * @param user the message author
+	 * @return a PositionMessage
+	 * @throws IOException if the record is truncated
+	 */
+	PositionMessage parse(PacketInputStream in, Pilot user) throws IOException {
+		PositionMessage msg = new PositionMessage(user);
+		long dt = in.readInt64(); long simDT = in.readInt64();
+		if (dt > 0)
+			msg.setDate(Instant.ofEpochMilli(dt));
+		msg.setSimTime((simDT > 0) ? Instant.ofEpochMilli(simDT) : msg.getDate());
+		msg.setLatitude(in.readDouble64());
+		msg.setLongitude(in.readDouble64());
+		double alt = in.readDouble64();
+		msg.setPitch(in.readDouble64());
+		msg.setBank(in.readDouble64());
+		msg.setMach(in.readDouble64());
+		msg.setAngleOfAttack(in.readDouble64());
+		msg.setCG(in.readDouble64());
+		msg.setG(in.readDouble64());
+		msg.setVisibility(in.readDouble64());
+		msg.setAvgN1(in.readDouble64());
+		msg.setAvgN2(in.readDouble64());
+
+		msg.setRadarAltitude(in.readInt32());
+		msg.setHeading(in.readInt32());
+		msg.setAspeed(in.readInt32());
+		msg.setGspeed(in.readInt32());
+		msg.setVspeed(in.readInt32());
+		msg.setFuelRemaining(in.readInt32());
+		msg.setWeight(in.readInt32());
+		msg.setFlaps(in.readInt32());
+		msg.setFlags(in.readInt32());
+		msg.setLights(in.readInt32());
+		msg.setWindHeading(in.readInt32());
+		msg.setWindSpeed(in.readInt32());
+		msg.setCeiling(in.readInt32());
+		msg.setTemperature(in.readInt32());
+		msg.setPressure(in.readInt32());
+		msg.setFuelFlow(in.readInt32());
+		msg.setSimRate(in.readInt32());
+		msg.setRestoreCount(in.readInt32());
+		msg.setFrameRate(in.readInt32());
+		msg.setTXCode(in.readInt32());
+		msg.setVASFree(in.readInt32());
+		msg.setGroundOperations(in.readInt32());
+		msg.setAltimeter(in.readInt32());
+		msg.setCOM1(formatFrequency(in.readInt32(), "122.8"));
+		msg.setCOM2(formatFrequency(in.readInt32(), "122.8"));
+		msg.setNAV1(formatFrequency(in.readInt32(), "109.90"));
+		msg.setNAV2(formatFrequency(in.readInt32(), "109.90"));
+		int adf = in.readInt32();
+		msg.setADF1((adf > 0) ? String.valueOf(adf) : null);
+
+		// Phase and flags
+		int phase = in.readUnsignedByte();
+		msg.setPhase((phase < PHASES.length) ? PHASES[phase] : FlightPhase.UNKNOWN);
+		int flags = in.readUnsignedByte();
+		msg.setLogged((flags & FLAG_LOGGED) != 0);
+		msg.setReplay((flags & FLAG_REPLAY) != 0);
+		msg.setTXActive((flags & FLAG_TX_ACTIVE) != 0);
+		msg.setNetworkConnected((flags & FLAG_NETWORK) != 0);
+		msg.setACARSConnected((flags & FLAG_ACARS) != 0);
+
+		// Engines, the engine count is set from the flight information
+		int engCount = in.readUnsignedByte();
+		for (int x = 1; x <= engCount; x++) {
+			double n1 = in.readDouble64(); double n2 = in.readDouble64();
+			if (x <= MAX_ENGINES) {
+				msg.setN1(x, n1);
+				msg.setN2(x, n2);
+			}
+		}
+
+		// ATC
+		if ((flags & FLAG_ATC1) != 0)
+			msg.setATC1(readController(in));
+		if ((flags & FLAG_ATC2) != 0)
+			msg.setATC2(readController(in));
+
+		// Calculate altitude and airspace
+		msg.setAltitude((int)Math.floor(alt));
+		msg.setFractionalAltitude(Math.abs((int)((Math.floor(alt) - alt) * 1000)));
+		msg.setAirspaceType(AirspaceType.fromAltitude(msg.getRadarAltitude(), msg.getAltitude()));
+		return msg;
+	}
+
+	/*
+	 * Reads a controller.
+	 */
+	private static Controller readController(PacketInputStream in) throws IOException {
+		Controller ctr = new Controller(in.readInt32(), null);
+		double lat = in.readDouble64(); double lng = in.readDouble64();
+		ctr.setPosition(lat, lng);
+		ctr.setCallsign(in.readUTF8());
+		return ctr;
+	}
+
+	/*
+	 * Converts a frequency in kHz to MHz.
+	 */
+	private static String formatFrequency(int khz, String defaultFreq) {
+		if (khz <= 0) return defaultFreq;
+		int mhz = khz / 1000; int frac = khz % 1000;
+		return ((frac % 10) == 0) ? String.format("%d.%02d", Integer.valueOf(mhz), Integer.valueOf(frac / 10)) : String.format("%d.%03d", Integer.valueOf(mhz), Integer.valueOf(frac));
+	}
+}
@@ -1,4 +1,4 @@
-// Copyright 2004, 2005, 2006, 2007, 2010, 2012, 2014, 2016, 2017, 2018, 2019, 2020, 2021, 2025 Global Virtual Airlines Group. All Rights Reserved.
+// Copyright 2004, 2005, 2006, 2007, 2010, 2012, 2014, 2016, 2017, 2018, 2019, 2020, 2021, 2025, 2026 Global Virtual Airlines Group. All Rights Reserved.
 package org.deltava.dao.acars;
 
 import java.sql.*;
@@ -12,12 +12,26 @@ import org.deltava.beans.acars.EngineSpeedEncoder;
 /**
  * A Data Access Object to write ACARS Position Messages.
  * @author Luke
- * @version 11.5
+ * @version 12.4
  * @since 1.0
  */
 
 public class SetPosition extends DAO {
 
+	private static final String SQL = "REPLACE INTO acars.POSITIONS (FLIGHT_ID, REPORT_TIME, SIM_TIME, LAT, LNG, B_ALT, R_ALT, ALTIMETER, HEADING, ASPEED, GSPEED, VSPEED, N1, N2, MACH, "
+		+ "FUEL, PHASE, SIM_RATE, FLAGS, GNDFLAGS, FLAPS, PITCH, BANK, FUELFLOW, WIND_HDG, WIND_SPEED, TEMP, PRESSURE, VIZ, AOA, CG, GFORCE, FRAMERATE, NAV1, NAV2, VAS, WEIGHT, ASTYPE, ADF1, NET_CONNECTED, "
+		+ "ACARS_CONNECTED, RESTORE_COUNT, ENC_N1, ENC_N2) VALUES ";
+
+	private static final String ROW = "(?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?)";
+	private static final int COLUMNS = 44;
+
+	/**
+	 * The maximum number of rows in a multi-row statement, which keeps the statement under the 65535 parameter limit.
+	 */
+	public static final int MAX_ROWS = 1000;
+
+	private int _rows;
+
 	/**
 	 * Initializes the Data Access Object.
 	 * @param c the JDBC connection to use
@@ -26,6 +40,14 @@ public class SetPosition extends DAO {
 		super(c);
 	}
 
+	/**
+	 * Sets the number of positions to write in each multi-row statement. If this is less than 2, each position is added to a JDBC batch.
+	 * @param rows the number of rows per statement
+	 */
+	public void setBulkRows(int rows) {
+		_rows = Math.max(0, Math.min(MAX_ROWS, rows));
+	}
+
 	/**
 	 * Flushes the queue to the database.
 	 * @param entries the entries to write
@@ -33,72 +55,28 @@ public class SetPosition extends DAO {
 	 */
 	public void flush(Collection<PositionMessage> entries) throws DAOException {
 		try {
-			try (PreparedStatement ps = prepareWithoutLimits("REPLACE INTO acars.POSITIONS (FLIGHT_ID, REPORT_TIME, SIM_TIME, LAT, LNG, B_ALT, R_ALT, ALTIMETER, HEADING, ASPEED, GSPEED, VSPEED, N1, N2, MACH, "
-				+ "FUEL, PHASE, SIM_RATE, FLAGS, GNDFLAGS, FLAPS, PITCH, BANK, FUELFLOW, WIND_HDG, WIND_SPEED, TEMP, PRESSURE, VIZ, AOA, CG, GFORCE, FRAMERATE, NAV1, NAV2, VAS, WEIGHT, ASTYPE, ADF1, NET_CONNECTED, "
-				+ "ACARS_CONNECTED, RESTORE_COUNT, ENC_N1, ENC_N2) VALUES (?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?)")) {
+			startTransaction();
+			Collection<PositionMessage> atcEntries = entries;
+			if (_rows > 1)
+				atcEntries = writeBulk(entries);
+			else {
+				try (PreparedStatement ps = prepareWithoutLimits(SQL + ROW)) {
+					for (Iterator<PositionMessage> i = entries.iterator(); i.hasNext();) {
+						PositionMessage msg = i.next();
+						setParameters(ps, 0, msg);
+						ps.addBatch();
 
-				// Write core entries
-				startTransaction();
-				for (Iterator<PositionMessage> i = entries.iterator(); i.hasNext();) {
-					PositionMessage msg = i.next();
+						// Remove entries with no ATC ID
+						if (!msg.hasATC()) i.remove();
+					}
 
-					// Set the prepared statement parameters
-					ps.setInt(1, msg.getFlightID());
-					ps.setTimestamp(2, createTimestamp(msg.getDate()));
-					ps.setTimestamp(3, createTimestamp(msg.getSimTime()));
-					ps.setDouble(4, msg.getLatitude());
-					ps.setDouble(5, msg.getLongitude());
-					ps.setInt(6, msg.getAltitude());
-					ps.setInt(7, msg.getRadarAltitude());
-					ps.setInt(8, msg.getAltimeter());
-					ps.setInt(9, msg.getHeading());
-					ps.setInt(10, msg.getAspeed());
-					ps.setInt(11, msg.getGspeed());
-					ps.setInt(12, msg.getVspeed());
-					ps.setDouble(13, msg.getAverageN1());
-					ps.setDouble(14, msg.getAverageN2());
-					ps.setDouble(15, msg.getMach());
-					ps.setInt(16, msg.getFuelRemaining());
-					ps.setInt(17, msg.getPhase().ordinal());
-					ps.setInt(18, msg.getSimRate());
-					ps.setInt(19, msg.getFlags());
-					ps.setInt(20, msg.getGroundOperations());
-					ps.setInt(21, msg.getFlaps());
-					ps.setDouble(22, msg.getPitch());
-					ps.setDouble(23, msg.getBank());
-					ps.setInt(24, msg.getFuelFlow());
-					ps.setInt(25, msg.getWindHeading());
-					ps.setInt(26, msg.getWindSpeed());
-					ps.setInt(27, msg.getTemperature());
-					ps.setInt(28, msg.getPressure());
-					ps.setDouble(29, msg.getVisibility());
-					ps.setDouble(30, msg.getAngleOfAttack());
-					ps.setDouble(31, msg.getCG());
-					ps.setDouble(32, msg.getG());
-					ps.setInt(33, msg.getFrameRate());
-					ps.setString(34, msg.getNAV1());
-					ps.setString(35, msg.getNAV2());
-					ps.setInt(36, msg.getVASFree());
-					ps.setInt(37, msg.getWeight());
-					ps.setInt(38, msg.getAirspaceType().ordinal());
-					ps.setString(39, msg.getADF1());
-					ps.setBoolean(40, msg.getNetworkConnected());
-					ps.setBoolean(41, msg.getACARSConnected());
-					ps.setInt(42, msg.getRestoreCount());
-					ps.setBytes(43, EngineSpeedEncoder.encode(msg.getEngineCount(), msg.getN1()));
-					ps.setBytes(44, EngineSpeedEncoder.encode(msg.getEngineCount(), msg.getN2()));
-					ps.addBatch();
-
-					// Remove entries with no ATC ID
-					if (!msg.hasATC()) i.remove();
+					executeUpdate(ps, 1, entries.size());
 				}
-
-				executeUpdate(ps, 1, entries.size());
 			}
 
 			// Write COM/ATC records
 			try (PreparedStatement ps = prepareWithoutLimits("REPLACE INTO acars.POSITION_ATC (FLIGHT_ID, REPORT_TIME, IDX, COM1, CALLSIGN, NETWORK_ID, LAT, LNG) VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
-				for (PositionMessage msg : entries) {
+				for (PositionMessage msg : atcEntries) {
 					ps.setInt(1, msg.getFlightID());
 					ps.setTimestamp(2, createTimestamp(msg.getDate()));
 					if (msg.getATC1() != null) {
@@ -122,7 +100,7 @@ public class SetPosition extends DAO {
 					}
 				}
 
-				executeUpdate(ps, 1, entries.size());
+				executeUpdate(ps, 1, atcEntries.size());
 			}
 
 			commitTransaction();
@@ -131,4 +109,100 @@ public class SetPosition extends DAO {
 			throw new DAOException(se);
 		}
 	}
-}
\ No newline at end of file
+
+	/*
+	 * Writes positions using multi-row statements, and returns the positions with ATC data. Full chunks share a single prepared statement.
+	 */
+	private List<PositionMessage> writeBulk(Collection<PositionMessage> entries) throws SQLException {
+		List<PositionMessage> msgs = new ArrayList<PositionMessage>(entries);
+		int fullChunks = msgs.size() / _rows;
+		if (fullChunks > 0) {
+			try (PreparedStatement ps = prepareWithoutLimits(getSQL(_rows))) {
+				for (int c = 0; c < fullChunks; c++) {
+					int ofs = c * _rows;
+					for (int x = 0; x < _rows; x++)
+						setParameters(ps, x * COLUMNS, msgs.get(ofs + x));
+
+					executeUpdate(ps, 1);
+				}
+			}
+		}
+
+		// Write the remainder
+		int ofs = fullChunks * _rows; int remaining = msgs.size() - ofs;
+		if (remaining > 0) {
+			try (PreparedStatement ps = prepareWithoutLimits(getSQL(remaining))) {
+				for (int x = 0; x < remaining; x++)
+					setParameters(ps, x * COLUMNS, msgs.get(ofs + x));
+
+				executeUpdate(ps, 1);
+			}
+		}
+
+		return msgs.stream().filter(PositionMessage::hasATC).toList();
+	}
+
+	/*
+	 * Builds a multi-row statement.
+	 */
+	private static String getSQL(int rows) {
+		StringBuilder buf = new StringBuilder(SQL.length() + rows * (ROW.length() + 1));
+		buf.append(SQL);
+		for (int x = 0; x < rows; x++) {
+			if (x > 0) buf.append(',');
+			buf.append(ROW);
+		}
+
+		return buf.toString();
+	}
+
+	/*
+	 * Sets the statement parameters for a position, starting after a given parameter index.
+	 */
+	private void setParameters(PreparedStatement ps, int ofs, PositionMessage msg) throws SQLException {
+		ps.setInt(ofs + 1, msg.getFlightID());
+		ps.setTimestamp(ofs + 2, createTimestamp(msg.getDate()));
+		ps.setTimestamp(ofs + 3, createTimestamp(msg.getSimTime()));
+		ps.setDouble(ofs + 4, msg.getLatitude());
+		ps.setDouble(ofs + 5, msg.getLongitude());
+		ps.setInt(ofs + 6, msg.getAltitude());
+		ps.setInt(ofs + 7, msg.getRadarAltitude());
+		ps.setInt(ofs + 8, msg.getAltimeter());
+		ps.setInt(ofs + 9, msg.getHeading());
+		ps.setInt(ofs + 10, msg.getAspeed());
+		ps.setInt(ofs + 11, msg.getGspeed());
+		ps.setInt(ofs + 12, msg.getVspeed());
+		ps.setDouble(ofs + 13, msg.getAverageN1());
+		ps.setDouble(ofs + 14, msg.getAverageN2());
+		ps.setDouble(ofs + 15, msg.getMach());
+		ps.setInt(ofs + 16, msg.getFuelRemaining());
+		ps.setInt(ofs + 17, msg.getPhase().ordinal());
+		ps.setInt(ofs + 18, msg.getSimRate());
+		ps.setInt(ofs + 19, msg.getFlags());
+		ps.setInt(ofs + 20, msg.getGroundOperations());
+		ps.setInt(ofs + 21, msg.getFlaps());
+		ps.setDouble(ofs + 22, msg.getPitch());
+		ps.setDouble(ofs + 23, msg.getBank());
+		ps.setInt(ofs + 24, msg.getFuelFlow());
+		ps.setInt(ofs + 25, msg.getWindHeading());
+		ps.setInt(ofs + 26, msg.getWindSpeed());
+		ps.setInt(ofs + 27, msg.getTemperature());
+		ps.setInt(ofs + 28, msg.getPressure());
+		ps.setDouble(ofs + 29, msg.getVisibility());
+		ps.setDouble(ofs + 30, msg.getAngleOfAttack());
+		ps.setDouble(ofs + 31, msg.getCG());
+		ps.setDouble(ofs + 32, msg.getG());
+		ps.setInt(ofs + 33, msg.getFrameRate());
+		ps.setString(ofs + 34, msg.getNAV1());
+		ps.setString(ofs + 35, msg.getNAV2());
+		ps.setInt(ofs + 36, msg.getVASFree());
+		ps.setInt(ofs + 37, msg.getWeight());
+		ps.setInt(ofs + 38, msg.getAirspaceType().ordinal());
+		ps.setString(ofs + 39, msg.getADF1());
+		ps.setBoolean(ofs + 40, msg.getNetworkConnected());
+		ps.setBoolean(ofs + 41, msg.getACARSConnected());
+		ps.setInt(ofs + 42, msg.getRestoreCount());
+		ps.setBytes(ofs + 43, EngineSpeedEncoder.encode(msg.getEngineCount(), msg.getN1()));
+		ps.setBytes(ofs + 44, EngineSpeedEncoder.encode(msg.getEngineCount(), msg.getN2()));
+	}
+}
@@ -0,0 +1,102 @@
+package org.deltava.acars.beans;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.deltava.util.system.SystemData;
+
+/**
+ * Measures ACARSConnectionPool lookups while other threads iterate over the whole pool, the way the translator and command threads
+ * look up connections while broadcasts and the inactivity check walk every connection. The pool is filled with connections accepted
+ * from loopback sockets.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConnectionPoolBenchmark {
+
+	@Param({"100", "1000"})
+	public int size;
+
+	@Param({"1", "4"})
+	public int shards;
+
+	private final Collection<SocketChannel> _clients = new ArrayList<SocketChannel>();
+	private ServerSocketChannel _ssc;
+	private ACARSConnectionPool _pool;
+	private String[] _addrs;
+
+	@State(Scope.Thread)
+	public static class Lookup {
+		private final Random _r = new Random();
+	}
+
+	@Setup
+	public void setup() throws Exception {
+		SystemData.add("acars.buffer.nio", Integer.valueOf(16384));
+		_ssc = ServerSocketChannel.open();
+		_ssc.bind(new InetSocketAddress("127.0.0.1", 0), size);
+		_pool = new ACARSConnectionPool(size + 1);
+		_pool.setReadShards(shards);
+		for (int x = 0; x < shards; x++)
+			_pool.updateSelector(x);
+
+		_addrs = new String[size];
+		for (int x = 0; x < size; x++) {
+			_clients.add(SocketChannel.open(_ssc.getLocalAddress()));
+			ACARSConnection ac = new ACARSConnection(x + 1, _ssc.accept());
+			_pool.add(ac);
+			_addrs[x] = ac.getDataSourceAddr();
+		}
+	}
+
+	@TearDown
+	public void shutdown() throws IOException {
+		for (ACARSConnection ac : new ArrayList<ACARSConnection>(_pool.getAll()))
+			_pool.remove(ac);
+
+		for (SocketChannel sc : _clients)
+			sc.close();
+
+		_ssc.close();
+	}
+
+	@Benchmark
+	@Group("lookup")
+	@GroupThreads(6)
+	public ACARSConnection getByID(Lookup l) {
+		return _pool.get(l._r.nextInt(size) + 1);
+	}
+
+	@Benchmark
+	@Group("lookup")
+	@GroupThreads(1)
+	public ACARSConnection getByAddress(Lookup l) {
+		return _pool.get(_addrs[l._r.nextInt(size)]);
+	}
+
+	@Benchmark
+	@Group("lookup")
+	@GroupThreads(1)
+	public void getAll(Blackhole bh) {
+		for (ACARSConnection ac : _pool.getAll())
+			bh.consume(ac.getID());
+	}
+
+	@Benchmark
+	@Group("lookup")
+	@GroupThreads(1)
+	public Collection<ACARSConnection> getAllFiltered() {
+		return _pool.getAll(ac -> !ac.isAuthenticated());
+	}
+}
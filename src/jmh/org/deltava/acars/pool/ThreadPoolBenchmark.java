@@ -0,0 +1,84 @@
+package org.deltava.acars.pool;
+
+import java.util.concurrent.*;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares QueueingThreadPool against a fixed size ThreadPoolExecutor and a virtual thread per task executor, by submitting a burst
+ * of short tasks and waiting for all of them to complete. QueueingThreadPool only has a short work queue, so most of a burst is held
+ * in its rejected task queue until a thread is free.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ThreadPoolBenchmark {
+
+	private static final int TASKS = 1000;
+
+	@Param({"queueing", "fixed", "virtual"})
+	public String executor;
+
+	@Param({"4", "16"})
+	public int threads;
+
+	@Param({"100", "5000"})
+	public int work;
+
+	private ExecutorService _exec;
+
+	private final class Task extends PoolWorker {
+		private final CountDownLatch _done;
+
+		Task(CountDownLatch done) {
+			super();
+			_done = done;
+		}
+
+		@Override
+		public String getName() {
+			return "Task";
+		}
+
+		@Override
+		public void run() {
+			try {
+				Blackhole.consumeCPU(work);
+			} finally {
+				_done.countDown();
+			}
+		}
+	}
+
+	@Setup
+	public void setup() {
+		_exec = switch (executor) {
+			case "queueing" -> new QueueingThreadPool(threads, threads, 500, ThreadPoolBenchmark.class);
+			case "fixed" -> Executors.newFixedThreadPool(threads);
+			case "virtual" -> Executors.newVirtualThreadPerTaskExecutor();
+			default -> throw new IllegalArgumentException("Unknown executor - " + executor);
+		};
+	}
+
+	@TearDown
+	public void shutdown() throws InterruptedException {
+		_exec.shutdown();
+		_exec.awaitTermination(5, TimeUnit.SECONDS);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(TASKS)
+	public void burst() throws InterruptedException {
+		CountDownLatch done = new CountDownLatch(TASKS);
+		for (int x = 0; x < TASKS; x++)
+			_exec.execute(new Task(done));
+
+		if (!done.await(30, TimeUnit.SECONDS))
+			throw new IllegalStateException(done.getCount() + " tasks not completed");
+	}
+}
@@ -0,0 +1,68 @@
+package org.deltava.acars.util;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import org.deltava.beans.Compression;
+
+/**
+ * Measures GZIP packet compression and decompression of ACARS requests, using either independent packets or a compression stream,
+ * with and without the preset dictionary. Stream packets refer to the ones before them, so they can only be decompressed in order
+ * and are measured as a round trip between a sending and a receiving compressor.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompressorBenchmark {
+
+	@Param({"positionMsg.xml", "multiMsg.xml"})
+	public String file;
+
+	@Param({"packet", "stream", "dictionary"})
+	public String mode;
+
+	private byte[] _data;
+	private byte[] _pkt;
+	private DataCompressor _out;
+	private DataCompressor _in;
+
+	@Setup
+	public void setup() throws IOException {
+		_data = Files.readAllBytes(Paths.get("data", file));
+		_pkt = DataCompressor.compress(_data, Compression.GZIP);
+		_out = new DataCompressor(); _in = new DataCompressor();
+		if ("packet".equals(mode)) {
+			_out.setCompression(Compression.GZIP);
+			_in.setCompression(Compression.GZIP);
+		} else {
+			_out.setStreaming("dictionary".equals(mode));
+			_in.setStreaming("dictionary".equals(mode));
+		}
+	}
+
+	@Benchmark
+	public byte[] compress() {
+		return _out.compress(_data);
+	}
+
+	@Benchmark
+	public byte[] decompress() {
+		return DataCompressor.decompress(_pkt, Compression.GZIP);
+	}
+
+	@Benchmark
+	public byte[] roundTrip() {
+		byte[] data = _in.decompress(_out.compress(_data));
+		if ((data == null) || (data.length != _data.length))
+			throw new IllegalStateException("Cannot decompress " + mode + " packet");
+
+		return data;
+	}
+}
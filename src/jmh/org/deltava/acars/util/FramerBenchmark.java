@@ -0,0 +1,74 @@
+package org.deltava.acars.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import org.deltava.acars.xml.ProtocolInfo;
+
+/**
+ * Measures request framing the way TCPChannel frames a socket read, using packets that contain several position reports separated
+ * by line breaks. The packet can be delivered in one read, or split into reads the size of a TCP segment so that requests and the
+ * element markers straddle reads. TCPChannel itself requires a connected socket, so its MessageFramer is driven directly.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FramerBenchmark {
+
+	@Param({"1", "4", "16"})
+	public int msgs;
+
+	@Param({"0", "1460"})
+	public int segmentSize;
+
+	private ByteBuffer[] _reads;
+	private MessageFramer _framer;
+
+	@Setup
+	public void setup() throws IOException {
+		String data = Files.readString(Paths.get("data", "positionMsg.xml"), UTF_8);
+		int sPos = data.indexOf(ProtocolInfo.REQ_ELEMENT_OPEN);
+		int ePos = data.indexOf(ProtocolInfo.REQ_ELEMENT_CLOSE) + ProtocolInfo.REQ_ELEMENT_CLOSE.length();
+		String msg = data.substring(sPos, ePos);
+
+		// Build the packet
+		StringBuilder buf = new StringBuilder();
+		for (int x = 0; x < msgs; x++)
+			buf.append(msg).append("\r\n");
+
+		byte[] pkt = buf.toString().getBytes(UTF_8);
+		int readSize = (segmentSize == 0) ? pkt.length : segmentSize;
+		_reads = new ByteBuffer[(pkt.length + readSize - 1) / readSize];
+		for (int x = 0; x < _reads.length; x++) {
+			int ofs = x * readSize;
+			_reads[x] = ByteBuffer.wrap(pkt, ofs, Math.min(readSize, pkt.length - ofs)).slice();
+		}
+
+		_framer = new MessageFramer(16384);
+	}
+
+	@Benchmark
+	public int frame() {
+		int frames = 0;
+		for (ByteBuffer bb : _reads) {
+			_framer.add(bb.duplicate());
+			if (_framer.next() != null)
+				frames += _framer.getFrameCount();
+		}
+
+		if (frames != msgs)
+			throw new IllegalStateException("Expected " + msgs + " frames, got " + frames);
+
+		return frames;
+	}
+}
@@ -0,0 +1,63 @@
+package org.deltava.acars.util;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.openjdk.jmh.annotations.*;
+
+import org.deltava.beans.schedule.GeoPosition;
+
+/**
+ * Measures PositionCache, both queued and drained by one thread in batches the size of the track update cache, and with several
+ * threads queueing positions while another drains the cache once it fills, the way command threads share it.
+ */
+
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PositionCacheBenchmark {
+
+	private static final int BATCH = 10;
+
+	private final PositionCache<GeoPosition> _cache = new PositionCache<GeoPosition>(BATCH, 15000);
+	private final GeoPosition[] _locs = new GeoPosition[1024];
+
+	@State(Scope.Thread)
+	public static class Producer {
+		private int _idx;
+	}
+
+	@Setup
+	public void setup() {
+		Random r = new Random(1);
+		for (int x = 0; x < _locs.length; x++)
+			_locs[x] = new GeoPosition(r.nextDouble() * 170 - 85, r.nextDouble() * 358 - 179);
+	}
+
+	@Benchmark
+	@Group("batch")
+	@OperationsPerInvocation(BATCH)
+	public Collection<GeoPosition> queueDrain(Producer p) {
+		for (int x = 0; x < BATCH; x++)
+			_cache.queue(_locs[p._idx++ & (_locs.length - 1)]);
+
+		return _cache.isFull() ? _cache.drain() : Collections.emptyList();
+	}
+
+	@Benchmark
+	@Group("shared")
+	@GroupThreads(4)
+	public void queue(Producer p) {
+		_cache.queue(_locs[p._idx++ & (_locs.length - 1)]);
+	}
+
+	@Benchmark
+	@Group("shared")
+	@GroupThreads(1)
+	public Collection<GeoPosition> drain() {
+		return _cache.isFull() ? _cache.drain() : Collections.emptyList();
+	}
+}
@@ -0,0 +1,102 @@
+package org.deltava.acars.util;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares a PriorityBlockingQueue ordered the same way as the output envelopes against a TwoLaneQueue, with several producer threads
+ * and a single consumer draining the queue the way the output workers do. The score is the average time per message, from the start
+ * of the burst until the consumer has received every message.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueueBenchmark {
+
+	private static final int MESSAGES = 48000;
+	private static final AtomicLong _ids = new AtomicLong();
+
+	@Param({"priority", "twoLane"})
+	public String queue;
+
+	@Param({"1", "4", "8", "16"})
+	public int producers;
+
+	private ExecutorService _exec;
+	private BlockingQueue<Item> _q;
+
+	private static final class Item implements Comparable<Item> {
+		private final long _time = System.nanoTime();
+		private final long _cid = _ids.incrementAndGet() & 0x3FF;
+		private final boolean _isCritical;
+
+		Item(boolean isCritical) {
+			super();
+			_isCritical = isCritical;
+		}
+
+		boolean isCritical() {
+			return _isCritical;
+		}
+
+		@Override
+		public int compareTo(Item i2) {
+			int tmpResult = Boolean.compare(_isCritical, i2._isCritical);
+			if (tmpResult == 0)
+				tmpResult = Long.compare(_time, i2._time);
+
+			return (tmpResult == 0) ? Long.compare(_cid, i2._cid) : tmpResult;
+		}
+	}
+
+	@Setup
+	public void setup() {
+		_exec = Executors.newFixedThreadPool(producers);
+		_q = switch (queue) {
+			case "priority" -> new PriorityBlockingQueue<Item>();
+			case "twoLane" -> new TwoLaneQueue<Item>(Item::isCritical, 65536);
+			default -> throw new IllegalArgumentException("Unknown queue - " + queue);
+		};
+	}
+
+	@TearDown
+	public void shutdown() throws InterruptedException {
+		_exec.shutdown();
+		_exec.awaitTermination(5, TimeUnit.SECONDS);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(MESSAGES)
+	public long drain() throws InterruptedException {
+		int count = MESSAGES / producers;
+		for (int p = 0; p < producers; p++) {
+			_exec.execute(() -> {
+				try {
+					for (int x = 0; x < count; x++)
+						_q.put(new Item((x & 0xFF) == 0));
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+				}
+			});
+		}
+
+		// Drain the queue like the output workers, returning the total latency
+		long latency = 0; int received = 0;
+		while (received < MESSAGES) {
+			Item i = _q.poll(1, TimeUnit.SECONDS);
+			while (i != null) {
+				latency += (System.nanoTime() - i._time);
+				received++;
+				i = _q.poll();
+			}
+		}
+
+		return latency;
+	}
+}
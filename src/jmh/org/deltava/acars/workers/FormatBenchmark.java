@@ -0,0 +1,97 @@
+package org.deltava.acars.workers;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.jdom2.*;
+import org.jdom2.output.*;
+
+import org.openjdk.jmh.annotations.*;
+
+import org.deltava.beans.Pilot;
+
+import org.deltava.acars.message.*;
+import org.deltava.acars.xml.*;
+
+/**
+ * Measures formatting a batch of acknowledgements for one connection the way OutputDispatcher does, either by building a JDOM document
+ * written with the pretty or compact XMLOutputter, or by writing the response directly with a CompactXMLWriter.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FormatBenchmark {
+
+	private static final Pilot USR = new Pilot("Test", "Pilot");
+
+	@Param({"1", "2"})
+	public int version;
+
+	@Param({"1", "8"})
+	public int msgs;
+
+	private final XMLOutputter _xmlOut = new XMLOutputter(Format.getPrettyFormat().setEncoding("UTF-8"));
+	private final XMLOutputter _tinyOut = new XMLOutputter(Format.getCompactFormat().setEncoding("UTF-8"));
+	private final CompactXMLWriter _rsp = new CompactXMLWriter(1024);
+
+	private final List<Message> _msgs = new ArrayList<Message>();
+	private MessageFormatter _fmt;
+
+	@Setup
+	public void setup() {
+		_fmt = (version == 1) ? new org.deltava.acars.xml.v1.format.Formatter() : new org.deltava.acars.xml.v2.format.Formatter();
+		for (int x = 0; x < msgs; x++) {
+			AcknowledgeMessage ackMsg = new AcknowledgeMessage(USR, 0x2BC49BC + x);
+			if ((x & 1) == 1) {
+				ackMsg.setEntry("flight", String.valueOf(x));
+				ackMsg.setEntry("msgs", "12");
+			}
+
+			_msgs.add(ackMsg);
+		}
+	}
+
+	private Document document() throws XMLException {
+		Element e = new Element(ProtocolInfo.RSP_ELEMENT_NAME);
+		e.setAttribute("version", String.valueOf(version));
+		Document doc = new Document(e);
+		for (Message msg : _msgs) {
+			Element msgE = _fmt.format(msg);
+			if (msgE != null)
+				e.addContent(msgE);
+		}
+
+		return doc;
+	}
+
+	@Benchmark
+	public byte[] pretty() throws XMLException {
+		return _xmlOut.outputString(document()).getBytes(UTF_8);
+	}
+
+	@Benchmark
+	public byte[] compact() throws XMLException {
+		return _tinyOut.outputString(document()).getBytes(UTF_8);
+	}
+
+	@Benchmark
+	public byte[] direct() throws XMLException {
+		_rsp.reset();
+		_rsp.startDocument();
+		_rsp.startElement(ProtocolInfo.RSP_ELEMENT_NAME);
+		_rsp.attribute("version", version);
+		for (Message msg : _msgs) {
+			if (!_fmt.format(msg, _rsp))
+				throw new IllegalStateException("v" + version + " cannot write " + msg.getType() + " directly");
+		}
+
+		_rsp.endElement();
+		return _rsp.toByteArray();
+	}
+}
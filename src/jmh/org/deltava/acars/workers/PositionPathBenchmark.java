@@ -0,0 +1,126 @@
+package org.deltava.acars.workers;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.openjdk.jmh.annotations.*;
+
+import org.deltava.beans.Pilot;
+
+import org.deltava.acars.beans.*;
+import org.deltava.acars.message.*;
+import org.deltava.acars.xml.*;
+
+/**
+ * Compares position report acknowledgement latency through the staged pipeline (reader, translator, logic processor, output dispatcher
+ * and writer threads linked by queues) against the fused path, where the reader thread parses the message and formats the ACK itself.
+ * Both paths do the same parsing and formatting work, so the difference is the cost of the extra thread handoffs. PositionCommand is not
+ * executed, since it requires a connection pool and Redis. Each invocation sends one request and waits for the writer thread to receive
+ * its ACK, so the sampled times give the latency percentiles.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PositionPathBenchmark {
+
+	private static final String POSITION = "<?xml version=\"1.0\"?><ACARSRequest version=\"2\" id=\"%d\"><CMD type=\"position\"><date>11/14/2006 10:21:27</date>"
+		+ "<lat>33.6367</lat><lon>-84.4281</lon><msl>35000</msl><agl>34000</agl><hdg>270</hdg><pitch>2.5</pitch><bank>0</bank><aSpeed>280</aSpeed>"
+		+ "<gSpeed>450</gSpeed><vSpeed>0</vSpeed><mach>0.78</mach><fuel>43210</fuel><weight>174000</weight><flaps>0</flaps><flags>4097</flags>"
+		+ "<n1 e1=\"85.4\" e2=\"85.6\">85.5</n1><n2 e1=\"90.1\" e2=\"90.2\">90.15</n2><phase>Airborne</phase><simrate>1</simrate><isLogged>true</isLogged>"
+		+ "<frameRate>30</frameRate><com1>121.9</com1><com2>118.1</com2></CMD></ACARSRequest>";
+
+	private static final Pilot USR = new Pilot("Test", "Pilot");
+	private static final long CON_ID = 1;
+
+	@Param({"staged", "fused"})
+	public String path;
+
+	private final BlockingQueue<TextEnvelope> _rawIn = new LinkedBlockingQueue<TextEnvelope>();
+	private final BlockingQueue<MessageEnvelope> _msgIn = new LinkedBlockingQueue<MessageEnvelope>();
+	private final BlockingQueue<MessageEnvelope> _msgOut = new PriorityBlockingQueue<MessageEnvelope>();
+	private final BlockingQueue<OutputEnvelope> _rawOut = new PriorityBlockingQueue<OutputEnvelope>();
+	private final BlockingQueue<OutputEnvelope> _done = new SynchronousQueue<OutputEnvelope>();
+	private final List<Thread> _threads = new ArrayList<Thread>();
+
+	private final Ack _reader = new Ack();
+	private String _msg;
+	private boolean _isFused;
+
+	private static final class Ack {
+		private final MessageParser _parser = new org.deltava.acars.xml.v2.parse.Parser();
+		private final MessageFormatter _fmt = new org.deltava.acars.xml.v2.format.Formatter();
+		private final CompactXMLWriter _out = new CompactXMLWriter(512);
+
+		Collection<Message> parse(TextEnvelope env) throws XMLException {
+			return _parser.parse(env);
+		}
+
+		static AcknowledgeMessage ack(Message msg) {
+			AcknowledgeMessage ackMsg = new AcknowledgeMessage(msg.getSender(), msg.getID());
+			ackMsg.setTime(msg.getTime());
+			return ackMsg;
+		}
+
+		BinaryEnvelope format(Message ackMsg) throws XMLException {
+			_out.reset();
+			_out.startDocument();
+			_out.startElement(ProtocolInfo.RSP_ELEMENT_NAME);
+			_out.attribute("version", 2);
+			_fmt.format(ackMsg, _out);
+			_out.endElement();
+			BinaryEnvelope env = new BinaryEnvelope(USR, _out.toByteArray(), CON_ID);
+			env.setTime(ackMsg.getTime());
+			return env;
+		}
+	}
+
+	private void start(String name, Callable<?> c) {
+		_threads.add(Thread.ofPlatform().name(name).daemon(true).start(() -> {
+			try {
+				while (!Thread.currentThread().isInterrupted())
+					c.call();
+			} catch (InterruptedException ie) {
+				// empty
+			} catch (Exception e) {
+				e.printStackTrace(System.err);
+			}
+		}));
+	}
+
+	@Setup
+	public void setup() {
+		_msg = String.format(POSITION, Integer.valueOf(1));
+		_isFused = "fused".equals(path);
+		if (!_isFused) {
+			Ack translator = new Ack(), dispatcher = new Ack();
+			start("Translator", () -> { translator.parse(_rawIn.take()).forEach(m -> _msgIn.add(new MessageEnvelope(m, CON_ID))); return null; });
+			start("Logic", () -> _msgOut.add(new MessageEnvelope(Ack.ack(_msgIn.take().getMessage()), CON_ID)));
+			start("Dispatcher", () -> _rawOut.add(dispatcher.format(_msgOut.take().getMessage())));
+		}
+
+		start("Writer", () -> { _done.put(_rawOut.take()); return null; });
+	}
+
+	@TearDown
+	public void shutdown() {
+		_threads.forEach(Thread::interrupt);
+		_threads.clear();
+	}
+
+	@Benchmark
+	public OutputEnvelope ack() throws Exception {
+		TextEnvelope env = new TextEnvelope(USR, _msg, CON_ID);
+		env.setVersion(2);
+		if (_isFused) {
+			for (Message msg : _reader.parse(env))
+				_rawOut.add(_reader.format(Ack.ack(msg)));
+		} else
+			_rawIn.add(env);
+
+		return _done.take();
+	}
+}
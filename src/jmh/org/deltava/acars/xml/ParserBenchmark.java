@@ -0,0 +1,65 @@
+package org.deltava.acars.xml;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import org.deltava.beans.Pilot;
+
+import org.deltava.acars.beans.TextEnvelope;
+import org.deltava.acars.message.Message;
+
+import org.deltava.util.system.SystemData;
+
+/**
+ * Measures the v1 and v2 message parsers on a single position report and on a packet containing several requests, building
+ * the requests into JDOM documents or reading them with the StAX parser. The v2 requests are the v1 requests with the protocol
+ * version changed.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+
+	private static final Pilot USR = new Pilot("Test", "Pilot");
+
+	@Param({"1", "2"})
+	public int version;
+
+	@Param({"positionMsg.xml", "multiMsg.xml"})
+	public String file;
+
+	@Param({"false", "true"})
+	public boolean stax;
+
+	private String _msg;
+	private MessageParser _parser;
+
+	@Setup
+	public void setup() throws IOException {
+		String data = Files.readString(Paths.get("data", file), UTF_8);
+		_msg = data.replace("version=\"1\"", "version=\"" + version + "\"");
+		SystemData.add("acars.stax", stax ? List.of("v" + version) : Collections.emptyList());
+		_parser = (version == 1) ? new org.deltava.acars.xml.v1.parse.Parser() : new org.deltava.acars.xml.v2.parse.Parser();
+	}
+
+	@Benchmark
+	public Collection<Message> parse() throws XMLException {
+		TextEnvelope env = new TextEnvelope(USR, _msg, 1);
+		env.setVersion(version);
+		Collection<Message> msgs = _parser.parse(env);
+		if (msgs.isEmpty())
+			throw new IllegalStateException("No messages parsed from " + file);
+
+		return msgs;
+	}
+}
@@ -0,0 +1,101 @@
+package org.deltava.dao.acars;
+
+import java.sql.*;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import org.deltava.acars.message.PositionMessage;
+import org.deltava.beans.acars.FlightPhase;
+
+import org.deltava.dao.DAOException;
+
+/**
+ * Compares JDBC batch and multi-row position writes against a live database. Each invocation writes positions for an existing flight
+ * ID, and they are deleted afterwards. This benchmark is excluded from the default benchmark run, and must be run manually with the
+ * database parameters:
+ * <pre>ant benchmark -Djmh.args="SetPositionBenchmark -p url=jdbcURL -p user=user -p password=password -p flightID=flightID"</pre>
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SetPositionBenchmark {
+
+	@Param({""})
+	public String url;
+
+	@Param({""})
+	public String user;
+
+	@Param({""})
+	public String password;
+
+	@Param({"0"})
+	public int flightID;
+
+	@Param({"500"})
+	public int positions;
+
+	@Param({"0", "10", "25", "50", "100"})
+	public int bulkRows;
+
+	private Connection _c;
+	private final List<PositionMessage> _msgs = new ArrayList<PositionMessage>();
+
+	@Setup
+	public void setup() throws SQLException {
+		if (url.isEmpty() || (flightID < 1))
+			throw new IllegalStateException("Database URL and flight ID required");
+
+		_c = DriverManager.getConnection(url, user, password);
+		Random r = new Random(flightID);
+		Instant now = Instant.ofEpochSecond(Instant.now().getEpochSecond());
+		for (int x = 0; x < positions; x++) {
+			PositionMessage msg = new PositionMessage(null);
+			msg.setFlightID(flightID);
+			msg.setDate(now.plusMillis(x * 1000L));
+			msg.setSimTime(msg.getDate());
+			msg.setLatitude(33.6367 + (x * 0.01));
+			msg.setLongitude(-84.4281 + (x * 0.01));
+			msg.setAltitude(r.nextInt(41000));
+			msg.setHeading(r.nextInt(360));
+			msg.setAspeed(r.nextInt(500));
+			msg.setGspeed(r.nextInt(550));
+			msg.setPhase(FlightPhase.UNKNOWN);
+			msg.setEngineCount(2);
+			for (int e = 1; e <= 2; e++) {
+				msg.setN1(e, 80 + r.nextDouble() * 10);
+				msg.setN2(e, 90 + r.nextDouble() * 10);
+			}
+
+			_msgs.add(msg);
+		}
+	}
+
+	@TearDown(Level.Invocation)
+	public void clear() throws SQLException {
+		try (PreparedStatement ps = _c.prepareStatement("DELETE FROM acars.POSITIONS WHERE (FLIGHT_ID=?)")) {
+			ps.setInt(1, flightID);
+			ps.executeUpdate();
+		}
+	}
+
+	@TearDown
+	public void shutdown() throws SQLException {
+		if (_c != null)
+			_c.close();
+	}
+
+	@Benchmark
+	public void flush() throws DAOException {
+		SetPosition dao = new SetPosition(_c);
+		dao.setBulkRows(bulkRows);
+		dao.flush(new ArrayList<PositionMessage>(_msgs));
+	}
+}
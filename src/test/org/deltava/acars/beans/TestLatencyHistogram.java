@@ -0,0 +1,75 @@
+package org.deltava.acars.beans;
+
+import java.util.concurrent.*;
+
+import junit.framework.TestCase;
+
+public class TestLatencyHistogram extends TestCase {
+
+	public void testBuckets() {
+		int lastIdx = -1;
+		for (long us = 0; us < 5_000_000; us += 7) {
+			int idx = LatencyHistogram.index(us);
+			assertTrue(idx >= lastIdx);
+			assertTrue(LatencyHistogram.value(idx) >= us);
+			assertTrue((LatencyHistogram.value(idx) - us) <= Math.max(1, us / 16));
+			assertEquals(idx, LatencyHistogram.index(LatencyHistogram.value(idx)));
+			lastIdx = idx;
+		}
+
+		assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.index(Long.MAX_VALUE));
+	}
+
+	public void testPercentiles() {
+		LatencyHistogram h = new LatencyHistogram(0);
+		assertEquals(0, h.getSnapshot().getCount());
+		for (int x = 1; x <= 1000; x++)
+			h.add(TimeUnit.MICROSECONDS.toNanos(x * 10));
+
+		LatencySnapshot ls = h.getSnapshot();
+		assertEquals(1000, ls.getCount());
+		assertEquals(5005, ls.getMean());
+		assertEquals(10000, ls.getMax());
+		assertEquals(5000, ls.getP50(), 5000 / 16);
+		assertEquals(9000, ls.getP90(), 9000 / 16);
+		assertEquals(9900, ls.getP99(), 9900 / 16);
+		assertTrue(ls.getP999() <= ls.getMax());
+
+		// One stall is visible at p99.9 but not in the mean
+		h.add(TimeUnit.SECONDS.toNanos(3));
+		ls = h.getSnapshot();
+		assertEquals(3_000_000, ls.getMax());
+		assertTrue(ls.getMean() < 10000);
+
+		h.clear();
+		assertEquals(0, h.getSnapshot().getCount());
+	}
+
+	public void testWindow() throws Exception {
+		LatencyHistogram h = new LatencyHistogram(50);
+		h.add(1000);
+		assertEquals(1, h.getSnapshot().getCount());
+		Thread.sleep(60);
+		h.add(2000);
+		assertEquals(2, h.getSnapshot().getCount());
+		Thread.sleep(120);
+		assertEquals(0, h.getSnapshot().getCount());
+	}
+
+	public void testRecorders() throws Exception {
+		LatencyHistogram h = new LatencyHistogram(0);
+		final int threads = 8; final int count = 20000;
+		ExecutorService exec = Executors.newFixedThreadPool(threads);
+		for (int t = 0; t < threads; t++)
+			exec.execute(() -> {
+				for (int x = 0; x < count; x++)
+					h.add(TimeUnit.MICROSECONDS.toNanos(x));
+			});
+
+		exec.shutdown();
+		assertTrue(exec.awaitTermination(30, TimeUnit.SECONDS));
+		LatencySnapshot ls = h.getSnapshot();
+		assertEquals(threads * count, ls.getCount());
+		assertEquals(count - 1, ls.getMax());
+	}
+}
@@ -0,0 +1,41 @@
+package org.deltava.acars.beans;
+
+import org.deltava.acars.message.MessageType;
+
+import junit.framework.TestCase;
+
+public class TestMessageTrace extends TestCase {
+
+	public void testStages() {
+		MessageTrace rt = new MessageTrace(1, 1000);
+		MessageTrace mt = new MessageTrace(rt, MessageType.ACK);
+		assertEquals(1, mt.getConnectionID());
+		assertEquals(MessageType.ACK, mt.getType());
+		assertEquals(1000, mt.getTime(TraceStage.READ));
+		assertEquals(-1, mt.getElapsed(TraceStage.FRAME));
+
+		mt.stamp(TraceStage.FRAME, 1500);
+		mt.stamp(TraceStage.PARSE, 1700);
+		mt.stamp(TraceStage.PARSE, 9999);
+		mt.stamp(TraceStage.COMMAND_START, 3000);
+		mt.stamp(TraceStage.COMMAND_END, 7000);
+		assertEquals(500, mt.getElapsed(TraceStage.FRAME));
+		assertEquals(200, mt.getElapsed(TraceStage.PARSE));
+		assertEquals(4000, mt.getElapsed(TraceStage.COMMAND_END));
+		assertEquals(-1, mt.getElapsed(TraceStage.FORMAT));
+		assertEquals(6000, mt.getTotal());
+		assertEquals(0, rt.getTime(TraceStage.FRAME));
+
+		mt.stamp(TraceStage.WRITE, 11000);
+		assertEquals(-1, mt.getElapsed(TraceStage.WRITE));
+		assertEquals(10000, mt.getTotal());
+	}
+
+	public void testReferences() {
+		MessageTrace mt = new MessageTrace(new MessageTrace(1, 1000), MessageType.POSITION);
+		assertTrue(mt.retain());
+		assertFalse(mt.release());
+		assertTrue(mt.release());
+		assertFalse(mt.retain());
+	}
+}
@@ -0,0 +1,83 @@
+package org.deltava.acars.load;
+
+import java.time.Instant;
+
+import org.deltava.beans.*;
+import org.deltava.beans.system.AirlineInformation;
+
+import org.deltava.acars.beans.*;
+import org.deltava.acars.command.CommandContext;
+import org.deltava.acars.message.*;
+import org.deltava.acars.message.data.ConnectionMessage;
+
+import org.deltava.util.*;
+import org.deltava.util.system.SystemData;
+
+/**
+ * A stub authentication command used when load testing. Any password is accepted, and the Pilot is built from the user ID instead of being
+ * loaded from the database. The connection is registered, announced to other users and acknowledged the same way as a real login.
+ */
+
+public class LoadAuthCommand extends LoadCommand {
+
+	/**
+	 * Executes the command.
+	 * @param ctx the Command context
+	 * @param env the message Envelope
+	 */
+	@Override
+	public void execute(CommandContext ctx, MessageEnvelope env) {
+
+		// Get the message and validate the user ID
+		AuthenticateMessage msg = (AuthenticateMessage) env.getMessage();
+		UserID usrID = new UserID(msg.getUserID());
+		if (!usrID.hasAirlineCode()) {
+			ctx.push(new AcknowledgeMessage(null, msg.getID(), String.format("Authentication Failed - Invalid User ID %s", msg.getUserID())));
+			return;
+		}
+
+		AirlineInformation aInfo = SystemData.getApp(usrID.getAirlineCode());
+		if (aInfo == null)
+			aInfo = SystemData.getApp(SystemData.get("airline.default"));
+
+		// Build the user
+		Pilot usr = new Pilot("Load", "Pilot " + msg.getUserID());
+		usr.setID(usrID.getUserID());
+		usr.setPilotCode(msg.getUserID());
+		usr.setStatus(PilotStatus.ACTIVE);
+		usr.setRank(Rank.FO);
+		usr.setEquipmentType("B737-800");
+		usr.setCreatedOn(Instant.now());
+		usr.addRole("Pilot");
+		UserData ud = new UserData(aInfo.getCode(), "PILOTS", aInfo.getDomain());
+		ud.setID(usr.getID());
+
+		// Log the user in
+		ACARSConnection con = ctx.getACARSConnection();
+		con.setUser(usr);
+		con.setUserLocation(ud);
+		con.setVersion(msg.getClientInfo().getVersion());
+		con.setClientBuild(msg.getClientInfo().getClientBuild(), msg.getClientInfo().getBeta());
+		if (msg.getProtocolVersion() > con.getProtocolVersion())
+			con.setProtocolVersion(msg.getProtocolVersion());
+
+		// Save the connection and add the user again so they are registered with this user ID
+		write(ctx, "UPDATE acars.CONS SET PILOT_ID=? WHERE (END IS NULL)", usr.getID());
+		ctx.getACARSConnectionPool().add(con);
+
+		// Tell everybody else that someone has logged on
+		ConnectionMessage drMsg = new ConnectionMessage(usr, DataRequest.ADDUSER, 0);
+		drMsg.add(con);
+		ctx.pushAll(drMsg, env.getConnectionID());
+
+		// Send the ACK
+		AcknowledgeMessage ackMsg = new AcknowledgeMessage(usr, msg.getID());
+		ackMsg.setEntry("userID", usr.getPilotCode());
+		ackMsg.setEntry("dbID", String.valueOf(usr.getID()));
+		ackMsg.setEntry("appCode", ud.getAirlineCode());
+		ackMsg.setEntry("rank", usr.getRank().getName());
+		ackMsg.setEntry("roles", StringUtils.listConcat(usr.getRoles(), ","));
+		ackMsg.setEntry("compress", String.valueOf(SystemData.getBoolean("acars.compress")));
+		ctx.push(ackMsg, env.getConnectionID(), true);
+	}
+}
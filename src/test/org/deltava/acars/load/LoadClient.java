@@ -0,0 +1,523 @@
+package org.deltava.acars.load;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.*;
+
+import org.deltava.beans.Compression;
+
+import org.deltava.acars.util.DataCompressor;
+
+/**
+ * A simulated ACARS client. Each client authenticates, starts a flight, streams position reports, randomly sends data requests and files
+ * a flight report when the flight ends before starting another one. Clients are driven by a single {@link LoadGenerator} selector thread
+ * and are not thread-safe.
+ */
+
+class LoadClient {
+
+	private static final DateTimeFormatter DT_FMT = DateTimeFormatter.ofPattern("MM/dd/yyyy HH:mm:ss").withZone(ZoneOffset.UTC);
+	private static final Pattern CMD = Pattern.compile("<CMD\\s+type=\"(\\w+)\"\\s+id=\"([0-9A-Fa-f]+)\"");
+	private static final Pattern FLIGHT_ID = Pattern.compile("<flight_id>(?:<!\\[CDATA\\[)?(\\d+)");
+	private static final String[] DATA_REQS = { "pilots", "busy", "eqList" };
+	private static final String[][] ROUTES = { { "KATL", "KJFK" }, { "KJFK", "KLAX" }, { "KLAX", "KATL" }, { "KATL", "KORD" }, { "KORD", "KATL" } };
+	private static final long TIMEOUT = TimeUnit.SECONDS.toNanos(30);
+
+	/**
+	 * Client states.
+	 */
+	enum State {
+		IDLE, CONNECTING, HELLO, AUTH, INFO, FLYING, PIREP, CLOSED
+	}
+
+	/**
+	 * Request types.
+	 */
+	enum Request {
+		AUTH, INFO, POSITION, DATAREQ, PIREP
+	}
+
+	private record Pending(Request type, long sentOn) {
+		// empty
+	}
+
+	private final LoadGenerator _gen;
+	private final int _idx;
+	private final String _userID;
+	private final int _version;
+	private final boolean _isCompressed;
+	private final DataCompressor _dc = new DataCompressor();
+	private final Map<Long, Pending> _pending = new HashMap<Long, Pending>();
+	private final StringBuilder _in = new StringBuilder(1024);
+	private final Deque<ByteBuffer> _out = new ArrayDeque<ByteBuffer>();
+
+	private SocketChannel _sc;
+	private SelectionKey _key;
+	private State _state = State.IDLE;
+	private long _nextRun;
+	private long _stateTimeout;
+	private long _flightEnd;
+	private long _startTime;
+	private int _flightID;
+	private String[] _route;
+	private double _lat;
+	private double _lon;
+	private int _hdg;
+
+	/**
+	 * Creates the client.
+	 * @param gen the LoadGenerator
+	 * @param idx the client index
+	 * @param version the protocol version
+	 * @param isCompressed TRUE to send GZIP compressed data, otherwise FALSE
+	 * @param startOn the start time in nanoseconds
+	 */
+	LoadClient(LoadGenerator gen, int idx, int version, boolean isCompressed, long startOn) {
+		super();
+		_gen = gen;
+		_idx = idx;
+		_userID = "DVA" + (1000 + idx);
+		_version = version;
+		_isCompressed = isCompressed;
+		_nextRun = startOn;
+	}
+
+	/**
+	 * Returns the client state.
+	 * @return the State
+	 */
+	State getState() {
+		return _state;
+	}
+
+	/**
+	 * Returns when the client next needs to run.
+	 * @return the time in nanoseconds
+	 */
+	long getNextRun() {
+		return _nextRun;
+	}
+
+	/**
+	 * Updates when the client next needs to run.
+	 * @param nextRun the time in nanoseconds
+	 */
+	void setNextRun(long nextRun) {
+		_nextRun = nextRun;
+	}
+
+	/**
+	 * Returns whether the client sends compressed data.
+	 * @return TRUE if GZIP compressed, otherwise FALSE
+	 */
+	boolean isCompressed() {
+		return _isCompressed;
+	}
+
+	/**
+	 * Returns the protocol version.
+	 * @return the version
+	 */
+	int getVersion() {
+		return _version;
+	}
+
+	/*
+	 * Updates the client state.
+	 */
+	private void setState(State s, long now) {
+		_state = s;
+		_stateTimeout = now + TIMEOUT;
+	}
+
+	/**
+	 * Opens the connection.
+	 * @param sel the Selector
+	 * @param addr the server address
+	 * @param now the current time in nanoseconds
+	 * @throws IOException if an error occurs
+	 */
+	void connect(Selector sel, InetSocketAddress addr, long now) throws IOException {
+		_sc = SocketChannel.open();
+		_sc.configureBlocking(false);
+		_sc.setOption(java.net.StandardSocketOptions.TCP_NODELAY, Boolean.TRUE);
+		_key = _sc.register(sel, SelectionKey.OP_CONNECT, this);
+		setState(State.CONNECTING, now);
+		if (_sc.connect(addr))
+			connected(now);
+	}
+
+	/**
+	 * Completes a non-blocking connection.
+	 * @param now the current time in nanoseconds
+	 * @throws IOException if the connection fails
+	 */
+	void connected(long now) throws IOException {
+		if (_sc.isConnectionPending())
+			_sc.finishConnect();
+
+		_key.interestOps(SelectionKey.OP_READ);
+		setState(State.HELLO, now);
+		_gen.getStats().connected();
+	}
+
+	/**
+	 * Closes the connection.
+	 */
+	void close() {
+		if (_state == State.CLOSED) return;
+		_state = State.CLOSED;
+		_gen.getStats().disconnected(_pending.size());
+		_pending.clear();
+		try {
+			if (_sc != null)
+				_sc.close();
+		} catch (IOException ie) {
+			// empty
+		}
+	}
+
+	/**
+	 * Writes queued data once the socket is writable.
+	 * @throws IOException if an error occurs
+	 */
+	void flush() throws IOException {
+		while (!_out.isEmpty()) {
+			ByteBuffer bb = _out.peek();
+			_sc.write(bb);
+			if (bb.hasRemaining())
+				return;
+
+			_out.poll();
+		}
+
+		_key.interestOps(SelectionKey.OP_READ);
+	}
+
+	/*
+	 * Sends a request, compressing it if required.
+	 */
+	private void send(Request type, String cmd, CharSequence body, long now) throws IOException {
+		long id = _gen.nextID();
+		StringBuilder buf = new StringBuilder(body.length() + 96);
+		buf.append("<ACARSRequest version=\"").append(_version).append("\" id=\"").append(Long.toHexString(id).toUpperCase()).append("\">");
+		buf.append("<CMD type=\"").append(cmd).append("\">").append(body).append("</CMD></ACARSRequest>\r\n");
+		byte[] data = buf.toString().getBytes(StandardCharsets.UTF_8);
+		if (_isCompressed)
+			data = DataCompressor.compress(data, Compression.GZIP);
+
+		_pending.put(Long.valueOf(id), new Pending(type, now));
+		_gen.getStats().sent(data.length);
+		ByteBuffer bb = ByteBuffer.wrap(data);
+		if (_out.isEmpty())
+			_sc.write(bb);
+
+		if (bb.hasRemaining()) {
+			_out.add(bb);
+			_key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+		}
+	}
+
+	/*
+	 * Appends an element.
+	 */
+	private static void element(StringBuilder buf, String name, Object value) {
+		buf.append('<').append(name).append('>').append(value).append("</").append(name).append('>');
+	}
+
+	/*
+	 * Sends an authentication request.
+	 */
+	private void sendAuth(long now) throws IOException {
+		StringBuilder buf = new StringBuilder(256);
+		element(buf, "user", _userID);
+		element(buf, "password", "load");
+		element(buf, "version", "v3.4");
+		element(buf, "build", Integer.valueOf(200));
+		element(buf, "beta", Integer.valueOf(0));
+		element(buf, "compress", Boolean.valueOf(_isCompressed));
+		element(buf, "localUTC", DT_FMT.format(Instant.now()));
+		send(Request.AUTH, "auth", buf, now);
+		setState(State.AUTH, now);
+	}
+
+	/*
+	 * Starts a new flight on a random route.
+	 */
+	private void sendInfo(long now) throws IOException {
+		ThreadLocalRandom rnd = ThreadLocalRandom.current();
+		_route = ROUTES[rnd.nextInt(ROUTES.length)];
+		_flightID = 0;
+		_lat = 33.6367 + rnd.nextDouble(-2, 2);
+		_lon = -84.4281 + rnd.nextDouble(-2, 2);
+		_hdg = rnd.nextInt(360);
+		StringBuilder buf = new StringBuilder(256);
+		element(buf, "startTime", DT_FMT.format(Instant.now()));
+		element(buf, "flight_id", Integer.valueOf(0));
+		element(buf, "equipment", "B737-800");
+		element(buf, "flight_num", "DVA" + (100 + (_idx % 9000)));
+		element(buf, "cruise_alt", "FL350");
+		element(buf, "airportD", _route[0]);
+		element(buf, "airportA", _route[1]);
+		element(buf, "network", "VATSIM");
+		send(Request.INFO, "flight_info", buf, now);
+		setState(State.INFO, now);
+	}
+
+	/*
+	 * Sends a position report, moving the aircraft along its heading.
+	 */
+	private void sendPosition(long now) throws IOException {
+		ThreadLocalRandom rnd = ThreadLocalRandom.current();
+		_hdg = (_hdg + rnd.nextInt(-2, 3) + 360) % 360;
+		_lat = Math.max(-80, Math.min(80, _lat + Math.cos(Math.toRadians(_hdg)) * 0.01));
+		_lon = ((_lon + Math.sin(Math.toRadians(_hdg)) * 0.01 + 540) % 360) - 180;
+		StringBuilder buf = new StringBuilder(512);
+		element(buf, "date", DT_FMT.format(Instant.now()));
+		element(buf, "lat", String.format("%.5f", Double.valueOf(_lat)));
+		element(buf, "lon", String.format("%.5f", Double.valueOf(_lon)));
+		element(buf, "msl", Integer.valueOf(35000 + rnd.nextInt(-20, 20)));
+		element(buf, "agl", Integer.valueOf(34000));
+		element(buf, "hdg", Integer.valueOf(_hdg));
+		element(buf, "aSpeed", Integer.valueOf(280));
+		element(buf, "gSpeed", Integer.valueOf(450 + rnd.nextInt(-5, 5)));
+		element(buf, "vSpeed", Integer.valueOf(rnd.nextInt(-10, 10)));
+		element(buf, "mach", "0.78");
+		element(buf, "fuel", Integer.valueOf(40000));
+		element(buf, "flaps", Integer.valueOf(0));
+		element(buf, "flags", Integer.valueOf(4097));
+		element(buf, "n1", "85.5");
+		element(buf, "n2", "90.1");
+		element(buf, "phase", "Airborne");
+		element(buf, "simrate", Integer.valueOf(1));
+		element(buf, "isLogged", Boolean.TRUE);
+		element(buf, "com1", "121.900");
+		send(Request.POSITION, "position", buf, now);
+	}
+
+	/*
+	 * Sends a random data request.
+	 */
+	private void sendDataRequest(long now) throws IOException {
+		String reqType = DATA_REQS[ThreadLocalRandom.current().nextInt(DATA_REQS.length)];
+		StringBuilder buf = new StringBuilder(128);
+		element(buf, "reqtype", reqType);
+		if (reqType.equals("busy"))
+			buf.append("<flags><isBusy>").append(ThreadLocalRandom.current().nextBoolean()).append("</isBusy></flags>");
+
+		send(Request.DATAREQ, "datareq", buf, now);
+	}
+
+	/*
+	 * Files a flight report for the current flight.
+	 */
+	private void sendPIREP(long now) throws IOException {
+		Instant st = Instant.ofEpochMilli(_startTime);
+		StringBuilder buf = new StringBuilder(512);
+		element(buf, "flightcode", "DVA" + (100 + (_idx % 9000)));
+		element(buf, "leg", Integer.valueOf(1));
+		element(buf, "flightID", Integer.valueOf(_flightID));
+		element(buf, "eqType", "B737-800");
+		element(buf, "airportD", _route[0]);
+		element(buf, "airportA", _route[1]);
+		element(buf, "startTime", DT_FMT.format(st));
+		element(buf, "taxiOutTime", DT_FMT.format(st.plusSeconds(60)));
+		element(buf, "takeoffTime", DT_FMT.format(st.plusSeconds(120)));
+		element(buf, "landingTime", DT_FMT.format(Instant.now().minusSeconds(60)));
+		element(buf, "gateTime", DT_FMT.format(Instant.now()));
+		element(buf, "remarks", "Load test flight");
+		send(Request.PIREP, "pirep", buf, now);
+		setState(State.PIREP, now);
+	}
+
+	/**
+	 * Runs the client's scheduled work.
+	 * @param sel the Selector
+	 * @param addr the server address
+	 * @param now the current time in nanoseconds
+	 * @return the next time the client should run, in nanoseconds
+	 * @throws IOException if an error occurs
+	 */
+	long run(Selector sel, InetSocketAddress addr, long now) throws IOException {
+		expire(now);
+		switch (_state) {
+			case IDLE:
+				connect(sel, addr, now);
+				return now + TIMEOUT;
+
+			case FLYING:
+				if (now >= _flightEnd) {
+					sendPIREP(now);
+					return _stateTimeout;
+				}
+
+				sendPosition(now);
+				if (ThreadLocalRandom.current().nextDouble() < _gen.getDataRequestRate())
+					sendDataRequest(now);
+
+				long interval = _gen.getInterval();
+				return now + interval + ThreadLocalRandom.current().nextLong(-interval / 20, (interval / 20) + 1);
+
+			case CLOSED:
+				return Long.MAX_VALUE;
+
+			default:
+				if (now < _stateTimeout)
+					return _stateTimeout;
+
+				// Retry the handshake, or drop the connection if we never got a HELLO
+				_gen.getStats().stalled(_state);
+				switch (_state) {
+					case AUTH:
+						sendAuth(now);
+						break;
+					case INFO:
+					case PIREP:
+						sendInfo(now);
+						break;
+					default:
+						close();
+						return Long.MAX_VALUE;
+				}
+
+				return _stateTimeout;
+		}
+	}
+
+	/*
+	 * Removes requests that have not been acknowledged.
+	 */
+	private void expire(long now) {
+		if (_pending.isEmpty()) return;
+		for (Iterator<Pending> i = _pending.values().iterator(); i.hasNext();) {
+			Pending p = i.next();
+			if ((now - p.sentOn()) > TIMEOUT) {
+				_gen.getStats().timeout(p.type());
+				i.remove();
+			}
+		}
+	}
+
+	/**
+	 * Reads data from the server.
+	 * @param buf the read buffer
+	 * @param now the current time in nanoseconds
+	 * @return the next time the client should run if its schedule has changed, otherwise zero
+	 * @throws IOException if an error occurs
+	 */
+	long read(ByteBuffer buf, long now) throws IOException {
+		buf.clear();
+		int bytes = _sc.read(buf);
+		if (bytes < 0)
+			throw new ClosedChannelException();
+
+		buf.flip();
+		_gen.getStats().received(bytes);
+		byte[] data = new byte[buf.remaining()];
+		buf.get(data);
+		if (_dc.hasBuffer() || DataCompressor.isCompressed(data)) {
+			_dc.setCompression(Compression.GZIP);
+			_dc.buffer(data);
+			for (byte[] pkt = _dc.getPacket(); pkt != null; pkt = _dc.getPacket()) {
+				byte[] txt = _dc.decompress(pkt);
+				if (txt != null)
+					_in.append(new String(txt, StandardCharsets.UTF_8));
+			}
+		} else
+			_in.append(new String(data, StandardCharsets.UTF_8));
+
+		// Wait for the HELLO before authenticating
+		long nextRun = 0;
+		if ((_state == State.HELLO) && (_in.indexOf("HELLO") > -1)) {
+			int ofs = _in.indexOf("\n", _in.indexOf("HELLO"));
+			if (ofs == -1) return 0;
+			_in.delete(0, ofs + 1);
+			sendAuth(now);
+			nextRun = _stateTimeout;
+		}
+
+		// Process complete responses
+		int end = _in.lastIndexOf("</ACARSResponse>");
+		if (end == -1)
+			return nextRun;
+
+		end += 16;
+		String rsp = _in.substring(0, end);
+		_in.delete(0, end);
+		int pos = rsp.indexOf("<CMD");
+		while (pos > -1) {
+			int nextPos = rsp.indexOf("<CMD", pos + 4);
+			String cmd = rsp.substring(pos, (nextPos == -1) ? rsp.length() : nextPos);
+			long nr = process(cmd, now);
+			if (nr != 0)
+				nextRun = nr;
+
+			pos = nextPos;
+		}
+
+		return nextRun;
+	}
+
+	/*
+	 * Processes a response command.
+	 */
+	private long process(String cmd, long now) throws IOException {
+		Matcher m = CMD.matcher(cmd);
+		if (!m.find()) return 0;
+		Pending p = _pending.remove(Long.valueOf(Long.parseLong(m.group(2), 16)));
+		if (p == null) return 0;
+
+		// Record the latency and check for errors
+		boolean isError = cmd.contains("<error>");
+		_gen.getStats().ack(p.type(), now - p.sentOn(), isError);
+		switch (p.type()) {
+			case AUTH:
+				if (isError) {
+					close();
+					return Long.MAX_VALUE;
+				}
+
+				sendInfo(now);
+				return _stateTimeout;
+
+			case INFO:
+				Matcher fm = FLIGHT_ID.matcher(cmd);
+				if (isError || !fm.find())
+					return 0;
+
+				_flightID = Integer.parseInt(fm.group(1));
+				_startTime = System.currentTimeMillis();
+				_flightEnd = now + TimeUnit.SECONDS.toNanos(_gen.getFlightTime()) + ThreadLocalRandom.current().nextLong(TimeUnit.SECONDS.toNanos(_gen.getFlightTime()) / 10 + 1);
+				setState(State.FLYING, now);
+				return now + ThreadLocalRandom.current().nextLong(_gen.getInterval() + 1);
+
+			case PIREP:
+				sendInfo(now);
+				return _stateTimeout;
+
+			case POSITION:
+				if ((_state == State.FLYING) && cmd.contains("sendInfo")) {
+					sendInfo(now);
+					return _stateTimeout;
+				}
+
+				return 0;
+
+			default:
+				return 0;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return _userID;
+	}
+}
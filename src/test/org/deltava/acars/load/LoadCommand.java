@@ -0,0 +1,44 @@
+package org.deltava.acars.load;
+
+import java.sql.*;
+
+import org.apache.logging.log4j.*;
+
+import org.deltava.acars.command.*;
+
+import org.deltava.dao.DAOException;
+
+/**
+ * An abstract class for commands that replace database-bound server commands when load testing. Each command reserves a connection from the
+ * JDBC pool and executes one statement against it, so that pool contention and the simulated database latency remain part of the
+ * acknowledgement round trip.
+ */
+
+abstract class LoadCommand extends ACARSCommand {
+
+	protected final Logger log = LogManager.getLogger(getClass());
+
+	/**
+	 * Executes a single update statement using a pooled JDBC connection.
+	 * @param ctx the CommandContext
+	 * @param sql the SQL statement
+	 * @param id the parameter value
+	 * @return TRUE if the update succeeded, otherwise FALSE
+	 */
+	protected boolean write(CommandContext ctx, String sql, int id) {
+		try {
+			Connection c = ctx.getConnection();
+			try (PreparedStatement ps = c.prepareStatement(sql)) {
+				ps.setInt(1, id);
+				ps.executeUpdate();
+			}
+
+			return true;
+		} catch (DAOException | SQLException e) {
+			log.error("Error writing {} - {}", Integer.valueOf(id), e.getMessage());
+			return false;
+		} finally {
+			ctx.release();
+		}
+	}
+}
@@ -0,0 +1,266 @@
+package org.deltava.acars.load;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * A load generator that opens a large number of non-blocking connections to an ACARS server and drives each one as a simulated client.
+ * Clients are spread across several selector threads, and each thread runs its clients from a queue ordered by when they next need to
+ * send a message. Connections are opened gradually over the ramp-up period. Acknowledgement round trip latency percentiles for each
+ * request type are printed periodically and at the end of the run.
+ * <pre>java org.deltava.acars.load.LoadGenerator [-host localhost] [-port 15527] [-clients 1000] [-rampup 60] [-interval 5000]
+ *   [-protocol 1|2|mixed] [-gzip 0.0] [-datareq 0.02] [-flight 300] [-duration 300] [-threads 4] [-report 10]</pre>
+ */
+
+public class LoadGenerator {
+
+	private static final Map<String, String> DEFAULTS = Map.ofEntries(Map.entry("host", "localhost"), Map.entry("port", "15527"), Map.entry("clients", "1000"),
+		Map.entry("rampup", "60"), Map.entry("interval", "5000"), Map.entry("protocol", "2"), Map.entry("gzip", "0"), Map.entry("datareq", "0.02"),
+		Map.entry("flight", "300"), Map.entry("duration", "300"), Map.entry("threads", "4"), Map.entry("report", "10"));
+
+	private final InetSocketAddress _addr;
+	private final Map<String, String> _opts;
+	private final LoadStats _stats;
+	private final long _interval;
+	private final double _dataReqRate;
+	private final int _flightTime;
+	private final AtomicLong _id = new AtomicLong(ThreadLocalRandom.current().nextLong(0x100000, 0x1000000));
+	private final List<Thread> _threads = new ArrayList<Thread>();
+	private volatile boolean _isRunning;
+
+	private final class Worker implements Runnable {
+		private final Selector _sel;
+		private final PriorityQueue<LoadClient> _queue = new PriorityQueue<LoadClient>(Comparator.comparingLong(LoadClient::getNextRun));
+		private final ByteBuffer _buf = ByteBuffer.allocateDirect(65536);
+
+		Worker(Collection<LoadClient> clients) throws IOException {
+			super();
+			_sel = Selector.open();
+			_queue.addAll(clients);
+		}
+
+		/*
+		 * Queues a client to run again, unless it has been closed.
+		 */
+		private void schedule(LoadClient c, long nextRun) {
+			if (nextRun == Long.MAX_VALUE) return;
+			c.setNextRun(nextRun);
+			_queue.add(c);
+		}
+
+		@Override
+		public void run() {
+			while (_isRunning && !Thread.currentThread().isInterrupted()) {
+				long now = System.nanoTime();
+				while (!_queue.isEmpty() && (_queue.peek().getNextRun() <= now)) {
+					LoadClient c = _queue.poll();
+					try {
+						schedule(c, c.run(_sel, _addr, now));
+					} catch (IOException ie) {
+						c.close();
+					}
+				}
+
+				// Wait for I/O or the next client to run
+				try {
+					long wait = _queue.isEmpty() ? 100 : TimeUnit.NANOSECONDS.toMillis(_queue.peek().getNextRun() - now);
+					_sel.select(Math.max(1, wait));
+				} catch (IOException ie) {
+					break;
+				}
+
+				now = System.nanoTime();
+				for (Iterator<SelectionKey> i = _sel.selectedKeys().iterator(); i.hasNext();) {
+					SelectionKey k = i.next();
+					i.remove();
+					LoadClient c = (LoadClient) k.attachment();
+					try {
+						if (!k.isValid()) continue;
+						if (k.isConnectable())
+							c.connected(now);
+						if (k.isValid() && k.isWritable())
+							c.flush();
+						if (k.isValid() && k.isReadable()) {
+							long nextRun = c.read(_buf, now);
+							if (nextRun != 0) {
+								_queue.remove(c);
+								schedule(c, nextRun);
+							}
+						}
+					} catch (IOException ie) {
+						c.close();
+						_queue.remove(c);
+					}
+				}
+			}
+
+			// Close the connections
+			_sel.keys().forEach(k -> ((LoadClient) k.attachment()).close());
+			try {
+				_sel.close();
+			} catch (IOException ie) {
+				// empty
+			}
+		}
+	}
+
+	/**
+	 * Creates the load generator.
+	 * @param opts the options, keyed by name
+	 */
+	public LoadGenerator(Map<String, String> opts) {
+		super();
+		_opts = new HashMap<String, String>(DEFAULTS);
+		_opts.putAll(opts);
+		_addr = new InetSocketAddress(get("host"), getInt("port"));
+		_stats = new LoadStats(TimeUnit.SECONDS.toMillis(getInt("report")));
+		_interval = TimeUnit.MILLISECONDS.toNanos(getInt("interval"));
+		_dataReqRate = Double.parseDouble(get("datareq"));
+		_flightTime = getInt("flight");
+	}
+
+	/**
+	 * Parses command line options in the form <i>-name value</i>.
+	 * @param args the command line arguments
+	 * @return a Map of options, keyed by name
+	 */
+	public static Map<String, String> parse(String[] args) {
+		Map<String, String> opts = new HashMap<String, String>();
+		for (int x = 0; x < (args.length - 1); x += 2) {
+			if (!args[x].startsWith("-"))
+				throw new IllegalArgumentException("Invalid option - " + args[x]);
+
+			opts.put(args[x].substring(1), args[x + 1]);
+		}
+
+		return opts;
+	}
+
+	/**
+	 * Returns an option value.
+	 * @param name the option name
+	 * @return the value
+	 */
+	public String get(String name) {
+		return _opts.get(name);
+	}
+
+	/**
+	 * Returns an integer option value.
+	 * @param name the option name
+	 * @return the value
+	 */
+	public int getInt(String name) {
+		return Integer.parseInt(get(name));
+	}
+
+	/**
+	 * Returns the load statistics.
+	 * @return the LoadStats
+	 */
+	LoadStats getStats() {
+		return _stats;
+	}
+
+	/**
+	 * Returns a unique message ID. IDs are unique across all clients, since data responses are broadcast to every connection.
+	 * @return the message ID
+	 */
+	long nextID() {
+		return _id.incrementAndGet();
+	}
+
+	/**
+	 * Returns the position report interval.
+	 * @return the interval in nanoseconds
+	 */
+	long getInterval() {
+		return _interval;
+	}
+
+	/**
+	 * Returns the probability of sending a data request with each position report.
+	 * @return the probability
+	 */
+	double getDataRequestRate() {
+		return _dataReqRate;
+	}
+
+	/**
+	 * Returns the flight duration.
+	 * @return the duration in seconds
+	 */
+	int getFlightTime() {
+		return _flightTime;
+	}
+
+	/**
+	 * Creates the clients and starts the selector threads.
+	 * @throws IOException if a selector cannot be opened
+	 */
+	public void start() throws IOException {
+		int clients = getInt("clients"); int threads = Math.max(1, getInt("threads"));
+		double gzip = Double.parseDouble(get("gzip")); String protocol = get("protocol");
+		long now = System.nanoTime(); long rampUp = TimeUnit.SECONDS.toNanos(getInt("rampup"));
+		List<List<LoadClient>> groups = new ArrayList<List<LoadClient>>();
+		for (int x = 0; x < threads; x++)
+			groups.add(new ArrayList<LoadClient>());
+
+		// Create the clients
+		Random rnd = new Random(clients);
+		for (int x = 0; x < clients; x++) {
+			int version = protocol.equals("mixed") ? (1 + rnd.nextInt(2)) : Integer.parseInt(protocol);
+			LoadClient c = new LoadClient(this, x, version, (rnd.nextDouble() < gzip), now + (rampUp * x / clients));
+			groups.get(x % threads).add(c);
+		}
+
+		// Start the threads
+		_isRunning = true;
+		for (int x = 0; x < threads; x++) {
+			Thread t = Thread.ofPlatform().name("LoadGenerator-" + x).daemon(true).start(new Worker(groups.get(x)));
+			_threads.add(t);
+		}
+
+		System.out.println(String.format("Started %d clients against %s on %d threads, interval %sms, protocol %s, gzip %s", Integer.valueOf(clients), _addr, Integer.valueOf(threads), get("interval"), protocol, get("gzip")));
+	}
+
+	/**
+	 * Prints periodic reports until the duration has passed.
+	 * @param serverStats an optional source of server statistics to include in each report
+	 * @throws InterruptedException if interrupted
+	 */
+	public void run(Supplier<String> serverStats) throws InterruptedException {
+		long duration = TimeUnit.SECONDS.toMillis(getInt("duration")); long report = TimeUnit.SECONDS.toMillis(getInt("report"));
+		long startTime = System.currentTimeMillis(); long endTime = (duration == 0) ? Long.MAX_VALUE : (startTime + duration);
+		while (System.currentTimeMillis() < endTime) {
+			Thread.sleep(Math.min(report, Math.max(1, endTime - System.currentTimeMillis())));
+			System.out.println(String.format("[%ds] %s", Long.valueOf((System.currentTimeMillis() - startTime) / 1000), _stats.report(false)));
+			if (serverStats != null)
+				System.out.println(serverStats.get());
+		}
+	}
+
+	/**
+	 * Stops the selector threads and closes all connections.
+	 * @throws InterruptedException if interrupted
+	 */
+	public void stop() throws InterruptedException {
+		_isRunning = false;
+		for (Thread t : _threads)
+			t.join(2500);
+	}
+
+	public static void main(String[] args) throws Exception {
+		LoadGenerator gen = new LoadGenerator(parse(args));
+		gen.start();
+		gen.run(null);
+		gen.stop();
+		System.out.println("Totals - " + gen.getStats().report(true));
+	}
+}
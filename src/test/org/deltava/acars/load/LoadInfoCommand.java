@@ -0,0 +1,48 @@
+package org.deltava.acars.load;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.deltava.acars.beans.*;
+import org.deltava.acars.command.CommandContext;
+import org.deltava.acars.message.*;
+
+/**
+ * A stub flight information command used when load testing. New flights are assigned an ID from a counter rather than the database, and
+ * the flight information is attached to the connection so position reports are accepted.
+ */
+
+public class LoadInfoCommand extends LoadCommand {
+
+	private static final AtomicInteger _flightID = new AtomicInteger(100000);
+
+	/**
+	 * Executes the command.
+	 * @param ctx the Command context
+	 * @param env the message Envelope
+	 */
+	@Override
+	public void execute(CommandContext ctx, MessageEnvelope env) {
+
+		// Get the message and assign a flight ID
+		InfoMessage msg = (InfoMessage) env.getMessage();
+		ACARSConnection con = ctx.getACARSConnection();
+		if (msg.getFlightID() == 0)
+			msg.setFlightID(_flightID.incrementAndGet());
+
+		// Write the flight
+		AcknowledgeMessage ackMsg = new AcknowledgeMessage(env.getOwner(), msg.getID());
+		if (!write(ctx, "INSERT INTO acars.FLIGHTS (ID) VALUES (?)", msg.getFlightID())) {
+			ackMsg.setEntry("error", "Cannot write Flight " + msg.getFlightID());
+			ctx.push(ackMsg);
+			return;
+		}
+
+		// Send the ACK and save the flight information
+		ackMsg.setEntry("flight_id", String.valueOf(msg.getFlightID()));
+		ackMsg.setEntry("dispatchLogID", String.valueOf(msg.getDispatchLogID()));
+		ackMsg.setEntry("tx", String.valueOf(msg.getTX()));
+		ackMsg.setEntry("schedValid", String.valueOf(msg.isScheduleValidated()));
+		ctx.push(ackMsg, env.getConnectionID(), true);
+		con.setFlightInfo(msg);
+	}
+}
@@ -0,0 +1,57 @@
+package org.deltava.acars.load;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.deltava.acars.beans.*;
+import org.deltava.acars.command.CommandContext;
+import org.deltava.acars.message.*;
+
+/**
+ * A stub flight report command used when load testing. The PIREP is assigned an ID from a counter, written with a single statement and
+ * acknowledged, and the connection's flight information is cleared so the client starts a new flight.
+ */
+
+public class LoadPIREPCommand extends LoadCommand {
+
+	private static final AtomicInteger _pirepID = new AtomicInteger(500000);
+
+	/**
+	 * Executes the command.
+	 * @param ctx the Command context
+	 * @param env the message Envelope
+	 */
+	@Override
+	public void execute(CommandContext ctx, MessageEnvelope env) {
+
+		// Get the message
+		FlightReportMessage msg = (FlightReportMessage) env.getMessage();
+		ACARSConnection ac = ctx.getACARSConnection();
+		AcknowledgeMessage ackMsg = new AcknowledgeMessage(ac.getUser(), msg.getID());
+		InfoMessage info = ac.getFlightInfo();
+		if (info == null) {
+			ackMsg.setEntry("sendInfo", "true");
+			ctx.push(ackMsg);
+			return;
+		}
+
+		// Write the PIREP
+		int pirepID = _pirepID.incrementAndGet();
+		if (!write(ctx, "INSERT INTO PIREPS (ID) VALUES (?)", pirepID)) {
+			ackMsg.setEntry("error", "PIREP Submission failed");
+			ctx.push(ackMsg, ac.getID(), true);
+			return;
+		}
+
+		// Clear the flight and send the ACK
+		ac.setFlightInfo(null);
+		ackMsg.setEntry("pirepID", Integer.toHexString(pirepID));
+		ackMsg.setEntry("flightID", Integer.toHexString(info.getFlightID()));
+		ackMsg.setEntry("domain", ac.getUserData().getDomain());
+		ctx.push(ackMsg, ac.getID(), true);
+	}
+
+	@Override
+	public final int getMaxExecTime() {
+		return 2500;
+	}
+}
@@ -0,0 +1,173 @@
+package org.deltava.acars.load;
+
+import java.nio.file.Path;
+import java.util.*;
+
+import org.deltava.beans.navdata.Airspace;
+import org.deltava.beans.schedule.*;
+import org.deltava.beans.system.AirlineInformation;
+
+import org.deltava.acars.ServerDaemon;
+import org.deltava.acars.beans.ACARSConnection;
+import org.deltava.acars.command.ACARSCommand;
+import org.deltava.acars.message.MessageType;
+import org.deltava.acars.util.AirportIndex;
+import org.deltava.acars.workers.*;
+
+import org.deltava.util.JedisUtils;
+import org.deltava.util.system.SystemData;
+
+import org.gvagroup.common.SharedData;
+import org.gvagroup.pool.*;
+
+/**
+ * An ACARS server started in-process for load testing. The real worker threads, JDBC pool and Jedis pool are used, but the database is
+ * replaced by {@link MemoryDriver}, Valkey by {@link MemoryRedis}, and the authentication, flight information and flight report commands by
+ * stubs that do not need pilot or schedule data. Airports and airlines are created in memory. Any option containing a period overrides the
+ * matching system configuration property, so thread pool and queue sizes can be varied between runs.
+ */
+
+public class LoadServer extends ServerDaemon {
+
+	private static final String[][] AIRPORTS = { { "ATL", "KATL", "Atlanta GA", "33.6367", "-84.4281" }, { "JFK", "KJFK", "New York NY", "40.6398", "-73.7789" },
+		{ "LAX", "KLAX", "Los Angeles CA", "33.9425", "-118.4081" }, { "ORD", "KORD", "Chicago IL", "41.9786", "-87.9048" } };
+
+	private final Map<String, String> _opts;
+	private final Path _redisPath;
+	private JDBCPool _jdbcPool;
+	private JedisPool _jedisPool;
+
+	/**
+	 * Creates the server.
+	 * @param opts the options, keyed by name
+	 * @param redisPath the in-memory Redis socket path
+	 */
+	public LoadServer(Map<String, String> opts, Path redisPath) {
+		super();
+		_opts = opts;
+		_redisPath = redisPath;
+	}
+
+	/*
+	 * Converts an option to a configuration property value.
+	 */
+	private static Object toValue(String value) {
+		if ("true".equalsIgnoreCase(value) || "false".equalsIgnoreCase(value))
+			return Boolean.valueOf(value);
+
+		try {
+			return Integer.valueOf(value);
+		} catch (NumberFormatException nfe) {
+			return value;
+		}
+	}
+
+	/*
+	 * Creates the in-memory airports, and the default airline and application.
+	 */
+	private static void initData(String code) {
+		Map<String, Airport> airports = new HashMap<String, Airport>();
+		for (String[] info : AIRPORTS) {
+			Airport a = new Airport(info[0], info[1], info[2]);
+			a.setLocation(Double.parseDouble(info[3]), Double.parseDouble(info[4]));
+			airports.put(a.getIATA(), a);
+			airports.put(a.getICAO(), a);
+		}
+
+		SystemData.add("airports", airports);
+		AirportIndex.init(new LinkedHashSet<Airport>(airports.values()));
+		Airspace.init(Collections.emptyList());
+
+		// Create the airline and application
+		Airline al = new Airline(code, "Delta Virtual Airlines");
+		al.setActive(true);
+		SystemData.add("airlines", Map.of(code, al));
+		AirlineInformation ai = new AirlineInformation(code, "Delta Virtual Airlines");
+		ai.setDB(code.toLowerCase());
+		ai.setDomain("deltava.org");
+		SystemData.add("apps", Map.of(code, ai));
+	}
+
+	/**
+	 * Creates a message processing worker that uses the stub authentication, flight information and flight report commands.
+	 * @return a LogicProcessor
+	 */
+	@Override
+	protected LogicProcessor createLogicProcessor() {
+		return new LogicProcessor() {
+			@Override
+			protected void initCommands(Map<MessageType, ACARSCommand> cmds) {
+				cmds.put(MessageType.AUTH, new LoadAuthCommand());
+				cmds.put(MessageType.INFO, new LoadInfoCommand());
+				cmds.put(MessageType.PIREP, new LoadPIREPCommand());
+			}
+		};
+	}
+
+	/**
+	 * Initializes the configuration, connection pools and worker threads.
+	 * @throws ConnectionPoolException if a connection pool cannot be started
+	 */
+	public void start() throws ConnectionPoolException {
+		initLog(LoadServer.class);
+		SystemData.init();
+		String code = SystemData.get("airline.code");
+		SharedData.addApp(code);
+
+		// Override the configuration
+		int clients = Integer.parseInt(_opts.getOrDefault("clients", "1000"));
+		SystemData.add("acars.port", Integer.valueOf(_opts.getOrDefault("port", "15527")));
+		SystemData.add("acars.pool.size", Integer.valueOf(clients + 16));
+		SystemData.add("acars.pool.multiple", Boolean.TRUE);
+		SystemData.add("jdbc.driver", MemoryDriver.class.getName());
+		SystemData.add("jdbc.url", MemoryDriver.URL + "?latency=" + _opts.getOrDefault("dbLatency", "1"));
+		SystemData.add("jdbc.connectProperties", new HashMap<String, String>());
+		SystemData.add("jedis.connectProperties", Map.of("addr", _redisPath.toString(), "poolName", "ACARS"));
+		_opts.entrySet().stream().filter(me -> me.getKey().contains(".")).forEach(me -> SystemData.add(me.getKey(), toValue(me.getValue())));
+		initData(SystemData.get("airline.default"));
+
+		// Start the Jedis connection pool
+		log.info("Starting Jedis connection pool");
+		_jedisPool = new JedisPool(SystemData.getInt("jedis.pool_max_size", 2), code);
+		_jedisPool.setProperties((Map<?, ?>) SystemData.getObject("jedis.connectProperties"));
+		_jedisPool.connect(SystemData.getInt("jedis.pool_size"));
+		JedisUtils.init(_jedisPool);
+		SystemData.add(SystemData.JEDIS_POOL, _jedisPool);
+
+		// Start the JDBC connection pool and the server
+		initConnectionPool();
+		_jdbcPool = (JDBCPool) SystemData.getObject(SystemData.JDBC_POOL);
+		initACARSConnectionPool();
+		initTasks();
+		log.info("Started on port {}", Integer.valueOf(SystemData.getInt("acars.port")));
+	}
+
+	/**
+	 * Stops the worker threads and closes the connection pools.
+	 */
+	public void stop() {
+		_threads.keySet().forEach(t -> { t.setUncaughtExceptionHandler(null); t.interrupt(); });
+		_threads.values().forEach(Worker::close);
+		_threads.clear();
+		if (_jdbcPool != null)
+			_jdbcPool.close();
+		if (_jedisPool != null)
+			_jedisPool.close();
+
+		log.info("Stopped");
+	}
+
+	/**
+	 * Formats the server connection and JDBC pool statistics.
+	 * @return the report text
+	 */
+	public String report() {
+		long authCons = _conPool.getAll().stream().filter(ACARSConnection::isAuthenticated).count();
+		StringBuilder buf = new StringBuilder("Server connections ");
+		buf.append(_conPool.size()).append(", authenticated ").append(authCons);
+		buf.append(", JDBC pool ").append(_jdbcPool.getSize()).append('/').append(_jdbcPool.getMaxSize());
+		buf.append(" waits ").append(_jdbcPool.getWaitCount()).append(" max ").append(_jdbcPool.getMaxWaitTime().toMillis()).append("ms");
+		buf.append(" full ").append(_jdbcPool.getFullCount()).append(", queries ").append(MemoryDriver.getQueries()).append(", updates ").append(MemoryDriver.getUpdates());
+		return buf.toString();
+	}
+}
@@ -0,0 +1,119 @@
+package org.deltava.acars.load;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+import org.deltava.acars.beans.*;
+
+/**
+ * Load test counters and acknowledgement latency histograms for each request type. Latencies are kept both for the current reporting
+ * window and for the whole run.
+ */
+
+class LoadStats {
+
+	private final Map<LoadClient.Request, LatencyHistogram> _window = new EnumMap<LoadClient.Request, LatencyHistogram>(LoadClient.Request.class);
+	private final Map<LoadClient.Request, LatencyHistogram> _total = new EnumMap<LoadClient.Request, LatencyHistogram>(LoadClient.Request.class);
+	private final Map<LoadClient.Request, AtomicLong> _errors = new EnumMap<LoadClient.Request, AtomicLong>(LoadClient.Request.class);
+	private final Map<LoadClient.Request, AtomicLong> _timeouts = new EnumMap<LoadClient.Request, AtomicLong>(LoadClient.Request.class);
+	private final Map<LoadClient.State, AtomicLong> _stalls = new EnumMap<LoadClient.State, AtomicLong>(LoadClient.State.class);
+
+	private final AtomicInteger _connected = new AtomicInteger();
+	private final AtomicLong _disconnects = new AtomicLong();
+	private final AtomicLong _lost = new AtomicLong();
+	private final AtomicLong _msgsOut = new AtomicLong();
+	private final AtomicLong _bytesOut = new AtomicLong();
+	private final AtomicLong _bytesIn = new AtomicLong();
+
+	/**
+	 * Creates the statistics.
+	 * @param window the reporting window in milliseconds
+	 */
+	LoadStats(long window) {
+		super();
+		for (LoadClient.Request r : LoadClient.Request.values()) {
+			_window.put(r, new LatencyHistogram(window));
+			_total.put(r, new LatencyHistogram(0));
+			_errors.put(r, new AtomicLong());
+			_timeouts.put(r, new AtomicLong());
+		}
+
+		for (LoadClient.State s : LoadClient.State.values())
+			_stalls.put(s, new AtomicLong());
+	}
+
+	void connected() {
+		_connected.incrementAndGet();
+	}
+
+	void disconnected(int pending) {
+		_connected.decrementAndGet();
+		_disconnects.incrementAndGet();
+		_lost.addAndGet(pending);
+	}
+
+	void sent(int bytes) {
+		_msgsOut.incrementAndGet();
+		_bytesOut.addAndGet(bytes);
+	}
+
+	void received(int bytes) {
+		_bytesIn.addAndGet(bytes);
+	}
+
+	void timeout(LoadClient.Request r) {
+		_timeouts.get(r).incrementAndGet();
+	}
+
+	void stalled(LoadClient.State s) {
+		_stalls.get(s).incrementAndGet();
+	}
+
+	void ack(LoadClient.Request r, long latency, boolean isError) {
+		_window.get(r).add(latency);
+		_total.get(r).add(latency);
+		if (isError)
+			_errors.get(r).incrementAndGet();
+	}
+
+	/**
+	 * Returns the number of open connections.
+	 * @return the number of connections
+	 */
+	int getConnected() {
+		return _connected.get();
+	}
+
+	/**
+	 * Returns the number of messages sent.
+	 * @return the number of messages
+	 */
+	long getMessagesOut() {
+		return _msgsOut.get();
+	}
+
+	/**
+	 * Formats the statistics.
+	 * @param isTotal TRUE to report the whole run, FALSE for the current window
+	 * @return the report text
+	 */
+	String report(boolean isTotal) {
+		StringBuilder buf = new StringBuilder();
+		buf.append("Connected ").append(_connected.get()).append(", disconnects ").append(_disconnects.get()).append(", lost ").append(_lost.get());
+		buf.append(", sent ").append(_msgsOut.get()).append(" msgs / ").append(_bytesOut.get() / 1024).append("KB, received ").append(_bytesIn.get() / 1024).append("KB");
+		buf.append(System.lineSeparator());
+		for (Map.Entry<LoadClient.Request, LatencyHistogram> me : (isTotal ? _total : _window).entrySet()) {
+			LoadClient.Request r = me.getKey();
+			buf.append(String.format("  %-8s %s", r, me.getValue().getSnapshot()));
+			buf.append(" errors ").append(_errors.get(r).get()).append(", timeouts ").append(_timeouts.get(r).get());
+			buf.append(System.lineSeparator());
+		}
+
+		_stalls.forEach((s, cnt) -> {
+			if (cnt.get() > 0)
+				buf.append("  Stalled in ").append(s).append(' ').append(cnt.get()).append(System.lineSeparator());
+		});
+
+		return buf.toString();
+	}
+}
@@ -0,0 +1,211 @@
+package org.deltava.acars.load;
+
+import java.lang.reflect.*;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * An in-memory JDBC driver used in place of the database when load testing. Queries return no rows and updates report one row
+ * changed, after an optional delay to simulate the database round trip. Generated keys are returned from a counter. The delay is
+ * set in the URL, for example <i>jdbc:acars:memory?latency=2</i> waits 2ms per statement.
+ */
+
+public class MemoryDriver implements Driver {
+
+	/**
+	 * The JDBC URL prefix.
+	 */
+	public static final String URL = "jdbc:acars:memory";
+
+	private static final AtomicInteger _keys = new AtomicInteger(1000);
+	private static final AtomicLong _queries = new AtomicLong();
+	private static final AtomicLong _updates = new AtomicLong();
+	private static final AtomicInteger _open = new AtomicInteger();
+
+	static {
+		try {
+			DriverManager.registerDriver(new MemoryDriver());
+		} catch (SQLException se) {
+			throw new IllegalStateException(se);
+		}
+	}
+
+	private static final class Handler implements InvocationHandler {
+		private final Class<?> _type;
+		private final long _latency;
+		private int _rows;
+		private boolean _isClosed;
+
+		Handler(Class<?> type, long latency, int rows) {
+			super();
+			_type = type;
+			_latency = latency;
+			_rows = rows;
+		}
+
+		private Object proxy(Class<?> type, int rows) {
+			return Proxy.newProxyInstance(MemoryDriver.class.getClassLoader(), new Class<?>[] { type }, new Handler(type, _latency, rows));
+		}
+
+		private void execute(AtomicLong counter) {
+			counter.incrementAndGet();
+			if (_latency > 0)
+				LockSupport.parkNanos(_latency);
+		}
+
+		@Override
+		public Object invoke(Object p, Method m, Object[] args) throws Throwable {
+			String name = m.getName();
+			switch (name) {
+				case "toString":
+					return "Memory" + _type.getSimpleName();
+				case "hashCode":
+					return Integer.valueOf(System.identityHashCode(p));
+				case "equals":
+					return Boolean.valueOf(p == args[0]);
+				case "close":
+					if (!_isClosed && (_type == Connection.class))
+						_open.decrementAndGet();
+
+					_isClosed = true;
+					return null;
+				case "isClosed":
+					return Boolean.valueOf(_isClosed);
+				case "isValid":
+					return Boolean.valueOf(!_isClosed);
+				case "isWrapperFor":
+					return Boolean.FALSE;
+				case "unwrap":
+					throw new SQLException("Not a wrapper");
+				case "executeQuery":
+					execute(_queries);
+					return proxy(ResultSet.class, 0);
+				case "executeUpdate":
+					execute(_updates);
+					return Integer.valueOf(1);
+				case "executeLargeUpdate":
+					execute(_updates);
+					return Long.valueOf(1);
+				case "execute":
+					execute(_updates);
+					return Boolean.FALSE;
+				case "executeBatch":
+					execute(_updates);
+					return new int[] { Statement.SUCCESS_NO_INFO };
+				case "getUpdateCount":
+					return Integer.valueOf(-1);
+				case "getGeneratedKeys":
+					return proxy(ResultSet.class, 1);
+				case "next":
+					return Boolean.valueOf(_rows-- > 0);
+				case "getColumnCount":
+					return Integer.valueOf((_type == ResultSetMetaData.class) ? 1 : 0);
+				default:
+					break;
+			}
+
+			// Generated keys, or default values
+			Class<?> rt = m.getReturnType();
+			if ((_type == ResultSet.class) && (rt == int.class) && name.startsWith("get"))
+				return Integer.valueOf(_keys.incrementAndGet());
+			else if ((_type == ResultSet.class) && (rt == long.class) && name.startsWith("get"))
+				return Long.valueOf(_keys.incrementAndGet());
+			else if (rt.isInterface() && rt.getPackageName().equals("java.sql"))
+				return proxy(rt, 0);
+			else if (rt == boolean.class)
+				return Boolean.FALSE;
+			else if (rt == int.class)
+				return Integer.valueOf(0);
+			else if (rt == long.class)
+				return Long.valueOf(0);
+			else if (rt == short.class)
+				return Short.valueOf((short) 0);
+			else if (rt == byte.class)
+				return Byte.valueOf((byte) 0);
+			else if (rt == double.class)
+				return Double.valueOf(0);
+			else if (rt == float.class)
+				return Float.valueOf(0);
+
+			return null;
+		}
+	}
+
+	@Override
+	public Connection connect(String url, Properties info) throws SQLException {
+		if (!acceptsURL(url))
+			return null;
+
+		// Parse the latency
+		long latency = 0;
+		int pos = url.indexOf("latency=");
+		if (pos > -1) {
+			try {
+				latency = TimeUnit.MICROSECONDS.toNanos(Math.round(Double.parseDouble(url.substring(pos + 8)) * 1000));
+			} catch (NumberFormatException nfe) {
+				throw new SQLException("Invalid latency - " + url);
+			}
+		}
+
+		_open.incrementAndGet();
+		return (Connection) Proxy.newProxyInstance(MemoryDriver.class.getClassLoader(), new Class<?>[] { Connection.class }, new Handler(Connection.class, latency, 0));
+	}
+
+	@Override
+	public boolean acceptsURL(String url) {
+		return (url != null) && url.startsWith(URL);
+	}
+
+	@Override
+	public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+		return new DriverPropertyInfo[0];
+	}
+
+	@Override
+	public int getMajorVersion() {
+		return 1;
+	}
+
+	@Override
+	public int getMinorVersion() {
+		return 0;
+	}
+
+	@Override
+	public boolean jdbcCompliant() {
+		return false;
+	}
+
+	@Override
+	public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	/**
+	 * Returns the number of queries executed.
+	 * @return the number of queries
+	 */
+	public static long getQueries() {
+		return _queries.get();
+	}
+
+	/**
+	 * Returns the number of updates executed.
+	 * @return the number of updates
+	 */
+	public static long getUpdates() {
+		return _updates.get();
+	}
+
+	/**
+	 * Returns the number of open connections.
+	 * @return the number of connections
+	 */
+	public static int getOpenConnections() {
+		return _open.get();
+	}
+}
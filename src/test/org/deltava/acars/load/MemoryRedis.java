@@ -0,0 +1,505 @@
+package org.deltava.acars.load;
+
+import java.io.*;
+import java.net.*;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A minimal in-memory Redis server listening on a UNIX domain socket, used in place of Valkey when load testing. It speaks RESP2 and
+ * supports the string, hash, list, set and sorted set commands used by the DAOs, along with key expiry, MULTI/EXEC and PUBLISH. All
+ * commands are serialized on a single lock. Unknown commands return an error and are counted, so they can be added if the server starts
+ * using them.
+ */
+
+public class MemoryRedis implements Runnable, Closeable {
+
+	private static final byte[] OK = "+OK\r\n".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] QUEUED = "+QUEUED\r\n".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] NIL = "$-1\r\n".getBytes(StandardCharsets.US_ASCII);
+
+	private final Path _path;
+	private final ServerSocketChannel _ssc;
+	private final Map<String, Object> _data = new HashMap<String, Object>();
+	private final Map<String, Long> _expiry = new HashMap<String, Long>();
+	private final Map<String, AtomicLong> _unknown = new TreeMap<String, AtomicLong>();
+	private final AtomicLong _cmds = new AtomicLong();
+
+	private static final class SortedSet extends HashMap<String, Double> {
+		SortedSet() {
+			super();
+		}
+	}
+
+	private static final class Reply {
+		private final ByteArrayOutputStream _out = new ByteArrayOutputStream(256);
+
+		Reply raw(byte[] data) {
+			_out.writeBytes(data);
+			return this;
+		}
+
+		Reply line(char type, Object value) {
+			return raw((type + String.valueOf(value) + "\r\n").getBytes(StandardCharsets.UTF_8));
+		}
+
+		Reply integer(long value) {
+			return line(':', Long.valueOf(value));
+		}
+
+		Reply error(String msg) {
+			return line('-', "ERR " + msg);
+		}
+
+		Reply bulk(String value) {
+			if (value == null)
+				return raw(NIL);
+
+			byte[] data = value.getBytes(StandardCharsets.ISO_8859_1);
+			line('$', Integer.valueOf(data.length));
+			raw(data);
+			return raw(new byte[] { '\r', '\n' });
+		}
+
+		Reply array(Collection<String> values) {
+			line('*', Integer.valueOf(values.size()));
+			values.forEach(this::bulk);
+			return this;
+		}
+
+		byte[] toByteArray() {
+			return _out.toByteArray();
+		}
+	}
+
+	/**
+	 * Starts the server.
+	 * @param path the socket path
+	 * @throws IOException if the socket cannot be bound
+	 */
+	public MemoryRedis(Path path) throws IOException {
+		super();
+		_path = path;
+		Files.deleteIfExists(path);
+		_ssc = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+		_ssc.bind(UnixDomainSocketAddress.of(path));
+	}
+
+	/**
+	 * Returns the socket path.
+	 * @return the path
+	 */
+	public Path getPath() {
+		return _path;
+	}
+
+	/**
+	 * Returns the number of commands executed.
+	 * @return the number of commands
+	 */
+	public long getCommands() {
+		return _cmds.get();
+	}
+
+	/**
+	 * Returns the unsupported commands received.
+	 * @return a Map of command counts, keyed by command
+	 */
+	public Map<String, AtomicLong> getUnknownCommands() {
+		synchronized (_unknown) {
+			return new TreeMap<String, AtomicLong>(_unknown);
+		}
+	}
+
+	@Override
+	public void run() {
+		while (_ssc.isOpen()) {
+			try {
+				SocketChannel sc = _ssc.accept();
+				Thread.ofVirtual().name("MemoryRedis-" + sc.hashCode()).start(() -> serve(sc));
+			} catch (ClosedChannelException cce) {
+				break;
+			} catch (IOException ie) {
+				ie.printStackTrace(System.err);
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		_ssc.close();
+		Files.deleteIfExists(_path);
+	}
+
+	/*
+	 * Reads a CRLF terminated line.
+	 */
+	private static String readLine(InputStream in) throws IOException {
+		StringBuilder buf = new StringBuilder();
+		int b = in.read();
+		while ((b != '\r') && (b != -1)) {
+			buf.append((char) b);
+			b = in.read();
+		}
+
+		if (b == -1)
+			throw new EOFException();
+
+		in.read();
+		return buf.toString();
+	}
+
+	/*
+	 * Reads a command sent as an array of bulk strings.
+	 */
+	private static List<String> readCommand(InputStream in) throws IOException {
+		String hdr = readLine(in);
+		if (hdr.isEmpty() || (hdr.charAt(0) != '*'))
+			return List.of(hdr.trim().split("\\s+"));
+
+		int cnt = Integer.parseInt(hdr.substring(1));
+		List<String> args = new ArrayList<String>(cnt);
+		for (int x = 0; x < cnt; x++) {
+			int len = Integer.parseInt(readLine(in).substring(1));
+			byte[] data = in.readNBytes(len + 2);
+			if (data.length < (len + 2))
+				throw new EOFException();
+
+			args.add(new String(data, 0, len, StandardCharsets.ISO_8859_1));
+		}
+
+		return args;
+	}
+
+	/*
+	 * Serves a client connection.
+	 */
+	private void serve(SocketChannel sc) {
+		List<List<String>> tx = null;
+		try (sc; InputStream in = new BufferedInputStream(Channels.newInputStream(sc)); OutputStream out = new BufferedOutputStream(Channels.newOutputStream(sc))) {
+			while (true) {
+				List<String> args = readCommand(in);
+				String cmd = args.get(0).toUpperCase();
+				Reply rsp = new Reply();
+				if (cmd.equals("MULTI")) {
+					tx = new ArrayList<List<String>>();
+					rsp.raw(OK);
+				} else if (cmd.equals("DISCARD")) {
+					tx = null;
+					rsp.raw(OK);
+				} else if (cmd.equals("EXEC")) {
+					if (tx == null)
+						rsp.error("EXEC without MULTI");
+					else {
+						rsp.line('*', Integer.valueOf(tx.size()));
+						synchronized (_data) {
+							for (List<String> txCmd : tx)
+								execute(txCmd.get(0).toUpperCase(), txCmd, rsp);
+						}
+
+						tx = null;
+					}
+				} else if (tx != null) {
+					tx.add(args);
+					rsp.raw(QUEUED);
+				} else {
+					synchronized (_data) {
+						execute(cmd, args, rsp);
+					}
+				}
+
+				out.write(rsp.toByteArray());
+				if (in.available() == 0)
+					out.flush();
+			}
+		} catch (EOFException | ClosedChannelException e) {
+			// empty
+		} catch (IOException ie) {
+			if (_ssc.isOpen())
+				System.err.println("MemoryRedis error - " + ie.getMessage());
+		}
+	}
+
+	/*
+	 * Returns a live value, removing it if expired.
+	 */
+	private Object get(String key) {
+		Long exp = _expiry.get(key);
+		if ((exp != null) && (exp.longValue() <= System.currentTimeMillis())) {
+			_expiry.remove(key);
+			_data.remove(key);
+		}
+
+		return _data.get(key);
+	}
+
+	/*
+	 * Returns a live value of a given type, creating it if missing.
+	 */
+	@SuppressWarnings("unchecked")
+	private <T> T get(String key, Class<?> type, boolean create) {
+		Object o = get(key);
+		if ((o == null) && create) {
+			if (type == Map.class)
+				o = new LinkedHashMap<String, String>();
+			else if (type == List.class)
+				o = new ArrayList<String>();
+			else if (type == Set.class)
+				o = new LinkedHashSet<String>();
+			else if (type == SortedSet.class)
+				o = new SortedSet();
+
+			_data.put(key, o);
+		}
+
+		if ((o != null) && (!type.isInstance(o) || ((type == Map.class) && (o instanceof SortedSet))))
+			throw new IllegalArgumentException("WRONGTYPE Operation against a key holding the wrong kind of value");
+
+		return (T) o;
+	}
+
+	/*
+	 * Sets an expiry time.
+	 */
+	private long expire(String key, long ms) {
+		if (get(key) == null)
+			return 0;
+
+		_expiry.put(key, Long.valueOf(System.currentTimeMillis() + ms));
+		return 1;
+	}
+
+	/*
+	 * Returns a sorted set's members ordered by score.
+	 */
+	private static List<String> sorted(Map<String, Double> zset) {
+		List<Map.Entry<String, Double>> entries = new ArrayList<Map.Entry<String, Double>>(zset.entrySet());
+		entries.sort(Map.Entry.<String, Double>comparingByValue().thenComparing(Map.Entry.comparingByKey()));
+		return entries.stream().map(Map.Entry::getKey).toList();
+	}
+
+	/*
+	 * Returns a sub-list using Redis range semantics.
+	 */
+	private static List<String> range(List<String> values, String start, String end) {
+		int size = values.size();
+		int s = Integer.parseInt(start); int e = Integer.parseInt(end);
+		if (s < 0) s = Math.max(0, size + s);
+		if (e < 0) e = size + e;
+		e = Math.min(e, size - 1);
+		return (s > e) ? Collections.emptyList() : new ArrayList<String>(values.subList(s, e + 1));
+	}
+
+	/*
+	 * Executes a command.
+	 */
+	private void execute(String cmd, List<String> args, Reply rsp) {
+		_cmds.incrementAndGet();
+		String key = (args.size() > 1) ? args.get(1) : null;
+		try {
+			switch (cmd) {
+				case "PING" -> rsp.line('+', (args.size() > 1) ? args.get(1) : "PONG");
+				case "SELECT", "AUTH", "CLIENT", "FLUSHDB", "FLUSHALL", "WATCH", "UNWATCH" -> {
+					if (cmd.startsWith("FLUSH")) {
+						_data.clear();
+						_expiry.clear();
+					}
+
+					rsp.raw(OK);
+				}
+				case "ECHO" -> rsp.bulk(key);
+				case "INFO" -> rsp.bulk("# Server\r\nredis_version:7.2.0\r\n");
+				case "DBSIZE" -> rsp.integer(_data.size());
+				case "GET" -> rsp.bulk(get(key, String.class, false));
+				case "SET" -> {
+					_data.put(key, args.get(2));
+					_expiry.remove(key);
+					for (int x = 3; x < args.size() - 1; x++) {
+						String opt = args.get(x).toUpperCase();
+						if (opt.equals("EX"))
+							expire(key, Long.parseLong(args.get(x + 1)) * 1000);
+						else if (opt.equals("PX"))
+							expire(key, Long.parseLong(args.get(x + 1)));
+					}
+
+					rsp.raw(OK);
+				}
+				case "SETEX", "PSETEX" -> {
+					_data.put(key, args.get(3));
+					long ms = Long.parseLong(args.get(2));
+					expire(key, cmd.equals("SETEX") ? (ms * 1000) : ms);
+					rsp.raw(OK);
+				}
+				case "MGET" -> {
+					List<String> results = new ArrayList<String>();
+					args.subList(1, args.size()).forEach(k -> results.add(get(k) instanceof String s ? s : null));
+					rsp.array(results);
+				}
+				case "INCR", "INCRBY", "DECR", "DECRBY" -> {
+					long delta = (args.size() > 2) ? Long.parseLong(args.get(2)) : 1;
+					if (cmd.startsWith("DECR")) delta = -delta;
+					String v = get(key, String.class, false);
+					long value = ((v == null) ? 0 : Long.parseLong(v)) + delta;
+					_data.put(key, String.valueOf(value));
+					rsp.integer(value);
+				}
+				case "DEL", "UNLINK" -> {
+					long cnt = 0;
+					for (String k : args.subList(1, args.size())) {
+						_expiry.remove(k);
+						if (_data.remove(k) != null) cnt++;
+					}
+
+					rsp.integer(cnt);
+				}
+				case "EXISTS" -> rsp.integer(args.subList(1, args.size()).stream().filter(k -> get(k) != null).count());
+				case "EXPIRE" -> rsp.integer(expire(key, Long.parseLong(args.get(2)) * 1000));
+				case "PEXPIRE" -> rsp.integer(expire(key, Long.parseLong(args.get(2))));
+				case "EXPIREAT" -> rsp.integer(expire(key, Long.parseLong(args.get(2)) * 1000 - System.currentTimeMillis()));
+				case "TTL", "PTTL" -> {
+					Long exp = _expiry.get(key);
+					if (get(key) == null)
+						rsp.integer(-2);
+					else if (exp == null)
+						rsp.integer(-1);
+					else {
+						long ms = exp.longValue() - System.currentTimeMillis();
+						rsp.integer(cmd.equals("TTL") ? ((ms + 500) / 1000) : ms);
+					}
+				}
+				case "PERSIST" -> rsp.integer((_expiry.remove(key) != null) ? 1 : 0);
+				case "KEYS" -> {
+					String regex = key.replace("?", ".").replace("*", ".*");
+					List<String> keys = new ArrayList<String>(_data.keySet()).stream().filter(k -> get(k) != null).filter(k -> k.matches(regex)).toList();
+					rsp.array(keys);
+				}
+				case "PUBLISH" -> rsp.integer(0);
+				case "HSET", "HMSET" -> {
+					Map<String, String> h = get(key, Map.class, true);
+					long cnt = 0;
+					for (int x = 2; x < args.size() - 1; x += 2)
+						if (h.put(args.get(x), args.get(x + 1)) == null) cnt++;
+
+					if (cmd.equals("HSET"))
+						rsp.integer(cnt);
+					else
+						rsp.raw(OK);
+				}
+				case "HGET" -> {
+					Map<String, String> h = get(key, Map.class, false);
+					rsp.bulk((h == null) ? null : h.get(args.get(2)));
+				}
+				case "HDEL" -> {
+					Map<String, String> h = get(key, Map.class, false);
+					rsp.integer((h == null) ? 0 : args.subList(2, args.size()).stream().filter(f -> h.remove(f) != null).count());
+				}
+				case "HLEN" -> {
+					Map<String, String> h = get(key, Map.class, false);
+					rsp.integer((h == null) ? 0 : h.size());
+				}
+				case "HKEYS", "HVALS" -> {
+					Map<String, String> h = get(key, Map.class, false);
+					rsp.array((h == null) ? Collections.emptyList() : (cmd.equals("HKEYS") ? h.keySet() : h.values()));
+				}
+				case "HGETALL" -> {
+					Map<String, String> h = get(key, Map.class, false);
+					List<String> results = new ArrayList<String>();
+					if (h != null)
+						h.forEach((k, v) -> { results.add(k); results.add(v); });
+
+					rsp.array(results);
+				}
+				case "RPUSH", "LPUSH" -> {
+					List<String> l = get(key, List.class, true);
+					for (String v : args.subList(2, args.size())) {
+						if (cmd.equals("RPUSH"))
+							l.add(v);
+						else
+							l.add(0, v);
+					}
+
+					rsp.integer(l.size());
+				}
+				case "LPOP", "RPOP" -> {
+					List<String> l = get(key, List.class, false);
+					rsp.bulk(((l == null) || l.isEmpty()) ? null : l.remove(cmd.equals("LPOP") ? 0 : l.size() - 1));
+				}
+				case "LLEN" -> {
+					List<String> l = get(key, List.class, false);
+					rsp.integer((l == null) ? 0 : l.size());
+				}
+				case "LRANGE" -> {
+					List<String> l = get(key, List.class, false);
+					rsp.array((l == null) ? Collections.emptyList() : range(l, args.get(2), args.get(3)));
+				}
+				case "LTRIM" -> {
+					List<String> l = get(key, List.class, false);
+					if (l != null) {
+						List<String> kept = range(l, args.get(2), args.get(3));
+						l.clear();
+						l.addAll(kept);
+					}
+
+					rsp.raw(OK);
+				}
+				case "SADD" -> {
+					Set<String> s = get(key, Set.class, true);
+					rsp.integer(args.subList(2, args.size()).stream().filter(s::add).count());
+				}
+				case "SREM" -> {
+					Set<String> s = get(key, Set.class, false);
+					rsp.integer((s == null) ? 0 : args.subList(2, args.size()).stream().filter(s::remove).count());
+				}
+				case "SMEMBERS" -> {
+					Set<String> s = get(key, Set.class, false);
+					rsp.array((s == null) ? Collections.emptySet() : s);
+				}
+				case "SCARD" -> {
+					Set<String> s = get(key, Set.class, false);
+					rsp.integer((s == null) ? 0 : s.size());
+				}
+				case "SISMEMBER" -> {
+					Set<String> s = get(key, Set.class, false);
+					rsp.integer(((s != null) && s.contains(args.get(2))) ? 1 : 0);
+				}
+				case "ZADD" -> {
+					Map<String, Double> z = get(key, SortedSet.class, true);
+					long cnt = 0;
+					for (int x = 2; x < args.size() - 1; x += 2)
+						if (z.put(args.get(x + 1), Double.valueOf(args.get(x))) == null) cnt++;
+
+					rsp.integer(cnt);
+				}
+				case "ZREM" -> {
+					Map<String, Double> z = get(key, SortedSet.class, false);
+					rsp.integer((z == null) ? 0 : args.subList(2, args.size()).stream().filter(m -> z.remove(m) != null).count());
+				}
+				case "ZCARD" -> {
+					Map<String, Double> z = get(key, SortedSet.class, false);
+					rsp.integer((z == null) ? 0 : z.size());
+				}
+				case "ZRANGE", "ZREVRANGE" -> {
+					Map<String, Double> z = get(key, SortedSet.class, false);
+					List<String> members = (z == null) ? Collections.emptyList() : new ArrayList<String>(sorted(z));
+					if (cmd.equals("ZREVRANGE"))
+						Collections.reverse(members);
+
+					rsp.array(range(members, args.get(2), args.get(3)));
+				}
+				default -> {
+					synchronized (_unknown) {
+						_unknown.computeIfAbsent(cmd, _ -> new AtomicLong()).incrementAndGet();
+					}
+
+					rsp.error("unknown command '" + cmd + "'");
+				}
+			}
+		} catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+			String msg = String.valueOf(e.getMessage());
+			rsp.line('-', msg.startsWith("WRONGTYPE") ? msg : ("ERR " + msg));
+		}
+	}
+}
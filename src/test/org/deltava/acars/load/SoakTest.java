@@ -0,0 +1,42 @@
+package org.deltava.acars.load;
+
+import java.nio.file.*;
+import java.util.Map;
+
+/**
+ * Starts an in-process ACARS server backed by in-memory stand-ins for the database and Valkey, then drives it with a {@link LoadGenerator}
+ * for the configured duration. Options are the same as for LoadGenerator, along with <i>-dbLatency</i> to set the simulated database
+ * round trip in milliseconds. Options containing a period override system configuration properties, for example
+ * <i>-acars.pool.threads.logic.max 8</i>.
+ * <pre>java org.deltava.acars.load.SoakTest [-clients 2000] [-interval 1000] [-dbLatency 1] [-acars.pool.threads.read 2] ...</pre>
+ */
+
+public class SoakTest {
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> opts = LoadGenerator.parse(args);
+		opts.putIfAbsent("host", "localhost");
+
+		// Start Redis and the server
+		Path redisPath = Files.createTempDirectory("acars-soak").resolve("redis.sock");
+		try (MemoryRedis redis = new MemoryRedis(redisPath)) {
+			Thread.ofPlatform().name("MemoryRedis").daemon(true).start(redis);
+			LoadServer srv = new LoadServer(opts, redisPath);
+			srv.start();
+			Thread.sleep(1000);
+
+			// Run the load
+			LoadGenerator gen = new LoadGenerator(opts);
+			gen.start();
+			try {
+				gen.run(srv::report);
+			} finally {
+				gen.stop();
+				System.out.println("Totals - " + gen.getStats().report(true));
+				System.out.println(srv.report());
+				System.out.println("Redis commands " + redis.getCommands() + ", unsupported " + redis.getUnknownCommands());
+				srv.stop();
+			}
+		}
+	}
+}
@@ -0,0 +1,221 @@
+package org.deltava.acars.pool;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import junit.framework.TestCase;
+
+public class TestMailboxExecutor extends TestCase {
+
+	private Lane _fast;
+	private Lane _slow;
+	private MailboxExecutor _exec;
+
+	private static class Task extends PoolWorker {
+		private final Runnable _r;
+
+		Task(Runnable r) {
+			super();
+			_r = r;
+		}
+
+		@Override
+		public String getName() {
+			return "Test Task";
+		}
+
+		@Override
+		public void run() {
+			_r.run();
+		}
+	}
+
+	private static class Entry {
+		private final int _producer;
+		private final int _seq;
+
+		Entry(int producer, int seq) {
+			super();
+			_producer = producer;
+			_seq = seq;
+		}
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (_fast != null)
+			_fast.shutdown(2000);
+		if (_slow != null)
+			_slow.shutdown(2000);
+
+		super.tearDown();
+	}
+
+	private void init(int fastThreads, int slowThreads) {
+		_fast = new Lane("Fast", 10, fastThreads, fastThreads, false, TestMailboxExecutor.class);
+		_slow = new Lane("Slow", 20, slowThreads, slowThreads, false, TestMailboxExecutor.class);
+		_exec = new MailboxExecutor(TestMailboxExecutor.class);
+	}
+
+	private void waitForEmpty() throws InterruptedException {
+		long endTime = System.currentTimeMillis() + 2000;
+		while ((_exec.size() > 0) && (System.currentTimeMillis() < endTime))
+			Thread.sleep(5);
+
+		assertEquals(0, _exec.size());
+		assertEquals(0, _fast.getWaiting());
+		assertEquals(0, _slow.getWaiting());
+	}
+
+	public void testOrderAcrossLanes() throws Exception {
+		init(4, 4);
+		final int producers = 8; final int connections = 3; final int tasks = 2000;
+		Map<Long, List<Entry>> results = new ConcurrentHashMap<Long, List<Entry>>();
+		Map<Long, AtomicInteger> running = new ConcurrentHashMap<Long, AtomicInteger>();
+		for (long id = 1; id <= connections; id++) {
+			results.put(Long.valueOf(id), Collections.synchronizedList(new ArrayList<Entry>()));
+			running.put(Long.valueOf(id), new AtomicInteger());
+		}
+
+		AtomicInteger overlaps = new AtomicInteger();
+		CountDownLatch done = new CountDownLatch(producers * tasks);
+		Collection<Thread> threads = new ArrayList<Thread>();
+		for (int p = 0; p < producers; p++) {
+			final int producer = p; final Long id = Long.valueOf(1 + (p % connections));
+			Thread t = new Thread(() -> {
+				Random r = new Random(producer);
+				for (int x = 0; x < tasks; x++) {
+					Entry e = new Entry(producer, x);
+					Lane l = r.nextBoolean() ? _fast : _slow;
+					_exec.execute(id.longValue(), new Task(() -> {
+						AtomicInteger cnt = running.get(id);
+						if (cnt.incrementAndGet() > 1)
+							overlaps.incrementAndGet();
+
+						results.get(id).add(e);
+						cnt.decrementAndGet();
+						done.countDown();
+					}), l);
+				}
+			}, "Producer-" + p);
+			threads.add(t);
+		}
+
+		threads.forEach(Thread::start);
+		for (Thread t : threads)
+			t.join(5000);
+
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		assertEquals(0, overlaps.get());
+		for (List<Entry> entries : results.values()) {
+			int[] lastSeq = new int[producers];
+			Arrays.fill(lastSeq, -1);
+			for (Entry e : entries) {
+				assertTrue(e._seq > lastSeq[e._producer]);
+				lastSeq[e._producer] = e._seq;
+			}
+		}
+
+		waitForEmpty();
+	}
+
+	public void testFairness() throws Exception {
+		init(1, 1);
+		CountDownLatch start = new CountDownLatch(1);
+		CountDownLatch done = new CountDownLatch(41);
+		List<Long> order = Collections.synchronizedList(new ArrayList<Long>());
+
+		// Block the first connection's first task until all tasks are queued
+		_exec.execute(1, new Task(() -> {
+			try {
+				start.await(2, TimeUnit.SECONDS);
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+			}
+
+			order.add(Long.valueOf(1));
+			done.countDown();
+		}), _fast);
+
+		for (int x = 1; x < 40; x++) {
+			_exec.execute(1, new Task(() -> {
+				order.add(Long.valueOf(1));
+				done.countDown();
+			}), _fast);
+		}
+
+		_exec.execute(2, new Task(() -> {
+			order.add(Long.valueOf(2));
+			done.countDown();
+		}), _fast);
+
+		start.countDown();
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertEquals(41, order.size());
+		assertEquals(16, order.indexOf(Long.valueOf(2)));
+		waitForEmpty();
+	}
+
+	public void testLaneSwitch() throws Exception {
+		init(1, 1);
+		CountDownLatch start = new CountDownLatch(1);
+		CountDownLatch done = new CountDownLatch(3);
+		List<String> order = Collections.synchronizedList(new ArrayList<String>());
+
+		// A fast task queued behind a slow task waits for it, even though the fast lane is idle
+		_exec.execute(1, new Task(() -> {
+			try {
+				start.await(2, TimeUnit.SECONDS);
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+			}
+
+			order.add("slow");
+			done.countDown();
+		}), _slow);
+
+		_exec.execute(1, new Task(() -> { order.add("fast"); done.countDown(); }), _fast);
+		_exec.execute(2, new Task(() -> { order.add("other"); done.countDown(); }), _fast);
+
+		// Another connection's fast task is not delayed
+		long endTime = System.currentTimeMillis() + 2000;
+		while (order.isEmpty() && (System.currentTimeMillis() < endTime))
+			Thread.sleep(5);
+
+		assertEquals(List.of("other"), new ArrayList<String>(order));
+		start.countDown();
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertEquals(List.of("other", "slow", "fast"), new ArrayList<String>(order));
+		waitForEmpty();
+	}
+
+	public void testCloseWhileSubmitting() throws Exception {
+		init(2, 2);
+		final int producers = 4; final int tasks = 20000;
+		AtomicInteger executed = new AtomicInteger();
+		CountDownLatch done = new CountDownLatch(producers * tasks);
+		Collection<Thread> threads = new ArrayList<Thread>();
+		for (int p = 0; p < producers; p++) {
+			final int producer = p;
+			Thread t = new Thread(() -> {
+				for (int x = 0; x < tasks; x++) {
+					_exec.execute(1, new Task(() -> { executed.incrementAndGet(); done.countDown(); }), ((x + producer) % 3 == 0) ? _slow : _fast);
+
+					// Let the mailbox drain, so that it closes while other tasks are being submitted
+					if ((x % 64) == 0)
+						Thread.yield();
+				}
+			}, "Producer-" + p);
+			threads.add(t);
+		}
+
+		threads.forEach(Thread::start);
+		for (Thread t : threads)
+			t.join(10000);
+
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		assertEquals(producers * tasks, executed.get());
+		waitForEmpty();
+	}
+}
@@ -2,6 +2,7 @@ package org.deltava.acars.util;
 
 import java.io.*;
 import java.util.Arrays;
+import java.util.zip.*;
 
 import org.deltava.beans.Compression;
 
@@ -28,6 +29,28 @@ public class TestDataCompressor extends TestCase {
 		return buf.toString();
 	}
 	
+	private static byte[] legacyCompress(byte[] data) throws IOException {
+		try (ByteArrayOutputStream out = new ByteArrayOutputStream(data.length); PacketOutputStream dos = new PacketOutputStream(out)) {
+			dos.writeInt32(0x8B1FAC00);
+			try (ByteArrayOutputStream bufs = new ByteArrayOutputStream(data.length)) {
+				try (InputStream is = new ByteArrayInputStream(data); OutputStream os = new GZIPOutputStream(bufs, 1024, true)) {
+					byte[] buffer = new byte[1024]; int bytesRead = is.read(buffer);
+					while (bytesRead > 0) {
+						os.write(buffer, 0, bytesRead);
+						bytesRead = is.read(buffer);
+					}
+				}
+
+				byte[] pkt = bufs.toByteArray();
+				dos.writeInt32(pkt.length);
+				dos.write(pkt);
+			}
+
+			dos.flush();
+			return out.toByteArray();
+		}
+	}
+	
 	public void testRaw() {
 		DataCompressor cmp = new DataCompressor();
 		assertEquals(Compression.NONE, cmp.getCompression());
@@ -204,4 +227,86 @@ public class TestDataCompressor extends TestCase {
 		assertEquals(rawData.length, rawData2.length);
 		assertEquals(data1, new String(rawData2, UTF_8));
 	}
+	
+	public void testLegacyFormat() throws IOException {
+		StringBuilder buf = new StringBuilder();
+		for (int x = 0; x < 64; x++)
+			buf.append(loadFile("data/positionMsg.xml"));
+		
+		for (String data1 : new String[] { loadFile("data/multiMsg.xml"), loadFile("data/positionMsg.xml"), buf.toString(), "" }) {
+			byte[] rawData = data1.getBytes(UTF_8);
+			byte[] legacyData = legacyCompress(rawData);
+			
+			// Compress twice to ensure the engine is reset
+			for (int x = 0; x < 2; x++) {
+				byte[] data = DataCompressor.compress(rawData, Compression.GZIP);
+				assertNotNull(data);
+				assertTrue(Arrays.equals(legacyData, data));
+			}
+		}
+	}
+	
+	public void testLegacyDecompress() throws IOException {
+		String data1 = loadFile("data/multiMsg.xml");
+		byte[] rawData = data1.getBytes(UTF_8);
+		
+		// Decompress legacy packets
+		byte[] rawData2 = DataCompressor.decompress(legacyCompress(rawData), Compression.GZIP);
+		assertNotNull(rawData2);
+		assertEquals(data1, new String(rawData2, UTF_8));
+		
+		// Decompress new packets with GZIPInputStream
+		byte[] data = DataCompressor.compress(rawData, Compression.GZIP);
+		try (ByteArrayOutputStream out = new ByteArrayOutputStream(); InputStream in = new GZIPInputStream(new ByteArrayInputStream(data, 8, data.length - 8))) {
+			in.transferTo(out);
+			assertEquals(data1, new String(out.toByteArray(), UTF_8));
+		}
+		
+		// Corrupt the data
+		data[data.length - 12] ^= 0x5A;
+		assertNull(DataCompressor.decompress(data, Compression.GZIP));
+	}
+	
+	public void testStreaming() {
+		DataCompressor cmp = new DataCompressor();
+		cmp.setStreaming(true);
+		assertTrue(cmp.isStreaming());
+		assertTrue(cmp.hasDictionary());
+		assertEquals(Compression.GZIP, cmp.getCompression());
+		
+		DataCompressor cmp2 = new DataCompressor();
+		cmp2.setStreaming(true);
+		
+		int streamSize = 0; int gzipSize = 0;
+		for (int x = 0; x < 32; x++) {
+			String ack = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\r\n<ACARSResponse version=\"2\">\r\n  <CMD type=\"ack\" id=\"" + Integer.toHexString(0x1A2B + x) + "\" maxAge=\"0\" />\r\n</ACARSResponse>\r\n";
+			byte[] rawData = ack.getBytes(UTF_8);
+			byte[] data = cmp.compress(rawData);
+			assertTrue(DataCompressor.isCompressed(data));
+			streamSize += data.length;
+			gzipSize += DataCompressor.compress(rawData, Compression.GZIP).length;
+			
+			byte[] rawData2 = cmp2.decompress(data);
+			assertNotNull(rawData2);
+			assertEquals(ack, new String(rawData2, UTF_8));
+		}
+		
+		assertTrue(streamSize < (gzipSize / 2));
+		
+		// Drop a packet and reset
+		byte[] rawData = loadFile("data/positionMsg.xml").getBytes(UTF_8);
+		cmp.compress(rawData);
+		cmp.resetStream();
+		byte[] data = cmp.compress(rawData);
+		byte[] rawData2 = cmp2.decompress(data);
+		assertNotNull(rawData2);
+		assertTrue(Arrays.equals(rawData, rawData2));
+		
+		// Streaming packets are rejected unless negotiated
+		DataCompressor cmp3 = new DataCompressor();
+		cmp3.setCompression(Compression.GZIP);
+		assertNull(cmp3.decompress(data));
+		cmp3.setStreaming(false);
+		assertNull(cmp3.decompress(data));
+	}
 }
\ No newline at end of file
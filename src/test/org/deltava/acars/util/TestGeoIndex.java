@@ -0,0 +1,90 @@
+package org.deltava.acars.util;
+
+import java.util.*;
+
+import org.deltava.beans.GeoLocation;
+import org.deltava.beans.schedule.GeoPosition;
+
+import junit.framework.TestCase;
+
+@SuppressWarnings("static-method")
+public class TestGeoIndex extends TestCase {
+
+	private static final GeoLocation ATL = new GeoPosition(33.6367, -84.4281);
+	private static final GeoLocation JFK = new GeoPosition(40.6398, -73.7789);
+	private static final GeoLocation LHR = new GeoPosition(51.4775, -0.4614);
+	private static final GeoLocation NRT = new GeoPosition(35.7647, 140.3864);
+	private static final GeoLocation ANC = new GeoPosition(61.1743, -149.9962);
+	private static final GeoLocation SVO = new GeoPosition(55.9726, 37.4146);
+
+	private static GeoIndex<String, String> build(double cellSize) {
+		GeoIndex<String, String> idx = new GeoIndex<String, String>(cellSize);
+		idx.put("ATL", "ATL", ATL);
+		idx.put("JFK", "JFK", JFK);
+		idx.put("LHR", "LHR", LHR);
+		idx.put("NRT", "NRT", NRT);
+		idx.put("ANC", "ANC", ANC);
+		idx.put("SVO", "SVO", SVO);
+		return idx;
+	}
+
+	public void testWithin() {
+		GeoIndex<String, String> idx = build(2);
+		assertEquals(6, idx.size());
+		assertEquals(Set.of("ATL"), new HashSet<String>(idx.within(ATL, 100)));
+		assertEquals(Set.of("ATL", "JFK"), new HashSet<String>(idx.within(ATL, ATL.distanceTo(JFK) + 5)));
+		assertTrue(idx.within(new GeoPosition(0, 0), 500).isEmpty());
+		assertEquals(6, idx.within(ATL, 12500).size());
+	}
+
+	public void testNearest() {
+		GeoIndex<String, String> idx = build(1);
+		assertEquals("JFK", idx.nearest(new GeoPosition(41, -74)));
+		assertEquals(List.of("LHR", "SVO"), idx.nearest(new GeoPosition(50, 0), 2));
+		assertEquals("NRT", idx.nearest(new GeoPosition(35, 179.5)));
+		assertEquals(6, idx.nearest(ATL, 10).size());
+	}
+
+	public void testAntimeridian() {
+		GeoIndex<String, String> idx = new GeoIndex<String, String>(2);
+		idx.put("E", "E", new GeoPosition(10, 179.9));
+		idx.put("W", "W", new GeoPosition(10, -179.9));
+		assertEquals(Set.of("E", "W"), new HashSet<String>(idx.within(new GeoPosition(10, 179.5), 50)));
+		assertEquals(Set.of("E", "W"), new HashSet<String>(idx.within(new GeoPosition(10, -179.5), 50)));
+	}
+
+	public void testMove() {
+		GeoIndex<String, String> idx = build(2);
+		idx.put("ATL", "ATL", LHR);
+		assertEquals(6, idx.size());
+		assertTrue(idx.within(ATL, 100).isEmpty());
+		assertEquals(Set.of("ATL", "LHR"), new HashSet<String>(idx.within(LHR, 10)));
+
+		idx.remove("ATL");
+		assertEquals(5, idx.size());
+		assertEquals(List.of("LHR"), idx.within(LHR, 10));
+		idx.clear();
+		assertEquals(0, idx.size());
+		assertNull(idx.nearest(ATL));
+	}
+
+	public void testCells() {
+		GeoIndex<Integer, GeoLocation> idx = new GeoIndex<Integer, GeoLocation>(2);
+		List<GeoLocation> locs = new ArrayList<GeoLocation>();
+		Random r = new Random(1);
+		for (int x = 0; x < 20000; x++) {
+			GeoLocation loc = new GeoPosition(r.nextDouble() * 170 - 85, r.nextDouble() * 360 - 180);
+			locs.add(loc);
+			idx.put(Integer.valueOf(x), loc, loc);
+		}
+
+		// Compare against a full scan
+		for (GeoLocation ctr : new GeoLocation[] { ATL, LHR, NRT, ANC, new GeoPosition(10, 179.5), new GeoPosition(-80, 0) }) {
+			for (int distance : new int[] { 50, 250, 1500 }) {
+				Set<GeoLocation> expected = new HashSet<GeoLocation>();
+				locs.stream().filter(loc -> ctr.distanceTo(loc) <= distance).forEach(expected::add);
+				assertEquals(expected, new HashSet<GeoLocation>(idx.within(ctr, distance)));
+			}
+		}
+	}
+}
@@ -0,0 +1,141 @@
+package org.deltava.acars.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.file.*;
+
+import org.deltava.acars.xml.ProtocolInfo;
+
+import junit.framework.TestCase;
+
+@SuppressWarnings("static-method")
+public class TestMessageFramer extends TestCase {
+
+	private static final String MSG1 = "<ACARSRequest version=\"2\" id=\"1A\"><CMD type=\"ping\" /></ACARSRequest>";
+	private static final String MSG2 = "<ACARSRequest version=\"2\" id=\"1B\"><CMD type=\"ping\" /></ACARSRequest>";
+
+	public void testSingle() {
+		MessageFramer mf = new MessageFramer(256);
+		mf.add(MSG1.getBytes(UTF_8));
+		String msgs = mf.next();
+		assertEquals(ProtocolInfo.XML_HEADER + MSG1, msgs);
+		assertEquals(1, mf.getFrameCount());
+		assertEquals(0, mf.size());
+		assertNull(mf.next());
+	}
+
+	public void testMultiple() {
+		MessageFramer mf = new MessageFramer(256);
+		mf.add(ByteBuffer.wrap((MSG1 + "\r\n" + MSG2 + "\r\n").getBytes(UTF_8)));
+		String msgs = mf.next();
+		assertEquals(ProtocolInfo.XML_HEADER + MSG1 + ProtocolInfo.XML_HEADER + MSG2, msgs);
+		assertEquals(2, mf.getFrameCount());
+		assertFalse(mf.isMalformed());
+	}
+
+	public void testSplit() {
+		MessageFramer mf = new MessageFramer(256);
+		byte[] data = (MSG1 + MSG2).getBytes(UTF_8);
+
+		// Feed one byte at a time, so markers are split across reads
+		StringBuilder buf = new StringBuilder();
+		for (int x = 0; x < data.length; x++) {
+			mf.add(new byte[] { data[x] });
+			String msgs = mf.next();
+			if (msgs != null) {
+				assertEquals(1, mf.getFrameCount());
+				buf.append(msgs);
+			}
+		}
+
+		assertEquals(ProtocolInfo.XML_HEADER + MSG1 + ProtocolInfo.XML_HEADER + MSG2, buf.toString());
+		assertEquals(0, mf.size());
+	}
+
+	public void testGrow() throws IOException {
+		String data = new String(Files.readAllBytes(Paths.get("data", "positionMsg.xml")), UTF_8);
+		int sPos = data.indexOf(ProtocolInfo.REQ_ELEMENT_OPEN);
+		int ePos = data.indexOf(ProtocolInfo.REQ_ELEMENT_CLOSE) + ProtocolInfo.REQ_ELEMENT_CLOSE.length();
+		String msg = data.substring(sPos, ePos);
+
+		MessageFramer mf = new MessageFramer(256);
+		StringBuilder buf = new StringBuilder();
+		for (int x = 0; x < 25; x++) {
+			mf.add(data.getBytes(UTF_8));
+			String msgs = mf.next();
+			assertNotNull(msgs);
+			buf.append(msgs);
+		}
+
+		String msgs = buf.toString();
+		assertEquals(25 * (ProtocolInfo.XML_HEADER.length() + msg.length()), msgs.length());
+		assertTrue(msgs.endsWith(msg));
+	}
+
+	public void testMalformed() {
+		MessageFramer mf = new MessageFramer(256);
+		mf.add("This is not an ACARS request, but it is long enough to be discarded".getBytes(UTF_8));
+		assertNull(mf.next());
+		assertTrue(mf.isMalformed());
+		mf.reset();
+		assertEquals(0, mf.size());
+
+		mf.add(ProtocolInfo.XML_HEADER.getBytes(UTF_8));
+		mf.add("                              ".getBytes(UTF_8));
+		assertNull(mf.next());
+		assertFalse(mf.isMalformed());
+	}
+
+	private static byte[] binaryFrame(int size) {
+		ByteBuffer bb = ByteBuffer.allocate(size + ProtocolInfo.BINARY_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		bb.putInt(ProtocolInfo.BINARY_MAGIC).putInt(size);
+		for (int x = 0; x < size; x++)
+			bb.put((byte) x);
+
+		return bb.array();
+	}
+
+	public void testBinary() {
+		MessageFramer mf = new MessageFramer(256);
+		byte[] frame = binaryFrame(300);
+		mf.add(frame);
+		assertNull(mf.next());
+		byte[] data = mf.nextBinary();
+		assertNotNull(data);
+		assertEquals(300, data.length);
+		assertEquals((byte) 299, data[299]);
+		assertNull(mf.nextBinary());
+		assertEquals(0, mf.size());
+	}
+
+	public void testMixed() {
+		MessageFramer mf = new MessageFramer(256);
+		byte[] frame = binaryFrame(120);
+		byte[] xml = (MSG1 + "\r\n").getBytes(UTF_8);
+		byte[] all = new byte[xml.length * 2 + frame.length * 2];
+		System.arraycopy(xml, 0, all, 0, xml.length);
+		System.arraycopy(frame, 0, all, xml.length, frame.length);
+		System.arraycopy(frame, 0, all, xml.length + frame.length, frame.length);
+		System.arraycopy(xml, 0, all, xml.length + frame.length * 2, xml.length);
+
+		// Feed one byte at a time, so headers are split across reads
+		StringBuilder buf = new StringBuilder(); int binFrames = 0;
+		for (int x = 0; x < all.length; x++) {
+			mf.add(new byte[] { all[x] });
+			String msgs = mf.next();
+			if (msgs != null)
+				buf.append(msgs);
+			for (byte[] data = mf.nextBinary(); data != null; data = mf.nextBinary()) {
+				assertEquals(120, data.length);
+				binFrames++;
+			}
+
+			assertFalse(mf.isMalformed());
+		}
+
+		assertEquals(2, binFrames);
+		assertEquals(ProtocolInfo.XML_HEADER + MSG1 + ProtocolInfo.XML_HEADER + MSG1, buf.toString());
+	}
+}
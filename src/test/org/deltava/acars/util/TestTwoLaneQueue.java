@@ -0,0 +1,117 @@
+package org.deltava.acars.util;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+import junit.framework.TestCase;
+
+public class TestTwoLaneQueue extends TestCase {
+	
+	private static final class Item {
+		private final int _producer;
+		private final int _seq;
+		private final boolean _isCritical;
+		
+		Item(int producer, int seq, boolean isCritical) {
+			super();
+			_producer = producer;
+			_seq = seq;
+			_isCritical = isCritical;
+		}
+		
+		boolean isCritical() {
+			return _isCritical;
+		}
+	}
+
+	public void testCriticalFirst() {
+		TwoLaneQueue<Item> q = new TwoLaneQueue<Item>(Item::isCritical, 16);
+		q.add(new Item(0, 0, false));
+		q.add(new Item(0, 1, true));
+		q.add(new Item(0, 2, false));
+		assertEquals(3, q.size());
+		assertEquals(1, q.peek()._seq);
+		assertEquals(1, q.poll()._seq);
+		assertEquals(0, q.poll()._seq);
+		assertEquals(2, q.poll()._seq);
+		assertNull(q.poll());
+		assertTrue(q.isEmpty());
+	}
+	
+	public void testFull() {
+		TwoLaneQueue<Item> q = new TwoLaneQueue<Item>(Item::isCritical, 5);
+		for (int x = 0; x < 8; x++)
+			assertTrue(q.offer(new Item(0, x, false)));
+		
+		assertFalse(q.offer(new Item(0, 8, false)));
+		assertEquals(0, q.remainingCapacity());
+		try {
+			q.add(new Item(0, 8, false));
+			fail("IllegalStateException expected");
+		} catch (IllegalStateException ise) {
+			// empty
+		}
+		
+		assertEquals(0, q.poll()._seq);
+		assertTrue(q.offer(new Item(0, 8, false)));
+		List<Item> items = new ArrayList<Item>();
+		assertEquals(8, q.drainTo(items));
+		assertEquals(8, items.get(7)._seq);
+		assertEquals(2, q.getRejected());
+	}
+	
+	public void testTimeout() throws Exception {
+		TwoLaneQueue<Item> q = new TwoLaneQueue<Item>(Item::isCritical, 16);
+		long startTime = System.nanoTime();
+		assertNull(q.poll(50, TimeUnit.MILLISECONDS));
+		assertTrue((System.nanoTime() - startTime) >= TimeUnit.MILLISECONDS.toNanos(50));
+		
+		for (int x = 0; x < q.capacity(); x++)
+			assertTrue(q.offer(new Item(0, x, false)));
+		
+		assertFalse(q.offer(new Item(0, 16, false), 5, TimeUnit.MILLISECONDS));
+		assertEquals(1, q.getRejected());
+	}
+
+	public void testProducers() throws Exception {
+		final int producers = 8; final int count = 50000;
+		TwoLaneQueue<Item> q = new TwoLaneQueue<Item>(Item::isCritical, 1024);
+		LongAdder dwells = new LongAdder();
+		q.setDwellListener(dwell -> { assertTrue(dwell >= 0); dwells.increment(); });
+		ExecutorService exec = Executors.newFixedThreadPool(producers);
+		for (int p = 0; p < producers; p++) {
+			final int id = p;
+			exec.execute(() -> {
+				try {
+					for (int x = 0; x < count; x++)
+						q.put(new Item(id, x, ((x % 100) == 0)));
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+				}
+			});
+		}
+
+		// Messages from each producer in each lane must arrive in order
+		int[] lastNormal = new int[producers]; int[] lastCritical = new int[producers];
+		Arrays.fill(lastNormal, -1); Arrays.fill(lastCritical, -1);
+		for (int x = 0; x < (producers * count); x++) {
+			Item i = q.poll(5, TimeUnit.SECONDS);
+			assertNotNull(i);
+			int[] last = i.isCritical() ? lastCritical : lastNormal;
+			assertTrue(i._seq > last[i._producer]);
+			last[i._producer] = i._seq;
+		}
+
+		exec.shutdown();
+		assertTrue(exec.awaitTermination(1, TimeUnit.SECONDS));
+		assertNull(q.poll());
+		for (int p = 0; p < producers; p++)
+			assertEquals(count - 1, Math.max(lastNormal[p], lastCritical[p]));
+		
+		assertEquals(producers * count, q.getEnqueued());
+		assertEquals(producers * count, q.getDequeued());
+		assertEquals(0, q.getRejected());
+		assertEquals(producers * count, dwells.sum());
+	}
+}
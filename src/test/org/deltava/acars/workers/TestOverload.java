@@ -0,0 +1,187 @@
+package org.deltava.acars.workers;
+
+import java.io.IOException;
+import java.net.*;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.deltava.acars.beans.*;
+import org.deltava.acars.message.*;
+
+import org.deltava.util.system.SystemData;
+
+import junit.framework.TestCase;
+
+public class TestOverload extends TestCase {
+
+	private ServerSocketChannel _ssc;
+	private final Collection<SocketChannel> _channels = new ArrayList<SocketChannel>();
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		_ssc = ServerSocketChannel.open();
+		_ssc.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+		Worker.MSG_INPUT.clear();
+		Worker.MSG_OUTPUT.clear();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		Worker.MSG_INPUT.clear();
+		Worker.MSG_OUTPUT.clear();
+		for (SocketChannel sc : _channels)
+			sc.close();
+
+		_ssc.close();
+		super.tearDown();
+	}
+
+	private ACARSConnection connect(long id) throws IOException {
+		_channels.add(SocketChannel.open(_ssc.getLocalAddress()));
+		SocketChannel sc = _ssc.accept();
+		_channels.add(sc);
+		return new ACARSConnection(id, sc);
+	}
+
+	private static MessageEnvelope position(long conID, boolean isLogged) {
+		PositionMessage msg = new PositionMessage(null);
+		msg.setLatitude(33.64);
+		msg.setLongitude(-84.43);
+		msg.setLogged(isLogged);
+		return new MessageEnvelope(msg, conID);
+	}
+
+	private static void fill(int count) {
+		for (int x = 0; x < count; x++)
+			assertTrue(Worker.MSG_INPUT.offer(position(0, true)));
+	}
+
+	public void testQueueInput() throws Exception {
+		ACARSConnection ac = connect(1);
+		MessageEnvelope env = position(ac.getID(), false);
+		assertTrue(Worker.queueInput(ac, env));
+		assertTrue(env.isTracked());
+		assertEquals(1, ac.getPendingMessages());
+		assertSame(env, Worker.MSG_INPUT.poll());
+
+		// Disconnected connections are not tracked
+		MessageEnvelope env2 = position(2, true);
+		assertTrue(Worker.queueInput(null, env2));
+		assertFalse(env2.isTracked());
+	}
+
+	public void testCoalesce() throws Exception {
+		ACARSConnection ac = connect(1);
+
+		// Not coalesced unless overloaded
+		MessageEnvelope env = position(ac.getID(), false);
+		MessageEnvelope env2 = position(ac.getID(), false);
+		assertTrue(Worker.queueInput(ac, env));
+		assertTrue(Worker.queueInput(ac, env2));
+		assertFalse(env.isSuperseded());
+		assertFalse(env2.isSuperseded());
+		Worker.MSG_INPUT.clear();
+
+		// Fill past the high water mark
+		fill((Worker.MSG_INPUT.remainingCapacity() * 3 / 4) + 1);
+		assertTrue(Worker.isOverloaded(Worker.MSG_INPUT));
+		MessageEnvelope env3 = position(ac.getID(), false);
+		MessageEnvelope env4 = position(ac.getID(), false);
+		assertTrue(Worker.queueInput(ac, env3));
+		assertTrue(Worker.queueInput(ac, env4));
+		assertTrue(env3.isSuperseded());
+		assertFalse(env4.isSuperseded());
+
+		// Logged positions are never coalesced, or supersede earlier ones
+		MessageEnvelope env5 = position(ac.getID(), true);
+		assertTrue(Worker.queueInput(ac, env5));
+		assertFalse(env4.isSuperseded());
+		assertFalse(env5.isSuperseded());
+		assertEquals(6, ac.getPendingMessages());
+	}
+
+	public void testShedInput() throws Exception {
+		ACARSConnection ac = connect(1);
+		fill(Worker.MSG_INPUT.remainingCapacity());
+		assertEquals(0, Worker.MSG_INPUT.remainingCapacity());
+
+		// Unlogged positions are dropped after a short wait
+		MessageEnvelope env = position(ac.getID(), false);
+		long startTime = System.currentTimeMillis();
+		assertFalse(Worker.queueInput(ac, env));
+		assertTrue((System.currentTimeMillis() - startTime) < 2000);
+		assertEquals(0, ac.getPendingMessages());
+
+		// Logged positions wait for space
+		MessageEnvelope env2 = position(ac.getID(), true);
+		AtomicBoolean isQueued = new AtomicBoolean();
+		Thread t = new Thread(() -> isQueued.set(Worker.queueInput(ac, env2)), "Producer");
+		t.start();
+		t.join(250);
+		assertTrue(t.isAlive());
+		assertNotNull(Worker.MSG_INPUT.poll());
+		t.join(2000);
+		assertFalse(t.isAlive());
+		assertTrue(isQueued.get());
+		assertEquals(1, ac.getPendingMessages());
+	}
+
+	public void testShedOutput() throws Exception {
+		ACARSConnection ac = connect(1);
+		MessageEnvelope filler = position(0, true);
+		while (Worker.MSG_OUTPUT.offer(filler))
+			assertTrue(Worker.MSG_OUTPUT.size() <= 65536);
+
+		// Sheddable responses are dropped
+		MessageEnvelope env = new MessageEnvelope(new AcknowledgeMessage(null, 1), ac.getID());
+		assertFalse(Worker.queueOutput(ac, env, true));
+		assertEquals(0, ac.getPendingOutput());
+
+		// Other responses wait for space
+		MessageEnvelope env2 = new MessageEnvelope(new AcknowledgeMessage(null, 2), ac.getID());
+		AtomicBoolean isQueued = new AtomicBoolean();
+		Thread t = new Thread(() -> isQueued.set(Worker.queueOutput(ac, env2, false)), "Producer");
+		t.start();
+		t.join(250);
+		assertTrue(t.isAlive());
+		assertNotNull(Worker.MSG_OUTPUT.poll());
+		t.join(2000);
+		assertFalse(t.isAlive());
+		assertTrue(isQueued.get());
+		assertTrue(env2.isTracked());
+		assertEquals(1, ac.getPendingOutput());
+	}
+
+	public void testPauseResume() throws Exception {
+		SystemData.add("acars.overload.maxPending", Integer.valueOf(4));
+		ACARSConnectionPool pool = new ACARSConnectionPool(8);
+		pool.updateSelector(0);
+		ACARSConnection ac = connect(1);
+		pool.add(ac);
+
+		NetworkReader nr = new NetworkReader();
+		nr.setConnectionPool(pool);
+		Collection<Envelope<?>> msgs = List.of(position(ac.getID(), false));
+		for (int x = 0; x < 4; x++)
+			ac.addPendingMessage();
+
+		nr.pauseReads(msgs);
+		assertFalse(ac.isReadPaused());
+
+		// Pause once past the limit
+		ac.addPendingMessage();
+		nr.pauseReads(msgs);
+		assertTrue(ac.isReadPaused());
+
+		// Resume once half drained
+		ac.completePendingMessage();
+		ac.completePendingMessage();
+		nr.resumeReads();
+		assertTrue(ac.isReadPaused());
+		ac.completePendingMessage();
+		nr.resumeReads();
+		assertFalse(ac.isReadPaused());
+	}
+}
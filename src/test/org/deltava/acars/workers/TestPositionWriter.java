@@ -0,0 +1,213 @@
+package org.deltava.acars.workers;
+
+import java.sql.SQLTransientConnectionException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.deltava.acars.message.PositionMessage;
+
+import org.deltava.dao.DAOException;
+import org.deltava.util.system.SystemData;
+
+import junit.framework.TestCase;
+
+public class TestPositionWriter extends TestCase {
+
+	private static final int QUEUE_SIZE = 64;
+
+	static {
+		SystemData.add("acars.position.queue.size", Integer.valueOf(QUEUE_SIZE));
+		SystemData.add("acars.position.queue.wait", Integer.valueOf(50));
+		SystemData.add("acars.position.retry.max", Integer.valueOf(3));
+		SystemData.add("acars.position.retry.delay", Integer.valueOf(10));
+	}
+
+	private static class MockWriter extends PositionWriter {
+		private final BlockingQueue<List<PositionMessage>> _batches = new LinkedBlockingQueue<List<PositionMessage>>();
+		private final Queue<DAOException> _errors = new ConcurrentLinkedQueue<DAOException>();
+		private final Set<Integer> _badIDs = ConcurrentHashMap.newKeySet();
+		private final AtomicInteger _attempts = new AtomicInteger();
+
+		MockWriter() {
+			super();
+		}
+
+		@Override
+		protected void writeBatch(Collection<PositionMessage> batch) throws DAOException {
+			_attempts.incrementAndGet();
+			DAOException de = _errors.poll();
+			if (de != null) throw de;
+			for (PositionMessage msg : batch) {
+				if (_badIDs.contains(Integer.valueOf(msg.getFlightID())))
+					throw new DAOException("Duplicate entry for Flight " + msg.getFlightID());
+			}
+
+			_batches.add(new ArrayList<PositionMessage>(batch));
+		}
+
+		List<PositionMessage> next(long timeout) throws InterruptedException {
+			return _batches.poll(timeout, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private MockWriter _pw;
+	private Thread _t;
+
+	@Override
+	protected void tearDown() throws Exception {
+		stop();
+		super.tearDown();
+	}
+
+	private void start(int batchSize, int maxAge) {
+		SystemData.add("acars.position.queue.batch", Integer.valueOf(batchSize));
+		SystemData.add("acars.position.queue.maxAge", Integer.valueOf(maxAge));
+		_pw = new MockWriter();
+		_t = new Thread(_pw, "PositionWriter");
+		_t.setDaemon(true);
+		_t.start();
+	}
+
+	private void stop() throws InterruptedException {
+		if (_t == null) return;
+		_t.interrupt();
+		_t.join(5000);
+		assertFalse(_t.isAlive());
+		_t = null;
+		assertEquals(0, PositionWriter.getBacklog());
+	}
+
+	private static PositionMessage create(int flightID) {
+		PositionMessage msg = new PositionMessage(null);
+		msg.setFlightID(flightID);
+		msg.setLatitude(33.64 + (flightID * 0.01));
+		msg.setLongitude(-84.43);
+		return msg;
+	}
+
+	private static void queue(int start, int count) {
+		for (int x = start; x < (start + count); x++)
+			assertTrue(PositionWriter.queue(create(x)));
+	}
+
+	public void testBatchSize() throws Exception {
+		start(5, 60000);
+		queue(1, 12);
+
+		List<PositionMessage> b1 = _pw.next(2000);
+		List<PositionMessage> b2 = _pw.next(2000);
+		assertNotNull(b1);
+		assertNotNull(b2);
+		assertEquals(5, b1.size());
+		assertEquals(5, b2.size());
+		assertEquals(1, b1.get(0).getFlightID());
+		assertEquals(6, b2.get(0).getFlightID());
+		assertNull(_pw.next(250));
+
+		stop();
+		List<PositionMessage> b3 = _pw.next(0);
+		assertNotNull(b3);
+		assertEquals(2, b3.size());
+		assertEquals(11, b3.get(0).getFlightID());
+	}
+
+	public void testBatchAge() throws Exception {
+		start(100, 250);
+		long startTime = System.currentTimeMillis();
+		queue(1, 3);
+
+		List<PositionMessage> b = _pw.next(2000);
+		long age = System.currentTimeMillis() - startTime;
+		assertNotNull(b);
+		assertEquals(3, b.size());
+		assertTrue(age >= 200);
+	}
+
+	public void testFlush() throws Exception {
+		start(100, 60000);
+		queue(1, 4);
+		assertNull(_pw.next(300));
+
+		long written = PositionWriter.getWritten();
+		assertEquals(4, PositionWriter.flush(2000));
+		assertEquals(written + 4, PositionWriter.getWritten());
+		List<PositionMessage> b = _pw.next(0);
+		assertNotNull(b);
+		assertEquals(4, b.size());
+		assertEquals(0, PositionWriter.flush(100));
+	}
+
+	public void testTransientRetry() throws Exception {
+		long retries = PositionWriter.getRetries(); long dead = PositionWriter.getDeadLetters();
+		start(3, 60000);
+		_pw._errors.add(new DAOException(new SQLTransientConnectionException("Connection reset", "08S01")));
+		_pw._errors.add(new DAOException(new SQLTransientConnectionException("Connection reset", "08S01")));
+		queue(1, 3);
+
+		List<PositionMessage> b = _pw.next(2000);
+		assertNotNull(b);
+		assertEquals(3, b.size());
+		assertEquals(3, _pw._attempts.get());
+		assertEquals(retries + 2, PositionWriter.getRetries());
+		assertEquals(dead, PositionWriter.getDeadLetters());
+	}
+
+	public void testRetryLimit() throws Exception {
+		long dead = PositionWriter.getDeadLetters();
+		start(2, 60000);
+		for (int x = 0; x < 3; x++)
+			_pw._errors.add(new DAOException(new SQLTransientConnectionException("Connection refused", "08001")));
+
+		queue(1, 2);
+		assertEquals(0, PositionWriter.flush(2000));
+		assertEquals(dead + 2, PositionWriter.getDeadLetters());
+		assertEquals(3, _pw._attempts.get());
+		assertNull(_pw.next(0));
+	}
+
+	public void testSplit() throws Exception {
+		long dead = PositionWriter.getDeadLetters(); long retries = PositionWriter.getRetries();
+		start(8, 60000);
+		_pw._badIDs.add(Integer.valueOf(6));
+		queue(1, 8);
+		assertEquals(7, PositionWriter.flush(2000));
+		assertEquals(dead + 1, PositionWriter.getDeadLetters());
+		assertEquals(retries, PositionWriter.getRetries());
+
+		Set<Integer> ids = new TreeSet<Integer>(); List<PositionMessage> b = _pw.next(0);
+		while (b != null) {
+			b.forEach(msg -> ids.add(Integer.valueOf(msg.getFlightID())));
+			b = _pw.next(0);
+		}
+
+		assertEquals(7, ids.size());
+		assertFalse(ids.contains(Integer.valueOf(6)));
+	}
+
+	public void testIsTransient() {
+		assertTrue(PositionWriter.isTransient(new DAOException(new SQLTransientConnectionException("Timeout"))));
+		assertTrue(PositionWriter.isTransient(new DAOException(new java.sql.SQLException("Communications link failure", "08S01"))));
+		assertFalse(PositionWriter.isTransient(new DAOException(new java.sql.SQLIntegrityConstraintViolationException("Duplicate entry", "23000"))));
+		assertFalse(PositionWriter.isTransient(new DAOException(new NullPointerException())));
+	}
+
+	public void testShed() throws Exception {
+		long shed = PositionWriter.getShed(); long stalls = PositionWriter.getStalls();
+		queue(1, QUEUE_SIZE);
+		assertTrue(PositionWriter.isFull());
+		assertFalse(PositionWriter.offer(create(QUEUE_SIZE + 1)));
+
+		long startTime = System.currentTimeMillis();
+		assertFalse(PositionWriter.queue(create(QUEUE_SIZE + 1)));
+		long waitTime = System.currentTimeMillis() - startTime;
+		assertTrue(waitTime >= 40);
+		assertTrue(waitTime < 2000);
+		assertEquals(shed + 1, PositionWriter.getShed());
+		assertEquals(stalls + 1, PositionWriter.getStalls());
+
+		start(QUEUE_SIZE, 60000);
+		assertEquals(QUEUE_SIZE, PositionWriter.flush(2000));
+		assertFalse(PositionWriter.isFull());
+	}
+}
@@ -0,0 +1,137 @@
+package org.deltava.acars.xml;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.StringReader;
+
+import org.jdom2.*;
+import org.jdom2.input.SAXBuilder;
+import org.jdom2.output.*;
+
+import org.deltava.acars.message.*;
+import org.deltava.acars.xml.v1.format.Formatter;
+
+import junit.framework.TestCase;
+
+public class TestCompactXMLWriter extends TestCase {
+
+	private final XMLOutputter _jdomOut = new XMLOutputter(Format.getCompactFormat().setEncoding("UTF-8"));
+	private CompactXMLWriter _out;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		_out = new CompactXMLWriter(256);
+	}
+
+	private void assertParity(Element e) {
+		_out.reset();
+		_out.write(e);
+		assertEquals(0, _out.getDepth());
+		assertEquals(_jdomOut.outputString(e), _out.toString(UTF_8));
+	}
+
+	private Element parse() throws Exception {
+		SAXBuilder builder = new SAXBuilder();
+		return builder.build(new StringReader(_out.toString(UTF_8))).getRootElement();
+	}
+
+	public void testAckParity() throws Exception {
+		AcknowledgeMessage ack = new AcknowledgeMessage(null, 0xABCDEF0123L);
+		ack.setMaxAge(2500);
+		ack.setEntry("flight_id", "123456");
+		ack.setEntry("text", "  Gr\u00FC\u00DFe <&> \"quoted\" \uD83D\uDE00 ");
+		ack.setEntry("padded", "\u2003x\u2003");
+		ack.setEntry("blank", "   ");
+		ack.setEntry("empty", null);
+
+		Formatter fmt = new Formatter();
+		Element e = fmt.format(ack);
+		assertNotNull(e);
+
+		assertTrue(fmt.format(ack, _out));
+		byte[] jdom = _jdomOut.outputString(e).getBytes(UTF_8);
+		assertEquals(new String(jdom, UTF_8), _out.toString(UTF_8));
+		assertTrue(java.util.Arrays.equals(jdom, _out.toByteArray()));
+
+		// The element copy path should produce the same bytes
+		assertParity(e);
+	}
+
+	public void testElementParity() {
+		Element e = new Element("CMD");
+		e.setAttribute("type", "info");
+		e.setAttribute("q", "a\"b\t\n\r<>&\u00E9");
+		e.addContent(new Element("empty"));
+
+		Element ce = new Element("c");
+		ce.addContent(new CDATA("  x <&> \u00E9 \uD83D\uDE00 "));
+		e.addContent(ce);
+
+		Element te = new Element("t");
+		te.setText(" a b<>&\" ");
+		e.addContent(te);
+
+		Element we = new Element("w");
+		we.setText("   ");
+		e.addContent(we);
+
+		Element wce = new Element("wc");
+		wce.addContent(new CDATA(" \t "));
+		e.addContent(wce);
+
+		Element me = new Element("mixed");
+		me.addContent(" lead ");
+		me.addContent(new Element("k").setAttribute("v", "1"));
+		me.addContent(" tail ");
+		e.addContent(me);
+
+		Element sp = new Element("sp");
+		sp.setText("\u2003x\u2003");
+		e.addContent(sp);
+
+		Element ne = new Element("nested");
+		ne.addContent(new Element("a").addContent(new Element("b").setText("deep")));
+		e.addContent(ne);
+		assertParity(e);
+	}
+
+	public void testEmptyElement() {
+		_out.startElement("CMD");
+		_out.attribute("type", "ping");
+		_out.endElement();
+		assertEquals("<CMD type=\"ping\" />", _out.toString(UTF_8));
+	}
+
+	public void testCDATADelimiter() throws Exception {
+		_out.startElement("e");
+		_out.cdata("a]]>b]]]>c]]");
+		_out.endElement();
+		assertEquals("<e><![CDATA[a]]]]><![CDATA[>b]]]]]><![CDATA[>c]]]]></e>", _out.toString(UTF_8));
+		assertEquals("a]]>b]]]>c]]", parse().getText());
+	}
+
+	public void testIllegalCharacters() throws Exception {
+		_out.startElement("e");
+		_out.attribute("a", "x\u0000y\uFFFF");
+		_out.startElement("t");
+		_out.text("a\u0001b\u001Bc\uFFFE");
+		_out.endElement();
+		_out.startElement("c");
+		_out.cdata("d\u0008e]\u0002]>f");
+		_out.endElement();
+		_out.endElement();
+
+		Element e = parse();
+		assertEquals("xy", e.getAttributeValue("a"));
+		assertEquals("abc", e.getChildText("t"));
+		assertEquals("de]]>f", e.getChildText("c"));
+	}
+
+	public void testAckDelimiter() throws Exception {
+		AcknowledgeMessage ack = new AcknowledgeMessage(null, 1);
+		ack.setEntry("text", "<![CDATA[x]]\u0007>");
+		assertTrue(new Formatter().format(ack, _out));
+		assertEquals("<![CDATA[x]]>", parse().getChildText("text"));
+	}
+}
@@ -0,0 +1,208 @@
+package org.deltava.acars.xml.v2.parse;
+
+import java.io.*;
+import java.nio.file.*;
+import java.time.*;
+import java.time.format.*;
+import java.time.temporal.ChronoField;
+import java.util.*;
+
+import javax.xml.stream.*;
+
+import org.jdom2.Element;
+import org.jdom2.input.SAXBuilder;
+
+import org.deltava.beans.servinfo.Controller;
+
+import org.deltava.acars.message.PositionMessage;
+import org.deltava.acars.xml.*;
+
+import junit.framework.TestCase;
+
+public class TestPositionStreamParser extends TestCase {
+
+	private XMLInputFactory _xif;
+	private PositionParser _parser;
+	private PositionStreamParser _streamParser;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		_xif = XMLInputFactory.newFactory();
+		_xif.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.FALSE);
+		_xif.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+		_xif.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+		_parser = new PositionParser();
+		_streamParser = new PositionStreamParser();
+	}
+
+	private static String cmd(String body) {
+		return "<?xml version=\"1.0\"?><ACARSRequest version=\"2\" id=\"1\"><CMD type=\"position\">" + body + "</CMD></ACARSRequest>";
+	}
+
+	private PositionMessage parseJDOM(String xml) throws Exception {
+		Element root = new SAXBuilder().build(new StringReader(xml)).getRootElement();
+		return _parser.parse(root.getChild("CMD"), null);
+	}
+
+	private PositionMessage parseStream(String xml) throws Exception {
+		XMLStreamReader r = _xif.createXMLStreamReader(new StringReader(xml));
+		try {
+			r.nextTag(); r.nextTag();
+			assertEquals("CMD", r.getLocalName());
+			return _streamParser.parse(r, null);
+		} finally {
+			r.close();
+		}
+	}
+
+	private static void assertEquals(Controller c1, Controller c2) {
+		if (c1 == null) {
+			assertNull(c2);
+			return;
+		}
+
+		assertNotNull(c2);
+		assertEquals(c1.getID(), c2.getID());
+		assertEquals(c1.getCallsign(), c2.getCallsign());
+		assertEquals(Double.doubleToLongBits(c1.getLatitude()), Double.doubleToLongBits(c2.getLatitude()));
+		assertEquals(Double.doubleToLongBits(c1.getLongitude()), Double.doubleToLongBits(c2.getLongitude()));
+	}
+
+	private static void assertSame(double d1, double d2) {
+		assertEquals(Double.doubleToLongBits(d1), Double.doubleToLongBits(d2));
+	}
+
+	private void compare(String xml) throws Exception {
+		PositionMessage m1 = parseJDOM(xml);
+		PositionMessage m2 = parseStream(xml);
+		assertEquals(m1.getDate(), m2.getDate());
+		assertEquals(m1.getSimTime(), m2.getSimTime());
+		assertSame(m1.getLatitude(), m2.getLatitude());
+		assertSame(m1.getLongitude(), m2.getLongitude());
+		assertEquals(m1.getAltitude(), m2.getAltitude());
+		assertSame(m1.getDoubleAltitude(), m2.getDoubleAltitude());
+		assertEquals(m1.getRadarAltitude(), m2.getRadarAltitude());
+		assertEquals(m1.getAltimeter(), m2.getAltimeter());
+		assertEquals(m1.getHeading(), m2.getHeading());
+		assertSame(m1.getPitch(), m2.getPitch());
+		assertSame(m1.getBank(), m2.getBank());
+		assertEquals(m1.getAspeed(), m2.getAspeed());
+		assertEquals(m1.getGspeed(), m2.getGspeed());
+		assertEquals(m1.getVspeed(), m2.getVspeed());
+		assertSame(m1.getMach(), m2.getMach());
+		assertEquals(m1.getFuelRemaining(), m2.getFuelRemaining());
+		assertEquals(m1.getWeight(), m2.getWeight());
+		assertEquals(m1.getFlaps(), m2.getFlaps());
+		assertEquals(m1.getFlags(), m2.getFlags());
+		assertEquals(m1.getLights(), m2.getLights());
+		assertSame(m1.getAngleOfAttack(), m2.getAngleOfAttack());
+		assertSame(m1.getCG(), m2.getCG());
+		assertSame(m1.getG(), m2.getG());
+		assertSame(m1.getAverageN1(), m2.getAverageN1());
+		assertSame(m1.getAverageN2(), m2.getAverageN2());
+		assertTrue(Arrays.equals(m1.getN1(), m2.getN1()));
+		assertTrue(Arrays.equals(m1.getN2(), m2.getN2()));
+		assertEquals(m1.getWindHeading(), m2.getWindHeading());
+		assertEquals(m1.getWindSpeed(), m2.getWindSpeed());
+		assertSame(m1.getVisibility(), m2.getVisibility());
+		assertEquals(m1.getCeiling(), m2.getCeiling());
+		assertEquals(m1.getTemperature(), m2.getTemperature());
+		assertEquals(m1.getPressure(), m2.getPressure());
+		assertEquals(m1.getFuelFlow(), m2.getFuelFlow());
+		assertEquals(m1.getPhase(), m2.getPhase());
+		assertEquals(m1.getSimRate(), m2.getSimRate());
+		assertEquals(m1.isLogged(), m2.isLogged());
+		assertEquals(m1.isReplay(), m2.isReplay());
+		assertEquals(m1.getRestoreCount(), m2.getRestoreCount());
+		assertEquals(m1.getFrameRate(), m2.getFrameRate());
+		assertEquals(m1.getTXActive(), m2.getTXActive());
+		assertEquals(m1.getTXCode(), m2.getTXCode());
+		assertEquals(m1.getCOM1(), m2.getCOM1());
+		assertEquals(m1.getCOM2(), m2.getCOM2());
+		assertEquals(m1.getNAV1(), m2.getNAV1());
+		assertEquals(m1.getNAV2(), m2.getNAV2());
+		assertEquals(m1.getADF1(), m2.getADF1());
+		assertEquals(m1.getVASFree(), m2.getVASFree());
+		assertEquals(m1.getGroundOperations(), m2.getGroundOperations());
+		assertEquals(m1.getNetworkConnected(), m2.getNetworkConnected());
+		assertEquals(m1.getACARSConnected(), m2.getACARSConnected());
+		assertEquals(m1.getAirspaceType(), m2.getAirspaceType());
+		assertEquals(m1.getATC1(), m2.getATC1());
+		assertEquals(m1.getATC2(), m2.getATC2());
+	}
+
+	public void testPositionMessage() throws Exception {
+		compare(Files.readString(Path.of("data", "positionMsg.xml")));
+	}
+
+	public void testAllElements() throws Exception {
+		compare(cmd("<date>02-29-2024 23:59:59.5</date><simDate>03/01/2024 00:00:01.25</simDate><lat>-33.94611</lat><lon>151.17722</lon><msl>-12.75</msl><agl>0</agl>"
+			+ "<hdg>+5</hdg><pitch>-0.000</pitch><bank>1.5E1</bank><aSpeed>0</aSpeed><gSpeed>12</gSpeed><vSpeed>-1250</vSpeed><mach>0.123456789012345678</mach><fuel>43210</fuel>"
+			+ "<weight>174000</weight><flaps>15</flaps><flags>  4097 </flags><lights>7</lights><aoa>2.5</aoa><cg>27.4</cg><g>0.98</g><ec>2</ec>"
+			+ "<n1 e1=\"21.4\" e2=\"21.6\">21.5</n1><n2 e1=\"60.1\">60.05</n2><wHdg>270</wHdg><wSpeed>18</wSpeed><viz>10.0</viz><ceiling>3500</ceiling><temp>-5</temp>"
+			+ "<pressure>29920</pressure><fuelFlow>x</fuelFlow><phase>Taxi Out</phase><simrate>2</simrate><isLogged>TRUE</isLogged><isReplay>yes</isReplay><restoreCount>1</restoreCount>"
+			+ "<frameRate>30</frameRate><txActive>False</txActive><txCode>7000</txCode><nav1>110.30</nav1><nav2>113.00</nav2><adf1>365</adf1><vasFree>2048</vasFree>"
+			+ "<groundOps>3</groundOps><networkConnected>true</networkConnected><acarsConnected>false</acarsConnected><altimeter>2992</altimeter><com1>121.9</com1>"
+			+ "<com2>118.1</com2><atc id=\"1234\" lat=\"-33.9\" lon=\"151.2\">SY_GND</atc><atc2 id=\"99\">SY_APP</atc2><unknown><child/></unknown>"));
+	}
+
+	public void testDefaults() throws Exception {
+		compare(cmd("<date>11/14/2006 10:21:27</date><atc id=\"1\"> </atc>"));
+	}
+
+	public void testRandomValues() throws Exception {
+		Random r = new Random(2026);
+		Instant dt = Instant.parse("2026-01-01T00:00:00Z");
+		for (int x = 0; x < 500; x++) {
+			LocalDateTime ldt = LocalDateTime.ofInstant(dt.plusMillis(r.nextLong(86_400_000L * 3650)), ZoneOffset.UTC);
+			String date = String.format("%02d/%02d/%04d %02d:%02d:%02d.%03d", Integer.valueOf(ldt.getMonthValue()), Integer.valueOf(ldt.getDayOfMonth()), Integer.valueOf(ldt.getYear()),
+				Integer.valueOf(ldt.getHour()), Integer.valueOf(ldt.getMinute()), Integer.valueOf(ldt.getSecond()), Integer.valueOf(ldt.getNano() / 1_000_000));
+			double lat = (r.nextDouble() * 180) - 90; double lng = (r.nextDouble() * 360) - 180;
+			String body = String.format("<date>%s</date><lat>%.5f</lat><lon>%s</lon><msl>%.3f</msl><agl>%d</agl><hdg>%d</hdg><vSpeed>%d</vSpeed><mach>%.4f</mach>", date,
+				Double.valueOf(lat), String.valueOf(lng), Double.valueOf(r.nextDouble() * 45000), Integer.valueOf(r.nextInt(45000)), Integer.valueOf(r.nextInt(360)),
+				Integer.valueOf(r.nextInt(12000) - 6000), Double.valueOf(r.nextDouble()));
+			compare(cmd(body));
+		}
+	}
+
+	public void testInvalid() throws Exception {
+		String xml = cmd("<date>11/14/2006 10:21:27</date><hdg>abc</hdg>");
+		try {
+			parseJDOM(xml);
+			fail("XMLException expected");
+		} catch (XMLException xe) {
+			// empty
+		}
+
+		try {
+			parseStream(xml);
+			fail("XMLException expected");
+		} catch (XMLException xe) {
+			assertTrue(xe.getCause() instanceof NumberFormatException);
+		}
+	}
+
+	public void testDates() throws Exception {
+		DateTimeFormatter mdtf = new DateTimeFormatterBuilder().appendPattern("MM/dd/yyyy HH:mm:ss").appendFraction(ChronoField.MILLI_OF_SECOND, 0, 3, true).toFormatter();
+		TextBuffer buf = new TextBuffer();
+		for (String dt : new String[] { "02/30/2023 10:00:00", "12-31-1999 23:59:59.9", "01/01/2000 24:00:00", "1/1/2000 10:00:00", "11/14/2006 10:21:27.123" }) {
+			XMLStreamReader r = _xif.createXMLStreamReader(new StringReader("<d>" + dt + "</d>"));
+			r.nextTag();
+			Instant i1 = null; Instant i2 = null;
+			try {
+				i1 = LocalDateTime.parse(dt.replace('-', '/'), mdtf).toInstant(ZoneOffset.UTC);
+			} catch (DateTimeException dte) {
+				// empty
+			}
+
+			try {
+				i2 = buf.load(r).parseDateTime();
+			} catch (DateTimeException dte) {
+				// empty
+			}
+
+			assertEquals(dt, i1, i2);
+		}
+	}
+}
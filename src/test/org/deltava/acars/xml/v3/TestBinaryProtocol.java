@@ -0,0 +1,355 @@
+package org.deltava.acars.xml.v3;
+
+import static org.deltava.acars.xml.v3.BinaryProtocol.*;
+
+import java.io.*;
+import java.time.Instant;
+import java.util.*;
+
+import org.deltava.beans.acars.FlightPhase;
+import org.deltava.beans.navdata.AirspaceType;
+import org.deltava.beans.servinfo.Controller;
+
+import org.deltava.acars.beans.BinaryEnvelope;
+import org.deltava.acars.message.*;
+import org.deltava.acars.util.*;
+import org.deltava.acars.xml.ProtocolInfo;
+import org.deltava.acars.xml.v3.format.Formatter;
+import org.deltava.acars.xml.v3.parse.Parser;
+
+import junit.framework.TestCase;
+
+public class TestBinaryProtocol extends TestCase {
+
+	private static final Instant DATE = Instant.parse("2026-03-14T15:09:26.535Z");
+	private static final Instant SIM_DATE = Instant.parse("2026-03-14T09:09:26.500Z");
+
+	private Parser _parser;
+	private Formatter _fmt;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		_parser = new Parser();
+		_fmt = new Formatter();
+	}
+
+	private static class Frame {
+		private final ByteArrayOutputStream _buf = new ByteArrayOutputStream();
+		private final PacketOutputStream _out = new PacketOutputStream(_buf);
+		private final List<Integer> _offsets = new ArrayList<Integer>();
+
+		PacketOutputStream start(int type, long id) throws IOException {
+			_offsets.add(Integer.valueOf(_buf.size()));
+			_out.write(type);
+			_out.writeInt64(id);
+			return _out;
+		}
+
+		boolean isBoundary(int ofs) {
+			return _offsets.contains(Integer.valueOf(ofs));
+		}
+
+		byte[] toByteArray() {
+			return _buf.toByteArray();
+		}
+	}
+
+	private static void writeController(PacketOutputStream out, int id, double lat, double lng, String callsign) throws IOException {
+		out.writeInt32(id);
+		out.writeDouble64(lat);
+		out.writeDouble64(lng);
+		out.write(callsign);
+	}
+
+	private static void writePosition(Frame f, long id, int flags, double[] n1, double[] n2) throws IOException {
+		PacketOutputStream out = f.start(POSITION, id);
+		out.writeInt64(DATE.toEpochMilli());
+		out.writeInt64(SIM_DATE.toEpochMilli());
+		for (double d : new double[] { 33.640411, -84.419853, 35012.375, 2.5, -15.25, 0.785, 3.125, 0.275, 1.05, 9.5, 85.5, 92.25 })
+			out.writeDouble64(d);
+
+		// AGL, heading, airspeed, ground speed, vertical speed, fuel, weight, flaps, flags, lights, wind heading, wind speed, ceiling, temperature,
+		// pressure, fuel flow, sim rate, restore count, frame rate, transponder, VAS free, ground ops, altimeter, COM1, COM2, NAV1, NAV2, ADF1
+		for (int i : new int[] { 34980, 271, 295, 478, -1250, 31200, 152000, 5, 0x1001, 7, 310, 45, 12000, -52, 25600, 5400, 2, 1, 35, 4521, 1048576, 3, 2992,
+			121900, 118025, 110300, 0, 365 })
+			out.writeInt32(i);
+
+		out.write(2);
+		out.write(flags);
+		out.write(n1.length);
+		for (int x = 0; x < n1.length; x++) {
+			out.writeDouble64(n1[x]);
+			out.writeDouble64(n2[x]);
+		}
+
+		if ((flags & FLAG_ATC1) != 0)
+			writeController(out, 1234, 33.64, -84.43, "ATL_TWR");
+		if ((flags & FLAG_ATC2) != 0)
+			writeController(out, 5678, 33.9, -84.1, "ATL_APP");
+	}
+
+	private static void assertController(Controller c, int id, double lat, double lng, String callsign) {
+		assertNotNull(c);
+		assertEquals(id, c.getID());
+		assertEquals(callsign, c.getCallsign());
+		assertEquals(Double.doubleToLongBits(lat), Double.doubleToLongBits(c.getLatitude()));
+		assertEquals(Double.doubleToLongBits(lng), Double.doubleToLongBits(c.getLongitude()));
+	}
+
+	private List<Message> parse(byte[] data) throws Exception {
+		BinaryEnvelope env = new BinaryEnvelope(null, data, 1);
+		env.setVersion(3);
+		env.setTime(12345);
+		return new ArrayList<Message>(_parser.parse(env));
+	}
+
+	public void testPosition() throws Exception {
+		Frame f = new Frame();
+		int flags = FLAG_LOGGED | FLAG_TX_ACTIVE | FLAG_NETWORK | FLAG_ACARS | FLAG_ATC1 | FLAG_ATC2;
+		writePosition(f, 0x1234567890L, flags, new double[] { 85.25, 85.75 }, new double[] { 92.0, 92.5 });
+		List<Message> msgs = parse(f.toByteArray());
+		assertEquals(1, msgs.size());
+
+		PositionMessage msg = (PositionMessage) msgs.get(0);
+		assertEquals(0x1234567890L, msg.getID());
+		assertEquals(12345, msg.getTime());
+		assertEquals(DATE, msg.getDate());
+		assertEquals(SIM_DATE, msg.getSimTime());
+		assertEquals(33.640411, msg.getLatitude(), 0);
+		assertEquals(-84.419853, msg.getLongitude(), 0);
+		assertEquals(35012, msg.getAltitude());
+		assertEquals(35012.375, msg.getDoubleAltitude(), 0.0001);
+		assertEquals(2.5, msg.getPitch(), 0);
+		assertEquals(-15.25, msg.getBank(), 0);
+		assertEquals(0.785, msg.getMach(), 0);
+		assertEquals(3.125, msg.getAngleOfAttack(), 0);
+		assertEquals(0.275, msg.getCG(), 0);
+		assertEquals(1.05, msg.getG(), 0);
+		assertEquals(9.5, msg.getVisibility(), 0);
+		assertEquals(85.5, msg.getAverageN1(), 0);
+		assertEquals(92.25, msg.getAverageN2(), 0);
+
+		assertEquals(34980, msg.getRadarAltitude());
+		assertEquals(271, msg.getHeading());
+		assertEquals(295, msg.getAspeed());
+		assertEquals(478, msg.getGspeed());
+		assertEquals(-1250, msg.getVspeed());
+		assertEquals(31200, msg.getFuelRemaining());
+		assertEquals(152000, msg.getWeight());
+		assertEquals(5, msg.getFlaps());
+		assertEquals(0x1001, msg.getFlags());
+		assertEquals(7, msg.getLights());
+		assertEquals(310, msg.getWindHeading());
+		assertEquals(45, msg.getWindSpeed());
+		assertEquals(12000, msg.getCeiling());
+		assertEquals(-52, msg.getTemperature());
+		assertEquals(25600, msg.getPressure());
+		assertEquals(5400, msg.getFuelFlow());
+		assertEquals(2, msg.getSimRate());
+		assertEquals(1, msg.getRestoreCount());
+		assertEquals(35, msg.getFrameRate());
+		assertEquals(4521, msg.getTXCode());
+		assertEquals(1048576, msg.getVASFree());
+		assertEquals(3, msg.getGroundOperations());
+		assertEquals(2992, msg.getAltimeter());
+		assertEquals("121.90", msg.getCOM1());
+		assertEquals("118.025", msg.getCOM2());
+		assertEquals("110.30", msg.getNAV1());
+		assertEquals("109.90", msg.getNAV2());
+		assertEquals("365", msg.getADF1());
+
+		assertEquals(FlightPhase.values()[2], msg.getPhase());
+		assertTrue(msg.isLogged());
+		assertFalse(msg.isReplay());
+		assertTrue(msg.getTXActive());
+		assertTrue(msg.getNetworkConnected());
+		assertTrue(msg.getACARSConnected());
+		assertEquals(AirspaceType.fromAltitude(34980, 35012), msg.getAirspaceType());
+
+		// Engine count is set from the flight information
+		assertEquals(0, msg.getEngineCount());
+		assertEquals(85.25, msg.getN1()[0], 0);
+		assertEquals(85.75, msg.getN1()[1], 0);
+		assertEquals(0, msg.getN1()[2], 0);
+		assertEquals(92.0, msg.getN2()[0], 0);
+		assertEquals(92.5, msg.getN2()[1], 0);
+
+		assertController(msg.getATC1(), 1234, 33.64, -84.43, "ATL_TWR");
+		assertController(msg.getATC2(), 5678, 33.9, -84.1, "ATL_APP");
+	}
+
+	public void testFlags() throws Exception {
+		Frame f = new Frame();
+		writePosition(f, 1, FLAG_REPLAY | FLAG_ATC2, new double[0], new double[0]);
+		writePosition(f, 2, FLAG_ATC1, new double[] { 20.5 }, new double[] { 55.5 });
+		writePosition(f, 3, 0, new double[] { 1, 2, 3, 4, 5, 6, 7, 8 }, new double[] { 11, 12, 13, 14, 15, 16, 17, 18 });
+		List<Message> msgs = parse(f.toByteArray());
+		assertEquals(3, msgs.size());
+
+		PositionMessage msg = (PositionMessage) msgs.get(0);
+		assertEquals(1, msg.getID());
+		assertFalse(msg.isLogged());
+		assertTrue(msg.isReplay());
+		assertFalse(msg.getTXActive());
+		assertFalse(msg.getNetworkConnected());
+		assertFalse(msg.getACARSConnected());
+		assertNull(msg.getATC1());
+		assertController(msg.getATC2(), 5678, 33.9, -84.1, "ATL_APP");
+
+		msg = (PositionMessage) msgs.get(1);
+		assertEquals(2, msg.getID());
+		assertFalse(msg.isReplay());
+		assertController(msg.getATC1(), 1234, 33.64, -84.43, "ATL_TWR");
+		assertNull(msg.getATC2());
+		assertEquals(20.5, msg.getN1()[0], 0);
+		assertEquals(55.5, msg.getN2()[0], 0);
+
+		// Extra engines are read but not stored
+		msg = (PositionMessage) msgs.get(2);
+		assertEquals(3, msg.getID());
+		assertEquals(6, msg.getN1().length);
+		assertEquals(6, msg.getN1()[5], 0);
+		assertEquals(16, msg.getN2()[5], 0);
+		assertNull(msg.getATC1());
+		assertNull(msg.getATC2());
+	}
+
+	public void testDefaults() throws Exception {
+		Frame f = new Frame();
+		PacketOutputStream out = f.start(POSITION, 9);
+		for (int x = 0; x < 14; x++)
+			out.writeInt64(0);
+		for (int x = 0; x < 28; x++)
+			out.writeInt32(0);
+
+		out.write(255);
+		out.write(0);
+		out.write(0);
+		List<Message> msgs = parse(f.toByteArray());
+		assertEquals(1, msgs.size());
+
+		PositionMessage msg = (PositionMessage) msgs.get(0);
+		assertEquals(msg.getDate(), msg.getSimTime());
+		assertEquals("122.8", msg.getCOM1());
+		assertEquals("122.8", msg.getCOM2());
+		assertEquals("109.90", msg.getNAV1());
+		assertEquals("109.90", msg.getNAV2());
+		assertNull(msg.getADF1());
+		assertEquals(FlightPhase.UNKNOWN, msg.getPhase());
+	}
+
+	public void testAckAndPing() throws Exception {
+		Frame f = new Frame();
+		f.start(ACK, 10).writeInt64(0x7FFF0000FFFFL);
+		f.start(PING, 11).writeInt64(DATE.toEpochMilli());
+		f.start(PING, 12).writeInt64(0);
+		List<Message> msgs = parse(f.toByteArray());
+		assertEquals(3, msgs.size());
+
+		AcknowledgeMessage ack = (AcknowledgeMessage) msgs.get(0);
+		assertEquals(10, ack.getID());
+		assertEquals(0x7FFF0000FFFFL, ack.getParentID());
+
+		PingMessage ping = (PingMessage) msgs.get(1);
+		assertEquals(11, ping.getID());
+		assertEquals(DATE, ping.getClientUTC());
+		assertNull(((PingMessage) msgs.get(2)).getClientUTC());
+	}
+
+	public void testUnknownRecord() throws Exception {
+		Frame f = new Frame();
+		f.start(ACK, 20).writeInt64(19);
+		f.start(99, 21).writeInt64(0);
+		f.start(ACK, 22).writeInt64(19);
+		List<Message> msgs = parse(f.toByteArray());
+		assertEquals(2, msgs.size());
+		assertTrue(msgs.get(0) instanceof AcknowledgeMessage);
+
+		ErrorMessage err = (ErrorMessage) msgs.get(1);
+		assertEquals(21, err.getID());
+		assertTrue(err.getText().contains("99"));
+	}
+
+	public void testTruncated() throws Exception {
+		Frame f = new Frame();
+		writePosition(f, 30, FLAG_ATC1 | FLAG_ATC2, new double[] { 50, 51 }, new double[] { 60, 61 });
+		f.start(ACK, 31).writeInt64(30);
+		writePosition(f, 32, FLAG_LOGGED, new double[] { 50 }, new double[] { 60 });
+		byte[] data = f.toByteArray();
+
+		// Every truncation parses the complete records, and reports an error unless it ends on a record boundary
+		for (int len = 1; len < data.length; len++) {
+			List<Message> msgs = parse(Arrays.copyOf(data, len));
+			assertFalse(msgs.isEmpty());
+			Message last = msgs.get(msgs.size() - 1);
+			assertEquals(f.isBoundary(len), !(last instanceof ErrorMessage));
+			for (int x = 0; x < (msgs.size() - 1); x++)
+				assertFalse(msgs.get(x) instanceof ErrorMessage);
+		}
+
+		assertEquals(3, parse(data).size());
+		assertTrue(parse(new byte[0]).isEmpty());
+	}
+
+	public void testFramed() throws Exception {
+		Frame f = new Frame();
+		writePosition(f, 40, FLAG_LOGGED | FLAG_ATC1, new double[] { 85, 86 }, new double[] { 90, 91 });
+		f.start(PING, 41).writeInt64(0);
+		byte[] data = f.toByteArray();
+
+		// Add the frame header, and split it across reads
+		ByteArrayOutputStream frame = new ByteArrayOutputStream();
+		try (PacketOutputStream out = new PacketOutputStream(frame)) {
+			out.writeInt32(ProtocolInfo.BINARY_MAGIC);
+			out.writeInt32(data.length);
+			out.write(data);
+		}
+
+		byte[] fd = frame.toByteArray();
+		MessageFramer mf = new MessageFramer(256);
+		mf.add(Arrays.copyOf(fd, 13));
+		assertNull(mf.next());
+		assertNull(mf.nextBinary());
+		assertFalse(mf.isMalformed());
+		mf.add(Arrays.copyOfRange(fd, 13, fd.length));
+		assertNull(mf.next());
+		byte[] payload = mf.nextBinary();
+		assertTrue(Arrays.equals(data, payload));
+
+		List<Message> msgs = parse(payload);
+		assertEquals(2, msgs.size());
+		assertTrue(((PositionMessage) msgs.get(0)).isLogged());
+		assertTrue(msgs.get(1) instanceof PingMessage);
+	}
+
+	public void testFormatAck() throws Exception {
+		AcknowledgeMessage ack = new AcknowledgeMessage(null, 0x55AA55AA55L);
+		ack.setMaxAge(2500);
+		ack.setEntry("flight_id", "123456");
+		ack.setEntry("text", "Gr\u00fc\u00dfe ]]> <&>");
+		ack.setEntry("empty", null);
+
+		ByteArrayOutputStream buf = new ByteArrayOutputStream();
+		try (PacketOutputStream out = new PacketOutputStream(buf)) {
+			assertTrue(_fmt.format(ack, out));
+			assertFalse(_fmt.format(new PingMessage(null), out));
+		}
+
+		Map<String, String> entries = new LinkedHashMap<String, String>();
+		ack.getEntries().forEach(me -> entries.put(me.getKey(), (me.getValue() == null) ? "" : me.getValue()));
+		try (PacketInputStream in = new PacketInputStream(new ByteArrayInputStream(buf.toByteArray()))) {
+			assertEquals(ACK, in.readUnsignedByte());
+			assertEquals(0x55AA55AA55L, in.readInt64());
+			assertEquals(2500, in.readInt32());
+			int cnt = in.readInt32();
+			assertEquals(entries.size(), cnt);
+			Map<String, String> results = new LinkedHashMap<String, String>();
+			for (int x = 0; x < cnt; x++)
+				results.put(in.readUTF8(), in.readUTF8());
+
+			assertEquals(entries, results);
+			assertEquals(0, in.available());
+		}
+	}
+}